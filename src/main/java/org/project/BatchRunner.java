@@ -0,0 +1,118 @@
+package org.project;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Dávkový běh jednoho programu nad mnoha vstupními záznamy.
+ * <p>
+ * Vstupní soubor má jeden záznam na řádek, hodnoty pro jednotlivé {@code read} jsou oddělené tabulátorem
+ * (v pořadí, v jakém je program čte). Záznamy se čtou po dávkách, dávky běží paralelně a každé vlákno
+ * používá jednu VM opakovaně (jen {@link Interpreter#reset(List)}). Výstup dávek se zapisuje v pořadí vstupu,
+ * rozpracovaných je najednou jen pár dávek, takže paměť nezávisí na velikosti vstupu.
+ */
+public class BatchRunner implements AutoCloseable {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1024;
+
+    private final Interpreter.Program program;
+    private final ExecutorService workers;
+    private final int threads;
+    private final int chunkSize;
+    private final ThreadLocal<Interpreter> contexts;
+
+    public BatchRunner(Interpreter.Program program, int threads) {
+        this(program, threads, DEFAULT_CHUNK_SIZE);
+    }
+
+    public BatchRunner(Interpreter.Program program, int threads, int chunkSize) {
+        if (threads < 1 || chunkSize < 1) throw new IllegalArgumentException("threads and chunkSize must be positive");
+        this.program = program;
+        this.threads = threads;
+        this.chunkSize = chunkSize;
+        this.workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "pjp-batch");
+            t.setDaemon(true);
+            return t;
+        });
+        this.contexts = ThreadLocal.withInitial(() -> {
+            Interpreter vm = new Interpreter(List.of());
+            vm.load(program);
+            return vm;
+        });
+    }
+
+    /** Zpracuje soubor záznamů a vrátí jejich počet. */
+    public long run(Path input, Writer out) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+            return run(reader, out);
+        }
+    }
+
+    public long run(BufferedReader input, Writer out) throws IOException {
+        Deque<Future<String>> inFlight = new ArrayDeque<>();
+        long records = 0;
+        List<String> chunk = new ArrayList<>(chunkSize);
+
+        for (String line; (line = input.readLine()) != null; ) {
+            chunk.add(line);
+            if (chunk.size() == chunkSize) {
+                inFlight.add(submit(chunk, records));
+                records += chunk.size();
+                chunk = new ArrayList<>(chunkSize);
+                // nejvýš dvě dávky na vlákno, ať čtení neutíká dopředu
+                while (inFlight.size() > 2 * threads) out.write(await(inFlight.poll()));
+            }
+        }
+        if (!chunk.isEmpty()) {
+            inFlight.add(submit(chunk, records));
+            records += chunk.size();
+        }
+        while (!inFlight.isEmpty()) out.write(await(inFlight.poll()));
+        out.flush();
+        return records;
+    }
+
+    private Future<String> submit(List<String> lines, long firstRecord) {
+        return workers.submit(() -> {
+            Interpreter vm = contexts.get();
+            StringWriter output = new StringWriter();
+            vm.setOutput(output);
+            for (int i = 0; i < lines.size(); i++) {
+                String line = lines.get(i);
+                vm.reset(line.isEmpty() ? List.of() : Arrays.asList(line.split("\t", -1)));
+                try {
+                    vm.run(Long.MAX_VALUE);
+                } catch (RuntimeException e) {
+                    throw new RuntimeException("Record " + (firstRecord + i + 1) + " failed: " + e.getMessage(), e);
+                }
+            }
+            return output.toString();
+        });
+    }
+
+    private String await(Future<String> chunk) throws IOException {
+        try {
+            return chunk.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Batch interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException r) throw r;
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    @Override
+    public void close() {
+        workers.shutdownNow();
+    }
+}
@@ -0,0 +1,133 @@
+package org.project;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * Profil skoků naměřený {@link Interpreter}em (viz {@link Interpreter#setProfile(BranchProfile)}).
+ * Klíčem je jméno návěští, protože to {@link CodeGenerator} přiděluje stejně při každém překladu
+ * stejného zdrojáku; indexy instrukcí se změnou rozložení posunou.
+ * <ul>
+ *   <li>{@code taken} – kolikrát skok ({@code jmp}, {@code fjmp}, {@code tjmp}) na návěští opravdu skočil,</li>
+ *   <li>{@code notTaken} – kolikrát podmíněný skok na návěští propadl dál,</li>
+ *   <li>{@code arrivals} – kolikrát se návěštím prošlo (skokem i propadnutím); frekvence bloku za ním.</li>
+ * </ul>
+ * Soubor je textový, jeden řádek na návěští: {@code jméno taken notTaken arrivals}. Profily z více běhů
+ * se sčítají ({@link #merge(BranchProfile)}).
+ */
+public final class BranchProfile {
+
+    private static final String HEADER = "# pjp branch profile v1";
+
+    private final Map<String, long[]> counts = new TreeMap<>();
+
+    public long taken(String label) {
+        return get(label, 0);
+    }
+
+    public long notTaken(String label) {
+        return get(label, 1);
+    }
+
+    public long arrivals(String label) {
+        return get(label, 2);
+    }
+
+    /** Kolikrát se celkem skočilo – míra toho, jak často program opouští přímé pořadí instrukcí. */
+    public long totalTaken() {
+        long sum = 0;
+        for (long[] c : counts.values()) sum += c[0];
+        return sum;
+    }
+
+    public boolean isEmpty() {
+        return counts.isEmpty();
+    }
+
+    private long get(String label, int index) {
+        long[] c = counts.get(label);
+        return c != null ? c[index] : 0;
+    }
+
+    void add(String label, long taken, long notTaken, long arrivals) {
+        if (taken == 0 && notTaken == 0 && arrivals == 0) return;
+        long[] c = counts.computeIfAbsent(label, l -> new long[3]);
+        c[0] += taken;
+        c[1] += notTaken;
+        c[2] += arrivals;
+    }
+
+    public void merge(BranchProfile other) {
+        other.counts.forEach((label, c) -> add(label, c[0], c[1], c[2]));
+    }
+
+    /** Zapíše profil atomicky přes dočasný soubor. */
+    public void save(Path file) throws IOException {
+        List<String> lines = new ArrayList<>(counts.size() + 1);
+        lines.add(HEADER);
+        counts.forEach((label, c) -> lines.add(label + " " + c[0] + " " + c[1] + " " + c[2]));
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(tmp, lines);
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** Načte profil; neexistující soubor je prázdný profil. */
+    public static BranchProfile load(Path file) throws IOException {
+        BranchProfile profile = new BranchProfile();
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(file);
+        } catch (NoSuchFileException e) {
+            return profile;
+        }
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            String[] parts = line.split("\\s+");
+            try {
+                if (parts.length != 4) throw new NumberFormatException("expected 4 fields");
+                profile.add(parts[0], Long.parseLong(parts[1]), Long.parseLong(parts[2]), Long.parseLong(parts[3]));
+            } catch (NumberFormatException e) {
+                throw new UncheckedIOException(new IOException("Malformed profile line " + (i + 1) + ": " + line, e));
+            }
+        }
+        return profile;
+    }
+
+    /**
+     * Čítače po instrukcích jednoho programu, které VM plní během běhu; do profilu (podle jmen návěští)
+     * se přelijí na konci {@link Interpreter#run(long)}.
+     */
+    static final class Recorder {
+        final long[] taken;
+        final long[] notTaken;
+        final long[] arrivals;
+
+        Recorder(int length) {
+            taken = new long[length];
+            notTaken = new long[length];
+            arrivals = new long[length];
+        }
+
+        /** Přičte čítače do profilu a vynuluje je. Cíle skoků a návěští se berou z {@code code}. */
+        void flushTo(BranchProfile profile, String[][] code) {
+            for (int i = 0; i < code.length; i++) {
+                String[] parts = code[i];
+                if (parts == null) continue;
+                switch (parts[0]) {
+                    case "jmp", "fjmp", "tjmp" -> profile.add(parts[1], taken[i], notTaken[i], 0);
+                    case "label" -> profile.add(parts[1], 0, 0, arrivals[i]);
+                    default -> {}
+                }
+            }
+            Arrays.fill(taken, 0);
+            Arrays.fill(notTaken, 0);
+            Arrays.fill(arrivals, 0);
+        }
+    }
+}
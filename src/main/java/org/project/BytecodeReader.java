@@ -0,0 +1,73 @@
+package org.project;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/** Čte program zakódovaný {@link BytecodeSink} a posílá jeho instrukce dál do jiného sinku. */
+public final class BytecodeReader {
+
+    private BytecodeReader() {
+    }
+
+    /** Převede bytecode zpět na textový program; cíle skoků dostanou návěští {@code B<offset>}. */
+    public static List<String> decode(ByteBuffer bytecode) {
+        List<String> program = new ArrayList<>();
+        replay(bytecode, (op, type, operand) -> program.add(op.format(type, operand)));
+        return program;
+    }
+
+    public static void replay(ByteBuffer bytecode, InstructionSink sink) {
+        ByteBuffer in = bytecode.duplicate();
+        if (in.getInt() != BytecodeSink.MAGIC) throw new RuntimeException("Not a PJP bytecode");
+
+        // první průchod: kam se skáče
+        SortedSet<Integer> targets = new TreeSet<>();
+        int start = in.position();
+        while (in.hasRemaining()) {
+            Opcode op = Opcode.values()[in.get()];
+            String type = op.typed() ? String.valueOf((char) in.get()) : null;
+            if (op.operand() == Opcode.Operand.LABEL) targets.add(in.getInt());
+            else readOperand(in, op, type);
+        }
+
+        in.position(start);
+        Iterator<Integer> nextTarget = targets.iterator();
+        int target = nextTarget.hasNext() ? nextTarget.next() : -1;
+        while (true) {
+            while (target >= 0 && target == in.position()) {
+                sink.emit(Opcode.LABEL, null, "B" + target);
+                target = nextTarget.hasNext() ? nextTarget.next() : -1;
+            }
+            if (!in.hasRemaining()) break;
+
+            Opcode op = Opcode.values()[in.get()];
+            String type = op.typed() ? String.valueOf((char) in.get()) : null;
+            String operand = op.operand() == Opcode.Operand.LABEL ? "B" + in.getInt() : readOperand(in, op, type);
+            sink.emit(op, type, operand);
+        }
+        if (target >= 0) throw new RuntimeException("Jump target outside of program: " + target);
+        sink.finish();
+    }
+
+    private static String readOperand(ByteBuffer in, Opcode op, String type) {
+        return switch (op.operand()) {
+            case NONE, LABEL -> null;
+            case NAME -> readString(in);
+            case COUNT -> String.valueOf(in.getInt());
+            case VALUE -> switch (type) {
+                case "I" -> String.valueOf(in.getInt());
+                case "F" -> String.valueOf(in.getDouble());
+                case "B" -> String.valueOf(in.get() != 0);
+                case "S" -> "\"" + readString(in) + "\"";
+                default -> throw new RuntimeException("Unknown push type: " + type);
+            };
+        };
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] text = new byte[Short.toUnsignedInt(in.getShort())];
+        in.get(text);
+        return new String(text, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,162 @@
+package org.project;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Kóduje instrukce do binárního tvaru.
+ * <p>
+ * Formát: hlavička {@link #MAGIC}, pak instrukce za sebou – bajt opkódu, u typovaných instrukcí bajt typu
+ * a operand: {@code I} jako int, {@code F} jako double, {@code B} jako bajt, řetězce a jména jako
+ * délka (short) + UTF-8, počet jako int a cíl skoku jako absolutní offset (int). {@code label} nezabírá nic.
+ * <p>
+ * Skok na návěští, které ještě nebylo definováno, se zapíše s nulou a opraví se, jakmile návěští přijde.
+ * Když výstup míří do kanálu, vyrovnávací paměť se průběžně vyprazdňuje a opravy už zapsaných skoků
+ * se provedou poziční zápisem do kanálu.
+ */
+public class BytecodeSink implements InstructionSink {
+
+    public static final int MAGIC = 0x504A4201; // "PJB" + verze
+
+    private final SeekableByteChannel channel;
+    private ByteBuffer buffer;
+    private long flushed = 0; // kolik bajtů už je v kanálu
+
+    private final Map<String, Integer> labels = new HashMap<>();
+    private final Map<String, List<Long>> fixups = new HashMap<>();
+
+    /** Celý program zůstane v paměti, viz {@link #toByteBuffer()}. */
+    public BytecodeSink() {
+        this(null, 1024);
+    }
+
+    /** Instrukce se zapisují do kanálu; v paměti je nejvýš {@code bufferSize} bajtů. */
+    public BytecodeSink(SeekableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(bufferSize).order(ByteOrder.BIG_ENDIAN);
+        buffer.putInt(MAGIC);
+    }
+
+    @Override
+    public void emit(Opcode op, String type, String operand) {
+        if (op == Opcode.LABEL) {
+            defineLabel(operand);
+            return;
+        }
+
+        byte[] text = null;
+        if (op.operand() == Opcode.Operand.NAME || (op == Opcode.PUSH && "S".equals(type))) {
+            String value = op == Opcode.PUSH ? operand.substring(1, operand.length() - 1) : operand;
+            text = value.getBytes(StandardCharsets.UTF_8);
+            if (text.length > 0xFFFF) throw new RuntimeException("Operand too long: " + value.length() + " chars");
+        }
+        ensureCapacity(2 + 8 + (text != null ? 2 + text.length : 0));
+
+        buffer.put((byte) op.ordinal());
+        if (op.typed()) buffer.put((byte) type.charAt(0));
+
+        switch (op.operand()) {
+            case NONE -> {}
+            case NAME -> putString(text);
+            case COUNT -> buffer.putInt(Integer.parseInt(operand));
+            case LABEL -> {
+                Integer target = labels.get(operand);
+                if (target == null) {
+                    fixups.computeIfAbsent(operand, k -> new ArrayList<>()).add(position());
+                    buffer.putInt(0);
+                } else {
+                    buffer.putInt(target);
+                }
+            }
+            case VALUE -> {
+                switch (type) {
+                    case "I" -> buffer.putInt(Integer.parseInt(operand));
+                    case "F" -> buffer.putDouble(Double.parseDouble(operand));
+                    case "B" -> buffer.put((byte) (Boolean.parseBoolean(operand) ? 1 : 0));
+                    case "S" -> putString(text);
+                    default -> throw new RuntimeException("Unknown push type: " + type);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void finish() {
+        if (!fixups.isEmpty()) {
+            throw new RuntimeException("Unknown label: " + fixups.keySet().iterator().next());
+        }
+        if (channel != null) flush();
+    }
+
+    /** Zakódovaný program připravený ke čtení (jen bez kanálu). */
+    public ByteBuffer toByteBuffer() {
+        if (channel != null) throw new IllegalStateException("Bytecode was written to a channel");
+        return buffer.duplicate().flip().asReadOnlyBuffer();
+    }
+
+    private void defineLabel(String label) {
+        if (labels.containsKey(label)) throw new RuntimeException("Duplicate label: " + label);
+        int target = Math.toIntExact(position());
+        labels.put(label, target);
+
+        List<Long> pending = fixups.remove(label);
+        if (pending == null) return;
+        for (long at : pending) {
+            if (at >= flushed) {
+                buffer.putInt((int) (at - flushed), target);
+            } else {
+                writeAt(at, target);
+            }
+        }
+    }
+
+    private long position() {
+        return flushed + buffer.position();
+    }
+
+    private void putString(byte[] text) {
+        buffer.putShort((short) text.length);
+        buffer.put(text);
+    }
+
+    private void ensureCapacity(int needed) {
+        if (buffer.remaining() >= needed) return;
+        if (channel != null) {
+            flush();
+            if (buffer.remaining() >= needed) return;
+        }
+        ByteBuffer bigger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + needed));
+        buffer.flip();
+        bigger.put(buffer);
+        buffer = bigger;
+    }
+
+    private void flush() {
+        buffer.flip();
+        try {
+            channel.position(flushed);
+            while (buffer.hasRemaining()) flushed += channel.write(buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.clear();
+    }
+
+    private void writeAt(long at, int target) {
+        ByteBuffer patch = ByteBuffer.allocate(4).putInt(target).flip();
+        try {
+            channel.position(at);
+            while (patch.hasRemaining()) channel.write(patch);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package org.project;
+
+import java.util.*;
+
+/**
+ * Statická kontrola programu zásobníkového stroje při načtení.
+ * <p>
+ * Pro každou dosažitelnou instrukci simuluje výšku a typy zásobníku a množinu proměnných, které jsou
+ * na všech cestách jistě přiřazené. Odmítne neznámé instrukce a návěští, chybné operandy,
+ * podtečení zásobníku, různé výšky na soutoku cest a operace nad hodnotou zjevně špatného typu.
+ * <p>
+ * Typy jsou jen hrubé (číslo / bool / řetězec): rozlišení {@code Integer} a {@code Double} se kontroluje
+ * až za běhu, protože celočíselná aritmetika VM vrací {@code Double} (viz {@link Interpreter}).
+ */
+public final class BytecodeVerifier {
+
+    private enum Type { NUM, BOOL, STR, ANY }
+
+    /** Stav před instrukcí: typy na zásobníku a typy jistě přiřazených proměnných. */
+    private record State(List<Type> stack, Map<String, Type> vars) {
+        State join(State other, int index) {
+            if (stack.size() != other.stack.size()) {
+                throw new VerificationException("Inconsistent stack height at instruction " + index
+                        + ": " + stack.size() + " vs " + other.stack.size());
+            }
+            List<Type> joinedStack = new ArrayList<>(stack.size());
+            for (int i = 0; i < stack.size(); i++) joinedStack.add(BytecodeVerifier.join(stack.get(i), other.stack.get(i)));
+            Map<String, Type> joinedVars = new HashMap<>();
+            vars.forEach((name, type) -> {
+                Type otherType = other.vars.get(name);
+                if (otherType != null) joinedVars.put(name, BytecodeVerifier.join(type, otherType));
+            });
+            return new State(joinedStack, joinedVars);
+        }
+    }
+
+    private BytecodeVerifier() {
+    }
+
+    public static VerifiedProgram verify(Interpreter.Program program) {
+        String[][] code = program.code();
+        Map<String, Integer> labels = program.labels();
+        int[] ops = new int[code.length];
+        int[] args = new int[code.length];
+        List<Object> constants = new ArrayList<>();
+        Map<String, Integer> slots = new LinkedHashMap<>();
+
+        // 1. dekódování a kontrola tvaru instrukcí
+        for (int i = 0; i < code.length; i++) {
+            String[] parts = code[i];
+            if (parts == null) {
+                ops[i] = VerifiedProgram.SKIP;
+                continue;
+            }
+            ops[i] = decode(parts, i, labels, constants, slots, args);
+        }
+
+        // 2. tok dat: výšky, typy a jistě přiřazené proměnné
+        State[] states = new State[code.length];
+        Deque<Integer> worklist = new ArrayDeque<>();
+        int maxStack = 0;
+        if (code.length > 0) {
+            states[0] = new State(List.of(), Map.of());
+            worklist.push(0);
+        }
+
+        while (!worklist.isEmpty()) {
+            int i = worklist.pop();
+            State in = states[i];
+            List<Type> stack = new ArrayList<>(in.stack);
+            Map<String, Type> vars = new HashMap<>(in.vars);
+            String[] parts = code[i];
+
+            if (parts != null) {
+                transfer(parts, i, stack, vars, ops);
+                maxStack = Math.max(maxStack, stack.size());
+            }
+            // stavy na vstupu jen ubývají, takže jednou nejisté načtení zůstane kontrolované
+            if (ops[i] == VerifiedProgram.LOAD && !in.vars.containsKey(parts[1])) {
+                ops[i] = VerifiedProgram.LOAD_CHECKED;
+            }
+
+            State out = new State(stack, vars);
+            int op = ops[i];
+            if (op == VerifiedProgram.JMP || op == VerifiedProgram.FJMP || op == VerifiedProgram.TJMP) {
+                merge(states, worklist, args[i], out);
+            }
+            if (op != VerifiedProgram.JMP && i + 1 < code.length) {
+                merge(states, worklist, i + 1, out);
+            }
+        }
+
+        return new VerifiedProgram(ops, args, constants.toArray(), slots.keySet().toArray(String[]::new), maxStack);
+    }
+
+    private static int decode(String[] parts, int i, Map<String, Integer> labels, List<Object> constants,
+                              Map<String, Integer> slots, int[] args) {
+        String op = parts[0];
+        switch (op) {
+            case "push" -> {
+                operands(parts, i, 3);
+                Object value;
+                try {
+                    value = switch (parts[1]) {
+                        case "I" -> Integer.parseInt(parts[2]);
+                        case "F" -> Double.parseDouble(parts[2]);
+                        case "B" -> Boolean.parseBoolean(parts[2]);
+                        case "S" -> {
+                            String text = parts[2];
+                            if (text.length() < 2 || !text.startsWith("\"") || !text.endsWith("\"")) {
+                                throw fail(i, parts, "string constant must be quoted");
+                            }
+                            yield text.substring(1, text.length() - 1);
+                        }
+                        default -> throw fail(i, parts, "unknown push type");
+                    };
+                } catch (NumberFormatException e) {
+                    throw fail(i, parts, "invalid constant");
+                }
+                args[i] = constants.size();
+                constants.add(value);
+                return VerifiedProgram.PUSH;
+            }
+            case "load", "save" -> {
+                operands(parts, i, 2);
+                args[i] = slots.computeIfAbsent(parts[1], k -> slots.size());
+                return op.equals("load") ? VerifiedProgram.LOAD : VerifiedProgram.SAVE;
+            }
+            case "add", "sub", "mul", "div", "lt", "gt" -> {
+                operands(parts, i, 2);
+                boolean isFloat = numericType(parts, i);
+                return switch (op) {
+                    case "add" -> isFloat ? VerifiedProgram.ADD_F : VerifiedProgram.ADD_I;
+                    case "sub" -> isFloat ? VerifiedProgram.SUB_F : VerifiedProgram.SUB_I;
+                    case "mul" -> isFloat ? VerifiedProgram.MUL_F : VerifiedProgram.MUL_I;
+                    case "div" -> isFloat ? VerifiedProgram.DIV_F : VerifiedProgram.DIV_I;
+                    case "lt" -> isFloat ? VerifiedProgram.LT_F : VerifiedProgram.LT_I;
+                    default -> isFloat ? VerifiedProgram.GT_F : VerifiedProgram.GT_I;
+                };
+            }
+            case "uminus" -> {
+                operands(parts, i, 2);
+                numericType(parts, i);
+                return VerifiedProgram.UMINUS;
+            }
+            case "eq" -> {
+                return VerifiedProgram.EQ; // typ operace VM u eq nepoužívá
+            }
+            case "mod", "concat", "and", "or", "not", "itof", "dup", "pop" -> {
+                operands(parts, i, 1);
+                return switch (op) {
+                    case "mod" -> VerifiedProgram.MOD;
+                    case "concat" -> VerifiedProgram.CONCAT;
+                    case "and" -> VerifiedProgram.AND;
+                    case "or" -> VerifiedProgram.OR;
+                    case "not" -> VerifiedProgram.NOT;
+                    case "itof" -> VerifiedProgram.ITOF;
+                    case "dup" -> VerifiedProgram.DUP;
+                    default -> VerifiedProgram.POP;
+                };
+            }
+            case "print" -> {
+                operands(parts, i, 2);
+                try {
+                    args[i] = Integer.parseInt(parts[1]);
+                } catch (NumberFormatException e) {
+                    throw fail(i, parts, "invalid value count");
+                }
+                if (args[i] < 0) throw fail(i, parts, "invalid value count");
+                return VerifiedProgram.PRINT;
+            }
+            case "read" -> {
+                operands(parts, i, 2);
+                return switch (parts[1]) {
+                    case "I" -> VerifiedProgram.READ_I;
+                    case "F" -> VerifiedProgram.READ_F;
+                    case "B" -> VerifiedProgram.READ_B;
+                    case "S" -> VerifiedProgram.READ_S;
+                    default -> throw fail(i, parts, "unknown read type");
+                };
+            }
+            case "jmp", "fjmp", "tjmp" -> {
+                operands(parts, i, 2);
+                Integer target = labels.get(parts[1]);
+                if (target == null) throw fail(i, parts, "unknown label");
+                args[i] = target;
+                return switch (op) {
+                    case "jmp" -> VerifiedProgram.JMP;
+                    case "fjmp" -> VerifiedProgram.FJMP;
+                    default -> VerifiedProgram.TJMP;
+                };
+            }
+            case "label" -> {
+                operands(parts, i, 2);
+                if (labels.get(parts[1]) != i) throw fail(i, parts, "duplicate label");
+                return VerifiedProgram.LABEL;
+            }
+            default -> throw fail(i, parts, "unknown instruction");
+        }
+    }
+
+    private static void transfer(String[] parts, int i, List<Type> stack, Map<String, Type> vars, int[] ops) {
+        switch (ops[i]) {
+            case VerifiedProgram.PUSH -> stack.add(switch (parts[1]) {
+                case "B" -> Type.BOOL;
+                case "S" -> Type.STR;
+                default -> Type.NUM;
+            });
+            case VerifiedProgram.LOAD, VerifiedProgram.LOAD_CHECKED -> stack.add(vars.getOrDefault(parts[1], Type.ANY));
+            case VerifiedProgram.SAVE -> vars.put(parts[1], pop(stack, i, parts, Type.ANY));
+            case VerifiedProgram.ADD_I, VerifiedProgram.ADD_F, VerifiedProgram.SUB_I, VerifiedProgram.SUB_F,
+                 VerifiedProgram.MUL_I, VerifiedProgram.MUL_F, VerifiedProgram.DIV_I, VerifiedProgram.DIV_F,
+                 VerifiedProgram.MOD -> binary(stack, i, parts, Type.NUM, Type.NUM);
+            case VerifiedProgram.LT_I, VerifiedProgram.LT_F, VerifiedProgram.GT_I, VerifiedProgram.GT_F ->
+                    binary(stack, i, parts, Type.NUM, Type.BOOL);
+            case VerifiedProgram.CONCAT -> binary(stack, i, parts, Type.STR, Type.STR);
+            case VerifiedProgram.AND, VerifiedProgram.OR -> binary(stack, i, parts, Type.BOOL, Type.BOOL);
+            case VerifiedProgram.EQ -> binary(stack, i, parts, Type.ANY, Type.BOOL);
+            case VerifiedProgram.UMINUS, VerifiedProgram.ITOF -> {
+                pop(stack, i, parts, Type.NUM);
+                stack.add(Type.NUM); // pokud operace doběhne, výsledek je číslo
+            }
+            case VerifiedProgram.NOT -> {
+                pop(stack, i, parts, Type.BOOL);
+                stack.add(Type.BOOL);
+            }
+            case VerifiedProgram.DUP -> {
+                Type top = pop(stack, i, parts, Type.ANY);
+                stack.add(top);
+                stack.add(top);
+            }
+            case VerifiedProgram.POP -> pop(stack, i, parts, Type.ANY);
+            case VerifiedProgram.PRINT -> {
+                for (int n = Integer.parseInt(parts[1]); n > 0; n--) pop(stack, i, parts, Type.ANY);
+            }
+            case VerifiedProgram.READ_I, VerifiedProgram.READ_F -> stack.add(Type.NUM);
+            case VerifiedProgram.READ_B -> stack.add(Type.BOOL);
+            case VerifiedProgram.READ_S -> stack.add(Type.STR);
+            case VerifiedProgram.FJMP, VerifiedProgram.TJMP -> pop(stack, i, parts, Type.BOOL);
+            default -> {} // jmp, label
+        }
+    }
+
+    private static void binary(List<Type> stack, int i, String[] parts, Type operand, Type result) {
+        pop(stack, i, parts, operand);
+        pop(stack, i, parts, operand);
+        stack.add(result);
+    }
+
+    private static Type pop(List<Type> stack, int i, String[] parts, Type expected) {
+        if (stack.isEmpty()) throw fail(i, parts, "stack underflow");
+        Type actual = stack.remove(stack.size() - 1);
+        if (expected != Type.ANY && actual != Type.ANY && actual != expected) {
+            throw fail(i, parts, "expected " + expected + " on stack, got " + actual);
+        }
+        return actual;
+    }
+
+    private static void merge(State[] states, Deque<Integer> worklist, int index, State state) {
+        State old = states[index];
+        State merged = old == null ? state : old.join(state, index);
+        if (!merged.equals(old)) {
+            states[index] = merged;
+            worklist.push(index);
+        }
+    }
+
+    private static Type join(Type a, Type b) {
+        return a == b ? a : Type.ANY;
+    }
+
+    private static void operands(String[] parts, int i, int expected) {
+        if (parts.length != expected) throw fail(i, parts, "expected " + (expected - 1) + " operand(s)");
+    }
+
+    private static boolean numericType(String[] parts, int i) {
+        return switch (parts[1]) {
+            case "I" -> false;
+            case "F" -> true;
+            default -> throw fail(i, parts, "expected type I or F");
+        };
+    }
+
+    private static VerificationException fail(int i, String[] parts, String reason) {
+        return new VerificationException("Invalid instruction " + i + " (" + String.join(" ", parts) + "): " + reason);
+    }
+}
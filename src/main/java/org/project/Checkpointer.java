@@ -0,0 +1,183 @@
+package org.project;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Průběžné ukládání stavu {@link Interpreter}u do souboru, aby šel dlouhý běh po pádu obnovit
+ * ({@link #readLatest(Path)} a {@link Interpreter#restore(Snapshot)}), třeba i na jiném stroji.
+ * <p>
+ * Soubor je log záznamů: první je úplný snímek, další nesou jen proměnné změněné od minulého záznamu
+ * (zásobník a ip jsou malé, ty se píšou vždy). Po {@code compactEvery} přírůstcích se soubor
+ * atomicky přepíše jedním úplným snímkem. Každý záznam má CRC, takže useknutý zápis při pádu
+ * se při čtení pozná a použije se poslední celý záznam.
+ * <p>
+ * Snímek vzniká jen mezi dávkami instrukcí v {@link #run(long, Duration)}, hlavní smyčka VM se nemění.
+ */
+public final class Checkpointer implements Closeable {
+
+    private static final int MAGIC = 0x504A5301; // "PJS" + verze
+    private static final byte FULL = 1;
+    private static final byte DELTA = 2;
+
+    private final Interpreter vm;
+    private final Path file;
+    private final int compactEvery;
+    private final Map<String, Object> written = new HashMap<>();
+    private FileChannel channel;
+    private int deltas;
+    private volatile boolean requested;
+
+    public Checkpointer(Interpreter vm, Path file) {
+        this(vm, file, 64);
+    }
+
+    public Checkpointer(Interpreter vm, Path file, int compactEvery) {
+        if (compactEvery < 0) throw new IllegalArgumentException("compactEvery must not be negative");
+        this.vm = vm;
+        this.file = file;
+        this.compactEvery = compactEvery;
+    }
+
+    /** Vyžádá snímek po nejbližší dávce; bezpečné volat z jiného vlákna (signál, shutdown hook). */
+    public void requestCheckpoint() {
+        requested = true;
+    }
+
+    /**
+     * Pouští VM po dávkách {@code slice} instrukcí a po uplynutí {@code interval} (nebo na vyžádání)
+     * uloží snímek. Vrátí se, když VM doběhne nebo čeká na vstup.
+     */
+    public Interpreter.Status run(long slice, Duration interval) throws IOException {
+        long next = System.nanoTime() + interval.toNanos();
+        while (true) {
+            Interpreter.Status status = vm.run(slice);
+            if (status != Interpreter.Status.YIELDED) return status;
+            if (requested || System.nanoTime() - next >= 0) {
+                checkpoint();
+                next = System.nanoTime() + interval.toNanos();
+            }
+        }
+    }
+
+    /** Uloží aktuální stav VM (nesmí právě běžet {@code run}). */
+    public void checkpoint() throws IOException {
+        requested = false;
+        Snapshot snapshot = vm.snapshot();
+        if (channel == null || deltas >= compactEvery || !snapshot.variables().keySet().containsAll(written.keySet())) {
+            writeFull(snapshot);
+        } else {
+            appendDelta(snapshot);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) channel.close();
+        channel = null;
+    }
+
+    /** Poslední celý snímek v souboru, nebo prázdno, když soubor neexistuje. */
+    public static Optional<Snapshot> readLatest(Path file) throws IOException {
+        ByteBuffer buf;
+        try {
+            buf = ByteBuffer.wrap(Files.readAllBytes(file));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+        if (buf.remaining() < 8 || buf.getInt() != MAGIC) throw new IOException("Not a snapshot file: " + file);
+        int programHash = buf.getInt();
+
+        Snapshot latest = null;
+        Map<String, Object> variables = new HashMap<>();
+        while (buf.remaining() >= 4) {
+            int length = buf.getInt();
+            if (length < 0 || buf.remaining() < length + 4) break; // useknutý záznam
+            byte[] body = new byte[length];
+            buf.get(body);
+            CRC32 crc = new CRC32();
+            crc.update(body);
+            if ((int) crc.getValue() != buf.getInt()) break;
+
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+            byte kind = in.readByte();
+            if (kind == FULL) variables.clear();
+            else if (kind != DELTA || latest == null) throw new IOException("Corrupted snapshot file: " + file);
+            int ip = in.readInt();
+            long executed = in.readLong();
+            long inputPosition = in.readLong();
+            List<Object> stack = new ArrayList<>();
+            for (int i = in.readInt(); i > 0; i--) stack.add(Snapshot.readValue(in));
+            for (int i = in.readInt(); i > 0; i--) variables.put(Snapshot.readString(in), Snapshot.readValue(in));
+            latest = new Snapshot(programHash, ip, executed, inputPosition, stack, variables);
+        }
+        return Optional.ofNullable(latest);
+    }
+
+    private void writeFull(Snapshot snapshot) throws IOException {
+        close();
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(8).putInt(MAGIC).putInt(snapshot.programHash()).flip();
+            while (header.hasRemaining()) out.write(header);
+            write(out, record(FULL, snapshot, snapshot.variables()));
+            out.force(false);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        written.clear();
+        written.putAll(snapshot.variables());
+        deltas = 0;
+        channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private void appendDelta(Snapshot snapshot) throws IOException {
+        Map<String, Object> changed = new HashMap<>();
+        snapshot.variables().forEach((name, value) -> {
+            if (!value.equals(written.get(name))) changed.put(name, value);
+        });
+        write(channel, record(DELTA, snapshot, changed));
+        channel.force(false);
+        written.putAll(changed);
+        deltas++;
+    }
+
+    private static ByteBuffer record(byte kind, Snapshot snapshot, Map<String, Object> variables) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0); // délka, doplní se níže
+        out.writeByte(kind);
+        out.writeInt(snapshot.ip());
+        out.writeLong(snapshot.executed());
+        out.writeLong(snapshot.inputPosition());
+        out.writeInt(snapshot.stack().size());
+        for (Object value : snapshot.stack()) Snapshot.writeValue(out, value);
+        out.writeInt(variables.size());
+        for (var e : variables.entrySet()) {
+            Snapshot.writeString(out, e.getKey());
+            Snapshot.writeValue(out, e.getValue());
+        }
+        out.writeInt(0); // CRC
+
+        ByteBuffer buf = ByteBuffer.wrap(bytes.toByteArray());
+        int length = buf.capacity() - 8;
+        CRC32 crc = new CRC32();
+        crc.update(buf.array(), 4, length);
+        buf.putInt(0, length);
+        buf.putInt(4 + length, (int) crc.getValue());
+        return buf;
+    }
+
+    private static void write(FileChannel out, ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) out.write(buf);
+    }
+}
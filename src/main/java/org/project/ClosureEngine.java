@@ -0,0 +1,535 @@
+package org.project;
+
+import grammar.pjplangBaseVisitor;
+import grammar.pjplangParser;
+import org.antlr.v4.runtime.tree.ParseTree;
+
+import java.io.PrintStream;
+import java.util.*;
+
+/**
+ * Alternativní výpočetní stroj: typově zkontrolovaný strom se přeloží na strom specializovaných uzlů
+ * (např. {@code IntAdd(Local, IntConst)}), které se pak přímo vyhodnocují. Odpadá generování textu,
+ * dekódování i dispatch přes {@code switch}; volání mezi uzly může HotSpot inlinovat.
+ * <p>
+ * Sémantika odpovídá kódu z {@link CodeGenerator} spuštěnému v {@link Interpreter}, včetně jeho zvláštností:
+ * celočíselná aritmetika vrací {@code Double}, {@code eq} porovnává přes {@code Objects.equals}
+ * a {@code itof}/{@code %} nad {@code Double} skončí {@code ClassCastException}.
+ * Číselné uzly proto počítají v {@code double} bez boxingu a objekt vytvoří až tam, kde na typu hodnoty záleží.
+ */
+public class ClosureEngine {
+
+    private final Queue<String> inputQueue;
+    private PrintStream out;
+
+    public ClosureEngine() {
+        this.inputQueue = null;
+    }
+
+    public ClosureEngine(List<String> inputs) {
+        this.inputQueue = new LinkedList<>(inputs);
+    }
+
+    public void setOutput(PrintStream out) {
+        this.out = out;
+    }
+
+    /** Přeložený program; lze ho spouštět opakovaně. */
+    public static final class Program {
+        private final Stmt body;
+        private final int slots;
+
+        private Program(Stmt body, int slots) {
+            this.body = body;
+            this.slots = slots;
+        }
+    }
+
+    /** Přeloží typově správný strom (po {@link TypeChecker} bez chyb). */
+    public static Program compile(ParseTree tree) {
+        NodeCompiler compiler = new NodeCompiler();
+        Stmt body = compiler.statement(tree);
+        return new Program(body, compiler.slots.size());
+    }
+
+    public void execute(ParseTree tree) {
+        execute(compile(tree));
+    }
+
+    public void execute(Program program) {
+        Frame frame = new Frame(program.slots, inputQueue, out != null ? out : System.out);
+        program.body.exec(frame);
+    }
+
+    // ======================
+    // RUNTIME
+    // ======================
+
+    private static final class Frame {
+        final Object[] slots;
+        final Queue<String> input;
+        final PrintStream out;
+
+        Frame(int slots, Queue<String> input, PrintStream out) {
+            this.slots = new Object[slots];
+            this.input = input;
+            this.out = out;
+        }
+
+        String readLine() {
+            return input != null ? Objects.requireNonNullElse(input.poll(), "") : new Scanner(System.in).nextLine();
+        }
+    }
+
+    private abstract static class Expr {
+        abstract Object eval(Frame f);
+
+        /** Číselná hodnota; u {@code int} výrazu stačí {@code (int) num(f)}, stejně jako převod v {@link Interpreter}. */
+        double num(Frame f) {
+            return ((Number) eval(f)).doubleValue();
+        }
+
+        boolean bool(Frame f) {
+            return (boolean) eval(f);
+        }
+    }
+
+    /** Výraz, jehož výsledek je vždy {@code Double} (aritmetika, itof). */
+    private abstract static class NumExpr extends Expr {
+        @Override
+        final Object eval(Frame f) {
+            return num(f);
+        }
+
+        @Override
+        abstract double num(Frame f);
+    }
+
+    private abstract static class BoolExpr extends Expr {
+        @Override
+        final Object eval(Frame f) {
+            return bool(f);
+        }
+
+        @Override
+        abstract boolean bool(Frame f);
+    }
+
+    private static final class Const extends Expr {
+        private final Object value;
+        private final double num;
+
+        Const(Object value) {
+            this.value = value;
+            this.num = value instanceof Number n ? n.doubleValue() : 0;
+        }
+
+        @Override Object eval(Frame f) { return value; }
+        @Override double num(Frame f) { return num; }
+        @Override boolean bool(Frame f) { return (boolean) value; }
+    }
+
+    private static final class Local extends Expr {
+        private final int slot;
+        private final String name;
+
+        Local(int slot, String name) {
+            this.slot = slot;
+            this.name = name;
+        }
+
+        @Override
+        Object eval(Frame f) {
+            Object val = f.slots[slot];
+            if (val == null) throw new RuntimeException("Variable not initialized: " + name);
+            return val;
+        }
+    }
+
+    private static final class IntAdd extends NumExpr {
+        private final Expr l, r;
+        IntAdd(Expr l, Expr r) { this.l = l; this.r = r; }
+        @Override double num(Frame f) { return (double) (int) l.num(f) + (int) r.num(f); }
+    }
+
+    private static final class IntSub extends NumExpr {
+        private final Expr l, r;
+        IntSub(Expr l, Expr r) { this.l = l; this.r = r; }
+        @Override double num(Frame f) { return (double) (int) l.num(f) - (int) r.num(f); }
+    }
+
+    private static final class IntMul extends NumExpr {
+        private final Expr l, r;
+        IntMul(Expr l, Expr r) { this.l = l; this.r = r; }
+        @Override double num(Frame f) { return (double) (int) l.num(f) * (int) r.num(f); }
+    }
+
+    private static final class IntDiv extends NumExpr {
+        private final Expr l, r;
+        IntDiv(Expr l, Expr r) { this.l = l; this.r = r; }
+        @Override double num(Frame f) { return (double) (int) l.num(f) / (int) r.num(f); }
+    }
+
+    private static final class FloatAdd extends NumExpr {
+        private final Expr l, r;
+        FloatAdd(Expr l, Expr r) { this.l = l; this.r = r; }
+        @Override double num(Frame f) { return l.num(f) + r.num(f); }
+    }
+
+    private static final class FloatSub extends NumExpr {
+        private final Expr l, r;
+        FloatSub(Expr l, Expr r) { this.l = l; this.r = r; }
+        @Override double num(Frame f) { return l.num(f) - r.num(f); }
+    }
+
+    private static final class FloatMul extends NumExpr {
+        private final Expr l, r;
+        FloatMul(Expr l, Expr r) { this.l = l; this.r = r; }
+        @Override double num(Frame f) { return l.num(f) * r.num(f); }
+    }
+
+    private static final class FloatDiv extends NumExpr {
+        private final Expr l, r;
+        FloatDiv(Expr l, Expr r) { this.l = l; this.r = r; }
+        @Override double num(Frame f) { return l.num(f) / r.num(f); }
+    }
+
+    private static final class Mod extends Expr {
+        private final Expr l, r;
+        Mod(Expr l, Expr r) { this.l = l; this.r = r; }
+        @Override Object eval(Frame f) { return (int) l.eval(f) % (int) r.eval(f); }
+        @Override double num(Frame f) { return (int) l.eval(f) % (int) r.eval(f); }
+    }
+
+    /** {@code itof}: jako v {@link Interpreter} funguje jen nad {@code Integer}. */
+    private static final class Itof extends NumExpr {
+        private final Expr e;
+        Itof(Expr e) { this.e = e; }
+        @Override double num(Frame f) { return (int) e.eval(f); }
+    }
+
+    private static final class Negate extends Expr {
+        private final Expr e;
+        Negate(Expr e) { this.e = e; }
+
+        @Override
+        Object eval(Frame f) {
+            Object val = e.eval(f);
+            if (val instanceof Integer i) return -i;
+            if (val instanceof Double d) return -d;
+            throw new RuntimeException("Invalid type for uminus: " + val);
+        }
+
+        @Override double num(Frame f) { return -e.num(f); }
+    }
+
+    private static final class Concat extends Expr {
+        private final Expr l, r;
+        Concat(Expr l, Expr r) { this.l = l; this.r = r; }
+        @Override Object eval(Frame f) { return (String) l.eval(f) + r.eval(f); }
+    }
+
+    private static final class IntLt extends BoolExpr {
+        private final Expr l, r;
+        IntLt(Expr l, Expr r) { this.l = l; this.r = r; }
+        @Override boolean bool(Frame f) { return (int) l.num(f) < (int) r.num(f); }
+    }
+
+    private static final class IntGt extends BoolExpr {
+        private final Expr l, r;
+        IntGt(Expr l, Expr r) { this.l = l; this.r = r; }
+        @Override boolean bool(Frame f) { return (int) l.num(f) > (int) r.num(f); }
+    }
+
+    private static final class FloatLt extends BoolExpr {
+        private final Expr l, r;
+        FloatLt(Expr l, Expr r) { this.l = l; this.r = r; }
+        @Override boolean bool(Frame f) { return l.num(f) < r.num(f); }
+    }
+
+    private static final class FloatGt extends BoolExpr {
+        private final Expr l, r;
+        FloatGt(Expr l, Expr r) { this.l = l; this.r = r; }
+        @Override boolean bool(Frame f) { return l.num(f) > r.num(f); }
+    }
+
+    private static final class Eq extends BoolExpr {
+        private final Expr l, r;
+        Eq(Expr l, Expr r) { this.l = l; this.r = r; }
+        @Override boolean bool(Frame f) { return Objects.equals(l.eval(f), r.eval(f)); }
+    }
+
+    private static final class Not extends BoolExpr {
+        private final Expr e;
+        Not(Expr e) { this.e = e; }
+        @Override boolean bool(Frame f) { return !e.bool(f); }
+    }
+
+    private static final class And extends BoolExpr {
+        private final Expr l, r;
+        And(Expr l, Expr r) { this.l = l; this.r = r; }
+        @Override boolean bool(Frame f) { return l.bool(f) && r.bool(f); }
+    }
+
+    private static final class Or extends BoolExpr {
+        private final Expr l, r;
+        Or(Expr l, Expr r) { this.l = l; this.r = r; }
+        @Override boolean bool(Frame f) { return l.bool(f) || r.bool(f); }
+    }
+
+    private static final class Ternary extends Expr {
+        private final Expr cond, then, otherwise;
+        Ternary(Expr cond, Expr then, Expr otherwise) { this.cond = cond; this.then = then; this.otherwise = otherwise; }
+        @Override Object eval(Frame f) { return cond.bool(f) ? then.eval(f) : otherwise.eval(f); }
+        @Override double num(Frame f) { return cond.bool(f) ? then.num(f) : otherwise.num(f); }
+        @Override boolean bool(Frame f) { return cond.bool(f) ? then.bool(f) : otherwise.bool(f); }
+    }
+
+    private abstract static class Stmt {
+        abstract void exec(Frame f);
+    }
+
+    private static final class Assign extends Stmt {
+        private final int slot;
+        private final Expr value;
+        Assign(int slot, Expr value) { this.slot = slot; this.value = value; }
+        @Override void exec(Frame f) { f.slots[slot] = value.eval(f); }
+    }
+
+    private static final class Discard extends Stmt {
+        private final Expr value;
+        Discard(Expr value) { this.value = value; }
+        @Override void exec(Frame f) { value.eval(f); }
+    }
+
+    private static final class Write extends Stmt {
+        private final Expr[] values;
+        Write(Expr[] values) { this.values = values; }
+
+        @Override
+        void exec(Frame f) {
+            StringBuilder sb = new StringBuilder();
+            for (Expr value : values) sb.append(value.eval(f));
+            f.out.println(sb);
+        }
+    }
+
+    private static final class Read extends Stmt {
+        private final int slot;
+        private final String type;
+        Read(int slot, String type) { this.slot = slot; this.type = type; }
+
+        @Override
+        void exec(Frame f) {
+            String input = f.readLine();
+            f.slots[slot] = switch (type) {
+                case "int" -> Integer.parseInt(input);
+                case "float" -> Double.parseDouble(input);
+                case "bool" -> Boolean.parseBoolean(input);
+                default -> input;
+            };
+        }
+    }
+
+    private static final class If extends Stmt {
+        private final Expr cond;
+        private final Stmt then, otherwise;
+        If(Expr cond, Stmt then, Stmt otherwise) { this.cond = cond; this.then = then; this.otherwise = otherwise; }
+
+        @Override
+        void exec(Frame f) {
+            if (cond.bool(f)) then.exec(f);
+            else if (otherwise != null) otherwise.exec(f);
+        }
+    }
+
+    private static final class While extends Stmt {
+        private final Expr cond;
+        private final Stmt body;
+        While(Expr cond, Stmt body) { this.cond = cond; this.body = body; }
+
+        @Override
+        void exec(Frame f) {
+            while (cond.bool(f)) body.exec(f);
+        }
+    }
+
+    private static final class Block extends Stmt {
+        private final Stmt[] body;
+        Block(Stmt[] body) { this.body = body; }
+
+        @Override
+        void exec(Frame f) {
+            for (Stmt stmt : body) stmt.exec(f);
+        }
+    }
+
+    private static final Stmt EMPTY = new Block(new Stmt[0]);
+
+    // ======================
+    // COMPILER
+    // ======================
+
+    /** Překládá strom stejně jako {@link CodeGenerator}: stejné typy operací a stejná místa s {@code itof}. */
+    private static final class NodeCompiler extends pjplangBaseVisitor<Expr> {
+        private final Map<String, String> symbolTable = new HashMap<>();
+        private final Map<String, Integer> slots = new HashMap<>();
+
+        Stmt statement(ParseTree tree) {
+            if (tree instanceof pjplangParser.ProgramContext program) {
+                return block(program.statement());
+            }
+            return statement((pjplangParser.StatementContext) tree);
+        }
+
+        private Stmt block(List<pjplangParser.StatementContext> statements) {
+            List<Stmt> body = new ArrayList<>();
+            for (var ctx : statements) {
+                Stmt stmt = statement(ctx);
+                if (stmt != EMPTY) body.add(stmt);
+            }
+            return body.size() == 1 ? body.get(0) : new Block(body.toArray(Stmt[]::new));
+        }
+
+        private Stmt statement(pjplangParser.StatementContext ctx) {
+            if (ctx.type() != null && ctx.varList() != null) {
+                String type = ctx.type().getText();
+                List<Stmt> inits = new ArrayList<>();
+                for (var id : ctx.varList().ID()) {
+                    String name = id.getText();
+                    symbolTable.put(name, type);
+                    Object initial = switch (type) {
+                        case "int" -> 0;
+                        case "float" -> 0.0;
+                        case "bool" -> false;
+                        default -> "";
+                    };
+                    inits.add(new Assign(slot(name), new Const(initial)));
+                }
+                return inits.size() == 1 ? inits.get(0) : new Block(inits.toArray(Stmt[]::new));
+            }
+
+            if (ctx.ID() != null && ctx.expression() != null) {
+                String var = ctx.ID().getText();
+                Expr value = visit(ctx.expression());
+                if ("int".equals(type(ctx.expression())) && "float".equals(symbolTable.get(var))) {
+                    value = new Itof(value);
+                }
+                return new Assign(slot(var), value);
+            }
+
+            String keyword = ctx.getStart().getText();
+            switch (keyword) {
+                case "write" -> {
+                    return new Write(ctx.exprList().expression().stream().map(this::visit).toArray(Expr[]::new));
+                }
+                case "read" -> {
+                    List<Stmt> reads = new ArrayList<>();
+                    for (var id : ctx.varList().ID()) {
+                        reads.add(new Read(slot(id.getText()), symbolTable.get(id.getText())));
+                    }
+                    return reads.size() == 1 ? reads.get(0) : new Block(reads.toArray(Stmt[]::new));
+                }
+                case "if" -> {
+                    Expr cond = visit(ctx.expression());
+                    Stmt then = statement(ctx.statement(0));
+                    Stmt otherwise = ctx.statement().size() > 1 ? statement(ctx.statement(1)) : null;
+                    return new If(cond, then, otherwise);
+                }
+                case "while" -> {
+                    return new While(visit(ctx.expression()), statement(ctx.statement(0)));
+                }
+                case "{" -> {
+                    return block(ctx.statement());
+                }
+                case ";" -> {
+                    return EMPTY;
+                }
+                default -> {
+                    return new Discard(visit(ctx.expression()));
+                }
+            }
+        }
+
+        private int slot(String name) {
+            return slots.computeIfAbsent(name, k -> slots.size());
+        }
+
+        private String type(pjplangParser.ExpressionContext ctx) {
+            return new ExpressionTypeResolver(symbolTable).visit(ctx);
+        }
+
+        @Override public Expr visitIntLit(pjplangParser.IntLitContext ctx) { return new Const(Integer.parseInt(ctx.getText())); }
+        @Override public Expr visitFloatLit(pjplangParser.FloatLitContext ctx) { return new Const(Double.parseDouble(ctx.getText())); }
+        @Override public Expr visitBoolLit(pjplangParser.BoolLitContext ctx) { return new Const(Boolean.parseBoolean(ctx.getText())); }
+        @Override public Expr visitVarExpr(pjplangParser.VarExprContext ctx) { return new Local(slot(ctx.ID().getText()), ctx.ID().getText()); }
+        @Override public Expr visitParenExpr(pjplangParser.ParenExprContext ctx) { return visit(ctx.expression()); }
+        @Override public Expr visitNotExpr(pjplangParser.NotExprContext ctx) { return new Not(visit(ctx.expression())); }
+        @Override public Expr visitUnaryMinus(pjplangParser.UnaryMinusContext ctx) { return new Negate(visit(ctx.expression())); }
+
+        @Override
+        public Expr visitStringLit(pjplangParser.StringLitContext ctx) {
+            String text = ctx.getText();
+            return new Const(text.substring(1, text.length() - 1)); // strip quotes
+        }
+
+        @Override
+        public Expr visitAndExpr(pjplangParser.AndExprContext ctx) {
+            return new And(visit(ctx.expression(0)), visit(ctx.expression(1)));
+        }
+
+        @Override
+        public Expr visitOrExpr(pjplangParser.OrExprContext ctx) {
+            return new Or(visit(ctx.expression(0)), visit(ctx.expression(1)));
+        }
+
+        @Override
+        public Expr visitTernaryExpr(pjplangParser.TernaryExprContext ctx) {
+            return new Ternary(visit(ctx.expression(0)), visit(ctx.expression(1)), visit(ctx.expression(2)));
+        }
+
+        @Override
+        public Expr visitAddSubConcat(pjplangParser.AddSubConcatContext ctx) {
+            return binary(ctx.expression(0), ctx.expression(1), ctx.op.getText());
+        }
+
+        @Override
+        public Expr visitMulDivMod(pjplangParser.MulDivModContext ctx) {
+            return binary(ctx.expression(0), ctx.expression(1), ctx.op.getText());
+        }
+
+        @Override
+        public Expr visitRelational(pjplangParser.RelationalContext ctx) {
+            return binary(ctx.expression(0), ctx.expression(1), ctx.op.getText());
+        }
+
+        @Override
+        public Expr visitEquality(pjplangParser.EqualityContext ctx) {
+            Expr eq = binary(ctx.expression(0), ctx.expression(1), "==");
+            return ctx.op.getText().equals("!=") ? new Not(eq) : eq;
+        }
+
+        private Expr binary(pjplangParser.ExpressionContext leftCtx, pjplangParser.ExpressionContext rightCtx, String op) {
+            String lType = type(leftCtx);
+            String rType = type(rightCtx);
+            Expr l = visit(leftCtx);
+            Expr r = visit(rightCtx);
+            if ("int".equals(lType) && "float".equals(rType)) l = new Itof(l);
+            if ("float".equals(lType) && "int".equals(rType)) r = new Itof(r);
+            boolean isFloat = "float".equals(lType) || "float".equals(rType);
+
+            return switch (op) {
+                case "+" -> isFloat ? new FloatAdd(l, r) : new IntAdd(l, r);
+                case "-" -> isFloat ? new FloatSub(l, r) : new IntSub(l, r);
+                case "*" -> isFloat ? new FloatMul(l, r) : new IntMul(l, r);
+                case "/" -> isFloat ? new FloatDiv(l, r) : new IntDiv(l, r);
+                case "%" -> new Mod(l, r);
+                case "." -> new Concat(l, r);
+                case "<" -> isFloat ? new FloatLt(l, r) : new IntLt(l, r);
+                case ">" -> isFloat ? new FloatGt(l, r) : new IntGt(l, r);
+                case "==" -> new Eq(l, r);
+                default -> throw new RuntimeException("Unknown operator: " + op);
+            };
+        }
+    }
+}
@@ -2,23 +2,119 @@ package org.project;
 
 import grammar.pjplangBaseVisitor;
 import grammar.pjplangParser;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ParseTree;
 
 import java.util.*;
 
 public class CodeGenerator extends pjplangBaseVisitor<Void> {
 
     private final List<String> instructions = new ArrayList<>();
+    private final InstructionSink sink;
+    /** Kam se právě generuje: {@link #sink}, nebo odložený studený blok (viz {@link #emitCold}). */
+    private InstructionSink out;
     private final Map<String, String> symbolTable = new HashMap<>();
     private int labelCounter = 0;
+    private int tempCounter = 0;
+
+    // optimalizace smyček (viz LoopOptimizer)
+    private boolean loopOptimizations = false;
+    private final Map<ParserRuleContext, String> replacements = new IdentityHashMap<>();
+    private final Map<pjplangParser.StatementContext, List<LoopOptimizer.Update>> inductionUpdates = new IdentityHashMap<>();
+
+    private int unrollFactor = 1;
+
+    // rozložení podle profilu (viz setProfile)
+    private BranchProfile profile;
+    private final List<Runnable> coldCode = new ArrayList<>();
+
+    public CodeGenerator() {
+        this.sink = (op, type, operand) -> instructions.add(op.format(type, operand));
+        this.out = sink;
+    }
+
+    /** Instrukce se posílají rovnou do {@code sink}; {@link #getInstructions()} pak zůstane prázdný. */
+    public CodeGenerator(InstructionSink sink) {
+        this.sink = sink;
+        this.out = sink;
+    }
 
     public List<String> getInstructions() {
         return instructions;
     }
 
+    /** Zapne přesun invariantních výrazů před smyčku a redukci síly u indukčních proměnných. */
+    public void enableLoopOptimizations() {
+        this.loopOptimizations = true;
+    }
+
+    /**
+     * Smyčky s počítadlem ({@code while (i < n) { ...; i = i + c; }}, viz {@link LoopOptimizer#counter})
+     * rozbalí na {@code factor} kopií těla s jednou kontrolou podmínky; zbylé iterace doběhnou v běžné smyčce.
+     */
+    public void setUnrollFactor(int factor) {
+        if (factor < 1) throw new IllegalArgumentException("Unroll factor must be at least 1: " + factor);
+        this.unrollFactor = factor;
+    }
+
+    /**
+     * Rozloží {@code if} a ternární operátor podle naměřeného profilu: častější větev propadá bez skoku,
+     * méně častá se přesune za konec programu (podmínka se případně obrátí). Návěští se přidělují ve stejném
+     * pořadí jako bez profilu, takže profil z jednoho překladu platí i pro další.
+     */
+    public void setProfile(BranchProfile profile) {
+        this.profile = profile;
+    }
+
     private String newLabel() {
         return "L" + (labelCounter++);
     }
 
+    private String newTemp() {
+        return "$t" + (tempCounter++);
+    }
+
+    private void emit(Opcode op) {
+        out.emit(op, null, null);
+    }
+
+    private void emit(Opcode op, String operand) {
+        out.emit(op, null, operand);
+    }
+
+    private void emitTyped(Opcode op, String type) {
+        out.emit(op, type, null);
+    }
+
+    private void push(String type, String value) {
+        out.emit(Opcode.PUSH, type, value);
+    }
+
+    @Override
+    public Void visitProgram(pjplangParser.ProgramContext ctx) {
+        visitChildren(ctx);
+        if (!coldCode.isEmpty()) {
+            // studené bloky leží za koncem programu, přes ně se jen skáče
+            String labelEnd = newLabel();
+            emit(Opcode.JMP, labelEnd);
+            coldCode.forEach(Runnable::run);
+            coldCode.clear();
+            emit(Opcode.LABEL, labelEnd);
+        }
+        sink.finish();
+        return null;
+    }
+
+    @Override
+    public Void visit(ParseTree tree) {
+        String temp = replacements.get(tree);
+        if (temp != null) {
+            emit(Opcode.LOAD, temp);
+            return null;
+        }
+        return super.visit(tree);
+    }
+
     private String getExpressionType(pjplangParser.ExpressionContext ctx) {
         ExpressionTypeResolver resolver = new ExpressionTypeResolver(symbolTable);
         return resolver.visit(ctx);
@@ -32,12 +128,12 @@ public class CodeGenerator extends pjplangBaseVisitor<Void> {
                 String name = id.getText();
                 symbolTable.put(name, type);
                 switch (type) {
-                    case "int" -> instructions.add("push I 0");
-                    case "float" -> instructions.add("push F 0.0");
-                    case "bool" -> instructions.add("push B false");
-                    case "string" -> instructions.add("push S \"\"");
+                    case "int" -> push("I", "0");
+                    case "float" -> push("F", "0.0");
+                    case "bool" -> push("B", "false");
+                    case "string" -> push("S", "\"\"");
                 }
-                instructions.add("save " + name);
+                emit(Opcode.SAVE, name);
             }
 
         } else if (ctx.ID() != null && ctx.expression() != null) {
@@ -48,17 +144,24 @@ public class CodeGenerator extends pjplangBaseVisitor<Void> {
             visit(ctx.expression());
 
             if ("int".equals(exprType) && "float".equals(varType)) {
-                instructions.add("itof");
+                emit(Opcode.ITOF);
             }
 
-            instructions.add("save " + var);
-            instructions.add("load " + var);
-            instructions.add("pop");
+            emit(Opcode.SAVE, var);
+            emit(Opcode.LOAD, var);
+            emit(Opcode.POP);
+
+            for (var update : inductionUpdates.getOrDefault(ctx, List.of())) {
+                emit(Opcode.LOAD, update.temp());
+                push("I", String.valueOf(update.delta()));
+                emitTyped(Opcode.ADD, "I");
+                emit(Opcode.SAVE, update.temp());
+            }
 
         } else if (ctx.getText().startsWith("write")) {
             var exprs = ctx.exprList().expression();
             for (var e : exprs) visit(e);
-            instructions.add("print " + exprs.size());
+            emit(Opcode.PRINT, String.valueOf(exprs.size()));
 
         } else if (ctx.getText().startsWith("read")) {
             for (var id : ctx.varList().ID()) {
@@ -71,43 +174,77 @@ public class CodeGenerator extends pjplangBaseVisitor<Void> {
                     case "string" -> "S";
                     default -> throw new RuntimeException("Unknown type: " + type);
                 };
-                instructions.add("read " + t);
-                instructions.add("save " + name);
+                emitTyped(Opcode.READ, t);
+                emit(Opcode.SAVE, name);
             }
 
         } else if (ctx.getText().startsWith("if")) {
             String elseLabel = newLabel();
             String endLabel = newLabel();
-
-            visit(ctx.expression());
-            instructions.add("fjmp " + elseLabel);
-            visit(ctx.statement(0));
-            if (ctx.statement().size() > 1) {
-                instructions.add("jmp " + endLabel);
-                instructions.add("label " + elseLabel);
-                visit(ctx.statement(1));
-                instructions.add("label " + endLabel);
+            boolean hasElse = ctx.statement().size() > 1;
+
+            Boolean thenHot = hotBranch(elseLabel);
+
+            if (thenHot == null || (thenHot && !hasElse)) {
+                emitCondition(ctx.expression(), elseLabel, false);
+                visit(ctx.statement(0));
+                if (hasElse) {
+                    emit(Opcode.JMP, endLabel);
+                    emit(Opcode.LABEL, elseLabel);
+                    visit(ctx.statement(1));
+                    emit(Opcode.LABEL, endLabel);
+                } else {
+                    emit(Opcode.LABEL, elseLabel);
+                }
+            } else if (thenHot) {
+                // else-větev za koncem programu, then propadá bez skoku
+                emitCondition(ctx.expression(), elseLabel, false);
+                visit(ctx.statement(0));
+                emit(Opcode.LABEL, endLabel);
+                emitCold(() -> {
+                    emit(Opcode.LABEL, elseLabel);
+                    visit(ctx.statement(1));
+                    emit(Opcode.JMP, endLabel);
+                });
             } else {
-                instructions.add("label " + elseLabel);
+                // častěji se jde mimo then-větev: podmínka se obrátí a then se přesune za konec programu
+                // návrat ze studené větve jde vždy na endLabel: nepodmíněný skok na elseLabel by profil
+                // započetl jako průchod else (viz hotBranch)
+                String thenLabel = elseLabel + "t";
+                emitCondition(ctx.expression(), thenLabel, true);
+                if (hasElse) visit(ctx.statement(1));
+                emit(Opcode.LABEL, endLabel);
+                emitCold(() -> {
+                    emit(Opcode.LABEL, thenLabel);
+                    visit(ctx.statement(0));
+                    emit(Opcode.JMP, endLabel);
+                });
             }
 
         } else if (ctx.getText().startsWith("while")) {
             String labelStart = newLabel();
-            String labelCond = newLabel();
             String labelEnd = newLabel();
 
-            instructions.add("label " + labelCond);
-            visit(ctx.expression());           // evaluate condition
-            instructions.add("fjmp " + labelEnd); // if false → jump out
-            instructions.add("label " + labelStart);
-            visit(ctx.statement(0));           // loop body
-            instructions.add("jmp " + labelCond); // back to condition
-            instructions.add("label " + labelEnd);
+            LoopOptimizer plan = loopOptimizations ? emitPreheader(ctx) : null;
+            if (unrollFactor > 1) emitUnrolled(ctx);
+
+            // rotovaná smyčka: podmínka před první iterací a pak na konci těla, jeden skok na iteraci
+            emitCondition(ctx.expression(), labelEnd, false);
+            emit(Opcode.LABEL, labelStart);
+            visit(ctx.statement(0));
+            emitCondition(ctx.expression(), labelStart, true);
+            emit(Opcode.LABEL, labelEnd);
+
+            if (plan != null) {
+                // smyčka je hotová – na její podstrom už nedržíme odkazy
+                plan.replacements.keySet().forEach(replacements::remove);
+                plan.updates.keySet().forEach(inductionUpdates::remove);
+            }
         }
 
         else if (ctx.expression() != null) {
             visit(ctx.expression());
-            instructions.add("pop");
+            emit(Opcode.POP);
 
         } else {
             visitChildren(ctx);
@@ -116,24 +253,24 @@ public class CodeGenerator extends pjplangBaseVisitor<Void> {
         return null;
     }
 
-    @Override public Void visitIntLit(pjplangParser.IntLitContext ctx) { instructions.add("push I " + ctx.getText()); return null; }
-    @Override public Void visitFloatLit(pjplangParser.FloatLitContext ctx) { instructions.add("push F " + ctx.getText()); return null; }
-    @Override public Void visitBoolLit(pjplangParser.BoolLitContext ctx) { instructions.add("push B " + ctx.getText()); return null; }
-    @Override public Void visitStringLit(pjplangParser.StringLitContext ctx) { instructions.add("push S " + ctx.getText()); return null; }
-    @Override public Void visitVarExpr(pjplangParser.VarExprContext ctx) { instructions.add("load " + ctx.ID().getText()); return null; }
+    @Override public Void visitIntLit(pjplangParser.IntLitContext ctx) { push("I", ctx.getText()); return null; }
+    @Override public Void visitFloatLit(pjplangParser.FloatLitContext ctx) { push("F", ctx.getText()); return null; }
+    @Override public Void visitBoolLit(pjplangParser.BoolLitContext ctx) { push("B", ctx.getText()); return null; }
+    @Override public Void visitStringLit(pjplangParser.StringLitContext ctx) { push("S", ctx.getText()); return null; }
+    @Override public Void visitVarExpr(pjplangParser.VarExprContext ctx) { emit(Opcode.LOAD, ctx.ID().getText()); return null; }
 
     @Override
     public Void visitUnaryMinus(pjplangParser.UnaryMinusContext ctx) {
         String type = getExpressionType(ctx.expression());
         visit(ctx.expression());
-        instructions.add("uminus " + ("float".equals(type) ? "F" : "I"));
+        emitTyped(Opcode.UMINUS, "float".equals(type) ? "F" : "I");
         return null;
     }
 
     @Override
     public Void visitNotExpr(pjplangParser.NotExprContext ctx) {
         visit(ctx.expression());
-        instructions.add("not");
+        emit(Opcode.NOT);
         return null;
     }
 
@@ -152,7 +289,7 @@ public class CodeGenerator extends pjplangBaseVisitor<Void> {
     @Override
     public Void visitEquality(pjplangParser.EqualityContext ctx) {
         handleBinary(ctx, "eq");
-        if (ctx.op.getText().equals("!=")) instructions.add("not");
+        if (ctx.op.getText().equals("!=")) emit(Opcode.NOT);
         return null;
     }
 
@@ -164,32 +301,177 @@ public class CodeGenerator extends pjplangBaseVisitor<Void> {
 
     @Override
     public Void visitAndExpr(pjplangParser.AndExprContext ctx) {
-        visit(ctx.expression(0)); visit(ctx.expression(1));
-        instructions.add("and");
+        // pravý operand se vyhodnotí jen tehdy, když levý je true
+        String labelFalse = newLabel();
+        String labelEnd = newLabel();
+        emitCondition(ctx.expression(0), labelFalse, false);
+        visit(ctx.expression(1));
+        emit(Opcode.JMP, labelEnd);
+        emit(Opcode.LABEL, labelFalse);
+        push("B", "false");
+        emit(Opcode.LABEL, labelEnd);
         return null;
     }
 
     @Override
     public Void visitOrExpr(pjplangParser.OrExprContext ctx) {
-        visit(ctx.expression(0)); visit(ctx.expression(1));
-        instructions.add("or");
+        // pravý operand se vyhodnotí jen tehdy, když levý je false
+        String labelTrue = newLabel();
+        String labelEnd = newLabel();
+        emitCondition(ctx.expression(0), labelTrue, true);
+        visit(ctx.expression(1));
+        emit(Opcode.JMP, labelEnd);
+        emit(Opcode.LABEL, labelTrue);
+        push("B", "true");
+        emit(Opcode.LABEL, labelEnd);
         return null;
     }
 
+    /**
+     * Rozbalená část smyčky: dokud platí podmínka i pro posledního z {@code unrollFactor} kroků počítadla
+     * ({@code i + (k-1)*c < n}), provede se tělo {@code k}-krát bez kontroly. Součet se počítá v aritmetice VM
+     * (double, při porovnání ořez do int), takže přetečení jen pošle zbytek do běžné smyčky.
+     */
+    private void emitUnrolled(pjplangParser.StatementContext loop) {
+        LoopOptimizer.Counter counter = LoopOptimizer.counter(loop, symbolTable);
+        if (counter == null) return;
+        long lookahead = (long) (unrollFactor - 1) * counter.step();
+        if (lookahead != (int) lookahead) return;
+
+        String labelBody = newLabel();
+        String labelRest = newLabel();
+        emitUnrolledCheck(counter, (int) lookahead, labelRest, false);
+        emit(Opcode.LABEL, labelBody);
+        for (int i = 0; i < unrollFactor; i++) visit(loop.statement(0));
+        emitUnrolledCheck(counter, (int) lookahead, labelBody, true);
+        emit(Opcode.LABEL, labelRest);
+    }
+
+    private void emitUnrolledCheck(LoopOptimizer.Counter counter, int lookahead, String target, boolean jumpIf) {
+        emit(Opcode.LOAD, counter.variable());
+        push("I", String.valueOf(lookahead));
+        emitTyped(Opcode.ADD, "I");
+        visit(counter.bound());
+        emitTyped(counter.less() ? Opcode.LT : Opcode.GT, "I");
+        emit(jumpIf ? Opcode.TJMP : Opcode.FJMP, target);
+    }
+
+    private LoopOptimizer emitPreheader(pjplangParser.StatementContext loop) {
+        LoopOptimizer plan = LoopOptimizer.analyze(loop, symbolTable, replacements, this::newTemp);
+
+        for (var hoisted : plan.hoisted) {
+            visit(hoisted.expr());
+            emit(Opcode.SAVE, hoisted.temp());
+        }
+        for (var reduced : plan.reduced) {
+            emit(Opcode.LOAD, reduced.variable());
+            push("I", String.valueOf(reduced.factor()));
+            emitTyped(Opcode.MUL, "I");
+            emit(Opcode.SAVE, reduced.temp());
+        }
+
+        replacements.putAll(plan.replacements);
+        plan.updates.forEach((stmt, updates) ->
+                inductionUpdates.computeIfAbsent(stmt, k -> new ArrayList<>()).addAll(updates));
+        return plan;
+    }
+
+    /**
+     * Vygeneruje podmíněný skok na {@code target}, pokud má výraz hodnotu {@code jumpIf}.
+     * Logické operátory se překládají přímo na skoky bez výpočtu mezivýsledku typu bool.
+     */
+    private void emitCondition(pjplangParser.ExpressionContext ctx, String target, boolean jumpIf) {
+        if (replacements.containsKey(ctx)) {
+            visit(ctx);
+            emit(jumpIf ? Opcode.TJMP : Opcode.FJMP, target);
+
+        } else if (ctx instanceof pjplangParser.ParenExprContext paren) {
+            emitCondition(paren.expression(), target, jumpIf);
+
+        } else if (ctx instanceof pjplangParser.NotExprContext not) {
+            emitCondition(not.expression(), target, !jumpIf);
+
+        } else if (ctx instanceof pjplangParser.AndExprContext and) {
+            if (jumpIf) {
+                String labelSkip = newLabel();
+                emitCondition(and.expression(0), labelSkip, false);
+                emitCondition(and.expression(1), target, true);
+                emit(Opcode.LABEL, labelSkip);
+            } else {
+                emitCondition(and.expression(0), target, false);
+                emitCondition(and.expression(1), target, false);
+            }
+
+        } else if (ctx instanceof pjplangParser.OrExprContext or) {
+            if (jumpIf) {
+                emitCondition(or.expression(0), target, true);
+                emitCondition(or.expression(1), target, true);
+            } else {
+                String labelSkip = newLabel();
+                emitCondition(or.expression(0), labelSkip, true);
+                emitCondition(or.expression(1), target, false);
+                emit(Opcode.LABEL, labelSkip);
+            }
+
+        } else {
+            visit(ctx);
+            emit(jumpIf ? Opcode.TJMP : Opcode.FJMP, target);
+        }
+    }
+
     @Override
     public Void visitTernaryExpr(pjplangParser.TernaryExprContext ctx) {
         String labelFalse = newLabel();
         String labelEnd = newLabel();
-        visit(ctx.expression(0));
-        instructions.add("fjmp " + labelFalse);
-        visit(ctx.expression(1));
-        instructions.add("jmp " + labelEnd);
-        instructions.add("label " + labelFalse);
-        visit(ctx.expression(2));
-        instructions.add("label " + labelEnd);
+        Boolean trueHot = hotBranch(labelFalse);
+        if (trueHot == null) {
+            emitCondition(ctx.expression(0), labelFalse, false);
+            visit(ctx.expression(1));
+            emit(Opcode.JMP, labelEnd);
+            emit(Opcode.LABEL, labelFalse);
+            visit(ctx.expression(2));
+        } else {
+            // častější větev propadá, druhá leží za koncem programu a skáče zpět
+            String coldLabel = trueHot ? labelFalse : labelFalse + "t";
+            emitCondition(ctx.expression(0), coldLabel, !trueHot);
+            visit(ctx.expression(trueHot ? 1 : 2));
+            emitCold(() -> {
+                emit(Opcode.LABEL, coldLabel);
+                visit(ctx.expression(trueHot ? 2 : 1));
+                emit(Opcode.JMP, labelEnd);
+            });
+        }
+        emit(Opcode.LABEL, labelEnd);
         return null;
     }
 
+    /**
+     * Která větev běžela podle profilu častěji: {@code true} then, {@code false} else, {@code null} bez
+     * rozdílu (nebo bez profilu). Skoky na {@code elseLabel} počítají průchody else, skoky na
+     * {@code elseLabel + "t"} průchody then (obrácená podmínka); propadnutí je u složené podmínky
+     * ({@code &&}, {@code ||}) jen odhad shora.
+     */
+    private Boolean hotBranch(String elseLabel) {
+        if (profile == null) return null;
+        String thenLabel = elseLabel + "t";
+        long thenCount = profile.notTaken(elseLabel) + profile.taken(thenLabel);
+        long elseCount = profile.taken(elseLabel) + profile.notTaken(thenLabel);
+        return thenCount == elseCount ? null : thenCount > elseCount;
+    }
+
+    /** Vygeneruje blok až za koncem programu (viz {@link #visitProgram}). */
+    private void emitCold(Runnable block) {
+        List<Runnable> recorded = new ArrayList<>();
+        InstructionSink previous = out;
+        out = (op, type, operand) -> recorded.add(() -> out.emit(op, type, operand));
+        try {
+            block.run();
+        } finally {
+            out = previous;
+        }
+        coldCode.add(() -> recorded.forEach(Runnable::run));
+    }
+
     @Override
     public Void visitParenExpr(pjplangParser.ParenExprContext ctx) {
         visit(ctx.expression());
@@ -203,21 +485,21 @@ public class CodeGenerator extends pjplangBaseVisitor<Void> {
         String rType = getExpressionType((pjplangParser.ExpressionContext) right);
 
         visit((pjplangParser.ExpressionContext) left);
-        if ("int".equals(lType) && "float".equals(rType)) instructions.add("itof");
+        if ("int".equals(lType) && "float".equals(rType)) emit(Opcode.ITOF);
 
         visit((pjplangParser.ExpressionContext) right);
-        if ("float".equals(lType) && "int".equals(rType)) instructions.add("itof");
+        if ("float".equals(lType) && "int".equals(rType)) emit(Opcode.ITOF);
 
         switch (op) {
-            case "+" -> instructions.add("add " + resolveMathType(lType, rType));
-            case "-" -> instructions.add("sub " + resolveMathType(lType, rType));
-            case "*" -> instructions.add("mul " + resolveMathType(lType, rType));
-            case "/" -> instructions.add("div " + resolveMathType(lType, rType));
-            case "%" -> instructions.add("mod");
-            case "." -> instructions.add("concat");
-            case "eq" -> instructions.add("eq " + resolveComparisonType(lType, rType));
-            case "lt" -> instructions.add("lt " + resolveMathType(lType, rType));
-            case "gt" -> instructions.add("gt " + resolveMathType(lType, rType));
+            case "+" -> emitTyped(Opcode.ADD, resolveMathType(lType, rType));
+            case "-" -> emitTyped(Opcode.SUB, resolveMathType(lType, rType));
+            case "*" -> emitTyped(Opcode.MUL, resolveMathType(lType, rType));
+            case "/" -> emitTyped(Opcode.DIV, resolveMathType(lType, rType));
+            case "%" -> emit(Opcode.MOD);
+            case "." -> emit(Opcode.CONCAT);
+            case "eq" -> emitTyped(Opcode.EQ, resolveComparisonType(lType, rType));
+            case "lt" -> emitTyped(Opcode.LT, resolveMathType(lType, rType));
+            case "gt" -> emitTyped(Opcode.GT, resolveMathType(lType, rType));
         }
     }
 
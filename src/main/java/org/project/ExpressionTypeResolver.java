@@ -5,6 +5,10 @@ import grammar.pjplangParser;
 
 import java.util.Map;
 
+/**
+ * Typ výrazu podle tabulky symbolů. Nedeklarovaná proměnná nebo nekompatibilní podvýraz dá {@code null},
+ * a ten se propaguje nahoru.
+ */
 public class ExpressionTypeResolver extends pjplangBaseVisitor<String> {
 
     private final Map<String, String> symbolTable;
@@ -56,6 +60,8 @@ public class ExpressionTypeResolver extends pjplangBaseVisitor<String> {
 
         if (op.equals(".")) {
             return "string";
+        } else if (left == null || right == null) {
+            return null;
         } else if (op.equals("+") || op.equals("-")) {
             if (left.equals("float") || right.equals("float")) return "float";
             return "int";
@@ -70,6 +76,7 @@ public class ExpressionTypeResolver extends pjplangBaseVisitor<String> {
         String op = ctx.op.getText();
 
         if (op.equals("%")) return "int";
+        if (left == null || right == null) return null;
         if (left.equals("float") || right.equals("float")) return "float";
         return "int";
     }
@@ -98,6 +105,7 @@ public class ExpressionTypeResolver extends pjplangBaseVisitor<String> {
     public String visitTernaryExpr(pjplangParser.TernaryExprContext ctx) {
         String thenType = visit(ctx.expression(1));
         String elseType = visit(ctx.expression(2));
+        if (thenType == null || elseType == null) return null;
         if (thenType.equals(elseType)) return thenType;
 
         // implicit int -> float
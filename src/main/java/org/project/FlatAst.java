@@ -0,0 +1,191 @@
+package org.project;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Kompaktní AST v polích primitivních typů: druh uzlu, data (index do tabulky řetězců) a seznam dětí
+ * jako souvislý úsek v jednom poli. Uzly vznikají v post-orderu, kořen ({@link #PROGRAM}) je poslední.
+ * <p>
+ * Oproti ANTLR stromu nedrží rodiče, tokeny ani token stream; literály, jména a operátory jsou
+ * internované řetězce. {@link FlatTypeChecker} doplní do {@link #type(int)} typy výrazů,
+ * ze kterých pak čte {@link FlatCodeGenerator}.
+ */
+public final class FlatAst {
+
+    // příkazy
+    public static final int PROGRAM = 0;
+    public static final int DECL = 1;       // data = typ, děti = VAR
+    public static final int ASSIGN = 2;     // data = jméno, dítě = výraz
+    public static final int EXPR_STMT = 3;
+    public static final int READ = 4;       // děti = VAR
+    public static final int WRITE = 5;      // děti = výrazy
+    public static final int IF = 6;         // podmínka, then, [else]
+    public static final int WHILE = 7;      // podmínka, tělo
+    public static final int BLOCK = 8;
+    public static final int EMPTY = 9;
+    // výrazy
+    public static final int INT_LIT = 10;   // data = text literálu
+    public static final int FLOAT_LIT = 11;
+    public static final int BOOL_LIT = 12;
+    public static final int STRING_LIT = 13; // včetně uvozovek
+    public static final int VAR = 14;       // data = jméno
+    public static final int UNARY_MINUS = 15;
+    public static final int NOT = 16;
+    public static final int BINARY = 17;    // data = operátor, děti = levý, pravý
+    public static final int TERNARY = 18;   // podmínka, then, else
+
+    // typy výrazů
+    public static final byte NO_TYPE = 0;
+    public static final byte INT = 1;
+    public static final byte FLOAT = 2;
+    public static final byte BOOL = 3;
+    public static final byte STRING = 4;
+
+    private static final String[] KIND_NAMES = {"PROGRAM", "DECL", "ASSIGN", "EXPR_STMT", "READ", "WRITE", "IF",
+            "WHILE", "BLOCK", "EMPTY", "INT_LIT", "FLOAT_LIT", "BOOL_LIT", "STRING_LIT", "VAR", "UNARY_MINUS", "NOT",
+            "BINARY", "TERNARY"};
+    private static final String[] TYPE_NAMES = {null, "int", "float", "bool", "string"};
+
+    private final int[] kinds;
+    private final int[] data;
+    private final int[] firstChild;
+    private final int[] childCount;
+    private final int[] children;
+    private final String[] strings;
+    private final byte[] types;
+    private final int root;
+
+    private FlatAst(Builder b) {
+        this.kinds = Arrays.copyOf(b.kinds, b.size);
+        this.data = Arrays.copyOf(b.data, b.size);
+        this.firstChild = Arrays.copyOf(b.firstChild, b.size);
+        this.childCount = Arrays.copyOf(b.childCount, b.size);
+        this.children = Arrays.copyOf(b.children, b.childrenSize);
+        this.strings = new String[b.strings.size()];
+        for (var e : b.strings.entrySet()) strings[e.getValue()] = e.getKey();
+        this.types = new byte[b.size];
+        this.root = b.size - 1;
+    }
+
+    public int root() {
+        return root;
+    }
+
+    public int size() {
+        return kinds.length;
+    }
+
+    public int kind(int node) {
+        return kinds[node];
+    }
+
+    /** Řetězec uzlu: jméno, text literálu, operátor nebo typ deklarace. */
+    public String text(int node) {
+        int index = data[node];
+        return index < 0 ? null : strings[index];
+    }
+
+    public int childCount(int node) {
+        return childCount[node];
+    }
+
+    public int child(int node, int i) {
+        return children[firstChild[node] + i];
+    }
+
+    public byte type(int node) {
+        return types[node];
+    }
+
+    void setType(int node, byte type) {
+        types[node] = type;
+    }
+
+    public static String typeName(byte type) {
+        return TYPE_NAMES[type];
+    }
+
+    public static byte typeCode(String name) {
+        if (name == null) return NO_TYPE;
+        return switch (name) {
+            case "int" -> INT;
+            case "float" -> FLOAT;
+            case "bool" -> BOOL;
+            case "string" -> STRING;
+            default -> throw new IllegalArgumentException("Unknown type: " + name);
+        };
+    }
+
+    /** Strom jako s-výraz, např. {@code (PROGRAM (ASSIGN:a (BINARY:+ (VAR:a) (INT_LIT:1))))}. */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        append(sb, root);
+        return sb.toString();
+    }
+
+    private void append(StringBuilder sb, int node) {
+        sb.append('(').append(KIND_NAMES[kinds[node]]);
+        String text = text(node);
+        if (text != null) sb.append(':').append(text);
+        for (int i = 0; i < childCount[node]; i++) {
+            sb.append(' ');
+            append(sb, child(node, i));
+        }
+        sb.append(')');
+    }
+
+    /** Skládá AST zdola nahoru: nejdřív děti, pak rodič s jejich indexy. */
+    public static final class Builder {
+        private int[] kinds = new int[256];
+        private int[] data = new int[256];
+        private int[] firstChild = new int[256];
+        private int[] childCount = new int[256];
+        private int[] children = new int[256];
+        private int size = 0;
+        private int childrenSize = 0;
+        private final Map<String, Integer> strings = new HashMap<>();
+
+        public int leaf(int kind, String text) {
+            return add(kind, text, EMPTY_CHILDREN, 0);
+        }
+
+        public int node(int kind, String text, int... childNodes) {
+            return add(kind, text, childNodes, childNodes.length);
+        }
+
+        /** Uzel s prvními {@code count} dětmi z {@code childNodes} (pole lze pak znovu použít). */
+        public int node(int kind, String text, int[] childNodes, int count) {
+            return add(kind, text, childNodes, count);
+        }
+
+        public FlatAst build() {
+            if (size == 0 || kinds[size - 1] != PROGRAM) throw new IllegalStateException("Last node must be PROGRAM");
+            return new FlatAst(this);
+        }
+
+        private int add(int kind, String text, int[] childNodes, int count) {
+            if (size == kinds.length) {
+                int capacity = size * 2;
+                kinds = Arrays.copyOf(kinds, capacity);
+                data = Arrays.copyOf(data, capacity);
+                firstChild = Arrays.copyOf(firstChild, capacity);
+                childCount = Arrays.copyOf(childCount, capacity);
+            }
+            if (childrenSize + count > children.length) {
+                children = Arrays.copyOf(children, Math.max(children.length * 2, childrenSize + count));
+            }
+            kinds[size] = kind;
+            data[size] = text == null ? -1 : strings.computeIfAbsent(text, k -> strings.size());
+            firstChild[size] = childrenSize;
+            childCount[size] = count;
+            System.arraycopy(childNodes, 0, children, childrenSize, count);
+            childrenSize += count;
+            return size++;
+        }
+
+        private static final int[] EMPTY_CHILDREN = new int[0];
+    }
+}
@@ -0,0 +1,142 @@
+package org.project;
+
+import grammar.pjplangLexer;
+import grammar.pjplangParser;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+/**
+ * Převod ANTLR stromu na {@link FlatAst}. Závorky mizí, z příkazů zůstane jen jejich druh a operandy.
+ * Po převodu už strom ani token stream nejsou potřeba a GC je může uvolnit.
+ * <p>
+ * Strom musí být bez syntaktických chyb; neúplný strom po zotavení parseru vyhodí {@link IllegalArgumentException}.
+ */
+public final class FlatAstLowering {
+
+    private final FlatAst.Builder builder = new FlatAst.Builder();
+    private int[] scratch = new int[16];
+
+    private FlatAstLowering() {
+    }
+
+    public static FlatAst lower(pjplangParser.ProgramContext program) {
+        FlatAstLowering lowering = new FlatAstLowering();
+        var statements = program.statement();
+        int[] nodes = new int[statements.size()];
+        for (int i = 0; i < nodes.length; i++) nodes[i] = lowering.statement(statements.get(i));
+        lowering.builder.node(FlatAst.PROGRAM, null, nodes);
+        return lowering.builder.build();
+    }
+
+    /** Naparsuje zdroj a rovnou ho převede; ANTLR strom žije jen po dobu volání. */
+    public static FlatAst parse(String source) {
+        pjplangLexer lexer = new pjplangLexer(CharStreams.fromString(source));
+        pjplangParser parser = new pjplangParser(new CommonTokenStream(lexer));
+        parser.removeErrorListeners();
+        var program = parser.program();
+        if (parser.getNumberOfSyntaxErrors() > 0) {
+            throw new IllegalArgumentException("Syntax errors: " + parser.getNumberOfSyntaxErrors());
+        }
+        return lower(program);
+    }
+
+    private int statement(pjplangParser.StatementContext ctx) {
+        if (ctx.exception != null) throw incomplete(ctx);
+        if (ctx.type() != null) {
+            return node(FlatAst.DECL, ctx.type().getText(), vars(ctx.varList()));
+        }
+        if (ctx.ID() != null) {
+            if (ctx.expression() == null) throw incomplete(ctx);
+            return builder.node(FlatAst.ASSIGN, ctx.ID().getText(), expression(ctx.expression()));
+        }
+        String first = ctx.getStart().getText();
+        switch (first) {
+            case "read":
+                return node(FlatAst.READ, null, vars(ctx.varList()));
+            case "write": {
+                var exprs = ctx.exprList().expression();
+                int[] nodes = new int[exprs.size()];
+                for (int i = 0; i < nodes.length; i++) nodes[i] = expression(exprs.get(i));
+                return builder.node(FlatAst.WRITE, null, nodes);
+            }
+            case "if": {
+                int cond = expression(ctx.expression());
+                int then = statement(ctx.statement(0));
+                if (ctx.statement().size() > 1) {
+                    return builder.node(FlatAst.IF, null, cond, then, statement(ctx.statement(1)));
+                }
+                return builder.node(FlatAst.IF, null, cond, then);
+            }
+            case "while": {
+                int cond = expression(ctx.expression());
+                return builder.node(FlatAst.WHILE, null, cond, statement(ctx.statement(0)));
+            }
+            case "{": {
+                var statements = ctx.statement();
+                int[] nodes = new int[statements.size()];
+                for (int i = 0; i < nodes.length; i++) nodes[i] = statement(statements.get(i));
+                return builder.node(FlatAst.BLOCK, null, nodes);
+            }
+            case ";":
+                return builder.leaf(FlatAst.EMPTY, null);
+            default:
+                return builder.node(FlatAst.EXPR_STMT, null, expression(ctx.expression()));
+        }
+    }
+
+    private int vars(pjplangParser.VarListContext ctx) {
+        var ids = ctx.ID();
+        if (scratch.length < ids.size()) scratch = new int[ids.size()];
+        for (int i = 0; i < ids.size(); i++) {
+            TerminalNode id = ids.get(i);
+            scratch[i] = builder.leaf(FlatAst.VAR, id.getText());
+        }
+        return ids.size();
+    }
+
+    private int node(int kind, String text, int count) {
+        return builder.node(kind, text, scratch, count);
+    }
+
+    private static IllegalArgumentException incomplete(ParserRuleContext ctx) {
+        return new IllegalArgumentException("Cannot lower incomplete parse tree at line " + ctx.getStart().getLine());
+    }
+
+    private int expression(pjplangParser.ExpressionContext ctx) {
+        if (ctx == null) throw new IllegalArgumentException("Cannot lower incomplete parse tree");
+        if (ctx.exception != null) throw incomplete(ctx);
+        if (ctx instanceof pjplangParser.ParenExprContext paren) {
+            return expression(paren.expression());
+        }
+        if (ctx instanceof pjplangParser.VarExprContext var) {
+            return builder.leaf(FlatAst.VAR, var.ID().getText());
+        }
+        if (ctx instanceof pjplangParser.LiteralExprContext lit) {
+            var literal = lit.literal();
+            int kind;
+            if (literal instanceof pjplangParser.IntLitContext) kind = FlatAst.INT_LIT;
+            else if (literal instanceof pjplangParser.FloatLitContext) kind = FlatAst.FLOAT_LIT;
+            else if (literal instanceof pjplangParser.BoolLitContext) kind = FlatAst.BOOL_LIT;
+            else kind = FlatAst.STRING_LIT;
+            return builder.leaf(kind, literal.getText());
+        }
+        if (ctx instanceof pjplangParser.UnaryMinusContext minus) {
+            return builder.node(FlatAst.UNARY_MINUS, null, expression(minus.expression()));
+        }
+        if (ctx instanceof pjplangParser.NotExprContext not) {
+            return builder.node(FlatAst.NOT, null, expression(not.expression()));
+        }
+        if (ctx instanceof pjplangParser.TernaryExprContext ternary) {
+            int cond = expression(ternary.expression(0));
+            int then = expression(ternary.expression(1));
+            return builder.node(FlatAst.TERNARY, null, cond, then, expression(ternary.expression(2)));
+        }
+        // binární operátory mají operátor vždy jako prostřední dítě
+        if (ctx.getChildCount() != 3) throw incomplete(ctx);
+        int left = expression((pjplangParser.ExpressionContext) ctx.getChild(0));
+        int right = expression((pjplangParser.ExpressionContext) ctx.getChild(2));
+        return builder.node(FlatAst.BINARY, ctx.getChild(1).getText(), left, right);
+    }
+}
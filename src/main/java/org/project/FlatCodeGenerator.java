@@ -0,0 +1,249 @@
+package org.project;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.project.FlatAst.*;
+
+/**
+ * Generátor kódu nad {@link FlatAst} otypovaným pomocí {@link FlatTypeChecker}. Vydává stejné instrukce
+ * a stejná návěští jako {@link CodeGenerator} bez optimalizací smyček; typy operandů čte z AST
+ * místo opakovaného procházení podstromů.
+ */
+public class FlatCodeGenerator {
+
+    private final List<String> instructions = new ArrayList<>();
+    private final InstructionSink sink;
+    private FlatAst ast;
+    private int labelCounter = 0;
+
+    public FlatCodeGenerator() {
+        this.sink = (op, type, operand) -> instructions.add(op.format(type, operand));
+    }
+
+    /** Instrukce se posílají rovnou do {@code sink}; {@link #getInstructions()} pak zůstane prázdný. */
+    public FlatCodeGenerator(InstructionSink sink) {
+        this.sink = sink;
+    }
+
+    public List<String> getInstructions() {
+        return instructions;
+    }
+
+    public void generate(FlatAst ast) {
+        this.ast = ast;
+        int root = ast.root();
+        for (int i = 0; i < ast.childCount(root); i++) statement(ast.child(root, i));
+        sink.finish();
+    }
+
+    private String newLabel() {
+        return "L" + (labelCounter++);
+    }
+
+    private void emit(Opcode op) {
+        sink.emit(op, null, null);
+    }
+
+    private void emit(Opcode op, String operand) {
+        sink.emit(op, null, operand);
+    }
+
+    private void emitTyped(Opcode op, String type) {
+        sink.emit(op, type, null);
+    }
+
+    private void push(String type, String value) {
+        sink.emit(Opcode.PUSH, type, value);
+    }
+
+    private static String code(byte type) {
+        return switch (type) {
+            case INT -> "I";
+            case FLOAT -> "F";
+            case BOOL -> "B";
+            case STRING -> "S";
+            default -> throw new RuntimeException("Unknown type: " + typeName(type));
+        };
+    }
+
+    private void statement(int node) {
+        switch (ast.kind(node)) {
+            case DECL -> {
+                String type = ast.text(node);
+                for (int i = 0; i < ast.childCount(node); i++) {
+                    switch (type) {
+                        case "int" -> push("I", "0");
+                        case "float" -> push("F", "0.0");
+                        case "bool" -> push("B", "false");
+                        case "string" -> push("S", "\"\"");
+                    }
+                    emit(Opcode.SAVE, ast.text(ast.child(node, i)));
+                }
+            }
+            case ASSIGN -> {
+                String var = ast.text(node);
+                int expr = ast.child(node, 0);
+                expression(expr);
+                if (ast.type(expr) == INT && ast.type(node) == FLOAT) emit(Opcode.ITOF);
+                emit(Opcode.SAVE, var);
+                emit(Opcode.LOAD, var);
+                emit(Opcode.POP);
+            }
+            case WRITE -> {
+                for (int i = 0; i < ast.childCount(node); i++) expression(ast.child(node, i));
+                emit(Opcode.PRINT, String.valueOf(ast.childCount(node)));
+            }
+            case READ -> {
+                for (int i = 0; i < ast.childCount(node); i++) {
+                    int var = ast.child(node, i);
+                    emitTyped(Opcode.READ, code(ast.type(var)));
+                    emit(Opcode.SAVE, ast.text(var));
+                }
+            }
+            case IF -> {
+                String elseLabel = newLabel();
+                String endLabel = newLabel();
+                condition(ast.child(node, 0), elseLabel, false);
+                statement(ast.child(node, 1));
+                if (ast.childCount(node) > 2) {
+                    emit(Opcode.JMP, endLabel);
+                    emit(Opcode.LABEL, elseLabel);
+                    statement(ast.child(node, 2));
+                    emit(Opcode.LABEL, endLabel);
+                } else {
+                    emit(Opcode.LABEL, elseLabel);
+                }
+            }
+            case WHILE -> {
+                String labelStart = newLabel();
+                String labelEnd = newLabel();
+                condition(ast.child(node, 0), labelEnd, false);
+                emit(Opcode.LABEL, labelStart);
+                statement(ast.child(node, 1));
+                condition(ast.child(node, 0), labelStart, true);
+                emit(Opcode.LABEL, labelEnd);
+            }
+            case EXPR_STMT -> {
+                expression(ast.child(node, 0));
+                emit(Opcode.POP);
+            }
+            case BLOCK -> {
+                for (int i = 0; i < ast.childCount(node); i++) statement(ast.child(node, i));
+            }
+            default -> {
+            }
+        }
+    }
+
+    private void expression(int node) {
+        switch (ast.kind(node)) {
+            case INT_LIT -> push("I", ast.text(node));
+            case FLOAT_LIT -> push("F", ast.text(node));
+            case BOOL_LIT -> push("B", ast.text(node));
+            case STRING_LIT -> push("S", ast.text(node));
+            case VAR -> emit(Opcode.LOAD, ast.text(node));
+            case UNARY_MINUS -> {
+                int operand = ast.child(node, 0);
+                expression(operand);
+                emitTyped(Opcode.UMINUS, ast.type(operand) == FLOAT ? "F" : "I");
+            }
+            case NOT -> {
+                expression(ast.child(node, 0));
+                emit(Opcode.NOT);
+            }
+            case TERNARY -> {
+                String labelFalse = newLabel();
+                String labelEnd = newLabel();
+                condition(ast.child(node, 0), labelFalse, false);
+                expression(ast.child(node, 1));
+                emit(Opcode.JMP, labelEnd);
+                emit(Opcode.LABEL, labelFalse);
+                expression(ast.child(node, 2));
+                emit(Opcode.LABEL, labelEnd);
+            }
+            case BINARY -> binary(node);
+            default -> throw new IllegalStateException("Not an expression: " + ast.kind(node));
+        }
+    }
+
+    private void binary(int node) {
+        String op = ast.text(node);
+        int left = ast.child(node, 0);
+        int right = ast.child(node, 1);
+
+        if (op.equals("&&") || op.equals("||")) {
+            // pravý operand se vyhodnotí jen tehdy, když levý výsledek ještě nerozhodl
+            boolean isAnd = op.equals("&&");
+            String labelShort = newLabel();
+            String labelEnd = newLabel();
+            condition(left, labelShort, !isAnd);
+            expression(right);
+            emit(Opcode.JMP, labelEnd);
+            emit(Opcode.LABEL, labelShort);
+            push("B", isAnd ? "false" : "true");
+            emit(Opcode.LABEL, labelEnd);
+            return;
+        }
+
+        byte lType = ast.type(left);
+        byte rType = ast.type(right);
+        expression(left);
+        if (lType == INT && rType == FLOAT) emit(Opcode.ITOF);
+        expression(right);
+        if (lType == FLOAT && rType == INT) emit(Opcode.ITOF);
+
+        String math = lType == FLOAT || rType == FLOAT ? "F" : "I";
+        switch (op) {
+            case "+" -> emitTyped(Opcode.ADD, math);
+            case "-" -> emitTyped(Opcode.SUB, math);
+            case "*" -> emitTyped(Opcode.MUL, math);
+            case "/" -> emitTyped(Opcode.DIV, math);
+            case "%" -> emit(Opcode.MOD);
+            case "." -> emit(Opcode.CONCAT);
+            case "<" -> emitTyped(Opcode.LT, math);
+            case ">" -> emitTyped(Opcode.GT, math);
+            case "==", "!=" -> {
+                emitTyped(Opcode.EQ, lType == STRING || rType == STRING ? "S" : math);
+                if (op.equals("!=")) emit(Opcode.NOT);
+            }
+            default -> throw new IllegalStateException("Unknown operator: " + op);
+        }
+    }
+
+    /** Podmíněný skok na {@code target}, pokud má výraz hodnotu {@code jumpIf} (viz CodeGenerator). */
+    private void condition(int node, String target, boolean jumpIf) {
+        int kind = ast.kind(node);
+        String op = kind == BINARY ? ast.text(node) : null;
+
+        if (kind == NOT) {
+            condition(ast.child(node, 0), target, !jumpIf);
+
+        } else if ("&&".equals(op)) {
+            if (jumpIf) {
+                String labelSkip = newLabel();
+                condition(ast.child(node, 0), labelSkip, false);
+                condition(ast.child(node, 1), target, true);
+                emit(Opcode.LABEL, labelSkip);
+            } else {
+                condition(ast.child(node, 0), target, false);
+                condition(ast.child(node, 1), target, false);
+            }
+
+        } else if ("||".equals(op)) {
+            if (jumpIf) {
+                condition(ast.child(node, 0), target, true);
+                condition(ast.child(node, 1), target, true);
+            } else {
+                String labelSkip = newLabel();
+                condition(ast.child(node, 0), labelSkip, true);
+                condition(ast.child(node, 1), target, false);
+                emit(Opcode.LABEL, labelSkip);
+            }
+
+        } else {
+            expression(node);
+            emit(jumpIf ? Opcode.TJMP : Opcode.FJMP, target);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package org.project;
+
+import java.util.*;
+
+import static org.project.FlatAst.*;
+
+/**
+ * Typová kontrola nad {@link FlatAst} se stejnými chybami (text i pořadí) jako {@link TypeChecker}.
+ * Typy výrazů zapisuje do AST; u ASSIGN a proměnných v READ ukládá typ cílové proměnné.
+ */
+public class FlatTypeChecker {
+
+    private final Map<String, Byte> symbolTable = new HashMap<>();
+    private final List<String> errors = new ArrayList<>();
+    private FlatAst ast;
+
+    public boolean hasErrors() {
+        return !errors.isEmpty();
+    }
+
+    public List<String> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    public void check(FlatAst ast) {
+        this.ast = ast;
+        int root = ast.root();
+        for (int i = 0; i < ast.childCount(root); i++) statement(ast.child(root, i));
+    }
+
+    private void statement(int node) {
+        switch (ast.kind(node)) {
+            case DECL -> {
+                byte type = typeCode(ast.text(node));
+                for (int i = 0; i < ast.childCount(node); i++) {
+                    int var = ast.child(node, i);
+                    String name = ast.text(var);
+                    if (symbolTable.putIfAbsent(name, type) != null) {
+                        errors.add("Variable already declared: " + name);
+                    }
+                }
+            }
+            case ASSIGN -> {
+                String name = ast.text(node);
+                Byte varType = symbolTable.get(name);
+                if (varType == null) {
+                    errors.add("Undeclared variable: " + name);
+                    return;
+                }
+                ast.setType(node, varType);
+                byte exprType = expression(ast.child(node, 0));
+                if (exprType == NO_TYPE) return;
+                if (varType != exprType && !(varType == FLOAT && exprType == INT)) {
+                    errors.add("Cannot assign " + typeName(exprType) + " to variable " + name + " of type " + typeName(varType));
+                }
+            }
+            case IF, WHILE -> {
+                byte condType = expression(ast.child(node, 0));
+                if (condType != BOOL) {
+                    String keyword = ast.kind(node) == IF ? "if" : "while";
+                    errors.add("Condition in '" + keyword + "' must be bool, got: " + typeName(condType));
+                }
+                for (int i = 1; i < ast.childCount(node); i++) statement(ast.child(node, i));
+            }
+            case READ -> {
+                // TypeChecker proměnné v read nekontroluje, jen si poznamenáme jejich typ
+                for (int i = 0; i < ast.childCount(node); i++) {
+                    int var = ast.child(node, i);
+                    Byte type = symbolTable.get(ast.text(var));
+                    if (type != null) ast.setType(var, type);
+                }
+            }
+            case WRITE, EXPR_STMT -> {
+                for (int i = 0; i < ast.childCount(node); i++) expression(ast.child(node, i));
+            }
+            case BLOCK -> {
+                for (int i = 0; i < ast.childCount(node); i++) statement(ast.child(node, i));
+            }
+            default -> {
+            }
+        }
+    }
+
+    private byte expression(int node) {
+        byte type = check(node);
+        ast.setType(node, type);
+        return type;
+    }
+
+    private byte check(int node) {
+        switch (ast.kind(node)) {
+            case INT_LIT:
+                return INT;
+            case FLOAT_LIT:
+                return FLOAT;
+            case BOOL_LIT:
+                return BOOL;
+            case STRING_LIT:
+                return STRING;
+            case VAR: {
+                Byte type = symbolTable.get(ast.text(node));
+                if (type == null) {
+                    errors.add("Undeclared variable used: " + ast.text(node));
+                    return NO_TYPE;
+                }
+                return type;
+            }
+            case UNARY_MINUS: {
+                byte type = expression(ast.child(node, 0));
+                if (type == NO_TYPE) return NO_TYPE;
+                if (type == INT || type == FLOAT) return type;
+                errors.add("Unary minus is only applicable to int or float, not " + typeName(type));
+                return NO_TYPE;
+            }
+            case NOT: {
+                byte type = expression(ast.child(node, 0));
+                if (type == NO_TYPE) return NO_TYPE;
+                if (type != BOOL) {
+                    errors.add("Logical NOT (!) requires boolean, got: " + typeName(type));
+                    return NO_TYPE;
+                }
+                return BOOL;
+            }
+            case TERNARY: {
+                byte cond = expression(ast.child(node, 0));
+                byte thenType = expression(ast.child(node, 1));
+                byte elseType = expression(ast.child(node, 2));
+                if (cond == NO_TYPE || thenType == NO_TYPE || elseType == NO_TYPE) return NO_TYPE;
+                if (cond != BOOL) {
+                    errors.add("Condition in ternary expression must be bool, got: " + typeName(cond));
+                }
+                if (thenType == elseType) return thenType;
+                if (isNumeric(thenType) && isNumeric(elseType)) return FLOAT;
+                errors.add("Ternary branches must be of compatible types, got: " + typeName(thenType) + ", " + typeName(elseType));
+                return NO_TYPE;
+            }
+            case BINARY:
+                return binary(node);
+            default:
+                throw new IllegalStateException("Not an expression: " + ast.kind(node));
+        }
+    }
+
+    private byte binary(int node) {
+        byte left = expression(ast.child(node, 0));
+        byte right = expression(ast.child(node, 1));
+        String op = ast.text(node);
+        if (left == NO_TYPE || right == NO_TYPE) return NO_TYPE;
+        String l = typeName(left), r = typeName(right);
+
+        switch (op) {
+            case ".":
+                if (left == STRING && right == STRING) return STRING;
+                errors.add("Operator '" + op + "' not valid for types: " + l + ", " + r);
+                return NO_TYPE;
+            case "+", "-":
+                if (isNumeric(left) && isNumeric(right)) return left == INT && right == INT ? INT : FLOAT;
+                errors.add("Operator '" + op + "' not valid for types: " + l + ", " + r);
+                return NO_TYPE;
+            case "%":
+                if (left == INT && right == INT) return INT;
+                errors.add("Modulo requires two integers");
+                return NO_TYPE;
+            case "*", "/":
+                if (isNumeric(left) && isNumeric(right)) return left == INT && right == INT ? INT : FLOAT;
+                errors.add("Invalid operand types for '" + op + "': " + l + ", " + r);
+                return NO_TYPE;
+            case "<", ">":
+                if (isNumeric(left) && isNumeric(right)) return BOOL;
+                errors.add("Relational operators require int or float, got: " + l + ", " + r);
+                return NO_TYPE;
+            case "==", "!=":
+                if (left == right || (isNumeric(left) && isNumeric(right))) return BOOL;
+                errors.add("Equality check requires compatible types, got: " + l + ", " + r);
+                return NO_TYPE;
+            case "&&", "||":
+                if (left == BOOL && right == BOOL) return BOOL;
+                errors.add("Operator '" + op + "' requires bool operands, got: " + l + ", " + r);
+                return NO_TYPE;
+            default:
+                throw new IllegalStateException("Unknown operator: " + op);
+        }
+    }
+
+    private static boolean isNumeric(byte type) {
+        return type == INT || type == FLOAT;
+    }
+}
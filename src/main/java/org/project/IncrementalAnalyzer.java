@@ -0,0 +1,266 @@
+package org.project;
+
+import grammar.pjplangLexer;
+import grammar.pjplangParser;
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+import java.util.*;
+
+/**
+ * Inkrementální analýza pro editor: drží text rozdělený na příkazy nejvyšší úrovně (segmenty)
+ * a po úpravě znovu parsuje jen řádky, kterých se úprava týká. Když oblast nejde samostatně
+ * naparsovat (např. neuzavřený řetězec), udělá se celá analýza znovu.
+ * <p>
+ * Typová kontrola příkazu závisí jen na typech jmen, která příkaz používá nebo deklaruje (tabulka
+ * symbolů je jedna pro celý program). Každý segment si pamatuje tyto vstupy, své chyby a deklarace;
+ * při průchodu se znovu kontrolují jen nové segmenty a ty, kterým se vstupy změnily.
+ * <p>
+ * Diagnostiky jsou stejné jako u celého běhu ({@link #analyze(String)}): syntaktické chyby,
+ * a když žádné nejsou, chyby z {@link TypeChecker}u.
+ */
+public final class IncrementalAnalyzer {
+
+    private String text;
+    private List<Segment> segments;          // null = text má syntaktické chyby
+    private List<String> diagnostics;
+    private int reparsedStatements;
+    private int recheckedStatements;
+
+    public IncrementalAnalyzer(String text) {
+        this.text = text;
+        fullAnalysis();
+    }
+
+    /** Referenční celý běh: parser a pak typová kontrola celého textu. */
+    public static List<String> analyze(String text) {
+        List<String> syntaxErrors = new ArrayList<>();
+        pjplangParser.ProgramContext program = parse(text, syntaxErrors);
+        if (!syntaxErrors.isEmpty()) return syntaxErrors;
+        TypeChecker checker = new TypeChecker();
+        checker.visit(program);
+        return checker.getErrors();
+    }
+
+    public String text() {
+        return text;
+    }
+
+    public List<String> diagnostics() {
+        return diagnostics;
+    }
+
+    /** Počet příkazů naparsovaných při poslední úpravě. */
+    public int reparsedStatements() {
+        return reparsedStatements;
+    }
+
+    /** Počet příkazů znovu typově zkontrolovaných při poslední úpravě. */
+    public int recheckedStatements() {
+        return recheckedStatements;
+    }
+
+    /** Nahradí {@code removed} znaků od {@code offset} textem {@code inserted} a vrátí nové diagnostiky. */
+    public List<String> edit(int offset, int removed, String inserted) {
+        if (offset < 0 || removed < 0 || offset + removed > text.length()) {
+            throw new IndexOutOfBoundsException("Edit " + offset + "+" + removed + " outside text of length " + text.length());
+        }
+        String oldText = text;
+        text = oldText.substring(0, offset) + inserted + oldText.substring(offset + removed);
+        if (segments == null || !reparse(oldText, offset, removed, inserted.length())) {
+            fullAnalysis();
+        }
+        return diagnostics;
+    }
+
+    // ======================
+    // PARSOVÁNÍ
+    // ======================
+
+    private void fullAnalysis() {
+        List<String> syntaxErrors = new ArrayList<>();
+        segments = parseSegments(text, 0, syntaxErrors);
+        if (segments == null) {
+            diagnostics = Collections.unmodifiableList(syntaxErrors);
+            reparsedStatements = 0;
+            recheckedStatements = 0;
+        } else {
+            reparsedStatements = segments.size();
+            check();
+        }
+    }
+
+    /** Znovu naparsuje jen dotčené řádky; {@code false}, když to nejde a je nutná celá analýza. */
+    private boolean reparse(String oldText, int offset, int removed, int insertedLength) {
+        // ANTLR počítá pozice v code pointech, segmenty v indexech String – u náhradních párů se neshodují
+        if (text.length() != text.codePointCount(0, text.length())) return false;
+
+        // oblast ve starém textu: úprava + sousední segmenty, rozšířená na celé řádky
+        int start = offset;
+        int end = offset + removed;
+        int first, last;
+        while (true) {
+            int lineStart = oldText.lastIndexOf('\n', start - 1) + 1;
+            int lineEnd = oldText.indexOf('\n', end);
+            if (lineEnd < 0) lineEnd = oldText.length();
+            first = firstTouching(lineStart);
+            last = lastTouching(lineEnd);
+            int newStart = first <= last ? Math.min(lineStart, segments.get(first).start) : lineStart;
+            int newEnd = first <= last ? Math.max(lineEnd, segments.get(last).end) : lineEnd;
+            if (newStart == start && newEnd == end) break;
+            start = newStart;
+            end = newEnd;
+        }
+
+        int delta = insertedLength - removed;
+        List<Segment> replacement = parseSegments(text.substring(start, end + delta), start, new ArrayList<>());
+        if (replacement == null) return false;
+
+        for (int i = last + 1; i < segments.size(); i++) segments.get(i).shift(delta);
+        List<Segment> updated = new ArrayList<>(segments.size() - (last - first + 1) + replacement.size());
+        updated.addAll(segments.subList(0, first));
+        updated.addAll(replacement);
+        updated.addAll(segments.subList(last + 1, segments.size()));
+        segments = updated;
+        reparsedStatements = replacement.size();
+        check();
+        return true;
+    }
+
+    /** Index prvního segmentu, který končí na {@code position} nebo za ní. */
+    private int firstTouching(int position) {
+        int lo = 0, hi = segments.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (segments.get(mid).end < position) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /** Index posledního segmentu, který začíná na {@code position} nebo před ní. */
+    private int lastTouching(int position) {
+        int lo = 0, hi = segments.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (segments.get(mid).start <= position) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo - 1;
+    }
+
+    /** Segmenty textu posunuté o {@code base}, nebo {@code null} při syntaktické chybě (ta je v {@code errors}). */
+    private static List<Segment> parseSegments(String source, int base, List<String> errors) {
+        pjplangParser.ProgramContext program = parse(source, errors);
+        if (!errors.isEmpty()) return null;
+        List<Segment> result = new ArrayList<>(program.statement().size());
+        for (var statement : program.statement()) {
+            result.add(new Segment(statement, base + statement.getStart().getStartIndex(),
+                    base + statement.getStop().getStopIndex() + 1));
+        }
+        return result;
+    }
+
+    private static pjplangParser.ProgramContext parse(String source, List<String> errors) {
+        BaseErrorListener listener = new BaseErrorListener() {
+            @Override
+            public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                                    int charPositionInLine, String msg, RecognitionException e) {
+                errors.add("line " + line + ":" + charPositionInLine + " " + msg);
+            }
+        };
+        pjplangLexer lexer = new pjplangLexer(CharStreams.fromString(source));
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(listener);
+        pjplangParser parser = new pjplangParser(new CommonTokenStream(lexer));
+        parser.removeErrorListeners();
+        parser.addErrorListener(listener);
+        return parser.program();
+    }
+
+    // ======================
+    // TYPOVÁ KONTROLA
+    // ======================
+
+    private void check() {
+        Map<String, String> table = new HashMap<>();
+        List<String> errors = new ArrayList<>();
+        int rechecked = 0;
+        for (Segment segment : segments) {
+            if (!segment.upToDate(table)) {
+                segment.check(table);
+                rechecked++;
+            }
+            table.putAll(segment.declared);
+            errors.addAll(segment.errors);
+        }
+        recheckedStatements = rechecked;
+        diagnostics = Collections.unmodifiableList(errors);
+    }
+
+    /** Příkaz nejvyšší úrovně s pozicí v textu a výsledkem poslední kontroly. */
+    private static final class Segment {
+        final pjplangParser.StatementContext tree;
+        final Set<String> names = new HashSet<>();
+        int start;
+        int end;
+
+        // poslední kontrola: typy jmen před příkazem (null = nedeklarováno), chyby a nové deklarace
+        Map<String, String> inputs;
+        List<String> errors = List.of();
+        Map<String, String> declared = Map.of();
+
+        Segment(pjplangParser.StatementContext tree, int start, int end) {
+            this.tree = tree;
+            this.start = start;
+            this.end = end;
+            collectNames(tree);
+        }
+
+        void shift(int delta) {
+            start += delta;
+            end += delta;
+        }
+
+        boolean upToDate(Map<String, String> table) {
+            if (inputs == null) return false;
+            for (String name : names) {
+                if (!Objects.equals(inputs.get(name), table.get(name))) return false;
+            }
+            return true;
+        }
+
+        void check(Map<String, String> table) {
+            inputs = new HashMap<>();
+            for (String name : names) inputs.put(name, table.get(name));
+
+            Map<String, String> added = new HashMap<>();
+            TypeChecker checker = new TypeChecker() {
+                @Override
+                protected String lookup(Token use) {
+                    String type = added.get(use.getText());
+                    return type != null ? type : table.get(use.getText());
+                }
+
+                @Override
+                protected boolean declare(Token id, String type) {
+                    if (lookup(id) != null) return false;
+                    added.put(id.getText(), type);
+                    return true;
+                }
+            };
+            checker.visit(tree);
+            errors = List.copyOf(checker.getErrors());
+            declared = Map.copyOf(added);
+        }
+
+        private void collectNames(ParseTree node) {
+            if (node instanceof TerminalNode terminal) {
+                if (terminal.getSymbol().getType() == pjplangLexer.ID) names.add(terminal.getText());
+                return;
+            }
+            for (int i = 0; i < node.getChildCount(); i++) collectNames(node.getChild(i));
+        }
+    }
+}
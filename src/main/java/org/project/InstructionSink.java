@@ -0,0 +1,29 @@
+package org.project;
+
+/**
+ * Cíl, do kterého {@link CodeGenerator} posílá instrukce hned při průchodu stromem.
+ * Návěští jsou jména; sink, který kóduje skoky na adresy, si je musí doplnit sám (back-patching).
+ */
+public interface InstructionSink {
+
+    /**
+     * @param type    typ instrukce ({@code I}, {@code F}, {@code B}, {@code S}) nebo {@code null}
+     * @param operand hodnota, jméno proměnné, počet nebo návěští podle {@link Opcode#operand()}; jinak {@code null}
+     */
+    void emit(Opcode op, String type, String operand);
+
+    /** Zavolá se po poslední instrukci programu. */
+    default void finish() {
+    }
+
+    /** Sink, který instrukce zapisuje jako text, jeden řádek na instrukci. */
+    static InstructionSink text(Appendable out) {
+        return (op, type, operand) -> {
+            try {
+                out.append(op.format(type, operand)).append('\n');
+            } catch (java.io.IOException e) {
+                throw new java.io.UncheckedIOException(e);
+            }
+        };
+    }
+}
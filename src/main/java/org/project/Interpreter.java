@@ -1,53 +1,393 @@
 package org.project;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
 
 public class Interpreter {
 
+    /** Stav, ve kterém se VM zastavila po volání {@link #run(long)}. */
+    public enum Status {
+        /** Vyčerpán rozpočet instrukcí, program lze dál pouštět. */
+        YIELDED,
+        /** Instrukce {@code read} nemá k dispozici vstup – VM čeká na {@link #provideInput(String)}. */
+        WAITING_FOR_INPUT,
+        /** Program doběhl. */
+        HALTED
+    }
+
     private final Deque<Object> stack = new ArrayDeque<>();
     private final Map<String, Object> memory = new HashMap<>();
-    private final Map<String, Integer> labels = new HashMap<>();
-    private final List<String> instructions = new ArrayList<>();
+    private Map<String, Integer> labels = Map.of();
     private final Queue<String> inputQueue;
+    private BufferedReader stdin; // jen když inputQueue == null
+    private String[][] code = new String[0][];
+    private VerifiedProgram verified;
+    private volatile boolean inputClosed;
+    private Consumer<String> out;
     private int ip = 0;
+    private long executed = 0;
+    private long inputPosition = 0;
+    private int programHash = Arrays.deepHashCode(code);
+    private int maxStackDepth = 0;
     private boolean debug = false;
 
+    // limity a účtování paměti (viz setMemoryLimit)
+    private long memoryLimit = Long.MAX_VALUE;
+    private int stackLimit = Integer.MAX_VALUE;
+    private long heldBytes = 0;
+    private long allocatedBytes = 0;
+    private long measureAt = MEASURE_STEP;
+    private long peakMemory = 0;
+    private long reservedBytes = 0; // rychlá cesta si předem účtuje celý svůj zásobník
+
+    private static final long MEASURE_STEP = 64 * 1024;
+    private static final int SLOT_BYTES = 8;
+    private static final int NUMBER_BYTES = 16;
+
+    // profil skoků (viz setProfile)
+    private BranchProfile profile;
+    private BranchProfile.Recorder recorder;
+
+    // záznam běhu (viz setRecording)
+    private RunRecording recording;
+
     public void enableDebug() {
         this.debug = true;
     }
 
+    /**
+     * Zapne měření skoků a průchodů návěštími; čítače se na konci každého {@link #run(long)} přičtou
+     * do {@code profile}. {@code null} měření vypne.
+     */
+    public void setProfile(BranchProfile profile) {
+        this.profile = profile;
+        this.recorder = profile != null ? new BranchProfile.Recorder(code.length) : null;
+    }
+
+    /**
+     * Zapíše do {@code recording} každý přečtený vstup, výstup a čítače běhu, aby šel běh zopakovat
+     * ({@link ReplayRunner}). {@code null} záznam vypne.
+     */
+    public void setRecording(RunRecording recording) {
+        this.recording = recording;
+    }
+
+    /**
+     * Omezí paměť držených hodnot (řetězce, čísla, zásobník) na {@code bytes}; při překročení skončí běh
+     * s {@link ResourceLimitException}. Velikost je odhad shora: řetězec 40 B + 2 B na znak, číslo 16 B,
+     * slot zásobníku 8 B. Průběžně se počítají alokující instrukce ({@code concat}, {@code read},
+     * {@code push} řetězce) a růst zásobníku; rychlá cesta si na začátku účtuje celou svou statickou hloubku
+     * zásobníku. Skutečně držená paměť se přepočítá, až by součet mohl limit překročit, a na konci každého
+     * {@link #run(long)}.
+     */
+    public void setMemoryLimit(long bytes) {
+        if (bytes <= 0) throw new IllegalArgumentException("Memory limit must be positive");
+        this.memoryLimit = bytes;
+        this.measureAt = Math.min(measureAt, bytes);
+    }
+
+    /** Omezí hloubku zásobníku; při překročení skončí běh s {@link ResourceLimitException}. */
+    public void setStackLimit(int depth) {
+        if (depth <= 0) throw new IllegalArgumentException("Stack limit must be positive");
+        this.stackLimit = depth;
+    }
+
+    /** Nejvyšší naměřená paměť držených hodnot od vytvoření VM nebo od {@link #reset(List)} (odhad, viz {@link #setMemoryLimit(long)}). */
+    public long getPeakMemoryBytes() {
+        return peakMemory;
+    }
+
     public Interpreter() {
         this.inputQueue = null;
+        this.inputClosed = true;
     }
 
     public Interpreter(List<String> inputs) {
         this.inputQueue = new LinkedList<>(inputs);
+        this.inputClosed = true;
+    }
+
+    private Interpreter(Queue<String> inputQueue) {
+        this.inputQueue = inputQueue;
+        this.inputClosed = false;
+    }
+
+    /**
+     * Vytvoří VM, jejíž vstup se dodává průběžně přes {@link #provideInput(String)}.
+     * Když {@code read} nemá vstup, {@link #run(long)} vrátí {@link Status#WAITING_FOR_INPUT} místo blokování.
+     */
+    public static Interpreter withOpenInput() {
+        return new Interpreter(new ConcurrentLinkedQueue<>());
+    }
+
+    /** Přesměruje výstup instrukce {@code print} (výchozí je {@code System.out}). */
+    public void setOutput(PrintStream out) {
+        this.out = out::println;
+    }
+
+    /** Každý vypsaný řádek (bez konce řádku) předá {@code lines}. */
+    void setOutput(Consumer<String> lines) {
+        this.out = lines;
+    }
+
+    /** Výstup do {@code Writer}; zápisy se nevyprazdňují, to je na volajícím. */
+    public void setOutput(Writer writer) {
+        this.out = line -> {
+            try {
+                writer.write(line);
+                writer.write(System.lineSeparator());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    public void provideInput(String line) {
+        if (inputQueue == null) throw new IllegalStateException("Interpreter reads from stdin");
+        inputQueue.add(line);
+    }
+
+    /**
+     * Připraví VM na nový běh načteného programu: vymaže paměť, zásobník a čítač instrukcí
+     * a nahradí vstup hodnotami {@code inputs}. Program ani výstup se nemění.
+     */
+    public void reset(List<String> inputs) {
+        if (inputQueue == null) throw new IllegalStateException("Interpreter reads from stdin");
+        memory.clear();
+        stack.clear();
+        inputQueue.clear();
+        inputQueue.addAll(inputs);
+        ip = 0;
+        executed = 0;
+        inputPosition = 0;
+        heldBytes = 0;
+        allocatedBytes = 0;
+        peakMemory = 0;
+        measureAt = Math.min(MEASURE_STEP, memoryLimit);
+    }
+
+    /** Po uzavření vstupu čte {@code read} prázdný řetězec, stejně jako u předem daného seznamu vstupů. */
+    public void closeInput() {
+        inputClosed = true;
+    }
+
+    public boolean hasPendingInput() {
+        return inputQueue == null || inputClosed || !inputQueue.isEmpty();
+    }
+
+    public boolean isHalted() {
+        return ip >= code.length;
+    }
+
+    public long getExecutedInstructions() {
+        return executed;
+    }
+
+    /** Největší hloubka zásobníku od vytvoření VM. */
+    public int getMaxStackDepth() {
+        return maxStackDepth;
+    }
+
+    /** Aktuální hodnoty proměnných (jen pro čtení). */
+    public Map<String, Object> getVariables() {
+        return Collections.unmodifiableMap(memory);
     }
 
     public void execute(Path filePath) throws IOException {
-        instructions.addAll(Files.readAllLines(filePath));
-
-        // Label pass
-        for (int i = 0; i < instructions.size(); i++) {
-            String line = instructions.get(i).trim();
-            if (line.startsWith("label ")) {
-                String label = line.split("\\s+")[1].trim();
-                labels.put(label, i);
+        load(Files.readAllLines(filePath));
+        run(Long.MAX_VALUE);
+    }
+
+    /** Načte program, dekóduje instrukce a najde návěští. Stav VM (paměť, zásobník) se nemaže. */
+    public void load(List<String> program) {
+        Telemetry.LoadEvent event = new Telemetry.LoadEvent();
+        event.begin();
+        install(Program.decode(program));
+        event.instructionCount = program.size();
+        event.commit();
+    }
+
+    /** Načte už dekódovaný program. Stav VM (paměť, zásobník) se nemaže. */
+    public void load(Program program) {
+        Telemetry.LoadEvent event = new Telemetry.LoadEvent();
+        event.begin();
+        install(program);
+        event.instructionCount = program.code().length;
+        event.commit();
+    }
+
+    private void install(Program program) {
+        code = program.code();
+        labels = program.labels();
+        verified = program.verified();
+        programHash = Arrays.deepHashCode(code);
+        ip = 0;
+        if (profile != null) recorder = new BranchProfile.Recorder(code.length);
+    }
+
+    /**
+     * Zachytí stav VM mezi dvěma voláními {@link #run(long)}: ip, zásobník, proměnné a počet přečtených vstupů.
+     * Snímek patří k načtenému programu (viz {@link Snapshot#programHash()}).
+     */
+    public Snapshot snapshot() {
+        List<Object> values = new ArrayList<>(stack.size());
+        stack.descendingIterator().forEachRemaining(values::add);
+        return new Snapshot(programHash, ip, executed, inputPosition, values, memory);
+    }
+
+    /**
+     * Obnoví stav ze snímku. Musí být načtený stejný program a vstup od začátku (stejný jako v původním běhu);
+     * už přečtené vstupy se přeskočí – ze seznamu i ze standardního vstupu (ten musí být znovu přesměrovaný
+     * stejný soubor, řádky se z něj přečtou a zahodí).
+     */
+    public void restore(Snapshot snapshot) {
+        if (snapshot.programHash() != programHash) {
+            throw new IllegalStateException("Snapshot was taken from a different program");
+        }
+        memory.clear();
+        memory.putAll(snapshot.variables());
+        stack.clear();
+        snapshot.stack().forEach(stack::push);
+        ip = snapshot.ip();
+        executed = snapshot.executed();
+        for (long i = inputPosition; i < snapshot.inputPosition(); i++) {
+            if ((inputQueue != null ? inputQueue.poll() : stdinLine()) == null) break;
+        }
+        inputPosition = snapshot.inputPosition();
+        measure(memory.values(), stack);
+    }
+
+    /** Poběží načtený program po rychlé cestě (prošel {@link BytecodeVerifier}em)? */
+    public boolean isVerified() {
+        return verified != null && !debug;
+    }
+
+    /**
+     * Sink, který instrukce od {@link CodeGenerator} dekóduje rovnou do této VM bez mezikroku přes text.
+     * Program se nahraje (jako {@link #load(List)}) při {@link InstructionSink#finish()}.
+     */
+    public InstructionSink programSink() {
+        return new Program.Builder() {
+            @Override
+            public void finish() {
+                load(build());
             }
+        };
+    }
+
+    /**
+     * Dekódovaný program: instrukce rozložené na části a pozice návěští.
+     * VM ho jen čte, takže jednu instanci může sdílet více VM (např. cache přeložených skriptů).
+     * {@code verified} je výsledek {@link BytecodeVerifier}u, nebo {@code null}, když program neprošel –
+     * takový program běží po kontrolované cestě a chyby se projeví až při provádění jako dřív.
+     */
+    public record Program(String[][] code, Map<String, Integer> labels, VerifiedProgram verified) {
+
+        public static Program decode(List<String> lines) {
+            String[][] code = StackHeightAnalysis.decode(lines);
+            return of(code, StackHeightAnalysis.labels(code));
+        }
+
+        /**
+         * Stejný program, který na rychlé cestě použije superinstrukce vybrané podle {@code profile}
+         * (viz {@link Superinstructions}). Neověřený program se vrátí beze změny.
+         */
+        public Program withProfile(BranchProfile profile) {
+            if (verified == null) return this;
+            return new Program(code, labels, verified.withFused(Superinstructions.select(code, verified, profile)));
         }
 
+        static Program of(String[][] code, Map<String, Integer> labels) {
+            VerifiedProgram verified;
+            try {
+                verified = BytecodeVerifier.verify(new Program(code, labels, null));
+            } catch (VerificationException e) {
+                verified = null;
+            }
+            return new Program(code, labels, verified);
+        }
+
+        /** Sestaví program přímo z instrukcí generátoru. */
+        public static class Builder implements InstructionSink {
+            private final List<String[]> rows = new ArrayList<>();
+            private final Map<String, Integer> labels = new HashMap<>();
+
+            @Override
+            public void emit(Opcode op, String type, String operand) {
+                List<String> parts = new ArrayList<>(3);
+                parts.add(op.mnemonic());
+                if (type != null) parts.add(type);
+                if (operand != null) parts.add(operand);
+                if (op == Opcode.LABEL) labels.put(operand, rows.size());
+                rows.add(parts.toArray(String[]::new));
+            }
+
+            public Program build() {
+                return of(rows.toArray(String[][]::new), Map.copyOf(labels));
+            }
+        }
+    }
+
+    /**
+     * Provede nejvýše {@code maxInstructions} instrukcí a vrátí se.
+     * Opakovaným voláním lze program pouštět po částech (plánovač, rozpočty).
+     */
+    public Status run(long maxInstructions) {
+        Telemetry.ExecuteEvent event = new Telemetry.ExecuteEvent();
+        event.begin();
+        long executedBefore = executed;
+        long startNanos = recording != null ? System.nanoTime() : 0;
+        Status status = null;
+        try {
+            // rychlá cesta nekontroluje hloubku zásobníku, jen když se do limitu vejde i staticky
+            boolean fast = isVerified() && stack.size() + verified.maxStack <= stackLimit;
+            status = fast ? runVerified(maxInstructions) : runLoop(maxInstructions);
+            measure(memory.values(), stack);
+            return status;
+        } finally {
+            event.instructionsExecuted = executed - executedBefore;
+            event.maxStackDepth = maxStackDepth;
+            event.peakMemoryBytes = peakMemory;
+            event.status = status != null ? status.name() : "FAILED";
+            event.commit();
+            if (recorder != null) recorder.flushTo(profile, code);
+            if (recording != null) {
+                recording.ran(programHash, isVerified(), executed - executedBefore, System.nanoTime() - startNanos,
+                        event.status);
+            }
+        }
+    }
+
+    private Status runLoop(long maxInstructions) {
+        long budget = maxInstructions;
+
         // Execution loop
-        while (ip < instructions.size()) {
-            String line = instructions.get(ip++).trim();
-            if (line.isEmpty() || line.startsWith("//")) continue;
+        while (ip < code.length) {
+            String[] parts = code[ip];
+            if (parts == null) {
+                ip++;
+                continue;
+            }
+            if (budget-- <= 0) return Status.YIELDED;
 
-            debugPrint("Executing: " + line);
+            String op = parts[0];
+            if (op.equals("read") && !hasPendingInput()) {
+                return Status.WAITING_FOR_INPUT;
+            }
 
-            String[] parts = line.split("\\s+", 3);
-            String op = parts[0].trim();
+            ip++;
+            executed++;
+            int depth = stack.size();
+            if (debug) debugPrint("Executing: " + String.join(" ", parts));
 
             switch (op) {
                 case "push" -> {
@@ -57,7 +397,7 @@ public class Interpreter {
                         case "I" -> Integer.parseInt(value);
                         case "F" -> Double.parseDouble(value);
                         case "B" -> Boolean.parseBoolean(value);
-                        case "S" -> value.substring(1, value.length() - 1); // strip quotes
+                        case "S" -> allocated(value.substring(1, value.length() - 1)); // strip quotes
                         default -> throw new RuntimeException("Unknown push type: " + type);
                     });
                 }
@@ -88,7 +428,7 @@ public class Interpreter {
                 case "concat" -> {
                     String b = (String) stack.pop();
                     String a = (String) stack.pop();
-                    stack.push(a + b);
+                    stack.push(allocated(a + b));
                 }
                 case "and" -> {
                     boolean b = (boolean) stack.pop();
@@ -124,28 +464,306 @@ public class Interpreter {
                     Collections.reverse(values);
                     String output = values.stream().map(Object::toString).reduce((a, b) -> a + b).orElse("");
                     debugPrint("Output: " + output); // ← přidáno
-                    System.out.println(output);
+                    if (recording != null) recording.output(output);
+                    if (out != null) out.accept(output);
+                    else System.out.println(output);
                 }
                 case "read" -> {
                     String type = parts[1];
-                    String input = inputQueue != null ? Objects.requireNonNullElse(inputQueue.poll(), "") : new Scanner(System.in).nextLine();
+                    String input = nextInput();
                     stack.push(switch (type) {
                         case "I" -> Integer.parseInt(input);
                         case "F" -> Double.parseDouble(input);
                         case "B" -> Boolean.parseBoolean(input);
-                        case "S" -> input;
+                        case "S" -> allocated(input);
                         default -> throw new RuntimeException("Unknown read type: " + type);
                     });
                 }
-                case "jmp" -> ip = labels.get(parts[1]);
-                case "fjmp" -> {
+                case "jmp" -> {
+                    if (recorder != null) recorder.taken[ip - 1]++;
+                    ip = labelIndex(parts[1]);
+                }
+                case "fjmp", "tjmp" -> {
                     boolean cond = (boolean) stack.pop();
-                    if (!cond) ip = labels.get(parts[1]);
+                    boolean jump = op.equals("fjmp") != cond;
+                    if (recorder != null) (jump ? recorder.taken : recorder.notTaken)[ip - 1]++;
+                    if (jump) ip = labelIndex(parts[1]);
+                }
+                case "label" -> {
+                    if (recorder != null) recorder.arrivals[ip - 1]++;
                 }
-                case "label" -> {} // skip
                 default -> throw new RuntimeException("Unknown instruction: " + op);
             }
+            // instrukce přidá nejvýš jednu hodnotu; řetězce už započetl allocated(), tady jen slot a číslo
+            if (stack.size() > depth && heldBytes + (allocatedBytes += slotSize(stack.peek())) > measureAt) {
+                measure(memory.values(), stack);
+            }
+            if (stack.size() > maxStackDepth) maxStackDepth = stack.size();
+            if (stack.size() > stackLimit) {
+                throw new ResourceLimitException("Stack depth limit exceeded: " + stack.size() + " > " + stackLimit);
+            }
         }
+        return Status.HALTED;
+    }
+
+    /**
+     * Rychlá cesta pro ověřený program: předdekódované operace, proměnné ve slotech, zásobník jako pole
+     * předem spočtené velikosti. Skoky, operandy ani výšky zásobníku se nekontrolují, to udělal verifikátor;
+     * přetypování hodnot zůstává, takže chyby za běhu (např. itof nad Double) jsou stejné jako u {@link #runLoop}.
+     * Paměť a zásobník VM se na začátku převezmou a na konci vrátí, stav mezi voláními je tedy společný.
+     */
+    private Status runVerified(long maxInstructions) {
+        VerifiedProgram program = verified;
+        int[] ops = program.ops;
+        int[] args = program.args;
+        int[] fused = program.fused;
+        Object[] constants = program.constants;
+        BranchProfile.Recorder rec = recorder;
+
+        Object[] vars = new Object[program.variables.length];
+        for (int i = 0; i < vars.length; i++) vars[i] = memory.get(program.variables[i]);
+
+        int base = stack.size();
+        Object[] st = new Object[base + program.maxStack];
+        int sp = 0;
+        for (Iterator<Object> it = stack.descendingIterator(); it.hasNext(); ) st[sp++] = it.next();
+        maxStackDepth = Math.max(maxStackDepth, base + program.maxStack);
+        // zásobník rychlé cesty nemůže přerůst maxStack, proto se účtuje celý hned na začátku
+        reservedBytes = (long) program.maxStack * (SLOT_BYTES + NUMBER_BYTES);
+
+        int pc = ip;
+        long budget = maxInstructions;
+        long count = executed;
+        Status status = Status.HALTED;
+        try {
+            measure(vars, st, sp);
+            while (pc < ops.length) {
+                int op = ops[pc];
+                if (op == VerifiedProgram.SKIP) {
+                    pc++;
+                    continue;
+                }
+                if (budget-- <= 0) {
+                    status = Status.YIELDED;
+                    break;
+                }
+                if (op >= VerifiedProgram.READ_I && op <= VerifiedProgram.READ_S && !hasPendingInput()) {
+                    status = Status.WAITING_FOR_INPUT;
+                    break;
+                }
+
+                int arg = args[pc];
+                if (fused != null && fused[pc] != 0 && budget >= VerifiedProgram.fusedLength(fused[pc]) - 1) {
+                    // superinstrukce: několik instrukcí jedním průchodem smyčkou, počty jako po jedné
+                    int next = arg;
+                    int second = args[pc + 1];
+                    int length = VerifiedProgram.fusedLength(fused[pc]);
+                    switch (fused[pc]) {
+                        case VerifiedProgram.SAVE_DISCARD -> vars[next] = st[--sp];
+                        case VerifiedProgram.LOAD_LOAD -> { st[sp++] = vars[next]; st[sp++] = vars[second]; }
+                        case VerifiedProgram.LOAD_PUSH -> { st[sp++] = vars[next]; st[sp++] = constants[second]; }
+                        case VerifiedProgram.LT_I_FJMP, VerifiedProgram.GT_I_FJMP -> {
+                            pc++;
+                            count++;
+                            sp--;
+                            boolean cond = fused[pc - 1] == VerifiedProgram.LT_I_FJMP
+                                    ? toInt(st[sp - 1]) < toInt(st[sp])
+                                    : toInt(st[sp - 1]) > toInt(st[sp]);
+                            st[sp] = null;
+                            st[--sp] = null;
+                            if (rec != null) (cond ? rec.notTaken : rec.taken)[pc]++;
+                            pc = cond ? pc + 1 : second;
+                            count++;
+                            budget--;
+                            continue;
+                        }
+                        default -> throw new IllegalStateException("Unknown superinstruction " + fused[pc]);
+                    }
+                    pc += length;
+                    count += length;
+                    budget -= length - 1;
+                    continue;
+                }
+                pc++;
+                count++;
+
+                switch (op) {
+                    case VerifiedProgram.LABEL -> {
+                        if (rec != null) rec.arrivals[pc - 1]++;
+                    }
+                    case VerifiedProgram.PUSH -> st[sp++] = constants[arg];
+                    case VerifiedProgram.LOAD -> st[sp++] = vars[arg];
+                    case VerifiedProgram.LOAD_CHECKED -> {
+                        Object val = vars[arg];
+                        if (val == null) throw new RuntimeException("Variable not initialized: " + program.variables[arg]);
+                        st[sp++] = val;
+                    }
+                    case VerifiedProgram.SAVE -> vars[arg] = st[--sp];
+                    case VerifiedProgram.ADD_I -> { sp--; st[sp - 1] = (double) toInt(st[sp - 1]) + toInt(st[sp]); }
+                    case VerifiedProgram.ADD_F -> { sp--; st[sp - 1] = toDouble(st[sp - 1]) + toDouble(st[sp]); }
+                    case VerifiedProgram.SUB_I -> { sp--; st[sp - 1] = (double) toInt(st[sp - 1]) - toInt(st[sp]); }
+                    case VerifiedProgram.SUB_F -> { sp--; st[sp - 1] = toDouble(st[sp - 1]) - toDouble(st[sp]); }
+                    case VerifiedProgram.MUL_I -> { sp--; st[sp - 1] = (double) toInt(st[sp - 1]) * toInt(st[sp]); }
+                    case VerifiedProgram.MUL_F -> { sp--; st[sp - 1] = toDouble(st[sp - 1]) * toDouble(st[sp]); }
+                    case VerifiedProgram.DIV_I -> { sp--; st[sp - 1] = (double) toInt(st[sp - 1]) / toInt(st[sp]); }
+                    case VerifiedProgram.DIV_F -> { sp--; st[sp - 1] = toDouble(st[sp - 1]) / toDouble(st[sp]); }
+                    case VerifiedProgram.MOD -> {
+                        int b = (int) st[--sp];
+                        int a = (int) st[sp - 1];
+                        st[sp - 1] = a % b;
+                    }
+                    case VerifiedProgram.UMINUS -> {
+                        Object val = st[sp - 1];
+                        if (val instanceof Integer i) st[sp - 1] = -i;
+                        else if (val instanceof Double d) st[sp - 1] = -d;
+                        else throw new RuntimeException("Invalid type for uminus: " + val);
+                    }
+                    case VerifiedProgram.CONCAT -> {
+                        sp--;
+                        String result = (String) st[sp - 1] + (String) st[sp];
+                        st[sp - 1] = result;
+                        if (heldBytes + (allocatedBytes += sizeOf(result)) > measureAt) measure(vars, st, sp);
+                    }
+                    case VerifiedProgram.AND -> { sp--; st[sp - 1] = (boolean) st[sp - 1] & (boolean) st[sp]; }
+                    case VerifiedProgram.OR -> { sp--; st[sp - 1] = (boolean) st[sp - 1] | (boolean) st[sp]; }
+                    case VerifiedProgram.NOT -> st[sp - 1] = !(boolean) st[sp - 1];
+                    case VerifiedProgram.LT_I -> { sp--; st[sp - 1] = toInt(st[sp - 1]) < toInt(st[sp]); }
+                    case VerifiedProgram.LT_F -> { sp--; st[sp - 1] = toDouble(st[sp - 1]) < toDouble(st[sp]); }
+                    case VerifiedProgram.GT_I -> { sp--; st[sp - 1] = toInt(st[sp - 1]) > toInt(st[sp]); }
+                    case VerifiedProgram.GT_F -> { sp--; st[sp - 1] = toDouble(st[sp - 1]) > toDouble(st[sp]); }
+                    case VerifiedProgram.EQ -> { sp--; st[sp - 1] = Objects.equals(st[sp - 1], st[sp]); }
+                    case VerifiedProgram.ITOF -> st[sp - 1] = (double) (int) st[sp - 1];
+                    case VerifiedProgram.DUP -> { st[sp] = st[sp - 1]; sp++; }
+                    case VerifiedProgram.POP -> st[--sp] = null;
+                    case VerifiedProgram.PRINT -> {
+                        StringBuilder sb = new StringBuilder();
+                        for (int i = sp - arg; i < sp; i++) {
+                            sb.append(st[i]);
+                            st[i] = null;
+                        }
+                        sp -= arg;
+                        String line = sb.toString();
+                        if (recording != null) recording.output(line);
+                        if (out != null) out.accept(line);
+                        else System.out.println(line);
+                    }
+                    // hodnota se převede dřív, než se posune sp: neplatný vstup nesmí nechat na zásobníku prázdný slot
+                    case VerifiedProgram.READ_I -> { Object value = Integer.parseInt(nextInput()); st[sp++] = value; }
+                    case VerifiedProgram.READ_F -> { Object value = Double.parseDouble(nextInput()); st[sp++] = value; }
+                    case VerifiedProgram.READ_B -> st[sp++] = Boolean.parseBoolean(nextInput());
+                    case VerifiedProgram.READ_S -> {
+                        String input = nextInput();
+                        st[sp++] = input;
+                        if (heldBytes + (allocatedBytes += sizeOf(input)) > measureAt) measure(vars, st, sp);
+                    }
+                    case VerifiedProgram.JMP -> {
+                        if (rec != null) rec.taken[pc - 1]++;
+                        pc = arg;
+                    }
+                    case VerifiedProgram.FJMP, VerifiedProgram.TJMP -> {
+                        boolean jump = (op == VerifiedProgram.FJMP) != (boolean) st[--sp];
+                        st[sp] = null;
+                        if (rec != null) (jump ? rec.taken : rec.notTaken)[pc - 1]++;
+                        if (jump) pc = arg;
+                    }
+                    default -> throw new IllegalStateException("Unverified opcode " + op);
+                }
+            }
+        } finally {
+            reservedBytes = 0;
+            ip = pc;
+            executed = count;
+            for (int i = 0; i < vars.length; i++) {
+                if (vars[i] != null) memory.put(program.variables[i], vars[i]);
+            }
+            stack.clear();
+            for (int i = 0; i < sp; i++) stack.push(st[i]);
+        }
+        return status;
+    }
+
+    // ======================
+    // ÚČTOVÁNÍ PAMĚTI
+    // ======================
+
+    private String allocated(String value) {
+        if (heldBytes + (allocatedBytes += sizeOf(value)) > measureAt) measure(memory.values(), stack);
+        return value;
+    }
+
+    private void measure(Collection<Object> variables, Collection<Object> stackValues) {
+        long held = 0;
+        for (Object value : variables) held += sizeOf(value);
+        for (Object value : stackValues) held += SLOT_BYTES + sizeOf(value);
+        measured(held);
+    }
+
+    private void measure(Object[] vars, Object[] st, int sp) {
+        long held = 0;
+        for (Object value : vars) if (value != null) held += sizeOf(value);
+        for (int i = 0; i < sp; i++) held += SLOT_BYTES + sizeOf(st[i]);
+        measured(held);
+    }
+
+    /** Po přepočtu: kontrola limitu a další přepočet, až přibude tolik, kolik je drženo (nejvýš do limitu). */
+    private void measured(long held) {
+        held += reservedBytes;
+        heldBytes = held;
+        allocatedBytes = 0;
+        peakMemory = Math.max(peakMemory, held);
+        if (held > memoryLimit) {
+            throw new ResourceLimitException("Memory limit exceeded: " + held + " bytes held, limit " + memoryLimit);
+        }
+        measureAt = Math.min(memoryLimit, held + Math.max(held, MEASURE_STEP));
+    }
+
+    private static long sizeOf(Object value) {
+        return value instanceof String s ? 40 + 2L * s.length() : NUMBER_BYTES;
+    }
+
+    /** Přírůstek paměti za hodnotu nově přidanou na zásobník (řetězec se účtuje při vzniku). */
+    private static long slotSize(Object value) {
+        return value instanceof String ? SLOT_BYTES : SLOT_BYTES + NUMBER_BYTES;
+    }
+
+    private String nextInput() {
+        inputPosition++;
+        if (recording == null) return readInput();
+        long start = System.nanoTime();
+        String input = readInput();
+        recording.input(input, System.nanoTime() - start);
+        return input;
+    }
+
+    private String readInput() {
+        if (inputQueue != null) return Objects.requireNonNullElse(inputQueue.poll(), "");
+        String line = stdinLine();
+        if (line == null) throw new NoSuchElementException("No line found");
+        return line;
+    }
+
+    /** Další řádek standardního vstupu, nebo {@code null} na konci. Čte se přes jeden buffer, aby se řádky neztrácely. */
+    private String stdinLine() {
+        try {
+            if (stdin == null) stdin = new BufferedReader(new InputStreamReader(System.in));
+            return stdin.readLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static int toInt(Object value) {
+        return ((Number) value).intValue();
+    }
+
+    private static double toDouble(Object value) {
+        return ((Number) value).doubleValue();
+    }
+
+    private int labelIndex(String label) {
+        Integer index = labels.get(label);
+        if (index == null) throw new RuntimeException("Unknown label: " + label);
+        return index;
     }
 
     private void binaryMath(String type, MathOp op) {
@@ -0,0 +1,238 @@
+package org.project;
+
+import java.util.*;
+
+/**
+ * Optimalizace kódu zásobníkového stroje založená na analýze živých proměnných.
+ * <ul>
+ *   <li>{@code save x}, po kterém se {@code x} už nikdy nepřečte, se změní na {@code pop}
+ *   a výpočet hodnoty, kterou by ukládal, se odstraní (typicky výchozí inicializace
+ *   {@code push I 0; save x} nebo {@code save x; load x; pop} po přiřazení).</li>
+ *   <li>Proměnné, jejichž doby života se nepřekrývají, dostanou společný slot {@code $sN}.
+ *   Kopie mezi proměnnými ve stejném slotu ({@code load a; save a}) zmizí.</li>
+ * </ul>
+ * Proměnné živé už na začátku programu (čtené před prvním zápisem) si ponechají své jméno, aby
+ * {@code load} dál hlásil neinicializovanou proměnnou.
+ */
+public final class LivenessOptimizer {
+
+    private static final int MAX_ROUNDS = 20;
+
+    /** Operace, které jen spočítají hodnotu a nemohou spadnout – jejich nepoužitý výsledek lze zahodit. */
+    private static final Set<String> PURE = Set.of("push", "load", "add", "sub", "mul", "div", "lt", "gt", "eq",
+            "concat", "and", "or", "not", "uminus");
+
+    private List<String[]> code;
+    private Map<String, Integer> labels;
+    private List<String> variables;
+    private Map<String, Integer> variableIndex;
+    private BitSet[] liveIn;
+    private BitSet[] liveOut;
+
+    private LivenessOptimizer(List<String> code) {
+        this.code = new ArrayList<>();
+        for (String[] parts : StackHeightAnalysis.decode(code)) {
+            if (parts != null) this.code.add(parts);
+        }
+    }
+
+    public static List<String> optimize(List<String> code) {
+        LivenessOptimizer optimizer = new LivenessOptimizer(code);
+        optimizer.removeUnreachable();
+        for (int round = 0; round < MAX_ROUNDS; round++) {
+            optimizer.analyze();
+            if (!optimizer.removeDeadStores()) break;
+        }
+        optimizer.analyze();
+        optimizer.assignSlots();
+        optimizer.removeRedundantCopies();
+
+        List<String> result = new ArrayList<>();
+        for (String[] parts : optimizer.code) result.add(String.join(" ", parts));
+        return result;
+    }
+
+    // ======================
+    // ANALÝZA
+    // ======================
+
+    private void removeUnreachable() {
+        String[][] array = code.toArray(new String[0][]);
+        int[] heights = StackHeightAnalysis.compute(array, StackHeightAnalysis.labels(array));
+        List<String[]> reachable = new ArrayList<>();
+        for (int i = 0; i < array.length; i++) {
+            if (heights[i] >= 0 || array[i][0].equals("label")) reachable.add(array[i]);
+        }
+        code = reachable;
+    }
+
+    private void analyze() {
+        labels = StackHeightAnalysis.labels(code.toArray(new String[0][]));
+        variables = new ArrayList<>();
+        variableIndex = new HashMap<>();
+        for (String[] parts : code) {
+            if (parts[0].equals("load") || parts[0].equals("save")) {
+                variableIndex.computeIfAbsent(parts[1], name -> {
+                    variables.add(name);
+                    return variables.size() - 1;
+                });
+            }
+        }
+
+        int n = code.size();
+        liveIn = new BitSet[n];
+        liveOut = new BitSet[n];
+        for (int i = 0; i < n; i++) {
+            liveIn[i] = new BitSet();
+            liveOut[i] = new BitSet();
+        }
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = n - 1; i >= 0; i--) {
+                BitSet out = new BitSet();
+                for (int succ : successors(i)) {
+                    if (succ < n) out.or(liveIn[succ]);
+                }
+                BitSet in = (BitSet) out.clone();
+                String[] parts = code.get(i);
+                if (parts[0].equals("save")) in.clear(variableIndex.get(parts[1]));
+                if (parts[0].equals("load")) in.set(variableIndex.get(parts[1]));
+
+                if (!in.equals(liveIn[i]) || !out.equals(liveOut[i])) {
+                    liveIn[i] = in;
+                    liveOut[i] = out;
+                    changed = true;
+                }
+            }
+        }
+    }
+
+    private int[] successors(int i) {
+        String[] parts = code.get(i);
+        return switch (parts[0]) {
+            case "jmp" -> new int[]{labels.get(parts[1])};
+            case "fjmp", "tjmp" -> new int[]{i + 1, labels.get(parts[1])};
+            default -> new int[]{i + 1};
+        };
+    }
+
+    // ======================
+    // MRTVÉ ZÁPISY
+    // ======================
+
+    private boolean removeDeadStores() {
+        boolean changed = false;
+        for (int i = 0; i < code.size(); i++) {
+            String[] parts = code.get(i);
+            if (parts[0].equals("save") && !liveOut[i].get(variableIndex.get(parts[1]))) {
+                code.set(i, new String[]{"pop"});
+                changed = true;
+            }
+        }
+
+        // odstraní výpočty, jejichž výsledek se hned zahodí
+        for (int i = 0; i < code.size(); i++) {
+            if (!code.get(i)[0].equals("pop")) continue;
+            int start = pureValueStart(i);
+            if (start < 0) continue;
+            code.subList(start, i + 1).clear();
+            i = start - 1;
+            changed = true;
+        }
+        return changed;
+    }
+
+    /** Začátek souvislého čistého výpočtu hodnoty, kterou odebírá {@code pop} na pozici {@code popIndex}, jinak -1. */
+    private int pureValueStart(int popIndex) {
+        // každá čistá operace vytvoří jednu hodnotu, takže chybějících hodnot ubude o její efekt na zásobník
+        int needed = 1;
+        int j = popIndex - 1;
+        while (needed > 0) {
+            if (j < 0 || !PURE.contains(code.get(j)[0])) return -1;
+            String[] parts = code.get(j);
+            // čtení možná neinicializované proměnné musí zůstat, aby dál hlásilo chybu
+            if (parts[0].equals("load") && liveIn[0].get(variableIndex.get(parts[1]))) return -1;
+            needed -= StackHeightAnalysis.effect(parts);
+            j--;
+        }
+        return j + 1;
+    }
+
+    // ======================
+    // SLOTY
+    // ======================
+
+    private void assignSlots() {
+        int n = variables.size();
+        BitSet[] interference = new BitSet[n];
+        for (int v = 0; v < n; v++) interference[v] = new BitSet();
+
+        for (int i = 0; i < code.size(); i++) {
+            String[] parts = code.get(i);
+            if (!parts[0].equals("save")) continue;
+            int def = variableIndex.get(parts[1]);
+            BitSet live = liveOut[i];
+            for (int other = live.nextSetBit(0); other >= 0; other = live.nextSetBit(other + 1)) {
+                if (other == def) continue;
+                interference[def].set(other);
+                interference[other].set(def);
+            }
+        }
+
+        // kopie "load a; save b" – pokud se a s b neruší, dáme jim stejný slot
+        Map<Integer, List<Integer>> copies = new HashMap<>();
+        for (int i = 0; i + 1 < code.size(); i++) {
+            if (code.get(i)[0].equals("load") && code.get(i + 1)[0].equals("save")) {
+                int a = variableIndex.get(code.get(i)[1]);
+                int b = variableIndex.get(code.get(i + 1)[1]);
+                copies.computeIfAbsent(a, k -> new ArrayList<>()).add(b);
+                copies.computeIfAbsent(b, k -> new ArrayList<>()).add(a);
+            }
+        }
+
+        BitSet pinned = code.isEmpty() ? new BitSet() : liveIn[0];
+        int[] slot = new int[n];
+        Arrays.fill(slot, -1);
+        List<BitSet> slotMembers = new ArrayList<>();
+        for (int v = 0; v < n; v++) {
+            if (pinned.get(v)) continue;
+
+            int chosen = -1;
+            for (int partner : copies.getOrDefault(v, List.of())) {
+                if (slot[partner] >= 0 && !slotMembers.get(slot[partner]).intersects(interference[v])) {
+                    chosen = slot[partner];
+                    break;
+                }
+            }
+            for (int s = 0; chosen < 0 && s < slotMembers.size(); s++) {
+                if (!slotMembers.get(s).intersects(interference[v])) chosen = s;
+            }
+            if (chosen < 0) {
+                chosen = slotMembers.size();
+                slotMembers.add(new BitSet());
+            }
+            slot[v] = chosen;
+            slotMembers.get(chosen).set(v);
+        }
+
+        for (int i = 0; i < code.size(); i++) {
+            String[] parts = code.get(i);
+            if (!parts[0].equals("load") && !parts[0].equals("save")) continue;
+            int v = variableIndex.get(parts[1]);
+            if (slot[v] >= 0) code.set(i, new String[]{parts[0], "$s" + slot[v]});
+        }
+    }
+
+    private void removeRedundantCopies() {
+        for (int i = 0; i + 1 < code.size(); i++) {
+            String[] load = code.get(i);
+            String[] save = code.get(i + 1);
+            if (load[0].equals("load") && save[0].equals("save") && load[1].equals(save[1])) {
+                code.subList(i, i + 2).clear();
+                i = Math.max(i - 2, -1);
+            }
+        }
+    }
+}
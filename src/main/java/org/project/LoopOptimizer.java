@@ -0,0 +1,404 @@
+package org.project;
+
+import grammar.pjplangParser;
+import org.antlr.v4.runtime.ParserRuleContext;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Analýza jedné smyčky {@code while} pro {@link CodeGenerator}.
+ * <ul>
+ *   <li>Výrazy, jejichž proměnné se ve smyčce nemění, se spočítají jednou před smyčkou
+ *   (preheader) a uvnitř se jen načtou z pomocné proměnné.</li>
+ *   <li>Pro indukční proměnné ({@code i = i + c}) se násobení {@code i * k} nahradí pomocnou
+ *   proměnnou, ke které se při každém zvýšení {@code i} přičte {@code c * k}. Jen u počítadla se
+ *   známým počátkem i mezí, u kterého {@code i * k} nepřeteče rozsah int.</li>
+ * </ul>
+ * Výrazy jsou v jazyce bez vedlejších efektů ({@code read}/{@code write} jsou příkazy), takže stačí
+ * vynechat operace, které mohou za běhu spadnout ({@code %}, převod int → float).
+ */
+final class LoopOptimizer {
+
+    /** Výraz spočítaný v preheaderu a uložený do pomocné proměnné. */
+    record Hoisted(String temp, pjplangParser.ExpressionContext expr) {}
+
+    /** Pomocná proměnná udržující hodnotu {@code variable * factor}. */
+    record Reduced(String temp, String variable, int factor) {}
+
+    /** Úprava pomocné proměnné po přiřazení do indukční proměnné. */
+    record Update(String temp, int delta) {}
+
+    /**
+     * Počítadlo smyčky {@code while (variable < bound)} (nebo {@code >}), které se v každé iteraci
+     * změní právě jednou o {@code step} směrem k mezi; {@code bound} se ve smyčce nemění.
+     */
+    record Counter(String variable, int step, boolean less, pjplangParser.ExpressionContext bound) {}
+
+    final List<Hoisted> hoisted = new ArrayList<>();
+    final List<Reduced> reduced = new ArrayList<>();
+    final Map<ParserRuleContext, String> replacements = new IdentityHashMap<>();
+    final Map<pjplangParser.StatementContext, List<Update>> updates = new IdentityHashMap<>();
+
+    private final Map<String, String> symbolTable;
+    private final Map<ParserRuleContext, String> outerReplacements;
+    private final Supplier<String> newTemp;
+
+    private final Set<String> assigned = new HashSet<>();
+    private final Set<String> otherDefinitions = new HashSet<>();
+    private final Map<String, List<pjplangParser.StatementContext>> assignments = new HashMap<>();
+    private final List<pjplangParser.ExpressionContext> roots = new ArrayList<>();
+
+    private LoopOptimizer(Map<String, String> symbolTable, Map<ParserRuleContext, String> outerReplacements,
+                          Supplier<String> newTemp) {
+        this.symbolTable = symbolTable;
+        this.outerReplacements = outerReplacements;
+        this.newTemp = newTemp;
+    }
+
+    /**
+     * @param loop Příkaz {@code while}.
+     * @param symbolTable Typy proměnných deklarovaných před smyčkou.
+     * @param outerReplacements Výrazy, které už nahradila vnější smyčka.
+     * @param newTemp Generátor jmen pomocných proměnných.
+     */
+    static LoopOptimizer analyze(pjplangParser.StatementContext loop, Map<String, String> symbolTable,
+                                 Map<ParserRuleContext, String> outerReplacements, Supplier<String> newTemp) {
+        LoopOptimizer optimizer = new LoopOptimizer(symbolTable, outerReplacements, newTemp);
+        optimizer.roots.add(loop.expression());
+        optimizer.collect(loop.statement(0));
+        optimizer.hoistInvariants();
+        optimizer.reduceInductionVariables(loop);
+        return optimizer;
+    }
+
+    /**
+     * Najde počítadlo smyčky pro rozbalení, nebo vrátí {@code null}. Přiřazení do počítadla musí být
+     * přímo v těle (ne ve vnořeném {@code if}/{@code while}), aby proběhlo v každé iteraci.
+     */
+    static Counter counter(pjplangParser.StatementContext loop, Map<String, String> symbolTable) {
+        if (!(unwrap(loop.expression()) instanceof pjplangParser.RelationalContext cond)) return null;
+        if (!(unwrap(cond.expression(0)) instanceof pjplangParser.VarExprContext var)) return null;
+        String name = var.ID().getText();
+        var bound = cond.expression(1);
+
+        LoopOptimizer analysis = new LoopOptimizer(symbolTable, Map.of(), () -> null);
+        var body = loop.statement(0);
+        analysis.collect(body);
+        if (!"int".equals(symbolTable.get(name)) || analysis.otherDefinitions.contains(name)) return null;
+        if (!"int".equals(analysis.typeOf(bound)) || !analysis.isInvariant(bound)) return null;
+
+        var stmts = analysis.assignments.getOrDefault(name, List.of());
+        if (stmts.size() != 1) return null;
+        var increment = stmts.get(0);
+        boolean direct = increment == body
+                || (body.getStart().getText().equals("{") && body.statement().contains(increment));
+        Integer step = step(name, increment.expression());
+        if (!direct || step == null) return null;
+
+        boolean less = cond.op.getText().equals("<");
+        if (less ? step <= 0 : step >= 0) return null;
+        return new Counter(name, step, less, bound);
+    }
+
+    // ======================
+    // SBĚR PŘIŘAZENÍ A VÝRAZŮ
+    // ======================
+
+    private void collect(pjplangParser.StatementContext ctx) {
+        if (ctx.type() != null && ctx.varList() != null) {
+            for (var id : ctx.varList().ID()) {
+                assigned.add(id.getText());
+                otherDefinitions.add(id.getText());
+            }
+        } else if (ctx.ID() != null && ctx.expression() != null) {
+            String name = ctx.ID().getText();
+            assigned.add(name);
+            assignments.computeIfAbsent(name, k -> new ArrayList<>()).add(ctx);
+            roots.add(ctx.expression());
+        } else if (ctx.getStart().getText().equals("read")) {
+            for (var id : ctx.varList().ID()) {
+                assigned.add(id.getText());
+                otherDefinitions.add(id.getText());
+            }
+        } else if (ctx.exprList() != null) {
+            roots.addAll(ctx.exprList().expression());
+        } else if (ctx.expression() != null) {
+            roots.add(ctx.expression());
+        }
+
+        for (var child : ctx.statement()) {
+            collect(child);
+        }
+    }
+
+    // ======================
+    // INVARIANTY
+    // ======================
+
+    private void hoistInvariants() {
+        Map<String, String> tempByText = new HashMap<>();
+        for (var root : roots) {
+            findInvariants(root, tempByText);
+        }
+    }
+
+    private void findInvariants(pjplangParser.ExpressionContext ctx, Map<String, String> tempByText) {
+        if (outerReplacements.containsKey(ctx)) return;
+
+        if (isWorthHoisting(ctx) && isInvariant(ctx) && isSafe(ctx)) {
+            String temp = tempByText.get(ctx.getText());
+            if (temp == null) {
+                temp = newTemp.get();
+                tempByText.put(ctx.getText(), temp);
+                hoisted.add(new Hoisted(temp, ctx));
+            }
+            replacements.put(ctx, temp);
+            return;
+        }
+
+        for (var child : ctx.getRuleContexts(pjplangParser.ExpressionContext.class)) {
+            findInvariants(child, tempByText);
+        }
+    }
+
+    private boolean isInvariant(pjplangParser.ExpressionContext ctx) {
+        if (outerReplacements.containsKey(ctx)) return true;
+        if (ctx instanceof pjplangParser.VarExprContext var) {
+            String name = var.ID().getText();
+            return symbolTable.containsKey(name) && !assigned.contains(name);
+        }
+        if (ctx instanceof pjplangParser.LiteralExprContext) return true;
+
+        for (var child : ctx.getRuleContexts(pjplangParser.ExpressionContext.class)) {
+            if (!isInvariant(child)) return false;
+        }
+        return true;
+    }
+
+    /** Samotný literál nebo proměnnou nemá smysl přesouvat – načtení je stejně drahé. */
+    private static boolean isWorthHoisting(pjplangParser.ExpressionContext ctx) {
+        if (ctx instanceof pjplangParser.ParenExprContext paren) return isWorthHoisting(paren.expression());
+        return !(ctx instanceof pjplangParser.LiteralExprContext) && !(ctx instanceof pjplangParser.VarExprContext);
+    }
+
+    /** Výraz se před smyčkou spočítá i tehdy, když se smyčka neprovede ani jednou – nesmí tedy spadnout. */
+    private boolean isSafe(pjplangParser.ExpressionContext ctx) {
+        if (ctx instanceof pjplangParser.MulDivModContext mul && mul.op.getText().equals("%")) return false;
+
+        if (ctx instanceof pjplangParser.MulDivModContext
+                || ctx instanceof pjplangParser.AddSubConcatContext
+                || ctx instanceof pjplangParser.RelationalContext
+                || ctx instanceof pjplangParser.EqualityContext) {
+            String left = typeOf(ctx.getRuleContext(pjplangParser.ExpressionContext.class, 0));
+            String right = typeOf(ctx.getRuleContext(pjplangParser.ExpressionContext.class, 1));
+            if (left == null || right == null) return false;
+            if (!left.equals(right) && !left.equals("string") && !right.equals("string")) return false; // itof
+        }
+
+        for (var child : ctx.getRuleContexts(pjplangParser.ExpressionContext.class)) {
+            if (!isSafe(child)) return false;
+        }
+        return true;
+    }
+
+    /** Typ výrazu, nebo {@code null}, když je některá proměnná nedeklarovaná nebo podvýraz nemá typ. */
+    private String typeOf(pjplangParser.ExpressionContext ctx) {
+        return new ExpressionTypeResolver(symbolTable).visit(ctx);
+    }
+
+    // ======================
+    // INDUKČNÍ PROMĚNNÉ
+    // ======================
+
+    private void reduceInductionVariables(pjplangParser.StatementContext loop) {
+        Map<String, Integer> steps = new HashMap<>();
+        for (var entry : assignments.entrySet()) {
+            String name = entry.getKey();
+            if (otherDefinitions.contains(name) || !"int".equals(symbolTable.get(name))) continue;
+
+            boolean induction = true;
+            for (var stmt : entry.getValue()) {
+                if (step(name, stmt.expression()) == null) {
+                    induction = false;
+                    break;
+                }
+            }
+            if (induction) steps.put(name, entry.getValue().size());
+        }
+        if (steps.isEmpty()) return;
+
+        // výskyty i * k ve smyčce, seskupené podle (i, k)
+        Map<String, List<pjplangParser.MulDivModContext>> uses = new LinkedHashMap<>();
+        for (var root : roots) {
+            findProducts(root, steps.keySet(), uses);
+        }
+
+        for (var entry : uses.entrySet()) {
+            var first = entry.getValue().get(0);
+            String name = inductionOperand(first, steps.keySet());
+            int factor = constantOperand(first);
+            int increments = steps.get(name);
+
+            // načtení pomocné proměnné ušetří 2 instrukce, její úprava po přiřazení stojí 4
+            if (entry.getValue().size() * 2 <= increments * 4) continue;
+            if (!productFitsInt(loop, name, factor)) continue;
+
+            List<Update> pending = new ArrayList<>();
+            String temp = newTemp.get();
+            boolean overflow = false;
+            for (var stmt : assignments.get(name)) {
+                long delta = (long) step(name, stmt.expression()) * factor;
+                if (delta != (int) delta) overflow = true;
+                pending.add(new Update(temp, (int) delta));
+            }
+            if (overflow) continue;
+
+            reduced.add(new Reduced(temp, name, factor));
+            for (var use : entry.getValue()) replacements.put(use, temp);
+            var stmts = assignments.get(name);
+            for (int i = 0; i < stmts.size(); i++) {
+                updates.computeIfAbsent(stmts.get(i), k -> new ArrayList<>()).add(pending.get(i));
+            }
+        }
+    }
+
+    /**
+     * Pomocná proměnná se upravuje přes {@code add I}, které operandy ořízne na int, kdežto přímé
+     * {@code i * k} ne. Náhrada je tedy správná jen tehdy, když {@code i * k} zůstane v rozsahu int
+     * po celou smyčku – {@code i} musí být počítadlo se známým počátkem i mezí.
+     */
+    private boolean productFitsInt(pjplangParser.StatementContext loop, String name, int factor) {
+        Counter counter = counter(loop, symbolTable);
+        if (counter == null || !counter.variable().equals(name)) return false;
+        Long start = constantBefore(loop, name);
+        Long bound = constant(counter.bound(), loop);
+        if (start == null || bound == null) return false;
+
+        // počítadlo se mění monotónně, stačí krajní hodnoty včetně té po posledním kroku
+        long last = counter.less() ? bound - 1 + counter.step() : bound + 1 + counter.step();
+        for (long value : new long[]{start, last}) {
+            if (value != (int) value || value * factor != (int) (value * factor)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Hodnota, kterou proměnná dostane přiřazením konstanty před příkazem {@code at} ve stejném bloku,
+     * nebo {@code null}, když ji mezitím mění jiný příkaz nebo hodnota není známá.
+     */
+    private Long constantBefore(pjplangParser.StatementContext at, String name) {
+        if (!"int".equals(symbolTable.get(name))) return null;
+        List<pjplangParser.StatementContext> siblings;
+        if (at.getParent() instanceof pjplangParser.ProgramContext program) {
+            siblings = program.statement();
+        } else if (at.getParent() instanceof pjplangParser.StatementContext block && block.getStart().getText().equals("{")) {
+            siblings = block.statement();
+        } else {
+            return null;
+        }
+
+        for (int i = siblings.indexOf(at) - 1; i >= 0; i--) {
+            var stmt = siblings.get(i);
+            if (stmt.ID() != null && stmt.expression() != null && stmt.ID().getText().equals(name)) {
+                return constant(stmt.expression(), stmt);
+            }
+            LoopOptimizer analysis = new LoopOptimizer(symbolTable, Map.of(), () -> null);
+            analysis.collect(stmt);
+            if (analysis.assigned.contains(name)) return null;
+        }
+        return null;
+    }
+
+    /** Hodnota celočíselného výrazu známá při překladu (mezivýsledky v rozsahu int), jinak {@code null}. */
+    private Long constant(pjplangParser.ExpressionContext ctx, pjplangParser.StatementContext at) {
+        ctx = unwrap(ctx);
+        Integer literal = intLiteral(ctx);
+        if (literal != null) return (long) literal;
+        if (ctx instanceof pjplangParser.VarExprContext var) return constantBefore(at, var.ID().getText());
+        if (ctx instanceof pjplangParser.UnaryMinusContext minus) {
+            Long value = constant(minus.expression(), at);
+            return value != null ? -value : null;
+        }
+        String op;
+        if (ctx instanceof pjplangParser.AddSubConcatContext add) op = add.op.getText();
+        else if (ctx instanceof pjplangParser.MulDivModContext mul) op = mul.op.getText();
+        else return null;
+        if (!op.equals("+") && !op.equals("-") && !op.equals("*")) return null;
+
+        Long left = constant(ctx.getRuleContext(pjplangParser.ExpressionContext.class, 0), at);
+        Long right = constant(ctx.getRuleContext(pjplangParser.ExpressionContext.class, 1), at);
+        if (left == null || right == null) return null;
+        long result = op.equals("+") ? left + right : op.equals("-") ? left - right : left * right;
+        return result == (int) result ? result : null;
+    }
+
+    private void findProducts(pjplangParser.ExpressionContext ctx, Set<String> inductionVars,
+                              Map<String, List<pjplangParser.MulDivModContext>> uses) {
+        if (replacements.containsKey(ctx) || outerReplacements.containsKey(ctx)) return;
+
+        if (ctx instanceof pjplangParser.MulDivModContext mul && mul.op.getText().equals("*")) {
+            String name = inductionOperand(mul, inductionVars);
+            Integer factor = name != null ? constantOperand(mul) : null;
+            if (factor != null) {
+                uses.computeIfAbsent(name + "*" + factor, k -> new ArrayList<>()).add(mul);
+                return;
+            }
+        }
+
+        for (var child : ctx.getRuleContexts(pjplangParser.ExpressionContext.class)) {
+            findProducts(child, inductionVars, uses);
+        }
+    }
+
+    /** Krok indukční proměnné pro přiřazení {@code name = name ± c}, jinak {@code null}. */
+    private static Integer step(String name, pjplangParser.ExpressionContext expr) {
+        if (!(unwrap(expr) instanceof pjplangParser.AddSubConcatContext add)) return null;
+        String op = add.op.getText();
+        var left = unwrap(add.expression(0));
+        var right = unwrap(add.expression(1));
+
+        if (isVar(left, name) && intLiteral(right) != null) {
+            if (op.equals("+")) return intLiteral(right);
+            if (op.equals("-")) return -intLiteral(right);
+        }
+        if (op.equals("+") && isVar(right, name) && intLiteral(left) != null) {
+            return intLiteral(left);
+        }
+        return null;
+    }
+
+    private static String inductionOperand(pjplangParser.MulDivModContext mul, Set<String> inductionVars) {
+        for (var operand : mul.expression()) {
+            if (unwrap(operand) instanceof pjplangParser.VarExprContext var && inductionVars.contains(var.ID().getText())) {
+                return var.ID().getText();
+            }
+        }
+        return null;
+    }
+
+    private static Integer constantOperand(pjplangParser.MulDivModContext mul) {
+        Integer left = intLiteral(unwrap(mul.expression(0)));
+        return left != null ? left : intLiteral(unwrap(mul.expression(1)));
+    }
+
+    private static boolean isVar(pjplangParser.ExpressionContext ctx, String name) {
+        return ctx instanceof pjplangParser.VarExprContext var && var.ID().getText().equals(name);
+    }
+
+    private static Integer intLiteral(pjplangParser.ExpressionContext ctx) {
+        if (ctx instanceof pjplangParser.LiteralExprContext lit && lit.literal() instanceof pjplangParser.IntLitContext) {
+            try {
+                return Integer.parseInt(lit.getText());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static pjplangParser.ExpressionContext unwrap(pjplangParser.ExpressionContext ctx) {
+        while (ctx instanceof pjplangParser.ParenExprContext paren) ctx = paren.expression();
+        return ctx;
+    }
+}
@@ -3,7 +3,6 @@ package org.project;
 import grammar.pjplangLexer;
 import grammar.pjplangParser;
 import org.antlr.v4.runtime.*;
-import org.antlr.v4.runtime.tree.ParseTree;
 
 import java.io.IOException;
 
@@ -12,7 +11,23 @@ public class Main {
     private static final String SOURCE_FILES_DIR = "src/main/resources/";
 
     public static void main(String[] args) throws IOException {
-        CharStream input = CharStreams.fromFileName(SOURCE_FILES_DIR + "test.pjp");
+        // strom a tokeny žijí jen uvnitř parse(), dál se pracuje s kompaktním AST a GC je může uvolnit
+        FlatAst ast = parse(SOURCE_FILES_DIR + "test.pjp");
+
+        FlatTypeChecker checker = new FlatTypeChecker();
+        checker.check(ast);
+
+        if (checker.hasErrors()) {
+            System.out.println("Type error(s) found:");
+            checker.getErrors().forEach(System.err::println);
+            System.exit(1);
+        } else {
+            System.out.println("No type errors found.");
+        }
+    }
+
+    private static FlatAst parse(String fileName) throws IOException {
+        CharStream input = CharStreams.fromFileName(fileName);
         pjplangLexer lexer = new pjplangLexer(input);
         CommonTokenStream tokens = new CommonTokenStream(lexer);
         pjplangParser parser = new pjplangParser(tokens);
@@ -22,24 +37,14 @@ public class Main {
         parser.removeErrorListeners();
         parser.addErrorListener(syntaxErrors);
 
-        ParseTree tree = parser.program();
+        pjplangParser.ProgramContext tree = parser.program();
 
         if (syntaxErrors.hasErrors()) {
             System.out.println("Syntax error(s):");
             syntaxErrors.getErrors().forEach(System.out::println);
             System.exit(1);
         }
-
-        TypeChecker checker = new TypeChecker();
-        checker.visit(tree);
-
-        if (checker.hasErrors()) {
-            System.out.println("Type error(s) found:");
-            checker.printErrors();
-            System.exit(1);
-        } else {
-            System.out.println("No type errors found.");
-        }
+        return FlatAstLowering.lower(tree);
     }
 
     private static class SyntaxErrorCollector extends BaseErrorListener {
@@ -0,0 +1,78 @@
+package org.project;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/** Instrukce zásobníkového stroje a tvar jejich operandů. */
+public enum Opcode {
+    PUSH(true, Operand.VALUE),
+    LOAD(false, Operand.NAME),
+    SAVE(false, Operand.NAME),
+    ADD(true, Operand.NONE),
+    SUB(true, Operand.NONE),
+    MUL(true, Operand.NONE),
+    DIV(true, Operand.NONE),
+    MOD(false, Operand.NONE),
+    UMINUS(true, Operand.NONE),
+    CONCAT(false, Operand.NONE),
+    AND(false, Operand.NONE),
+    OR(false, Operand.NONE),
+    NOT(false, Operand.NONE),
+    LT(true, Operand.NONE),
+    GT(true, Operand.NONE),
+    EQ(true, Operand.NONE),
+    ITOF(false, Operand.NONE),
+    DUP(false, Operand.NONE),
+    POP(false, Operand.NONE),
+    PRINT(false, Operand.COUNT),
+    READ(true, Operand.NONE),
+    JMP(false, Operand.LABEL),
+    FJMP(false, Operand.LABEL),
+    TJMP(false, Operand.LABEL),
+    LABEL(false, Operand.LABEL);
+
+    /** Druh operandu za typem instrukce. */
+    public enum Operand { NONE, VALUE, NAME, COUNT, LABEL }
+
+    private static final Map<String, Opcode> BY_MNEMONIC = new HashMap<>();
+
+    static {
+        for (Opcode op : values()) BY_MNEMONIC.put(op.mnemonic, op);
+    }
+
+    private final String mnemonic = name().toLowerCase();
+    private final boolean typed;
+    private final Operand operand;
+
+    Opcode(boolean typed, Operand operand) {
+        this.typed = typed;
+        this.operand = operand;
+    }
+
+    public String mnemonic() {
+        return mnemonic;
+    }
+
+    /** Má instrukce typ ({@code I}, {@code F}, {@code B}, {@code S}) jako první argument? */
+    public boolean typed() {
+        return typed;
+    }
+
+    public Operand operand() {
+        return operand;
+    }
+
+    public static Opcode of(String mnemonic) {
+        Opcode op = BY_MNEMONIC.get(mnemonic);
+        if (op == null) throw new RuntimeException("Unknown instruction: " + mnemonic);
+        return op;
+    }
+
+    /** Textová podoba instrukce tak, jak ji čte {@link Interpreter}. */
+    public String format(String type, String operand) {
+        StringBuilder sb = new StringBuilder(mnemonic);
+        if (type != null) sb.append(' ').append(type);
+        if (operand != null) sb.append(' ').append(operand);
+        return sb.toString();
+    }
+}
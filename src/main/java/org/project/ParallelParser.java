@@ -0,0 +1,196 @@
+package org.project;
+
+import grammar.pjplangLexer;
+import grammar.pjplangParser;
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.tree.TerminalNodeImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Paralelní parser velkých souborů. Příkazy nejvyšší úrovně ({@code program: statement* EOF}) jsou
+ * syntakticky nezávislé, takže rychlý průchod textem ({@link #splitPoints}) najde místa mezi nimi
+ * a každý úsek se parsuje ve fork-join poolu vlastním lexerem a parserem. DFA cache ANTLRu je ve
+ * vygenerovaném parseru statická, úseky ji tedy sdílejí (a plní) společně.
+ * <p>
+ * Lexer úseku začíná na řádku a sloupci, kde úsek leží v původním souboru, takže pozice tokenů i chybové
+ * hlášky odpovídají původnímu souboru. Po parsování se tokenům posune index znaku a tokenu o začátek
+ * úseku; výsledný strom se tak nedá odlišit od stromu z jednoho parseru (viz {@link ParallelTypeChecker},
+ * který pořadí deklarací bere z indexů tokenů).
+ */
+public class ParallelParser {
+
+    /** Menší úseky se nevyplatí – režie lexeru a parseru by převážila. */
+    static final int MIN_CHUNK_CHARS = 64 * 1024;
+
+    private final ForkJoinPool pool;
+    private final List<String> errors = new ArrayList<>();
+
+    public ParallelParser() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParallelParser(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    public boolean hasErrors() {
+        return !errors.isEmpty();
+    }
+
+    public pjplangParser.ProgramContext parse(String source) {
+        int chunkChars = Math.max(MIN_CHUNK_CHARS, source.length() / (4 * pool.getParallelism()) + 1);
+        return parse(source, chunkChars);
+    }
+
+    /** Jako {@link #parse(String)} s danou velikostí úseku (pro testy). */
+    pjplangParser.ProgramContext parse(String source, int chunkChars) {
+        errors.clear();
+        List<Integer> splits = splitPoints(source, chunkChars);
+        List<ForkJoinTask<Chunk>> tasks = new ArrayList<>(splits.size() + 1);
+        int line = 1;
+        int column = 0;
+        int from = 0;
+        for (int i = 0; i <= splits.size(); i++) {
+            int to = i < splits.size() ? splits.get(i) : source.length();
+            String text = source.substring(from, to);
+            int startLine = line;
+            int startColumn = column;
+            tasks.add(pool.submit(() -> Chunk.parse(text, startLine, startColumn)));
+
+            // pozice konce úseku = začátek dalšího
+            int lastNewline = text.lastIndexOf('\n');
+            for (int k = text.indexOf('\n'); k >= 0; k = text.indexOf('\n', k + 1)) line++;
+            column = lastNewline >= 0
+                    ? text.codePointCount(lastNewline + 1, text.length())
+                    : column + text.codePointCount(0, text.length());
+            from = to;
+        }
+
+        pjplangParser.ProgramContext program = new pjplangParser.ProgramContext(null, -1);
+        int charBase = 0;
+        int tokenBase = 0;
+        Token eof = null;
+        for (ForkJoinTask<Chunk> task : tasks) {
+            Chunk chunk = task.join();
+            errors.addAll(chunk.errors);
+            for (Token token : chunk.tokens) {
+                CommonToken t = (CommonToken) token;
+                t.setText(t.getText()); // text z vlastního vstupu úseku, ne podle posunutých indexů
+                if (t.getType() != Token.EOF) {
+                    t.setStartIndex(t.getStartIndex() + charBase);
+                    t.setStopIndex(t.getStopIndex() + charBase);
+                } else {
+                    t.setStartIndex(charBase + chunk.codePoints);
+                    t.setStopIndex(charBase + chunk.codePoints - 1);
+                }
+                t.setTokenIndex(t.getTokenIndex() + tokenBase);
+            }
+            for (var statement : chunk.program.statement()) {
+                statement.setParent(program);
+                program.addChild(statement);
+            }
+            charBase += chunk.codePoints;
+            tokenBase += chunk.tokens.size() - 1; // EOF úseku se nepočítá
+            eof = chunk.tokens.get(chunk.tokens.size() - 1);
+        }
+        ((CommonToken) eof).setTokenIndex(tokenBase);
+        program.addChild(new TerminalNodeImpl(eof));
+        program.start = program.getChildCount() > 1 ? ((ParserRuleContext) program.getChild(0)).getStart() : eof;
+        program.stop = eof;
+        return program;
+    }
+
+    /**
+     * Místa (indexy znaků), kde lze text rozdělit mezi dva příkazy nejvyšší úrovně, zhruba po {@code chunkChars}
+     * znacích. Hranice je za {@code ;} nebo {@code }} v hloubce 0 mimo řetězec a komentář, pokud další
+     * slovo není {@code else}. Po nevyvážené {@code }} se už nedělí (syntaktická chyba patří celá jednomu parseru).
+     */
+    static List<Integer> splitPoints(String source, int chunkChars) {
+        List<Integer> splits = new ArrayList<>();
+        int next = chunkChars;
+        int depth = 0;
+        int n = source.length();
+        for (int i = 0; i < n && next < n; i++) {
+            char c = source.charAt(i);
+            switch (c) {
+                case '"' -> {
+                    int end = source.indexOf('"', i + 1);
+                    if (end < 0) return splits; // neuzavřený řetězec sežere zbytek souboru
+                    i = end;
+                    continue;
+                }
+                case '/' -> {
+                    if (i + 1 < n && source.charAt(i + 1) == '/') {
+                        int end = source.indexOf('\n', i);
+                        i = end < 0 ? n : end;
+                        continue;
+                    }
+                }
+                case '{' -> depth++;
+                case '}' -> {
+                    if (--depth < 0) return splits;
+                }
+                default -> {}
+            }
+            if (i + 1 >= next && depth == 0 && (c == ';' || c == '}') && !followedByElse(source, i + 1)) {
+                splits.add(i + 1);
+                next = i + 1 + chunkChars;
+            }
+        }
+        return splits;
+    }
+
+    private static boolean followedByElse(String source, int from) {
+        int i = from;
+        int n = source.length();
+        while (i < n) {
+            char c = source.charAt(i);
+            if (c == ' ' || c == '\t' || c == '\r' || c == '\n') {
+                i++;
+            } else if (c == '/' && i + 1 < n && source.charAt(i + 1) == '/') {
+                int end = source.indexOf('\n', i);
+                i = end < 0 ? n : end;
+            } else {
+                break;
+            }
+        }
+        return source.startsWith("else", i)
+                && (i + 4 >= n || !Character.isLetterOrDigit(source.charAt(i + 4)) && source.charAt(i + 4) != '_');
+    }
+
+    /** Výsledek parsování jednoho úseku. */
+    private record Chunk(pjplangParser.ProgramContext program, List<Token> tokens, List<String> errors, int codePoints) {
+
+        static Chunk parse(String text, int line, int column) {
+            List<String> errors = new ArrayList<>();
+            BaseErrorListener listener = new BaseErrorListener() {
+                @Override
+                public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                                        int charPositionInLine, String msg, RecognitionException e) {
+                    errors.add("line " + line + ":" + charPositionInLine + " " + msg);
+                }
+            };
+            CharStream input = CharStreams.fromString(text);
+            pjplangLexer lexer = new pjplangLexer(input);
+            lexer.setLine(line);
+            lexer.setCharPositionInLine(column);
+            lexer.removeErrorListeners();
+            lexer.addErrorListener(listener);
+            CommonTokenStream tokens = new CommonTokenStream(lexer);
+            pjplangParser parser = new pjplangParser(tokens);
+            parser.removeErrorListeners();
+            parser.addErrorListener(listener);
+            pjplangParser.ProgramContext program = parser.program();
+            tokens.fill();
+            return new Chunk(program, tokens.getTokens(), errors, input.size());
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package org.project;
+
+import grammar.pjplangParser;
+import org.antlr.v4.runtime.Token;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Typová kontrola, která příkazy nejvyšší úrovně kontroluje paralelně.
+ * <p>
+ * 1. fáze projde sekvenčně jen deklarace a zapamatuje si první deklaraci každé proměnné (typ a pozici tokenu).
+ * Proměnná je v místě použití viditelná, když její první deklarace leží v textu před ním – přesně tak,
+ * jak ji vidí sekvenční {@link TypeChecker}, který strom prochází v pořadí zdrojového kódu.
+ * <p>
+ * 2. fáze rozdělí příkazy na úseky a kontroluje je ve fork-join poolu, každý úsek vlastním checkerem.
+ * Chyby úseků se spojí v pořadí příkazů, takže výsledek je stejný jako u sekvenční kontroly.
+ */
+public class ParallelTypeChecker {
+
+    /** Úsek s nejvýše tolika tokeny se už dál nedělí. */
+    private static final int GRAIN_TOKENS = 4096;
+
+    private record Declaration(String type, int tokenIndex) {
+    }
+
+    private final ForkJoinPool pool;
+
+    public ParallelTypeChecker() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParallelTypeChecker(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public List<String> check(pjplangParser.ProgramContext program) {
+        List<pjplangParser.StatementContext> statements = program.statement();
+        Map<String, Declaration> declarations = collectDeclarations(statements);
+        return pool.invoke(new CheckTask(statements, 0, statements.size(), declarations));
+    }
+
+    private static Map<String, Declaration> collectDeclarations(List<pjplangParser.StatementContext> statements) {
+        Map<String, Declaration> declarations = new HashMap<>();
+        Deque<pjplangParser.StatementContext> pending = new ArrayDeque<>();
+        // zásobník v obráceném pořadí, aby se příkazy procházely v pořadí textu
+        for (int i = statements.size() - 1; i >= 0; i--) pending.push(statements.get(i));
+
+        while (!pending.isEmpty()) {
+            pjplangParser.StatementContext ctx = pending.pop();
+            if (ctx.type() != null && ctx.varList() != null) {
+                String type = ctx.type().getText();
+                for (var id : ctx.varList().ID()) {
+                    declarations.putIfAbsent(id.getText(), new Declaration(type, id.getSymbol().getTokenIndex()));
+                }
+            }
+            List<pjplangParser.StatementContext> nested = ctx.statement();
+            for (int i = nested.size() - 1; i >= 0; i--) pending.push(nested.get(i));
+        }
+        return declarations;
+    }
+
+    private static final class CheckTask extends RecursiveTask<List<String>> {
+        private static final long serialVersionUID = 1L;
+
+        // úlohy se nikdy neserializují, strom a tabulka deklarací tedy nemusí být serializovatelné
+        private final transient List<pjplangParser.StatementContext> statements;
+        private final int from;
+        private final int to;
+        private final transient Map<String, Declaration> declarations;
+
+        CheckTask(List<pjplangParser.StatementContext> statements, int from, int to, Map<String, Declaration> declarations) {
+            this.statements = statements;
+            this.from = from;
+            this.to = to;
+            this.declarations = declarations;
+        }
+
+        @Override
+        protected List<String> compute() {
+            if (to - from <= 1 || tokens() <= GRAIN_TOKENS) {
+                StatementChecker checker = new StatementChecker(declarations);
+                for (int i = from; i < to; i++) checker.visit(statements.get(i));
+                return checker.getErrors();
+            }
+
+            int mid = (from + to) >>> 1;
+            CheckTask left = new CheckTask(statements, from, mid, declarations);
+            CheckTask right = new CheckTask(statements, mid, to, declarations);
+            left.fork();
+            List<String> rightErrors = right.compute();
+            List<String> leftErrors = left.join();
+            if (rightErrors.isEmpty()) return leftErrors;
+
+            List<String> errors = new ArrayList<>(leftErrors);
+            errors.addAll(rightErrors);
+            return errors;
+        }
+
+        private int tokens() {
+            Token stop = statements.get(to - 1).getStop();
+            Token start = statements.get(from).getStart();
+            // po syntaktické chybě nemusí mít příkaz koncový token
+            return stop == null ? 0 : stop.getTokenIndex() - start.getTokenIndex();
+        }
+    }
+
+    /** Checker pro jeden úsek: místo vlastní tabulky symbolů se ptá na výsledky 1. fáze. */
+    private static final class StatementChecker extends TypeChecker {
+        private final Map<String, Declaration> declarations;
+
+        StatementChecker(Map<String, Declaration> declarations) {
+            this.declarations = declarations;
+        }
+
+        @Override
+        protected String lookup(Token use) {
+            Declaration declaration = declarations.get(use.getText());
+            return declaration != null && declaration.tokenIndex() < use.getTokenIndex() ? declaration.type() : null;
+        }
+
+        @Override
+        protected boolean declare(Token id, String type) {
+            return declarations.get(id.getText()).tokenIndex() == id.getTokenIndex();
+        }
+    }
+}
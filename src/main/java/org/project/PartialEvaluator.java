@@ -0,0 +1,118 @@
+package org.project;
+
+import java.util.*;
+
+/**
+ * Částečné vyhodnocení programu při překladu. Program se pustí na VM bez vstupu s omezeným
+ * počtem instrukcí ("palivem"); zastaví se před prvním {@code read}, nebo doběhne celý.
+ * Provedená část se pak nahradí reziduálním kódem: výpis už vypočteného výstupu, nastavení
+ * proměnných a zásobníku a skok na místo, kde výpočet skončil.
+ * <p>
+ * Když dojde palivo, paměť, nebo by nastala chyba za běhu, vrátí se původní program beze změny –
+ * chyba se pak projeví až při skutečném běhu, stejně jako bez vyhodnocení.
+ */
+public final class PartialEvaluator {
+
+    public static final long DEFAULT_FUEL = 1_000_000;
+
+    /** Horní mez pro výstup a stav, které se ještě vyplatí zapéct do kódu. */
+    private static final long MAX_STATE_BYTES = 1 << 20;
+
+    private static final String RESUME_LABEL = "$pe";
+
+    private PartialEvaluator() {
+    }
+
+    public static Interpreter.Program evaluate(Interpreter.Program program) {
+        return evaluate(program, DEFAULT_FUEL);
+    }
+
+    public static Interpreter.Program evaluate(Interpreter.Program program, long fuel) {
+        List<String> output = new ArrayList<>();
+        Interpreter vm = Interpreter.withOpenInput();
+        vm.setOutput(output::add);
+        vm.setMemoryLimit(MAX_STATE_BYTES);
+        vm.load(program);
+
+        Interpreter.Status status;
+        try {
+            status = vm.run(fuel);
+        } catch (RuntimeException e) {
+            return program;
+        }
+        if (status == Interpreter.Status.YIELDED) return program;
+
+        // reziduum musí provést méně instrukcí než vyhodnocená část, jinak se nevyplatí
+        Snapshot state = vm.snapshot();
+        long prelude = 2L * output.size() + 2L * state.variables().size() + state.stack().size()
+                + (status == Interpreter.Status.HALTED ? 0 : 2);
+        if (prelude >= vm.getExecutedInstructions()) return program;
+
+        try {
+            return residual(program, status, state, output);
+        } catch (RuntimeException e) {
+            return program; // např. poškozená instrukce v neprovedené části
+        }
+    }
+
+    private static Interpreter.Program residual(Interpreter.Program program, Interpreter.Status status,
+                                                Snapshot state, List<String> output) {
+        long outputSize = 0;
+        for (String line : output) {
+            if (line.indexOf('"') >= 0) return program; // řetězcový literál nesmí obsahovat uvozovky
+            outputSize += line.length();
+        }
+        if (outputSize > MAX_STATE_BYTES) return program;
+
+        Interpreter.Program.Builder residual = new Interpreter.Program.Builder();
+        for (String line : output) {
+            residual.emit(Opcode.PUSH, "S", "\"" + line + "\"");
+            residual.emit(Opcode.PRINT, null, "1");
+        }
+        for (var e : new TreeMap<>(state.variables()).entrySet()) {
+            if (!push(residual, e.getValue())) return program;
+            residual.emit(Opcode.SAVE, null, e.getKey());
+        }
+        for (Object value : state.stack()) {
+            if (!push(residual, value)) return program;
+        }
+
+        if (status == Interpreter.Status.WAITING_FOR_INPUT) {
+            // zbytek programu zůstává celý, smyčky se můžou vracet i před místo pokračování
+            String resume = RESUME_LABEL;
+            for (int n = 0; program.labels().containsKey(resume); n++) resume = RESUME_LABEL + n;
+            residual.emit(Opcode.JMP, null, resume);
+            String[][] code = program.code();
+            for (int i = 0; i < code.length; i++) {
+                if (i == state.ip()) residual.emit(Opcode.LABEL, null, resume);
+                if (code[i] != null) copy(residual, code[i]);
+            }
+        }
+        return residual.build();
+    }
+
+    private static boolean push(InstructionSink sink, Object value) {
+        switch (value) {
+            case Integer i -> sink.emit(Opcode.PUSH, "I", i.toString());
+            case Double d -> sink.emit(Opcode.PUSH, "F", d.toString());
+            case Boolean b -> sink.emit(Opcode.PUSH, "B", b.toString());
+            case String s -> {
+                if (s.indexOf('"') >= 0) return false;
+                sink.emit(Opcode.PUSH, "S", "\"" + s + "\"");
+            }
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void copy(InstructionSink sink, String[] parts) {
+        Opcode op = Opcode.of(parts[0]);
+        if (op.typed()) {
+            sink.emit(op, parts[1], parts.length > 2 ? parts[2] : null);
+        } else {
+            sink.emit(op, null, parts.length > 1 ? parts[1] : null);
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package org.project;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Ručně psaný lexer se stejnými tokeny jako {@code pjplang.g4}. Čte přímo z pole znaků, tokeny
+ * nevytváří jako objekty – {@link #next()} posune aktuální token a jeho údaje jsou v polích lexeru.
+ * Neznámý znak se hlásí stejně jako v ANTLR ({@code token recognition error at: ...}) a přeskočí se.
+ * <p>
+ * Kromě hrubého druhu má token i typ ze slovníku ANTLR ({@link #type()}), podle kterého parser skládá
+ * hlášky chyb; pro ně umí lexer načíst jeden token dopředu ({@link #peekType()}).
+ */
+public final class PjpLexer {
+
+    // druhy tokenů
+    public static final int EOF = 0;
+    public static final int ID = 1;
+    public static final int INT = 2;
+    public static final int FLOAT = 3;
+    public static final int BOOL = 4;
+    public static final int STRING = 5;
+    public static final int KEYWORD = 6;    // int float bool string read write if else while
+    public static final int SYMBOL = 7;     // operátory a interpunkce
+
+    private static final String[] KEYWORDS = {"int", "float", "bool", "string", "read", "write", "if", "else", "while"};
+
+    // typy tokenů ve slovníku ANTLR: literály v pořadí výskytu v gramatice, za nimi pojmenované tokeny
+    private static final String[] LITERALS = {null, ";", "=", "read", "write", "if", "(", ")", "else", "while", "{", "}",
+            ",", "int", "float", "bool", "string", "?", ":", "*", "/", "%", "+", "-", ".", "<", ">", "==", "!=", "&&",
+            "||", "!"};
+    public static final int TYPE_EOF = -1;
+    public static final int TYPE_INT = LITERALS.length;
+    public static final int TYPE_FLOAT = TYPE_INT + 1;
+    public static final int TYPE_BOOL = TYPE_INT + 2;
+    public static final int TYPE_STRING = TYPE_INT + 3;
+    public static final int TYPE_ID = TYPE_INT + 4;
+    private static final String[] NAMES = {"INT", "FLOAT", "BOOL", "STRING", "ID"};
+
+    private static final int[] KEYWORD_TYPES = new int[KEYWORDS.length];
+    private static final int[] SYMBOL_TYPES = new int[128];     // jednoznakové symboly podle znaku
+    private static final int[] DOUBLE_TYPES = new int[128];     // == != && || podle prvního znaku
+
+    static {
+        for (int i = 0; i < KEYWORDS.length; i++) KEYWORD_TYPES[i] = literalType(KEYWORDS[i]);
+        for (int type = 1; type < LITERALS.length; type++) {
+            String literal = LITERALS[type];
+            if (!isLetter(literal.charAt(0))) (literal.length() == 1 ? SYMBOL_TYPES : DOUBLE_TYPES)[literal.charAt(0)] = type;
+        }
+    }
+
+    private final char[] buf;
+    private final int end;
+    private final SyntaxErrors errors;
+    private int pos;
+    private int line = 1;
+    private int lineStart = 0;
+
+    // aktuální token
+    private int kind;
+    private int type;
+    private int start;
+    private int stop;
+    private int tokenLine;
+    private int tokenColumn;
+
+    // token za aktuálním, pokud už ho parser potřeboval
+    private boolean peeked;
+    private int peekKind;
+    private int peekType;
+    private int peekStart;
+    private int peekStop;
+    private int peekLine;
+    private int peekColumn;
+
+    public PjpLexer(CharBuffer source, SyntaxErrors errors) {
+        if (source.hasArray()) {
+            this.buf = source.array();
+            this.pos = source.arrayOffset() + source.position();
+            this.end = source.arrayOffset() + source.limit();
+        } else {
+            this.buf = source.toString().toCharArray();
+            this.pos = 0;
+            this.end = buf.length;
+        }
+        this.errors = errors;
+    }
+
+    public PjpLexer(byte[] utf8, SyntaxErrors errors) {
+        this(StandardCharsets.UTF_8.decode(ByteBuffer.wrap(utf8)), errors);
+    }
+
+    public PjpLexer(CharSequence source, SyntaxErrors errors) {
+        this(CharBuffer.wrap(source.toString().toCharArray()), errors);
+    }
+
+    /** Přijímač syntaktických chyb ve formátu ANTLR ({@code line L:C zpráva}). */
+    @FunctionalInterface
+    public interface SyntaxErrors {
+        void report(int line, int column, String message);
+    }
+
+    public int kind() {
+        return kind;
+    }
+
+    /** Typ tokenu ve slovníku ANTLR ({@code pjplangParser.VOCABULARY}), {@link #TYPE_EOF} na konci vstupu. */
+    public int type() {
+        return type;
+    }
+
+    /** Typ tokenu za aktuálním; načte ho dopředu a {@link #next()} ho pak jen převezme. */
+    public int peekType() {
+        if (!peeked) {
+            swap();
+            next();
+            swap();
+            peeked = true;
+        }
+        return peekType;
+    }
+
+    /** Typ literálu (klíčového slova nebo symbolu) ve slovníku ANTLR. */
+    public static int literalType(String text) {
+        for (int type = 1; type < LITERALS.length; type++) {
+            if (LITERALS[type].equals(text)) return type;
+        }
+        throw new IllegalArgumentException("Not a literal token: " + text);
+    }
+
+    /** Jméno typu, jak ho vypisuje ANTLR: {@code <EOF>}, {@code ';'} nebo {@code ID}. */
+    public static String typeName(int type) {
+        if (type == TYPE_EOF) return "<EOF>";
+        return type < LITERALS.length ? "'" + LITERALS[type] + "'" : NAMES[type - TYPE_INT];
+    }
+
+    /** Pozice začátku tokenu ve zdroji. */
+    public int offset() {
+        return start;
+    }
+
+    /** Texty tokenů od pozice {@code offset} po aktuální token včetně, bez mezer, jako {@code getText} v ANTLR. */
+    public String textFrom(int offset) {
+        PjpLexer tokens = new PjpLexer(CharBuffer.wrap(buf, offset, stop - offset), (l, c, m) -> { });
+        StringBuilder sb = new StringBuilder();
+        for (tokens.next(); tokens.kind != EOF; tokens.next()) sb.append(tokens.text());
+        return sb.toString();
+    }
+
+    public int line() {
+        return tokenLine;
+    }
+
+    public int column() {
+        return tokenColumn;
+    }
+
+    public String text() {
+        return kind == EOF ? "<EOF>" : new String(buf, start, stop - start);
+    }
+
+    /** Porovná text aktuálního tokenu bez vytváření řetězce. */
+    public boolean is(String text) {
+        return kind != EOF && kind != STRING && regionMatches(text);
+    }
+
+    public void next() {
+        if (peeked) {
+            swap();
+            peeked = false;
+            return;
+        }
+        while (true) {
+            skipTrivia();
+            tokenLine = line;
+            tokenColumn = pos - lineStart;
+            start = pos;
+            if (pos >= end) {
+                kind = EOF;
+                type = TYPE_EOF;
+                stop = pos;
+                return;
+            }
+            if (scan()) {
+                stop = pos;
+                return;
+            }
+        }
+    }
+
+    /** Prohodí aktuální token s tokenem načteným dopředu. */
+    private void swap() {
+        int k = kind, t = type, s = start, e = stop, l = tokenLine, c = tokenColumn;
+        kind = peekKind;
+        type = peekType;
+        start = peekStart;
+        stop = peekStop;
+        tokenLine = peekLine;
+        tokenColumn = peekColumn;
+        peekKind = k;
+        peekType = t;
+        peekStart = s;
+        peekStop = e;
+        peekLine = l;
+        peekColumn = c;
+    }
+
+    private void skipTrivia() {
+        while (pos < end) {
+            char c = buf[pos];
+            if (c == '\n') {
+                pos++;
+                line++;
+                lineStart = pos;
+            } else if (c == ' ' || c == '\t' || c == '\r') {
+                pos++;
+            } else if (c == '/' && pos + 1 < end && buf[pos + 1] == '/') {
+                while (pos < end && buf[pos] != '\r' && buf[pos] != '\n') pos++;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private boolean scan() {
+        char c = buf[pos];
+        if (isLetter(c)) {
+            pos++;
+            while (pos < end && (isLetter(buf[pos]) || isDigit(buf[pos]))) pos++;
+            stop = pos;
+            kind = keywordKind();
+            return true;
+        }
+        if (isDigit(c)) {
+            while (pos < end && isDigit(buf[pos])) pos++;
+            kind = INT;
+            type = TYPE_INT;
+            if (pos < end && buf[pos] == '.') {
+                pos++;
+                while (pos < end && isDigit(buf[pos])) pos++;
+                kind = FLOAT;
+                type = TYPE_FLOAT;
+            }
+            return true;
+        }
+        if (c == '"') {
+            int close = pos + 1;
+            while (close < end && buf[close] != '"') close++;
+            if (close == end) {
+                // neukončený řetězec: ANTLR nahlásí zbytek vstupu jako jednu chybu a skončí
+                recognitionError(pos, end);
+                pos = end;
+                return false;
+            }
+            for (int i = pos; i < close; i++) {
+                if (buf[i] == '\n') {
+                    line++;
+                    lineStart = i + 1;
+                }
+            }
+            pos = close + 1;
+            kind = STRING;
+            type = TYPE_STRING;
+            return true;
+        }
+        kind = SYMBOL;
+        char n = pos + 1 < end ? buf[pos + 1] : 0;
+        switch (c) {
+            case '(', ')', '{', '}', ';', ',', '<', '>', '+', '-', '*', '/', '%', '.', '?', ':' -> pos++;
+            case '=', '!' -> pos += n == '=' ? 2 : 1;
+            case '&', '|' -> {
+                if (n != c) {
+                    // ANTLR už načetl i následující znak, nahlásí a zahodí oba
+                    int to = Math.min(pos + 2, end);
+                    recognitionError(pos, to);
+                    skip(to);
+                    return false;
+                }
+                pos += 2;
+            }
+            default -> {
+                recognitionError(pos, pos + 1);
+                pos++;
+                return false;
+            }
+        }
+        type = (pos - start == 2 ? DOUBLE_TYPES : SYMBOL_TYPES)[c];
+        return true;
+    }
+
+    private void skip(int to) {
+        for (; pos < to; pos++) {
+            if (buf[pos] == '\n') {
+                line++;
+                lineStart = pos + 1;
+            }
+        }
+    }
+
+    private int keywordKind() {
+        int length = pos - start;
+        type = TYPE_ID;
+        if (length < 2 || length > 6) return ID;
+        for (int i = 0; i < KEYWORDS.length; i++) {
+            if (KEYWORDS[i].length() == length && regionMatches(KEYWORDS[i])) {
+                type = KEYWORD_TYPES[i];
+                return KEYWORD;
+            }
+        }
+        if (regionMatches("true") || regionMatches("false")) {
+            type = TYPE_BOOL;
+            return BOOL;
+        }
+        return ID;
+    }
+
+    private boolean regionMatches(String text) {
+        if (stop - start != text.length()) return false;
+        for (int i = 0; i < text.length(); i++) {
+            if (buf[start + i] != text.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private void recognitionError(int from, int to) {
+        String text = new String(buf, from, to - from).replace("\n", "\\n").replace("\r", "\\r").replace("\t", "\\t");
+        errors.report(line, from - lineStart, "token recognition error at: '" + text + "'");
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
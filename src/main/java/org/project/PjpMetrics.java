@@ -0,0 +1,138 @@
+package org.project;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Procesní čítače (skripty, instrukce, cache) zaregistrované v platformním MBean serveru
+ * jako {@value #OBJECT_NAME}, takže je lze sledovat přes JConsole/JMC za běhu.
+ */
+public final class PjpMetrics implements PjpMetricsMXBean {
+
+    public static final String OBJECT_NAME = "org.project:type=PjpMetrics";
+
+    private static final PjpMetrics INSTANCE = register(new PjpMetrics());
+
+    private final LongAdder scriptsRun = new LongAdder();
+    private final LongAdder scriptsFailed = new LongAdder();
+    private final LongAdder instructions = new LongAdder();
+    private final LongAdder runNanos = new LongAdder();
+    private final AtomicLong slowestNanos = new AtomicLong();
+    private final AtomicLong peakMemory = new AtomicLong();
+    private final LongAdder compilations = new LongAdder();
+    private final LongAdder compileErrors = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+
+    private PjpMetrics() {
+    }
+
+    public static PjpMetrics get() {
+        return INSTANCE;
+    }
+
+    private static PjpMetrics register(PjpMetrics metrics) {
+        try {
+            var server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) server.registerMBean(metrics, name);
+        } catch (JMException | SecurityException e) {
+            // bez JMX se čítače jen nedají číst zvenku
+            System.err.println("PJP metrics not registered: " + e.getMessage());
+        }
+        return metrics;
+    }
+
+    void scriptFinished(long executedInstructions, long nanos, long peakMemoryBytes, boolean failed) {
+        scriptsRun.increment();
+        if (failed) scriptsFailed.increment();
+        instructions.add(executedInstructions);
+        runNanos.add(nanos);
+        slowestNanos.accumulateAndGet(nanos, Math::max);
+        peakMemory.accumulateAndGet(peakMemoryBytes, Math::max);
+    }
+
+    void compiled(boolean failed) {
+        compilations.increment();
+        if (failed) compileErrors.increment();
+    }
+
+    void cacheLookup(boolean hit) {
+        (hit ? cacheHits : cacheMisses).increment();
+    }
+
+    @Override
+    public long getScriptsRun() {
+        return scriptsRun.sum();
+    }
+
+    @Override
+    public long getScriptsFailed() {
+        return scriptsFailed.sum();
+    }
+
+    @Override
+    public long getInstructionsExecuted() {
+        return instructions.sum();
+    }
+
+    @Override
+    public double getInstructionsPerSecond() {
+        long nanos = runNanos.sum();
+        return nanos == 0 ? 0 : instructions.sum() * 1e9 / nanos;
+    }
+
+    @Override
+    public double getSlowestScriptMillis() {
+        return slowestNanos.get() / 1e6;
+    }
+
+    @Override
+    public long getPeakScriptMemoryBytes() {
+        return peakMemory.get();
+    }
+
+    @Override
+    public long getCompilations() {
+        return compilations.sum();
+    }
+
+    @Override
+    public long getCompileErrors() {
+        return compileErrors.sum();
+    }
+
+    @Override
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    @Override
+    public long getCacheMisses() {
+        return cacheMisses.sum();
+    }
+
+    @Override
+    public double getCacheHitRate() {
+        long hits = cacheHits.sum();
+        long total = hits + cacheMisses.sum();
+        return total == 0 ? Double.NaN : (double) hits / total;
+    }
+
+    @Override
+    public void reset() {
+        scriptsRun.reset();
+        scriptsFailed.reset();
+        instructions.reset();
+        runNanos.reset();
+        slowestNanos.set(0);
+        peakMemory.set(0);
+        compilations.reset();
+        compileErrors.reset();
+        cacheHits.reset();
+        cacheMisses.reset();
+    }
+}
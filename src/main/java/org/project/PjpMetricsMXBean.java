@@ -0,0 +1,33 @@
+package org.project;
+
+/** Živé čítače PJP pro JMX, viz {@link PjpMetrics}. */
+public interface PjpMetricsMXBean {
+
+    long getScriptsRun();
+
+    long getScriptsFailed();
+
+    long getInstructionsExecuted();
+
+    /** Propustnost VM: provedené instrukce za sekundu čistého běhu skriptů. */
+    double getInstructionsPerSecond();
+
+    /** Nejdelší jeden běh skriptu v milisekundách. */
+    double getSlowestScriptMillis();
+
+    /** Nejvyšší paměť držená jedním během skriptu v bajtech (odhad VM, viz {@link Interpreter#getPeakMemoryBytes()}). */
+    long getPeakScriptMemoryBytes();
+
+    long getCompilations();
+
+    long getCompileErrors();
+
+    long getCacheHits();
+
+    long getCacheMisses();
+
+    /** Podíl zásahů cache přeložených skriptů (0–1), {@code NaN} bez dotazů. */
+    double getCacheHitRate();
+
+    void reset();
+}
@@ -0,0 +1,422 @@
+package org.project;
+
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.StringJoiner;
+
+import static org.project.PjpLexer.*;
+
+/**
+ * Ručně psaný parser gramatiky {@code pjplang.g4}, který staví rovnou {@link FlatAst}. Výrazy se
+ * parsují precedenčním lezením se stejnými prioritami, jaké ANTLR odvodí z levorekurzivního pravidla
+ * {@code expression}: dřívější alternativa váže silněji a unární {@code !} a {@code -} berou za operand
+ * i následující binární výraz (např. {@code !a && b} je {@code !(a && b)}).
+ * <p>
+ * Parser se nezotavuje a skončí na první syntaktické chybě; ta má ale stejné místo i text jako první chyba
+ * z ANTLR ({@code line L:C zpráva}). Proto si nese množiny tokenů, které mohou následovat (jako plný kontext
+ * v ANTLR), a napodobuje {@code DefaultErrorStrategy}: {@code sync} před alternativami a smyčkami
+ * ({@code extraneous input}, {@code mismatched input}), zotavení jedním tokenem v {@code match}
+ * ({@code extraneous input}, {@code missing}) a množinu zapamatovanou v {@code sync} na konci výrazu nebo seznamu.
+ * Kde ANTLR rozhoduje s delším výhledem (příkaz začínající {@code ID}, {@code else} vnořeného {@code if}),
+ * hlásí {@code no viable alternative}.
+ */
+public final class PjpParser {
+
+    // množiny typů tokenů (bit typ + 1, aby se vešel i EOF), viz PjpLexer#type()
+    private static final long VALUES = bits(TYPE_INT, TYPE_FLOAT, TYPE_BOOL, TYPE_STRING, TYPE_ID);
+    private static final long EXPRESSION_START = literals("(", "-", "!") | VALUES;
+    private static final long STATEMENT_START = EXPRESSION_START
+            | literals(";", "read", "write", "if", "while", "{", "int", "float", "bool", "string");
+    private static final long OPERATORS = literals("?", "*", "/", "%", "+", "-", ".", "<", ">", "==", "!=", "&&", "||");
+    private static final long BLOCK_FOLLOW = STATEMENT_START | literals("}");
+    private static final long SEMICOLON = literals(";");
+    private static final long LIST_END = literals(",", ";");
+    private static final long CLOSE = literals(")");
+    private static final long COLON = literals(":");
+    private static final long ELSE = literals("else");
+
+    private final PjpLexer lexer;
+    private final List<String> errors = new ArrayList<>();
+    private final FlatAst.Builder builder = new FlatAst.Builder();
+    private int[] stack = new int[64];
+    private int sp = 0;
+    // množina, kterou si ANTLR zapamatuje v sync bez shody (nextTokensContext), 0 = žádná
+    private long pending;
+    // počet vnějších if, v jejichž větvi then příkaz je (bez bloku mezi nimi)
+    private int openThens;
+    // začátek else, o kterém ANTLR rozhoduje výhledem přes další tokeny, -1 = žádné
+    private int speculation = -1;
+    // otevřené if v alternativě "else patří vnějšímu if"; výhled pokračuje větví else vnějšího if
+    private int outerOpen;
+    private boolean afterBranch;
+    // if bez else, které skončily před tokenem na pozici openAt
+    private int openAt = -1;
+    private int openIfs;
+
+    public PjpParser(CharSequence source) {
+        this.lexer = new PjpLexer(source, this::report);
+    }
+
+    public PjpParser(CharBuffer source) {
+        this.lexer = new PjpLexer(source, this::report);
+    }
+
+    public PjpParser(byte[] utf8) {
+        this.lexer = new PjpLexer(utf8, this::report);
+    }
+
+    /** Naparsuje zdroj; při syntaktické chybě vyhodí {@link IllegalArgumentException} se všemi chybami. */
+    public static FlatAst parse(CharSequence source) {
+        PjpParser parser = new PjpParser(source);
+        FlatAst ast = parser.program();
+        if (parser.hasErrors()) throw new IllegalArgumentException("Syntax error(s): " + parser.getErrors());
+        return ast;
+    }
+
+    public boolean hasErrors() {
+        return !errors.isEmpty();
+    }
+
+    public List<String> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    /** Celý program, nebo {@code null}, pokud obsahuje syntaktickou chybu. */
+    public FlatAst program() {
+        try {
+            lexer.next();
+            int base = sp;
+            long follow = STATEMENT_START | bits(TYPE_EOF);
+            sync(follow, false);
+            while (lexer.kind() != EOF) {
+                push(statement(follow));
+                sync(follow, true);
+            }
+            builder.node(FlatAst.PROGRAM, null, pop(base));
+            return hasErrors() ? null : builder.build();
+        } catch (SyntaxError e) {
+            return null;
+        }
+    }
+
+    private void report(int line, int column, String message) {
+        errors.add("line " + line + ":" + column + " " + message);
+    }
+
+    // ======================
+    // STATEMENTS
+    // ======================
+
+    /** Příkaz; {@code follow} jsou tokeny, které za ním mohou následovat. */
+    private int statement(long follow) {
+        sync(STATEMENT_START, false);
+        if (lexer.kind() == KEYWORD) {
+            if (lexer.is("int") || lexer.is("float") || lexer.is("bool") || lexer.is("string")) {
+                String type = lexer.text();
+                lexer.next();
+                int base = varList();
+                expect(";", follow);
+                return builder.node(FlatAst.DECL, type, pop(base));
+            }
+            if (lexer.is("read")) {
+                lexer.next();
+                int base = varList();
+                expect(";", follow);
+                return builder.node(FlatAst.READ, null, pop(base));
+            }
+            if (lexer.is("write")) {
+                lexer.next();
+                int base = sp;
+                push(expression(0, LIST_END));
+                while (comma()) push(expression(0, LIST_END));
+                expect(";", follow);
+                return builder.node(FlatAst.WRITE, null, pop(base));
+            }
+            if (lexer.is("if")) {
+                lexer.next();
+                expect("(", EXPRESSION_START);
+                int cond = expression(0, CLOSE);
+                expect(")", STATEMENT_START);
+                openThens++;
+                int then = statement(follow | ELSE);
+                openThens--;
+                int otherwise = elseBranch(follow);
+                if (otherwise < 0) return builder.node(FlatAst.IF, null, cond, then);
+                return builder.node(FlatAst.IF, null, cond, then, otherwise);
+            }
+            // zbývá while, else odmítl sync
+            lexer.next();
+            expect("(", EXPRESSION_START);
+            int cond = expression(0, CLOSE);
+            expect(")", STATEMENT_START);
+            return builder.node(FlatAst.WHILE, null, cond, statement(follow));
+        }
+        if (accept("{")) {
+            int base = sp;
+            int outerThens = openThens;
+            openThens = 0;
+            sync(BLOCK_FOLLOW, false);
+            while (!lexer.is("}")) {
+                push(statement(BLOCK_FOLLOW));
+                sync(BLOCK_FOLLOW, true);
+            }
+            openThens = outerThens;
+            lexer.next();
+            return builder.node(FlatAst.BLOCK, null, pop(base));
+        }
+        if (accept(";")) {
+            return builder.leaf(FlatAst.EMPTY, null);
+        }
+        if (lexer.kind() == ID) {
+            // ID '=' výraz, nebo výraz začínající proměnnou; ANTLR rozhoduje podle druhého tokenu
+            String name = lexer.text();
+            int offset = lexer.offset();
+            lexer.next();
+            if (accept("=")) {
+                int expr = expression(0, SEMICOLON);
+                expect(";", follow);
+                return builder.node(FlatAst.ASSIGN, name, expr);
+            }
+            if (!at(OPERATORS | SEMICOLON)) throw error(noViableAlternative(offset));
+            int expr = operators(builder.leaf(FlatAst.VAR, name), 0, SEMICOLON);
+            expect(";", follow);
+            return builder.node(FlatAst.EXPR_STMT, null, expr);
+        }
+        int expr = expression(0, SEMICOLON);
+        expect(";", follow);
+        return builder.node(FlatAst.EXPR_STMT, null, expr);
+    }
+
+    /**
+     * Volitelná větev else, nebo -1. Když je if ve větvi then jiného if, může else patřit i tomu vnějšímu
+     * a ANTLR rozhoduje plným výhledem: za každou větví else pokračuje, dokud by v alternativě "else patří
+     * vnějšímu if" zbýval otevřený if (vnější, nebo if bez else na konci větve). Chyba v tomto výhledu
+     * se hlásí jako "no viable alternative" od prvního else.
+     */
+    private int elseBranch(long follow) {
+        if (!lexer.is("else")) {
+            if (openAt == lexer.offset()) {
+                openIfs++;
+            } else {
+                openAt = lexer.offset();
+                openIfs = 1;
+            }
+            return -1;
+        }
+        boolean owner = afterBranch;
+        afterBranch = false;
+        if (speculation < 0 && openThens > 0) {
+            speculation = lexer.offset();
+            outerOpen = openThens;
+            owner = true;
+        }
+        lexer.next();
+        int otherwise = statement(follow);
+        if (owner) {
+            outerOpen += (openAt == lexer.offset() ? openIfs : 0) - 1;
+            if (outerOpen > 0 && lexer.is("else")) {
+                afterBranch = true;     // výhled pokračuje větví nejbližšího vnějšího if
+            } else {
+                if (outerOpen > 0 && !at(follow)) throw error(noViableAlternative(speculation));
+                speculation = -1;
+            }
+        }
+        return otherwise;
+    }
+
+    private int varList() {
+        int base = sp;
+        push(variable());
+        while (comma()) push(variable());
+        return base;
+    }
+
+    /** Další položka seznamu {@code (',' ...)*}; seznam končí před {@code ;}. */
+    private boolean comma() {
+        if (accept(",")) {
+            pending = 0;
+            return true;
+        }
+        if (pending == 0) pending = LIST_END;
+        return false;
+    }
+
+    private int variable() {
+        if (lexer.kind() != ID) throw mismatch(TYPE_ID, LIST_END);
+        int node = builder.leaf(FlatAst.VAR, lexer.text());
+        lexer.next();
+        return node;
+    }
+
+    // ======================
+    // EXPRESSIONS
+    // ======================
+
+    /**
+     * Výraz s prioritou alespoň {@code minPrecedence} (čísla odpovídají ANTLR, viz {@link #precedence()});
+     * {@code follow} jsou tokeny, které za ním mohou následovat.
+     */
+    private int expression(int minPrecedence, long follow) {
+        return operators(primary(follow), minPrecedence, follow);
+    }
+
+    private int operators(int left, int minPrecedence, long follow) {
+        while (true) {
+            int precedence = precedence();
+            if (precedence < 0) {
+                if (pending == 0) pending = OPERATORS | follow;
+                return left;
+            }
+            pending = 0;
+            if (precedence < minPrecedence) return left;
+            String op = lexer.text();
+            lexer.next();
+            if (op.equals("?")) {
+                int then = expression(0, COLON);
+                expect(":", EXPRESSION_START);
+                int otherwise = expression(precedence + 1, OPERATORS | follow);
+                left = builder.node(FlatAst.TERNARY, null, left, then, otherwise);
+            } else {
+                int right = expression(precedence + 1, OPERATORS | follow);
+                left = builder.node(FlatAst.BINARY, op, left, right);
+            }
+        }
+    }
+
+    /** Priorita binárního operátoru v aktuálním tokenu, nebo -1. */
+    private int precedence() {
+        if (lexer.kind() != SYMBOL) return -1;
+        if (lexer.is("?")) return 12;
+        if (lexer.is("*") || lexer.is("/") || lexer.is("%")) return 11;
+        if (lexer.is("+") || lexer.is("-") || lexer.is(".")) return 10;
+        if (lexer.is("<") || lexer.is(">")) return 9;
+        if (lexer.is("==") || lexer.is("!=")) return 8;
+        if (lexer.is("&&")) return 7;
+        if (lexer.is("||")) return 6;
+        return -1;
+    }
+
+    private int primary(long follow) {
+        sync(EXPRESSION_START, false);
+        int kind = lexer.kind();
+        if (kind == ID || kind == INT || kind == FLOAT || kind == BOOL || kind == STRING) {
+            int nodeKind = switch (kind) {
+                case ID -> FlatAst.VAR;
+                case INT -> FlatAst.INT_LIT;
+                case FLOAT -> FlatAst.FLOAT_LIT;
+                case BOOL -> FlatAst.BOOL_LIT;
+                default -> FlatAst.STRING_LIT;
+            };
+            int node = builder.leaf(nodeKind, lexer.text());
+            lexer.next();
+            return node;
+        }
+        if (accept("!")) return builder.node(FlatAst.NOT, null, expression(5, OPERATORS | follow));
+        if (accept("-")) return builder.node(FlatAst.UNARY_MINUS, null, expression(4, OPERATORS | follow));
+        // zbývá '(', jiné tokeny odmítl sync
+        lexer.next();
+        int inner = expression(0, CLOSE);
+        expect(")", OPERATORS | follow);
+        return inner;
+    }
+
+    // ======================
+    // POMOCNÉ
+    // ======================
+
+    private boolean accept(String symbol) {
+        if (!lexer.is(symbol)) return false;
+        lexer.next();
+        return true;
+    }
+
+    /** Token {@code symbol}; {@code next} jsou tokeny, které mohou následovat za ním. */
+    private void expect(String symbol, long next) {
+        if (!accept(symbol)) throw mismatch(literalType(symbol), next);
+    }
+
+    private boolean at(long set) {
+        return (set & bit(lexer.type())) != 0;
+    }
+
+    /**
+     * {@code sync} z ANTLR před alternativami nebo smyčkou: token mimo {@code expected} je navíc, když po něm
+     * {@code expected} pokračuje, jinak nesedí. Při návratu na začátek smyčky ({@code loopBack}) je vždy navíc.
+     */
+    private void sync(long expected, boolean loopBack) {
+        if (at(expected)) {
+            pending = 0;
+            return;
+        }
+        boolean extraneous = loopBack || (expected & bit(lexer.peekType())) != 0;
+        throw error((extraneous ? "extraneous input " : "mismatched input ") + quote(lexer.text())
+                + " expecting " + names(expected));
+    }
+
+    /** Chyba v {@code match} jako {@code DefaultErrorStrategy.recoverInline}: token navíc, chybějící token, nebo neshoda. */
+    private SyntaxError mismatch(int expected, long next) {
+        String token = quote(lexer.text());
+        if (lexer.peekType() == expected) return error("extraneous input " + token + " expecting " + typeName(expected));
+        if (at(next)) return error("missing " + typeName(expected) + " at " + token);
+        return error("mismatched input " + token + " expecting " + names(pending != 0 ? pending : bit(expected)));
+    }
+
+    private String noViableAlternative(int offset) {
+        return "no viable alternative at input " + quote(lexer.textFrom(offset));
+    }
+
+    private static long bit(int type) {
+        return 1L << (type + 1);
+    }
+
+    private static long bits(int... types) {
+        long set = 0;
+        for (int type : types) set |= bit(type);
+        return set;
+    }
+
+    private static long literals(String... texts) {
+        long set = 0;
+        for (String text : texts) set |= bit(literalType(text));
+        return set;
+    }
+
+    /** Množina jako {@code IntervalSet.toString} v ANTLR: podle typu, ve složených závorkách jen pro víc prvků. */
+    private static String names(long set) {
+        StringJoiner joiner = new StringJoiner(", ");
+        for (long rest = set; rest != 0; rest &= rest - 1) joiner.add(typeName(Long.numberOfTrailingZeros(rest) - 1));
+        return Long.bitCount(set) > 1 ? "{" + joiner + "}" : joiner.toString();
+    }
+
+    private static String quote(String text) {
+        return "'" + text.replace("\n", "\\n").replace("\r", "\\r").replace("\t", "\\t") + "'";
+    }
+
+    private void push(int node) {
+        if (sp == stack.length) stack = Arrays.copyOf(stack, sp * 2);
+        stack[sp++] = node;
+    }
+
+    private int[] pop(int base) {
+        int[] nodes = Arrays.copyOfRange(stack, base, sp);
+        sp = base;
+        return nodes;
+    }
+
+    private SyntaxError error(String message) {
+        if (speculation >= 0) message = noViableAlternative(speculation);
+        report(lexer.line(), lexer.column(), message);
+        return new SyntaxError();
+    }
+
+    private static final class SyntaxError extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        SyntaxError() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package org.project;
+
+import grammar.pjplangLexer;
+import grammar.pjplangParser;
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.tree.ParseTree;
+
+import javax.script.*;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Engine pro {@code javax.script}. Skript se přeloží na dekódovaný program pro {@link Interpreter}
+ * a každé spuštění dostane vlastní VM.
+ * <p>
+ * Vstup pro {@code read}: hodnota {@value #INPUT} v bindings (seznam hodnot nebo text po řádcích),
+ * jinak řádky z {@link ScriptContext#getReader()}. Výstup {@code write} jde do {@link ScriptContext#getWriter()}.
+ * Po doběhnutí se hodnoty proměnných programu zapíší do engine bindings.
+ */
+public class PjpScriptEngine extends AbstractScriptEngine implements Compilable {
+
+    /** Klíč v bindings se vstupem pro {@code read}. */
+    public static final String INPUT = "input";
+
+    /** Klíč s limitem paměti v bajtech pro jeden běh (číslo), viz {@link Interpreter#setMemoryLimit(long)}. */
+    public static final String MEMORY_LIMIT = "pjp.memoryLimit";
+
+    /** Klíč s limitem hloubky zásobníku (číslo), viz {@link Interpreter#setStackLimit(int)}. */
+    public static final String STACK_LIMIT = "pjp.stackLimit";
+
+    private final PjpScriptEngineFactory factory;
+
+    PjpScriptEngine(PjpScriptEngineFactory factory) {
+        this.factory = factory;
+    }
+
+    @Override
+    public CompiledScript compile(String script) throws ScriptException {
+        Interpreter.Program program = factory.cached(script);
+        if (program == null) {
+            try {
+                program = translate(script);
+            } catch (ScriptException e) {
+                PjpMetrics.get().compiled(true);
+                throw e;
+            }
+            PjpMetrics.get().compiled(false);
+            factory.remember(script, program);
+        }
+        return new PjpCompiledScript(program);
+    }
+
+    @Override
+    public CompiledScript compile(Reader script) throws ScriptException {
+        return compile(readAll(script));
+    }
+
+    @Override
+    public Object eval(String script, ScriptContext context) throws ScriptException {
+        return compile(script).eval(context);
+    }
+
+    @Override
+    public Object eval(Reader reader, ScriptContext context) throws ScriptException {
+        return eval(readAll(reader), context);
+    }
+
+    @Override
+    public Bindings createBindings() {
+        return new SimpleBindings();
+    }
+
+    @Override
+    public ScriptEngineFactory getFactory() {
+        return factory;
+    }
+
+    private static Interpreter.Program translate(String script) throws ScriptException {
+        List<String> errors = new ArrayList<>();
+        BaseErrorListener syntaxErrors = new BaseErrorListener() {
+            @Override
+            public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                                    int charPositionInLine, String msg, RecognitionException e) {
+                errors.add("line " + line + ":" + charPositionInLine + " " + msg);
+            }
+        };
+        Telemetry.ParseEvent parseEvent = new Telemetry.ParseEvent();
+        parseEvent.begin();
+        pjplangLexer lexer = new pjplangLexer(CharStreams.fromString(script));
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(syntaxErrors);
+        pjplangParser parser = new pjplangParser(new CommonTokenStream(lexer));
+        parser.removeErrorListeners();
+        parser.addErrorListener(syntaxErrors);
+
+        ParseTree tree = parser.program();
+        parseEvent.sourceSize = script.length();
+        parseEvent.errorCount = errors.size();
+        parseEvent.commit();
+        if (!errors.isEmpty()) throw new ScriptException("Syntax error(s): " + String.join("; ", errors));
+
+        Telemetry.TypeCheckEvent checkEvent = new Telemetry.TypeCheckEvent();
+        checkEvent.begin();
+        TypeChecker checker = new TypeChecker();
+        checker.visit(tree);
+        checkEvent.sourceSize = script.length();
+        checkEvent.errorCount = checker.getErrors().size();
+        checkEvent.commit();
+        if (checker.hasErrors()) throw new ScriptException("Type error(s): " + String.join("; ", checker.getErrors()));
+
+        Telemetry.CodeGenEvent genEvent = new Telemetry.CodeGenEvent();
+        genEvent.begin();
+        Interpreter.Program.Builder builder = new Interpreter.Program.Builder();
+        new CodeGenerator(builder).visit(tree);
+        // skripty bez read (nebo jejich začátek do prvního read) se vyhodnotí už tady
+        Interpreter.Program program = PartialEvaluator.evaluate(builder.build());
+        genEvent.instructionCount = program.code().length;
+        genEvent.commit();
+        return program;
+    }
+
+    private static String readAll(Reader reader) throws ScriptException {
+        try {
+            StringBuilder sb = new StringBuilder();
+            char[] buf = new char[8192];
+            for (int n; (n = reader.read(buf)) != -1; ) sb.append(buf, 0, n);
+            return sb.toString();
+        } catch (IOException e) {
+            throw new ScriptException(e);
+        }
+    }
+
+    private final class PjpCompiledScript extends CompiledScript {
+        private final Interpreter.Program program;
+
+        PjpCompiledScript(Interpreter.Program program) {
+            this.program = program;
+        }
+
+        @Override
+        public Object eval(ScriptContext context) throws ScriptException {
+            Object input = context.getAttribute(INPUT);
+            Interpreter interpreter = input != null ? new Interpreter(inputLines(input)) : Interpreter.withOpenInput();
+            interpreter.setOutput(context.getWriter());
+            if (context.getAttribute(MEMORY_LIMIT) instanceof Number limit) interpreter.setMemoryLimit(limit.longValue());
+            if (context.getAttribute(STACK_LIMIT) instanceof Number limit) interpreter.setStackLimit(limit.intValue());
+            interpreter.load(program);
+
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                BufferedReader reader = input == null ? new BufferedReader(context.getReader()) : null;
+                // vstup z readeru se čte líně, až když ho program opravdu potřebuje
+                while (interpreter.run(Long.MAX_VALUE) == Interpreter.Status.WAITING_FOR_INPUT) {
+                    String line = reader.readLine();
+                    if (line == null) interpreter.closeInput();
+                    else interpreter.provideInput(line);
+                }
+                context.getWriter().flush();
+                failed = false;
+            } catch (IOException | UncheckedIOException e) {
+                throw new ScriptException(e instanceof UncheckedIOException u ? u.getCause() : (IOException) e);
+            } catch (RuntimeException e) {
+                ScriptException error = new ScriptException(e.getMessage());
+                error.initCause(e);
+                throw error;
+            } finally {
+                PjpMetrics.get().scriptFinished(interpreter.getExecutedInstructions(), System.nanoTime() - start,
+                        interpreter.getPeakMemoryBytes(), failed);
+            }
+
+            Bindings bindings = context.getBindings(ScriptContext.ENGINE_SCOPE);
+            interpreter.getVariables().forEach((name, value) -> {
+                if (!name.startsWith("$")) bindings.put(name, value); // bez pomocných proměnných optimalizací
+            });
+            return null;
+        }
+
+        @Override
+        public ScriptEngine getEngine() {
+            return PjpScriptEngine.this;
+        }
+    }
+
+    private static List<String> inputLines(Object input) {
+        if (input instanceof Iterable<?> values) {
+            List<String> lines = new ArrayList<>();
+            values.forEach(v -> lines.add(String.valueOf(v)));
+            return lines;
+        }
+        return String.valueOf(input).lines().toList();
+    }
+}
@@ -0,0 +1,126 @@
+package org.project;
+
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineFactory;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Továrna pro {@code javax.script}: {@code new ScriptEngineManager().getEngineByName("pjp")}.
+ * Všechny enginy z jedné továrny sdílejí LRU cache přeložených skriptů podle zdrojového textu.
+ */
+public class PjpScriptEngineFactory implements ScriptEngineFactory {
+
+    public static final int DEFAULT_CACHE_SIZE = 64;
+
+    private final Map<String, Interpreter.Program> cache;
+
+    public PjpScriptEngineFactory() {
+        this(DEFAULT_CACHE_SIZE);
+    }
+
+    /** @param cacheSize počet uchovávaných přeložených skriptů; 0 cache vypne */
+    public PjpScriptEngineFactory(int cacheSize) {
+        this.cache = cacheSize <= 0 ? null : new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Interpreter.Program> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /** Přeložený program ze cache, nebo {@code null}. */
+    Interpreter.Program cached(String source) {
+        if (cache == null) return null;
+        Interpreter.Program program;
+        synchronized (cache) {
+            program = cache.get(source);
+        }
+        PjpMetrics.get().cacheLookup(program != null);
+        return program;
+    }
+
+    void remember(String source, Interpreter.Program program) {
+        if (cache == null) return;
+        synchronized (cache) {
+            cache.put(source, program);
+        }
+    }
+
+    @Override
+    public String getEngineName() {
+        return "PJP Stack VM";
+    }
+
+    @Override
+    public String getEngineVersion() {
+        return "1.0";
+    }
+
+    @Override
+    public List<String> getExtensions() {
+        return List.of("pjp");
+    }
+
+    @Override
+    public List<String> getMimeTypes() {
+        return List.of("text/x-pjp");
+    }
+
+    @Override
+    public List<String> getNames() {
+        return List.of("pjp", "pjplang");
+    }
+
+    @Override
+    public String getLanguageName() {
+        return "PJP";
+    }
+
+    @Override
+    public String getLanguageVersion() {
+        return "1.0";
+    }
+
+    @Override
+    public Object getParameter(String key) {
+        return switch (key) {
+            case ScriptEngine.ENGINE -> getEngineName();
+            case ScriptEngine.ENGINE_VERSION -> getEngineVersion();
+            case ScriptEngine.NAME -> getNames().get(0);
+            case ScriptEngine.LANGUAGE -> getLanguageName();
+            case ScriptEngine.LANGUAGE_VERSION -> getLanguageVersion();
+            case "THREADING" -> "MULTITHREADED"; // každé eval má vlastní VM
+            default -> null;
+        };
+    }
+
+    /**
+     * PJP nemá objekty ani metody, takže výsledek není platný PJP kód; vrací se jen obvyklý tvar
+     * {@code obj.m(args)} pro nástroje, které ho zobrazují.
+     */
+    @Override
+    public String getMethodCallSyntax(String obj, String m, String... args) {
+        return obj + "." + m + "(" + String.join(", ", args) + ")";
+    }
+
+    /** Řetězcový literál v gramatice nemá escapování, text s uvozovkou proto nejde vypsat. */
+    @Override
+    public String getOutputStatement(String toDisplay) {
+        if (toDisplay.indexOf('"') >= 0) {
+            throw new IllegalArgumentException("PJP string literals cannot contain '\"': " + toDisplay);
+        }
+        return "write \"" + toDisplay + "\";";
+    }
+
+    @Override
+    public String getProgram(String... statements) {
+        return String.join("\n", statements);
+    }
+
+    @Override
+    public ScriptEngine getScriptEngine() {
+        return new PjpScriptEngine(this);
+    }
+}
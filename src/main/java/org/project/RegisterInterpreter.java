@@ -0,0 +1,124 @@
+package org.project;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.util.*;
+
+/**
+ * Registrový stroj nad {@link RegisterProgram}. Sémantika operací odpovídá {@link Interpreter}
+ * (včetně převodů mezi int a float), liší se jen způsob předávání hodnot.
+ */
+public class RegisterInterpreter {
+
+    private final Queue<String> inputQueue;
+    private BufferedReader stdin; // jen když inputQueue == null
+    private PrintStream out;
+    private long executed = 0;
+
+    public RegisterInterpreter() {
+        this.inputQueue = null;
+    }
+
+    public RegisterInterpreter(List<String> inputs) {
+        this.inputQueue = new LinkedList<>(inputs);
+    }
+
+    public void setOutput(PrintStream out) {
+        this.out = out;
+    }
+
+    public long getExecutedInstructions() {
+        return executed;
+    }
+
+    public void execute(List<String> stackCode) {
+        execute(RegisterTranslator.translate(stackCode));
+    }
+
+    public void execute(RegisterProgram program) {
+        RegisterProgram.Op[] ops = program.ops;
+        int[] dst = program.dst;
+        int[] src1 = program.src1;
+        int[] src2 = program.src2;
+        Object[] r = program.initialRegisters.clone();
+        PrintStream printTo = out != null ? out : System.out;
+
+        int pc = 0;
+        while (pc < ops.length) {
+            int i = pc++;
+            executed++;
+            switch (ops[i]) {
+                case MOV -> r[dst[i]] = r[src1[i]];
+                case ADD_I -> r[dst[i]] = (double) toInt(r[src1[i]]) + toInt(r[src2[i]]);
+                case ADD_F -> r[dst[i]] = toDouble(r[src1[i]]) + toDouble(r[src2[i]]);
+                case SUB_I -> r[dst[i]] = (double) toInt(r[src1[i]]) - toInt(r[src2[i]]);
+                case SUB_F -> r[dst[i]] = toDouble(r[src1[i]]) - toDouble(r[src2[i]]);
+                case MUL_I -> r[dst[i]] = (double) toInt(r[src1[i]]) * toInt(r[src2[i]]);
+                case MUL_F -> r[dst[i]] = toDouble(r[src1[i]]) * toDouble(r[src2[i]]);
+                case DIV_I -> r[dst[i]] = (double) toInt(r[src1[i]]) / toInt(r[src2[i]]);
+                case DIV_F -> r[dst[i]] = toDouble(r[src1[i]]) / toDouble(r[src2[i]]);
+                case MOD -> r[dst[i]] = (int) r[src1[i]] % (int) r[src2[i]];
+                case NEG -> {
+                    Object val = r[src1[i]];
+                    if (val instanceof Integer n) r[dst[i]] = -n;
+                    else if (val instanceof Double d) r[dst[i]] = -d;
+                    else throw new RuntimeException("Invalid type for uminus: " + val);
+                }
+                case CONCAT -> r[dst[i]] = (String) r[src1[i]] + (String) r[src2[i]];
+                case AND -> r[dst[i]] = (boolean) r[src1[i]] && (boolean) r[src2[i]];
+                case OR -> r[dst[i]] = (boolean) r[src1[i]] || (boolean) r[src2[i]];
+                case NOT -> r[dst[i]] = !(boolean) r[src1[i]];
+                case LT_I -> r[dst[i]] = toInt(r[src1[i]]) < toInt(r[src2[i]]);
+                case LT_F -> r[dst[i]] = toDouble(r[src1[i]]) < toDouble(r[src2[i]]);
+                case GT_I -> r[dst[i]] = toInt(r[src1[i]]) > toInt(r[src2[i]]);
+                case GT_F -> r[dst[i]] = toDouble(r[src1[i]]) > toDouble(r[src2[i]]);
+                case EQ -> r[dst[i]] = Objects.equals(r[src1[i]], r[src2[i]]);
+                case ITOF -> r[dst[i]] = (double) (int) r[src1[i]];
+                case PRINT -> {
+                    StringBuilder sb = new StringBuilder();
+                    for (int reg : program.args[i]) sb.append(r[reg]);
+                    printTo.println(sb);
+                }
+                case READ_I -> r[dst[i]] = Integer.parseInt(nextInput());
+                case READ_F -> r[dst[i]] = Double.parseDouble(nextInput());
+                case READ_B -> r[dst[i]] = Boolean.parseBoolean(nextInput());
+                case READ_S -> r[dst[i]] = nextInput();
+                case JMP -> pc = dst[i];
+                case FJMP -> {
+                    if (!(boolean) r[src1[i]]) pc = dst[i];
+                }
+                case TJMP -> {
+                    if ((boolean) r[src1[i]]) pc = dst[i];
+                }
+            }
+        }
+    }
+
+    private String nextInput() {
+        if (inputQueue != null) return Objects.requireNonNullElse(inputQueue.poll(), "");
+        String line = stdinLine();
+        if (line == null) throw new NoSuchElementException("No line found");
+        return line;
+    }
+
+    /** Další řádek standardního vstupu, nebo {@code null} na konci. Čte se přes jeden buffer, aby se řádky neztrácely. */
+    private String stdinLine() {
+        try {
+            if (stdin == null) stdin = new BufferedReader(new InputStreamReader(System.in));
+            return stdin.readLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static int toInt(Object value) {
+        return (value instanceof Integer) ? (Integer) value : ((Double) value).intValue();
+    }
+
+    private static double toDouble(Object value) {
+        return (value instanceof Integer) ? ((Integer) value).doubleValue() : (Double) value;
+    }
+}
@@ -0,0 +1,74 @@
+package org.project;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Program pro registrový stroj ({@link RegisterInterpreter}) ve tříadresovém tvaru, např. {@code add_i r3, r1, r2}.
+ * Konstanty jsou uložené v registrech, které se naplní před spuštěním, takže každý operand je číslo registru.
+ */
+public final class RegisterProgram {
+
+    public enum Op {
+        MOV, ADD_I, ADD_F, SUB_I, SUB_F, MUL_I, MUL_F, DIV_I, DIV_F, MOD, NEG, CONCAT,
+        AND, OR, NOT, LT_I, LT_F, GT_I, GT_F, EQ, ITOF, PRINT, READ_I, READ_F, READ_B, READ_S, JMP, FJMP, TJMP;
+
+        String mnemonic() {
+            return name().toLowerCase();
+        }
+    }
+
+    final Op[] ops;
+    final int[] dst;
+    final int[] src1;
+    final int[] src2;
+    /** Operandy instrukce {@code print}, u ostatních instrukcí {@code null}. */
+    final int[][] args;
+    final Object[] initialRegisters;
+    final String[] registerNames;
+
+    RegisterProgram(Op[] ops, int[] dst, int[] src1, int[] src2, int[][] args,
+                    Object[] initialRegisters, String[] registerNames) {
+        this.ops = ops;
+        this.dst = dst;
+        this.src1 = src1;
+        this.src2 = src2;
+        this.args = args;
+        this.initialRegisters = initialRegisters;
+        this.registerNames = registerNames;
+    }
+
+    public int size() {
+        return ops.length;
+    }
+
+    public int registerCount() {
+        return initialRegisters.length;
+    }
+
+    /** Textová podoba programu; u jmp/fjmp je cílem index instrukce. */
+    public List<String> toText() {
+        List<String> lines = new ArrayList<>();
+        for (int r = 0; r < registerNames.length; r++) {
+            lines.add("// r" + r + " = " + registerNames[r]);
+        }
+        for (int pc = 0; pc < ops.length; pc++) {
+            String m = ops[pc].mnemonic();
+            lines.add(switch (ops[pc]) {
+                case JMP -> m + " @" + dst[pc];
+                case FJMP, TJMP -> m + " r" + src1[pc] + ", @" + dst[pc];
+                case PRINT -> {
+                    StringBuilder sb = new StringBuilder(m);
+                    for (int i = 0; i < args[pc].length; i++) {
+                        sb.append(i == 0 ? " r" : ", r").append(args[pc][i]);
+                    }
+                    yield sb.toString();
+                }
+                case READ_I, READ_F, READ_B, READ_S -> m + " r" + dst[pc];
+                case MOV, NEG, NOT, ITOF -> m + " r" + dst[pc] + ", r" + src1[pc];
+                default -> m + " r" + dst[pc] + ", r" + src1[pc] + ", r" + src2[pc];
+            });
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,229 @@
+package org.project;
+
+import java.util.*;
+
+/**
+ * Překládá kód zásobníkového stroje (výstup {@link CodeGenerator}) na tříadresový registrový kód.
+ * <p>
+ * Položka na zásobníku ve výšce {@code k} odpovídá dočasnému registru {@code t_k}, proměnné a konstanty
+ * mají vlastní registry. {@code load} a {@code push} se nepřekládají na instrukce – na symbolický
+ * zásobník se jen uloží registr proměnné/konstanty. Do dočasných registrů se zásobník převádí až
+ * na návěštích a skocích, kde se musí cesty sejít ve stejném tvaru. {@code save x} hned po výpočtu
+ * přesměruje cíl poslední instrukce přímo do registru {@code x}.
+ */
+public final class RegisterTranslator {
+
+    private final String[][] code;
+    private final Map<String, Integer> labels;
+    private final int[] heights;
+
+    private final List<Object> initial = new ArrayList<>();
+    private final List<String> names = new ArrayList<>();
+    private final Map<String, Integer> variables = new HashMap<>();
+    private final Map<String, Integer> constants = new HashMap<>();
+    private final List<Integer> temps = new ArrayList<>();
+
+    private final List<RegisterProgram.Op> ops = new ArrayList<>();
+    private final List<int[]> operands = new ArrayList<>();
+    private final List<int[]> printArgs = new ArrayList<>();
+    private final Map<String, Integer> labelPc = new HashMap<>();
+    private final Map<Integer, String> jumpLabels = new HashMap<>();
+
+    private final List<Integer> stack = new ArrayList<>();
+    /** Index poslední instrukce, jejíž cílový registr lze ještě přesměrovat, jinak -1. */
+    private int retargetable = -1;
+
+    private RegisterTranslator(List<String> stackCode) {
+        this.code = StackHeightAnalysis.decode(stackCode);
+        this.labels = StackHeightAnalysis.labels(code);
+        this.heights = StackHeightAnalysis.compute(code, labels);
+    }
+
+    public static RegisterProgram translate(List<String> stackCode) {
+        return new RegisterTranslator(stackCode).translate();
+    }
+
+    private RegisterProgram translate() {
+        boolean live = true;
+        for (int i = 0; i < code.length; i++) {
+            String[] parts = code[i];
+            if (parts == null) continue;
+
+            if (parts[0].equals("label")) {
+                if (live) flush();
+                labelPc.put(parts[1], ops.size());
+                retargetable = -1;
+                stack.clear();
+                for (int k = 0; k < heights[i]; k++) stack.add(temp(k));
+                live = heights[i] >= 0;
+                continue;
+            }
+            if (!live || heights[i] < 0) continue;
+
+            switch (parts[0]) {
+                case "push" -> stack.add(constant(parts[1], parts[2]));
+                case "load" -> stack.add(variable(parts[1]));
+                case "save" -> save(variable(parts[1]));
+                case "dup" -> stack.add(stack.get(stack.size() - 1));
+                case "pop" -> pop();
+                case "add" -> binary(parts[1].equals("F") ? RegisterProgram.Op.ADD_F : RegisterProgram.Op.ADD_I);
+                case "sub" -> binary(parts[1].equals("F") ? RegisterProgram.Op.SUB_F : RegisterProgram.Op.SUB_I);
+                case "mul" -> binary(parts[1].equals("F") ? RegisterProgram.Op.MUL_F : RegisterProgram.Op.MUL_I);
+                case "div" -> binary(parts[1].equals("F") ? RegisterProgram.Op.DIV_F : RegisterProgram.Op.DIV_I);
+                case "lt" -> binary(parts[1].equals("F") ? RegisterProgram.Op.LT_F : RegisterProgram.Op.LT_I);
+                case "gt" -> binary(parts[1].equals("F") ? RegisterProgram.Op.GT_F : RegisterProgram.Op.GT_I);
+                case "mod" -> binary(RegisterProgram.Op.MOD);
+                case "concat" -> binary(RegisterProgram.Op.CONCAT);
+                case "and" -> binary(RegisterProgram.Op.AND);
+                case "or" -> binary(RegisterProgram.Op.OR);
+                case "eq" -> binary(RegisterProgram.Op.EQ);
+                case "uminus" -> unary(RegisterProgram.Op.NEG);
+                case "not" -> unary(RegisterProgram.Op.NOT);
+                case "itof" -> unary(RegisterProgram.Op.ITOF);
+                case "print" -> {
+                    int n = Integer.parseInt(parts[1]);
+                    int[] args = new int[n];
+                    for (int k = n - 1; k >= 0; k--) args[k] = pop();
+                    emit(RegisterProgram.Op.PRINT, -1, -1, -1, args);
+                }
+                case "read" -> {
+                    int dest = temp(stack.size());
+                    RegisterProgram.Op op = switch (parts[1]) {
+                        case "I" -> RegisterProgram.Op.READ_I;
+                        case "F" -> RegisterProgram.Op.READ_F;
+                        case "B" -> RegisterProgram.Op.READ_B;
+                        case "S" -> RegisterProgram.Op.READ_S;
+                        default -> throw new RuntimeException("Unknown read type: " + parts[1]);
+                    };
+                    emit(op, dest, -1, -1, null);
+                    retargetable = ops.size() - 1;
+                    stack.add(dest);
+                }
+                case "jmp" -> {
+                    flush();
+                    jumpLabels.put(ops.size(), parts[1]);
+                    emit(RegisterProgram.Op.JMP, -1, -1, -1, null);
+                    live = false;
+                }
+                case "fjmp", "tjmp" -> {
+                    int cond = pop();
+                    flush();
+                    jumpLabels.put(ops.size(), parts[1]);
+                    emit(parts[0].equals("fjmp") ? RegisterProgram.Op.FJMP : RegisterProgram.Op.TJMP, -1, cond, -1, null);
+                }
+                default -> throw new RuntimeException("Unknown instruction: " + parts[0]);
+            }
+        }
+        return build();
+    }
+
+    private void binary(RegisterProgram.Op op) {
+        int b = pop();
+        int a = pop();
+        int dest = temp(stack.size());
+        emit(op, dest, a, b, null);
+        retargetable = ops.size() - 1;
+        stack.add(dest);
+    }
+
+    private void unary(RegisterProgram.Op op) {
+        int a = pop();
+        int dest = temp(stack.size());
+        emit(op, dest, a, -1, null);
+        retargetable = ops.size() - 1;
+        stack.add(dest);
+    }
+
+    private void save(int var) {
+        int value = pop();
+        if (value == var) return;
+
+        boolean aliased = stack.contains(var);
+        if (!aliased && retargetable >= 0 && operands.get(retargetable)[0] == value && !stack.contains(value)) {
+            // výsledek poslední instrukce zapíšeme rovnou do proměnné
+            operands.get(retargetable)[0] = var;
+            retargetable = -1;
+            return;
+        }
+        if (aliased) {
+            // na zásobníku zůstává stará hodnota proměnné – před přepsáním ji zkopírujeme
+            for (int k = 0; k < stack.size(); k++) {
+                if (stack.get(k) == var) {
+                    emit(RegisterProgram.Op.MOV, temp(k), var, -1, null);
+                    stack.set(k, temp(k));
+                }
+            }
+        }
+        emit(RegisterProgram.Op.MOV, var, value, -1, null);
+        retargetable = -1;
+    }
+
+    /** Převede symbolický zásobník do kanonického tvaru (položka k v registru t_k). */
+    private void flush() {
+        for (int k = 0; k < stack.size(); k++) {
+            int t = temp(k);
+            if (stack.get(k) != t) {
+                emit(RegisterProgram.Op.MOV, t, stack.get(k), -1, null);
+                stack.set(k, t);
+            }
+        }
+        retargetable = -1;
+    }
+
+    private int pop() {
+        return stack.remove(stack.size() - 1);
+    }
+
+    private void emit(RegisterProgram.Op op, int dst, int a, int b, int[] args) {
+        ops.add(op);
+        operands.add(new int[]{dst, a, b});
+        printArgs.add(args);
+    }
+
+    private int temp(int height) {
+        while (temps.size() <= height) {
+            temps.add(register("t" + temps.size(), null));
+        }
+        return temps.get(height);
+    }
+
+    private int variable(String name) {
+        return variables.computeIfAbsent(name, n -> register(n, null));
+    }
+
+    private int constant(String type, String value) {
+        return constants.computeIfAbsent(type + " " + value, key -> register(key, switch (type) {
+            case "I" -> Integer.parseInt(value);
+            case "F" -> Double.parseDouble(value);
+            case "B" -> Boolean.parseBoolean(value);
+            case "S" -> value.substring(1, value.length() - 1); // strip quotes
+            default -> throw new RuntimeException("Unknown push type: " + type);
+        }));
+    }
+
+    private int register(String name, Object initialValue) {
+        names.add(name);
+        initial.add(initialValue);
+        return names.size() - 1;
+    }
+
+    private RegisterProgram build() {
+        int n = ops.size();
+        int[] dst = new int[n];
+        int[] src1 = new int[n];
+        int[] src2 = new int[n];
+        for (int pc = 0; pc < n; pc++) {
+            int[] o = operands.get(pc);
+            dst[pc] = o[0];
+            src1[pc] = o[1];
+            src2[pc] = o[2];
+        }
+        for (var jump : jumpLabels.entrySet()) {
+            Integer target = labelPc.get(jump.getValue());
+            if (target == null) throw new RuntimeException("Unknown label: " + jump.getValue());
+            dst[jump.getKey()] = target;
+        }
+        return new RegisterProgram(ops.toArray(new RegisterProgram.Op[0]), dst, src1, src2,
+                printArgs.toArray(new int[0][]), initial.toArray(), names.toArray(new String[0]));
+    }
+}
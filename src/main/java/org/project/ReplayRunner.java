@@ -0,0 +1,197 @@
+package org.project;
+
+import grammar.pjplangParser;
+import org.project.ir.Optimizer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Offline zopakování běhu zaznamenaného {@link RunRecording}em. Zdroják se přeloží pro všechny výpočetní stroje
+ * a úrovně optimalizace (jako {@code EngineBenchmark}), každá varianta dostane stejné vstupy jako původní běh
+ * a změří se nejlepší čas z několika opakování, počet instrukcí a shoda výstupu se záznamem.
+ * <p>
+ * Běh, který skončil chybou (stav {@code FAILED}), se přehraje také: chyba varianty se ukáže v jejím řádku
+ * a shoda výstupu se porovná s výstupem do chyby.
+ * <p>
+ * Zaznamenaný program se pozná podle hashe: jako stejný se bere výstup {@link CodeGenerator}u i jeho částečně
+ * vyhodnocená podoba ({@link PartialEvaluator}, tak běží skripty přes {@link PjpScriptEngine}). Záznam běhu
+ * profilem řízeného nebo jinak optimalizovaného překladu se ohlásí jako jiný program.
+ * <p>
+ * Použití: {@code ReplayRunner <zdroj.pjp> <záznam> [opakování]}; vypíše tabulku variant vedle původního běhu.
+ */
+public final class ReplayRunner {
+
+    public static final int DEFAULT_RUNS = 5;
+
+    private ReplayRunner() {
+    }
+
+    /**
+     * Výsledek jedné varianty; {@code instructions} je -1, když stroj instrukce nepočítá nebo běh spadl.
+     * {@code error} je zpráva výjimky, se kterou běh skončil, jinak {@code null}.
+     */
+    public record Result(String engine, long instructions, long nanos, boolean outputMatches, String error) {
+    }
+
+    /** {@code sameProgram}: výchozí překlad dává stejný program jako zaznamenaný běh (jinak se zdroják změnil). */
+    public record Report(RunRecording recording, boolean sameProgram, List<Result> results) {
+
+        public String format() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("recorded %s, java %s, %s, %d inputs, status %s%n", recording.recordedAt(),
+                    recording.javaVersion(), recording.engine(), recording.inputs().size(), recording.status()));
+            if (!sameProgram) sb.append("warning: source compiles to a different program than the recorded one\n");
+            sb.append(String.format("%-10s %14s %12s %8s  %s%n", "engine", "instructions", "time", "speedup", "output"));
+            sb.append(row("recorded", recording.instructions(), recording.computeNanos(), recording.computeNanos(), "-"));
+            for (Result r : results) {
+                String output = r.outputMatches() ? "same" : "DIFFERENT";
+                if (r.error() != null) output += ", failed: " + r.error();
+                sb.append(row(r.engine(), r.instructions(), r.nanos(), recording.computeNanos(), output));
+            }
+            return sb.toString();
+        }
+
+        private static String row(String engine, long instructions, long nanos, long baseline, String output) {
+            return String.format("%-10s %14s %9.2f ms %7.2fx  %s%n", engine, instructions >= 0 ? instructions : "-",
+                    nanos / 1e6, nanos > 0 ? (double) baseline / nanos : 0.0, output);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: ReplayRunner <source.pjp> <recording> [runs]");
+            System.exit(2);
+        }
+        RunRecording recording = RunRecording.load(Path.of(args[1]));
+        int runs = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_RUNS;
+        System.out.print(replay(Files.readString(Path.of(args[0])), recording, runs).format());
+    }
+
+    public static Report replay(String source, RunRecording recording) {
+        return replay(source, recording, DEFAULT_RUNS);
+    }
+
+    public static Report replay(String source, RunRecording recording, int runs) {
+        if (runs < 1) throw new IllegalArgumentException("runs must be positive");
+        pjplangParser.ProgramContext tree = compileTree(source);
+        List<String> inputs = recording.inputs();
+
+        CodeGenerator generator = new CodeGenerator();
+        generator.visit(tree);
+        List<String> code = generator.getInstructions();
+        Interpreter.Program program = Interpreter.Program.decode(code);
+        boolean sameProgram = Arrays.deepHashCode(program.code()) == recording.programHash()
+                || Arrays.deepHashCode(PartialEvaluator.evaluate(program).code()) == recording.programHash();
+
+        // profil pro profilem řízený překlad se naměří na jednom (neměřeném) běhu; spadlý běh dá prázdný profil
+        BranchProfile profile = new BranchProfile();
+        try {
+            BranchProfile measured = new BranchProfile();
+            Interpreter profiling = new Interpreter(inputs);
+            profiling.setOutput(new PrintStream(OutputStream.nullOutputStream()));
+            profiling.setProfile(measured);
+            profiling.load(program);
+            profiling.run(Long.MAX_VALUE);
+            profile = measured;
+        } catch (RuntimeException e) {
+            // rozložení podle profilu se pak neliší od výchozího
+        }
+
+        Map<String, Run> variants = new LinkedHashMap<>();
+        variants.put("stack", out -> stack(program, inputs, out));
+        Interpreter.Program checked = new Interpreter.Program(program.code(), program.labels(), null);
+        variants.put("checked", out -> stack(checked, inputs, out));
+        CodeGenerator unrolling = new CodeGenerator();
+        unrolling.setUnrollFactor(4);
+        unrolling.visit(tree);
+        Interpreter.Program unrolled = Interpreter.Program.decode(unrolling.getInstructions());
+        variants.put("unroll4", out -> stack(unrolled, inputs, out));
+        CodeGenerator profiled = new CodeGenerator();
+        profiled.setProfile(profile);
+        profiled.visit(tree);
+        Interpreter.Program tuned = Interpreter.Program.decode(profiled.getInstructions()).withProfile(profile);
+        variants.put("profiled", out -> stack(tuned, inputs, out));
+        Interpreter.Program ir = Interpreter.Program.decode(Optimizer.optimize(code));
+        variants.put("ir", out -> stack(ir, inputs, out));
+        Interpreter.Program liveness = Interpreter.Program.decode(LivenessOptimizer.optimize(code));
+        variants.put("liveness", out -> stack(liveness, inputs, out));
+        RegisterProgram registers = RegisterTranslator.translate(code);
+        variants.put("register", out -> {
+            RegisterInterpreter vm = new RegisterInterpreter(inputs);
+            vm.setOutput(out);
+            vm.execute(registers);
+            return vm.getExecutedInstructions();
+        });
+        ClosureEngine.Program closures = ClosureEngine.compile(tree);
+        variants.put("closure", out -> {
+            ClosureEngine engine = new ClosureEngine(inputs);
+            engine.setOutput(out);
+            engine.execute(closures);
+            return -1;
+        });
+
+        List<Result> results = new ArrayList<>(variants.size());
+        variants.forEach((engine, run) -> results.add(measure(engine, run, runs, recording.outputHash())));
+        return new Report(recording, sameProgram, results);
+    }
+
+    private static pjplangParser.ProgramContext compileTree(String source) {
+        ParallelParser parser = new ParallelParser();
+        pjplangParser.ProgramContext tree = parser.parse(source);
+        if (parser.hasErrors()) {
+            throw new IllegalArgumentException("Syntax error(s): " + String.join("; ", parser.getErrors()));
+        }
+        TypeChecker checker = new TypeChecker();
+        checker.visit(tree);
+        if (checker.hasErrors()) {
+            throw new IllegalArgumentException("Type error(s): " + String.join("; ", checker.getErrors()));
+        }
+        return tree;
+    }
+
+    private static long stack(Interpreter.Program program, List<String> inputs, PrintStream out) {
+        Interpreter vm = new Interpreter(inputs);
+        vm.setOutput(out);
+        vm.load(program);
+        vm.run(Long.MAX_VALUE);
+        return vm.getExecutedInstructions();
+    }
+
+    private static Result measure(String engine, Run run, int runs, long outputHash) {
+        long best = Long.MAX_VALUE;
+        long instructions = 0;
+        boolean matches = true;
+        String error = null;
+        for (int i = 0; i < runs; i++) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            PrintStream out = new PrintStream(buffer, false, StandardCharsets.UTF_8);
+            long start = System.nanoTime();
+            try {
+                instructions = run.execute(out);
+            } catch (RuntimeException e) {
+                instructions = -1;
+                error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            }
+            best = Math.min(best, System.nanoTime() - start);
+            out.flush();
+            matches &= RunRecording.outputHash(buffer.toString(StandardCharsets.UTF_8)) == outputHash;
+        }
+        return new Result(engine, instructions, best, matches, error);
+    }
+
+    @FunctionalInterface
+    private interface Run {
+        long execute(PrintStream out);
+    }
+}
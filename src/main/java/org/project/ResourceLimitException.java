@@ -0,0 +1,13 @@
+package org.project;
+
+/**
+ * Skript překročil přidělený limit (instrukce, čas běhu, paměť) a byl ukončen.
+ */
+public class ResourceLimitException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ResourceLimitException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,184 @@
+package org.project;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Záznam jednoho běhu {@link Interpreter}u (viz {@link Interpreter#setRecording(RunRecording)}): všechny hodnoty,
+ * které přečetly instrukce {@code read}, a metadata běhu – hash programu, cesta VM, počet instrukcí, čas výpočtu
+ * (bez čekání na vstup) a CRC výstupu. {@link ReplayRunner} podle něj běh zopakuje offline.
+ * <p>
+ * Během běhu se jen přidávají vstupy do seznamu a přičítají čítače na konci {@link Interpreter#run(long)},
+ * hlavní smyčka VM se nemění. Soubor je textový: hlavička, řádky {@code klíč hodnota} a pak jeden řádek
+ * {@code input hodnota} na každý přečtený vstup (zpětné lomítko a konce řádků escapované).
+ */
+public final class RunRecording {
+
+    private static final String HEADER = "# pjp run recording v1";
+
+    private final List<String> inputs = new ArrayList<>();
+    private final CRC32 output = new CRC32();
+    private Instant recordedAt = Instant.now();
+    private String javaVersion = System.getProperty("java.version");
+    private int programHash;
+    private String engine = "";
+    private String status = "";
+    private long instructions;
+    private long nanos;
+    private long inputNanos;
+    private long outputHash = -1;
+
+    /** Přečtené vstupy v pořadí čtení. */
+    public List<String> inputs() {
+        return Collections.unmodifiableList(inputs);
+    }
+
+    public Instant recordedAt() {
+        return recordedAt;
+    }
+
+    public String javaVersion() {
+        return javaVersion;
+    }
+
+    /** {@code Arrays.deepHashCode} dekódovaného programu, stejně jako u {@link Snapshot#programHash()}. */
+    public int programHash() {
+        return programHash;
+    }
+
+    /** Cesta VM: {@code verified} (rychlá cesta) nebo {@code checked}. */
+    public String engine() {
+        return engine;
+    }
+
+    /** Stav po posledním {@link Interpreter#run(long)}, nebo {@code FAILED}, když běh skončil výjimkou. */
+    public String status() {
+        return status;
+    }
+
+    public long instructions() {
+        return instructions;
+    }
+
+    /** Čas strávený v {@link Interpreter#run(long)} bez čekání na vstup. */
+    public long computeNanos() {
+        return nanos - inputNanos;
+    }
+
+    public long inputNanos() {
+        return inputNanos;
+    }
+
+    /** CRC32 výstupu, každý řádek ukončený {@code \n}. */
+    public long outputHash() {
+        return outputHash >= 0 ? outputHash : output.getValue();
+    }
+
+    void input(String value, long waitedNanos) {
+        inputs.add(value);
+        inputNanos += waitedNanos;
+    }
+
+    void output(String line) {
+        output.update(line.getBytes(StandardCharsets.UTF_8));
+        output.update('\n');
+    }
+
+    void ran(int programHash, boolean verified, long instructions, long nanos, String status) {
+        this.programHash = programHash;
+        this.engine = verified ? "verified" : "checked";
+        this.instructions += instructions;
+        this.nanos += nanos;
+        this.status = status;
+    }
+
+    /** CRC32 výstupu v textu, jak ho vypíše {@code PrintStream.println}; {@code \r} se ignoruje. */
+    static long outputHash(String printed) {
+        CRC32 crc = new CRC32();
+        crc.update(printed.replace("\r", "").getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+
+    /** Zapíše záznam atomicky přes dočasný soubor. */
+    public void save(Path file) throws IOException {
+        List<String> lines = new ArrayList<>(inputs.size() + 12);
+        lines.add(HEADER);
+        lines.add("recorded " + recordedAt);
+        lines.add("java " + javaVersion);
+        lines.add("program " + Integer.toHexString(programHash));
+        lines.add("engine " + engine);
+        lines.add("status " + status);
+        lines.add("instructions " + instructions);
+        lines.add("nanos " + nanos);
+        lines.add("inputNanos " + inputNanos);
+        lines.add("output " + Long.toHexString(outputHash()));
+        for (String input : inputs) lines.add("input " + escape(input));
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(tmp, lines, StandardCharsets.UTF_8);
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static RunRecording load(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        if (lines.isEmpty() || !lines.get(0).equals(HEADER)) {
+            throw new IOException("Not a run recording: " + file);
+        }
+        RunRecording recording = new RunRecording();
+        for (int i = 1; i < lines.size(); i++) {
+            String line = lines.get(i);
+            if (line.isEmpty()) continue;
+            int space = line.indexOf(' ');
+            String key = space < 0 ? line : line.substring(0, space);
+            String value = space < 0 ? "" : line.substring(space + 1);
+            try {
+                switch (key) {
+                    case "recorded" -> recording.recordedAt = Instant.parse(value);
+                    case "java" -> recording.javaVersion = value;
+                    case "program" -> recording.programHash = Integer.parseUnsignedInt(value, 16);
+                    case "engine" -> recording.engine = value;
+                    case "status" -> recording.status = value;
+                    case "instructions" -> recording.instructions = Long.parseLong(value);
+                    case "nanos" -> recording.nanos = Long.parseLong(value);
+                    case "inputNanos" -> recording.inputNanos = Long.parseLong(value);
+                    case "output" -> recording.outputHash = Long.parseLong(value, 16);
+                    case "input" -> recording.inputs.add(unescape(value));
+                    default -> throw new IllegalArgumentException("unknown key " + key);
+                }
+            } catch (RuntimeException e) {
+                throw new UncheckedIOException(new IOException("Malformed recording line " + (i + 1) + ": " + line, e));
+            }
+        }
+        return recording;
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    private static String unescape(String value) {
+        StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c != '\\' || i + 1 == value.length()) {
+                sb.append(c);
+                continue;
+            }
+            char next = value.charAt(++i);
+            sb.append(switch (next) {
+                case 'n' -> '\n';
+                case 'r' -> '\r';
+                default -> next;
+            });
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,200 @@
+package org.project;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.*;
+
+/**
+ * Kooperativní plánovač, který střídá mnoho instancí {@link Interpreter} na malém počtu vláken.
+ * <p>
+ * Každý skript dostane v jednom přídělu nejvýše {@code quantum} instrukcí a pak se vrátí
+ * na konec fronty (round-robin). Skript čekající na vstup nezabírá vlákno, dokud mu někdo
+ * nepošle řádek přes {@link Task#offerInput(String)}. Překročení rozpočtu instrukcí nebo
+ * časového limitu ukončí skript s {@link ResourceLimitException}; limity paměti a zásobníku
+ * se nastavují přímo na VM ({@link Interpreter#setMemoryLimit(long)}, {@link Interpreter#setStackLimit(int)}).
+ */
+public class ScriptScheduler implements AutoCloseable {
+
+    private final BlockingQueue<Task> runQueue = new LinkedBlockingQueue<>();
+    // všechny nedokončené skripty (ve frontě, běžící i zaparkované), aby je close() mohl ukončit
+    private final Set<Task> live = ConcurrentHashMap.newKeySet();
+    private final ExecutorService carriers;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "pjp-scheduler-timer");
+        t.setDaemon(true);
+        return t;
+    });
+    private final int quantum;
+    private volatile boolean closed = false;
+
+    public ScriptScheduler(int carrierThreads, int quantum) {
+        if (carrierThreads < 1 || quantum < 1) {
+            throw new IllegalArgumentException("carrierThreads and quantum must be positive");
+        }
+        this.quantum = quantum;
+        this.carriers = Executors.newFixedThreadPool(carrierThreads, r -> {
+            Thread t = new Thread(r, "pjp-carrier");
+            t.setDaemon(true);
+            return t;
+        });
+        for (int i = 0; i < carrierThreads; i++) {
+            carriers.execute(this::carrierLoop);
+        }
+    }
+
+    /**
+     * Zařadí skript do plánovače.
+     * @param vm Interpreter s načteným programem (viz {@link Interpreter#load}).
+     * @param instructionBudget Maximální počet instrukcí za celý běh.
+     * @param timeout Maximální doba od zařazení do dokončení.
+     */
+    public Task submit(Interpreter vm, long instructionBudget, Duration timeout) {
+        if (closed) throw new IllegalStateException("Scheduler is closed");
+        Task task = new Task(vm, instructionBudget, System.nanoTime() + timeout.toNanos());
+        live.add(task);
+        ScheduledFuture<?> expiry = timer.schedule(task::expire, timeout.toNanos(), TimeUnit.NANOSECONDS);
+        // dokončený skript nesmí i s VM viset v časovači až do vypršení limitu
+        task.result.whenComplete((instructions, error) -> {
+            live.remove(task);
+            expiry.cancel(false);
+        });
+        enqueue(task);
+        return task;
+    }
+
+    private void carrierLoop() {
+        while (!closed) {
+            Task task;
+            try {
+                task = runQueue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            runSlice(task);
+        }
+    }
+
+    private void runSlice(Task task) {
+        if (task.result.isDone()) return;
+
+        if (System.nanoTime() - task.deadline >= 0) {
+            task.fail(new ResourceLimitException("Script exceeded its wall-clock timeout"));
+            return;
+        }
+
+        long remaining = task.instructionBudget - task.vm.getExecutedInstructions();
+        Interpreter.Status status;
+        long start = System.nanoTime();
+        try {
+            status = task.vm.run(Math.min(quantum, remaining));
+        } catch (RuntimeException e) {
+            task.runNanos += System.nanoTime() - start;
+            task.fail(e);
+            return;
+        }
+        task.runNanos += System.nanoTime() - start;
+
+        switch (status) {
+            case HALTED -> {
+                if (task.result.complete(task.vm.getExecutedInstructions())) {
+                    PjpMetrics.get().scriptFinished(task.vm.getExecutedInstructions(), task.runNanos,
+                            task.vm.getPeakMemoryBytes(), false);
+                }
+            }
+            case YIELDED -> {
+                if (task.vm.getExecutedInstructions() >= task.instructionBudget) {
+                    task.fail(new ResourceLimitException("Script exceeded its budget of " + task.instructionBudget + " instructions"));
+                } else {
+                    enqueue(task);
+                }
+            }
+            case WAITING_FOR_INPUT -> task.park();
+        }
+    }
+
+    /** Vrátí skript do fronty; po {@link #close()} ho místo toho ukončí. */
+    private void enqueue(Task task) {
+        if (closed) {
+            task.fail(new CancellationException("Scheduler closed"));
+        } else {
+            runQueue.add(task);
+        }
+    }
+
+    /**
+     * Zastaví plánovač. Všechny nedokončené skripty (i zaparkované a právě běžící) skončí
+     * s {@link CancellationException}.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        carriers.shutdownNow();
+        timer.shutdownNow();
+        for (Task task : live) {
+            task.fail(new CancellationException("Scheduler closed"));
+        }
+        runQueue.clear();
+    }
+
+    /** Jeden skript zařazený v plánovači. */
+    public class Task {
+        private final Interpreter vm;
+        private final long instructionBudget;
+        private final long deadline;
+        private final CompletableFuture<Long> result = new CompletableFuture<>();
+        private boolean parked = false;
+        private volatile long runNanos = 0; // čistý čas běhu ve VM, pro metriky
+
+        private Task(Interpreter vm, long instructionBudget, long deadline) {
+            this.vm = vm;
+            this.instructionBudget = instructionBudget;
+            this.deadline = deadline;
+        }
+
+        /** Dokončí se počtem provedených instrukcí, nebo výjimkou, se kterou skript skončil. */
+        public CompletableFuture<Long> result() {
+            return result;
+        }
+
+        public synchronized void offerInput(String line) {
+            vm.provideInput(line);
+            wake();
+        }
+
+        public synchronized void closeInput() {
+            vm.closeInput();
+            wake();
+        }
+
+        private void wake() {
+            if (parked) {
+                parked = false;
+                enqueue(this);
+            }
+        }
+
+        private synchronized void park() {
+            // vstup mohl dorazit mezi návratem z run() a zaparkováním
+            if (vm.hasPendingInput()) {
+                enqueue(this);
+            } else {
+                parked = true;
+            }
+        }
+
+        private synchronized void expire() {
+            if (result.isDone()) return;
+            if (parked) {
+                parked = false;
+                fail(new ResourceLimitException("Script exceeded its wall-clock timeout"));
+            }
+            // běžící nebo zařazený skript si limit zkontroluje sám na začátku dalšího přídělu
+        }
+
+        private void fail(Throwable t) {
+            if (result.completeExceptionally(t)) {
+                PjpMetrics.get().scriptFinished(vm.getExecutedInstructions(), runNanos, vm.getPeakMemoryBytes(), true);
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package org.project;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Stav {@link Interpreter}u mezi dvěma voláními {@code run}: ip, zásobník (od dna), proměnné
+ * a počet přečtených vstupů. {@code programHash} určuje program, ke kterému snímek patří.
+ * <p>
+ * Binární zápis hodnot: jeden bajt typu ({@code I}, {@code D}, {@code B}, {@code S}) a hodnota.
+ * Soubor se snímky zapisuje a čte {@link Checkpointer}.
+ */
+public record Snapshot(int programHash, int ip, long executed, long inputPosition,
+                       List<Object> stack, Map<String, Object> variables) {
+
+    public Snapshot {
+        stack = List.copyOf(stack);
+        variables = Map.copyOf(variables);
+    }
+
+    static void writeValue(DataOutput out, Object value) throws IOException {
+        switch (value) {
+            case Integer i -> {
+                out.writeByte('I');
+                out.writeInt(i);
+            }
+            case Double d -> {
+                out.writeByte('D');
+                out.writeDouble(d);
+            }
+            case Boolean b -> {
+                out.writeByte('B');
+                out.writeBoolean(b);
+            }
+            case String s -> {
+                out.writeByte('S');
+                writeString(out, s);
+            }
+            default -> throw new IllegalArgumentException("Cannot snapshot value: " + value);
+        }
+    }
+
+    static Object readValue(DataInput in) throws IOException {
+        int tag = in.readByte();
+        return switch (tag) {
+            case 'I' -> in.readInt();
+            case 'D' -> in.readDouble();
+            case 'B' -> in.readBoolean();
+            case 'S' -> readString(in);
+            default -> throw new IOException("Unknown value tag: " + tag);
+        };
+    }
+
+    /** Řetězec jako délka a UTF-8 (writeUTF má limit 64 KiB, řetězce ve skriptech můžou být delší). */
+    static void writeString(DataOutput out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInput in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,96 @@
+package org.project;
+
+import java.util.*;
+
+/**
+ * Simulace výšky zásobníku nad kódem zásobníkového stroje.
+ * Pro každou instrukci spočítá výšku zásobníku před jejím provedením (-1 = nedosažitelná instrukce)
+ * a ověří, že se výšky na všech cestách k jednomu místu shodují.
+ */
+public final class StackHeightAnalysis {
+
+    private StackHeightAnalysis() {
+    }
+
+    /** Rozloží řádky kódu na části jako {@link Interpreter}; prázdné řádky a komentáře jsou {@code null}. */
+    public static String[][] decode(List<String> code) {
+        String[][] decoded = new String[code.size()][];
+        for (int i = 0; i < code.size(); i++) {
+            String line = code.get(i).trim();
+            if (line.isEmpty() || line.startsWith("//")) continue;
+            decoded[i] = line.split("\\s+", 3);
+        }
+        return decoded;
+    }
+
+    public static Map<String, Integer> labels(String[][] code) {
+        Map<String, Integer> labels = new HashMap<>();
+        for (int i = 0; i < code.length; i++) {
+            if (code[i] != null && code[i][0].equals("label")) {
+                labels.put(code[i][1], i);
+            }
+        }
+        return labels;
+    }
+
+    public static int[] compute(String[][] code, Map<String, Integer> labels) {
+        int[] heights = new int[code.length];
+        Arrays.fill(heights, -1);
+        Deque<Integer> worklist = new ArrayDeque<>();
+        merge(heights, worklist, 0, 0);
+
+        while (!worklist.isEmpty()) {
+            int i = worklist.pop();
+            int h = heights[i];
+            String[] parts = code[i];
+            if (parts == null) {
+                merge(heights, worklist, i + 1, h);
+                continue;
+            }
+
+            int after = h + effect(parts);
+            if (after < 0) throw new IllegalStateException("Stack underflow at instruction " + i + ": " + String.join(" ", parts));
+
+            switch (parts[0]) {
+                case "jmp" -> merge(heights, worklist, target(labels, parts[1]), after);
+                case "fjmp", "tjmp" -> {
+                    merge(heights, worklist, target(labels, parts[1]), after);
+                    merge(heights, worklist, i + 1, after);
+                }
+                default -> merge(heights, worklist, i + 1, after);
+            }
+        }
+        return heights;
+    }
+
+    /** Změna výšky zásobníku po provedení instrukce. */
+    public static int effect(String[] parts) {
+        return switch (parts[0]) {
+            case "push", "load", "read", "dup" -> 1;
+            case "save", "pop", "fjmp", "tjmp" -> -1;
+            case "add", "sub", "mul", "div", "mod", "concat", "and", "or", "lt", "gt", "eq" -> -1;
+            case "uminus", "not", "itof", "jmp", "label" -> 0;
+            case "print" -> -Integer.parseInt(parts[1]);
+            default -> throw new IllegalStateException("Unknown instruction: " + parts[0]);
+        };
+    }
+
+    private static int target(Map<String, Integer> labels, String label) {
+        Integer index = labels.get(label);
+        if (index == null) throw new IllegalStateException("Unknown label: " + label);
+        return index;
+    }
+
+    private static void merge(int[] heights, Deque<Integer> worklist, int index, int height) {
+        if (index >= heights.length) {
+            return;
+        }
+        if (heights[index] == -1) {
+            heights[index] = height;
+            worklist.push(index);
+        } else if (heights[index] != height) {
+            throw new IllegalStateException("Inconsistent stack height at instruction " + index
+                    + ": " + heights[index] + " vs " + height);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package org.project;
+
+import grammar.pjplangLexer;
+import grammar.pjplangParser;
+import org.antlr.v4.runtime.*;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Překladač, který zpracovává zdrojový kód po jednotlivých příkazech nejvyšší úrovně.
+ * <p>
+ * Protože {@code program: statement* EOF} je plochý seznam, stačí opakovaně volat pravidlo
+ * {@code statement}. Každý příkaz se hned typově zkontroluje, přeloží a jeho podstrom se zahodí.
+ * Vstup čte {@link UnbufferedCharStream} a tokeny {@link UnbufferedTokenStream}, takže v paměti
+ * je najednou jen jeden příkaz (a tabulky symbolů), bez ohledu na velikost souboru.
+ */
+public class StreamingCompiler {
+
+    private boolean loopOptimizations = false;
+
+    /** Viz {@link CodeGenerator#enableLoopOptimizations()}. */
+    public void enableLoopOptimizations() {
+        this.loopOptimizations = true;
+    }
+
+    /** Výsledek překladu: chyby a statistiky. */
+    public record Result(List<String> errors, long statements, long instructions) {
+        public boolean hasErrors() {
+            return !errors.isEmpty();
+        }
+    }
+
+    /**
+     * Přeloží zdrojový kód a instrukce zapisuje po řádcích do {@code out}.
+     * Po první chybě se instrukce přestanou zapisovat, kontrola ale pokračuje, aby se nahlásily všechny chyby.
+     */
+    public Result compile(Reader source, Writer out) throws IOException {
+        pjplangLexer lexer = new pjplangLexer(new UnbufferedCharStream(source));
+        // text tokenů se musí zkopírovat, nebufferovaný vstup ho později už nemá
+        lexer.setTokenFactory(new CommonTokenFactory(true));
+        UnbufferedTokenStream<Token> tokens = new UnbufferedTokenStream<>(lexer);
+        pjplangParser parser = new pjplangParser(tokens);
+
+        List<String> errors = new ArrayList<>();
+        BaseErrorListener syntaxErrors = new BaseErrorListener() {
+            @Override
+            public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                                    int charPositionInLine, String msg, RecognitionException e) {
+                errors.add("line " + line + ":" + charPositionInLine + " " + msg);
+            }
+        };
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(syntaxErrors);
+        parser.removeErrorListeners();
+        parser.addErrorListener(syntaxErrors);
+
+        TypeChecker checker = new TypeChecker();
+        InstructionSink text = InstructionSink.text(out);
+        long[] emitted = {0};
+        CodeGenerator generator = new CodeGenerator((op, type, operand) -> {
+            text.emit(op, type, operand);
+            emitted[0]++;
+        });
+        if (loopOptimizations) generator.enableLoopOptimizations();
+        long statements = 0;
+
+        while (tokens.LA(1) != Token.EOF) {
+            int before = tokens.index();
+            pjplangParser.StatementContext statement = parser.statement();
+            if (tokens.index() == before) {
+                // parser se na chybném tokenu nepohnul – přeskočíme ho, jinak by se zacyklil
+                tokens.consume();
+                continue;
+            }
+            statements++;
+
+            int knownTypeErrors = checker.getErrors().size();
+            checker.visit(statement);
+            errors.addAll(checker.getErrors().subList(knownTypeErrors, checker.getErrors().size()));
+
+            if (errors.isEmpty()) {
+                generator.visit(statement);
+            }
+        }
+        out.flush();
+        return new Result(errors, statements, emitted[0]);
+    }
+}
@@ -0,0 +1,71 @@
+package org.project;
+
+import java.util.*;
+
+/**
+ * Výběr superinstrukcí pro rychlou cestu {@link Interpreter}u podle naměřeného profilu.
+ * <p>
+ * Frekvence instrukce je počet průchodů posledním návěštím před ní ({@link BranchProfile#arrivals}),
+ * před prvním návěštím 1. Druhy sekvencí se seřadí podle toho, kolik průchodů smyčkou VM by ušetřily,
+ * a použije se jen {@link #MAX_KINDS} nejčastějších, a to jen na místech, která běžela opakovaně.
+ * Sekvence se nepřekrývají a neobsahují návěští, takže se do jejich středu nedá skočit.
+ */
+final class Superinstructions {
+
+    static final int MAX_KINDS = 3;
+
+    private Superinstructions() {
+    }
+
+    /** Pole pro {@link VerifiedProgram#withFused(int[])}, nebo {@code null}, když se nic nevyplatí. */
+    static int[] select(String[][] code, VerifiedProgram program, BranchProfile profile) {
+        int[] ops = program.ops;
+        long[] frequency = new long[ops.length];
+        long current = 1;
+        for (int i = 0; i < ops.length; i++) {
+            if (ops[i] == VerifiedProgram.LABEL) current = profile.arrivals(code[i][1]);
+            frequency[i] = current;
+        }
+
+        int[] candidate = new int[ops.length];
+        long[] saved = new long[VerifiedProgram.GT_I_FJMP + 1];
+        for (int i = 0; i < ops.length; i++) {
+            candidate[i] = match(program, i);
+            if (candidate[i] != 0 && frequency[i] > 1) {
+                saved[candidate[i]] += frequency[i] * (VerifiedProgram.fusedLength(candidate[i]) - 1);
+            }
+        }
+
+        List<Integer> kinds = new ArrayList<>();
+        for (int kind = 1; kind < saved.length; kind++) if (saved[kind] > 0) kinds.add(kind);
+        kinds.sort(Comparator.comparingLong((Integer kind) -> saved[kind]).reversed());
+        Set<Integer> chosen = new HashSet<>(kinds.subList(0, Math.min(MAX_KINDS, kinds.size())));
+        if (chosen.isEmpty()) return null;
+
+        int[] fused = new int[ops.length];
+        for (int i = 0; i < ops.length; i++) {
+            if (chosen.contains(candidate[i]) && frequency[i] > 1) {
+                fused[i] = candidate[i];
+                i += VerifiedProgram.fusedLength(candidate[i]) - 1;
+            }
+        }
+        return fused;
+    }
+
+    private static int match(VerifiedProgram program, int i) {
+        int[] ops = program.ops;
+        int[] args = program.args;
+        if (i + 1 >= ops.length) return 0;
+        int a = ops[i];
+        int b = ops[i + 1];
+        if (a == VerifiedProgram.SAVE && b == VerifiedProgram.LOAD && args[i + 1] == args[i]
+                && i + 2 < ops.length && ops[i + 2] == VerifiedProgram.POP) {
+            return VerifiedProgram.SAVE_DISCARD;
+        }
+        if (a == VerifiedProgram.LOAD && b == VerifiedProgram.LOAD) return VerifiedProgram.LOAD_LOAD;
+        if (a == VerifiedProgram.LOAD && b == VerifiedProgram.PUSH) return VerifiedProgram.LOAD_PUSH;
+        if (a == VerifiedProgram.LT_I && b == VerifiedProgram.FJMP) return VerifiedProgram.LT_I_FJMP;
+        if (a == VerifiedProgram.GT_I && b == VerifiedProgram.FJMP) return VerifiedProgram.GT_I_FJMP;
+        return 0;
+    }
+}
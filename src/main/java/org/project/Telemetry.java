@@ -0,0 +1,74 @@
+package org.project;
+
+import jdk.jfr.*;
+
+/**
+ * Vlastní události JDK Flight Recorderu pro fáze překladu a běh VM.
+ * Když záznam neběží, stojí vytvoření a {@code commit()} události jen pár instrukcí.
+ * <p>
+ * Zapnutí např. {@code java -XX:StartFlightRecording:filename=pjp.jfr ...}, události jsou v kategorii "PJP".
+ */
+public final class Telemetry {
+
+    private Telemetry() {
+    }
+
+    @Name("org.project.Parse")
+    @Label("PJP Lex/Parse")
+    @Category({"PJP", "Compiler"})
+    public static class ParseEvent extends Event {
+        @Label("Source Size")
+        @DataAmount(DataAmount.BYTES)
+        public long sourceSize;
+
+        @Label("Syntax Errors")
+        public int errorCount;
+    }
+
+    @Name("org.project.TypeCheck")
+    @Label("PJP Type Check")
+    @Category({"PJP", "Compiler"})
+    public static class TypeCheckEvent extends Event {
+        @Label("Source Size")
+        @DataAmount(DataAmount.BYTES)
+        public long sourceSize;
+
+        @Label("Type Errors")
+        public int errorCount;
+    }
+
+    @Name("org.project.CodeGen")
+    @Label("PJP Code Generation")
+    @Category({"PJP", "Compiler"})
+    public static class CodeGenEvent extends Event {
+        @Label("Instructions")
+        public long instructionCount;
+    }
+
+    @Name("org.project.Load")
+    @Label("PJP Load")
+    @Category({"PJP", "VM"})
+    public static class LoadEvent extends Event {
+        @Label("Instructions")
+        public long instructionCount;
+    }
+
+    @Name("org.project.Execute")
+    @Label("PJP Execute")
+    @Description("Jedno volání Interpreter.run – při plánovači jde o jedno časové kvantum")
+    @Category({"PJP", "VM"})
+    public static class ExecuteEvent extends Event {
+        @Label("Instructions Executed")
+        public long instructionsExecuted;
+
+        @Label("Max Stack Depth")
+        public int maxStackDepth;
+
+        @Label("Peak Memory")
+        @DataAmount
+        public long peakMemoryBytes;
+
+        @Label("Status")
+        public String status;
+    }
+}
@@ -2,6 +2,7 @@ package org.project;
 
 import grammar.pjplangBaseVisitor;
 import grammar.pjplangParser;
+import org.antlr.v4.runtime.Token;
 
 import java.util.*;
 
@@ -14,12 +15,28 @@ public class TypeChecker extends pjplangBaseVisitor<String> {
         return !errors.isEmpty();
     }
 
+    public List<String> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
     public void printErrors() {
         for (String err : errors) {
             System.err.println(err);
         }
     }
 
+    /** Typ proměnné použité v místě {@code use}, nebo {@code null}, pokud tam ještě není deklarovaná. */
+    protected String lookup(Token use) {
+        return symbolTable.get(use.getText());
+    }
+
+    /** Zaregistruje deklaraci; vrací {@code false}, pokud už proměnná deklarovaná byla. */
+    protected boolean declare(Token id, String type) {
+        if (symbolTable.containsKey(id.getText())) return false;
+        symbolTable.put(id.getText(), type);
+        return true;
+    }
+
     // ======================
     // STATEMENTS
     // ======================
@@ -30,23 +47,20 @@ public class TypeChecker extends pjplangBaseVisitor<String> {
         if (ctx.type() != null && ctx.varList() != null) {
             String declaredType = ctx.type().getText();
             for (var id : ctx.varList().ID()) {
-                String name = id.getText();
-                if (symbolTable.containsKey(name)) {
-                    errors.add("Variable already declared: " + name);
-                } else {
-                    symbolTable.put(name, declaredType);
+                if (!declare(id.getSymbol(), declaredType)) {
+                    errors.add("Variable already declared: " + id.getText());
                 }
             }
 
             // Přiřazení
         } else if (ctx.ID() != null && ctx.expression() != null) {
             String varName = ctx.ID().getText();
-            if (!symbolTable.containsKey(varName)) {
+            String varType = lookup(ctx.ID().getSymbol());
+            if (varType == null) {
                 errors.add("Undeclared variable: " + varName);
                 return null;
             }
 
-            String varType = symbolTable.get(varName);
             String exprType = visit(ctx.expression());
 
             if (exprType == null) return null;
@@ -93,12 +107,11 @@ public class TypeChecker extends pjplangBaseVisitor<String> {
 
     @Override
     public String visitVarExpr(pjplangParser.VarExprContext ctx) {
-        String name = ctx.ID().getText();
-        if (!symbolTable.containsKey(name)) {
-            errors.add("Undeclared variable used: " + name);
-            return null;
+        String type = lookup(ctx.ID().getSymbol());
+        if (type == null) {
+            errors.add("Undeclared variable used: " + ctx.ID().getText());
         }
-        return symbolTable.get(name);
+        return type;
     }
 
     @Override
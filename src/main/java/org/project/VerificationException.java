@@ -0,0 +1,13 @@
+package org.project;
+
+/**
+ * Program pro zásobníkový stroj je chybně sestavený (viz {@link BytecodeVerifier}).
+ */
+public class VerificationException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public VerificationException(String message) {
+        super(message);
+    }
+}
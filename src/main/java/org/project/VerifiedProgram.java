@@ -0,0 +1,97 @@
+package org.project;
+
+/**
+ * Program ověřený {@link BytecodeVerifier}em, předpřipravený pro rychlou cestu {@link Interpreter}u:
+ * operace jako čísla, cíle skoků jako indexy, proměnné jako sloty a konstanty už převedené na objekty.
+ * Indexy instrukcí odpovídají řádkům původního programu.
+ */
+public final class VerifiedProgram {
+
+    static final int SKIP = 0; // prázdný řádek / komentář – nepočítá se jako instrukce
+    static final int LABEL = 1;
+    static final int PUSH = 2;
+    static final int LOAD = 3;
+    static final int LOAD_CHECKED = 4;
+    static final int SAVE = 5;
+    static final int ADD_I = 6;
+    static final int ADD_F = 7;
+    static final int SUB_I = 8;
+    static final int SUB_F = 9;
+    static final int MUL_I = 10;
+    static final int MUL_F = 11;
+    static final int DIV_I = 12;
+    static final int DIV_F = 13;
+    static final int MOD = 14;
+    static final int UMINUS = 15;
+    static final int CONCAT = 16;
+    static final int AND = 17;
+    static final int OR = 18;
+    static final int NOT = 19;
+    static final int LT_I = 20;
+    static final int LT_F = 21;
+    static final int GT_I = 22;
+    static final int GT_F = 23;
+    static final int EQ = 24;
+    static final int ITOF = 25;
+    static final int DUP = 26;
+    static final int POP = 27;
+    static final int PRINT = 28;
+    static final int READ_I = 29;
+    static final int READ_F = 30;
+    static final int READ_B = 31;
+    static final int READ_S = 32;
+    static final int JMP = 33;
+    static final int FJMP = 34;
+    static final int TJMP = 35;
+
+    // superinstrukce (viz Superinstructions); v poli fused na pozici první instrukce sekvence
+    static final int SAVE_DISCARD = 1; // save x; load x; pop
+    static final int LOAD_LOAD = 2;    // load a; load b
+    static final int LOAD_PUSH = 3;    // load a; push c
+    static final int LT_I_FJMP = 4;    // lt I; fjmp L
+    static final int GT_I_FJMP = 5;    // gt I; fjmp L
+
+    final int[] ops;
+    /** Slot proměnné, cíl skoku, počet hodnot pro print nebo index konstanty. */
+    final int[] args;
+    final Object[] constants;
+    final String[] variables;
+    final int maxStack;
+    /** Superinstrukce začínající na dané pozici (0 = žádná), nebo {@code null}. */
+    final int[] fused;
+
+    VerifiedProgram(int[] ops, int[] args, Object[] constants, String[] variables, int maxStack) {
+        this(ops, args, constants, variables, maxStack, null);
+    }
+
+    private VerifiedProgram(int[] ops, int[] args, Object[] constants, String[] variables, int maxStack, int[] fused) {
+        this.ops = ops;
+        this.args = args;
+        this.constants = constants;
+        this.variables = variables;
+        this.maxStack = maxStack;
+        this.fused = fused;
+    }
+
+    /** Stejný program se superinstrukcemi {@code fused} (pole indexované jako {@link #ops}). */
+    VerifiedProgram withFused(int[] fused) {
+        return new VerifiedProgram(ops, args, constants, variables, maxStack, fused);
+    }
+
+    static int fusedLength(int kind) {
+        return kind == SAVE_DISCARD ? 3 : 2;
+    }
+
+    /** Počet míst, kde se použije superinstrukce. */
+    public int getFusedCount() {
+        if (fused == null) return 0;
+        int n = 0;
+        for (int kind : fused) if (kind != 0) n++;
+        return n;
+    }
+
+    /** Největší výška zásobníku, kterou program může dosáhnout (nad výchozí výškou). */
+    public int getMaxStack() {
+        return maxStack;
+    }
+}
@@ -0,0 +1,66 @@
+package org.project.ir;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Základní blok: phi uzly, instrukce bez skoků a jediná ukončující instrukce (jump, branch, halt).
+ * Argumenty phi uzlů jsou ve stejném pořadí jako {@link #preds}.
+ */
+public final class BasicBlock {
+
+    final int id;
+    final List<Instr> phis = new ArrayList<>();
+    final List<Instr> instrs = new ArrayList<>();
+    Instr terminator;
+    final List<BasicBlock> preds = new ArrayList<>();
+    final List<BasicBlock> succs = new ArrayList<>();
+
+    BasicBlock(int id) {
+        this.id = id;
+    }
+
+    public int id() {
+        return id;
+    }
+
+    public List<Instr> phis() {
+        return phis;
+    }
+
+    public List<Instr> instrs() {
+        return instrs;
+    }
+
+    public Instr terminator() {
+        return terminator;
+    }
+
+    public List<BasicBlock> preds() {
+        return preds;
+    }
+
+    public List<BasicBlock> succs() {
+        return succs;
+    }
+
+    void append(Instr instr) {
+        instr.block = this;
+        if (instr.kind == Instr.Kind.PHI) phis.add(instr);
+        else if (instr.isTerminator()) terminator = instr;
+        else instrs.add(instr);
+    }
+
+    /** Odstraní hranu z tohoto bloku do {@code succ} včetně odpovídajících argumentů phi uzlů. */
+    void removeSuccessor(BasicBlock succ) {
+        succs.remove(succ);
+        int index = succ.preds.indexOf(this);
+        succ.preds.remove(index);
+        for (Instr phi : succ.phis) phi.removeOperand(index);
+    }
+
+    @Override
+    public String toString() {
+        return "B" + id;
+    }
+}
@@ -0,0 +1,116 @@
+package org.project.ir;
+
+import java.util.ArrayList;
+import java.util.Objects;
+
+/**
+ * Vyhodnotí operace s konstantními operandy a podmíněné skoky s konstantní podmínkou.
+ * Výsledky odpovídají {@link org.project.Interpreter} včetně typů hodnot (např. {@code add I} dává
+ * Double). Operace, které by za běhu spadly, se nechávají beze změny.
+ */
+public final class ConstantFolding implements IrPass {
+
+    @Override
+    public String name() {
+        return "constant-folding";
+    }
+
+    @Override
+    public boolean run(IrFunction function) {
+        boolean changed = false;
+        for (BasicBlock block : function.blocks) {
+            for (Instr instr : new ArrayList<>(block.instrs)) {
+                if (instr.kind != Instr.Kind.OP) continue;
+                Object value = fold(instr);
+                if (value == null) continue;
+
+                Instr constant = function.newInstr(Instr.Kind.CONST, null, typeTag(value), value);
+                constant.block = block;
+                block.instrs.set(block.instrs.indexOf(instr), constant);
+                instr.replaceAllUsesWith(constant);
+                instr.clearOperands();
+                changed = true;
+            }
+            changed |= foldBranch(function, block);
+        }
+        if (changed) function.removeUnreachableBlocks();
+        return changed;
+    }
+
+    private static boolean foldBranch(IrFunction function, BasicBlock block) {
+        Instr branch = block.terminator;
+        if (branch.kind != Instr.Kind.BRANCH) return false;
+        if (!(branch.operands.get(0).kind == Instr.Kind.CONST && branch.operands.get(0).value instanceof Boolean cond)) {
+            return false;
+        }
+
+        BasicBlock notTaken = block.succs.get(cond ? 1 : 0);
+        // vedou-li obě hrany do stejného bloku, odstraní se jen jedna z nich
+        block.removeSuccessor(notTaken);
+        branch.clearOperands();
+        Instr jump = function.newInstr(Instr.Kind.JUMP, null, null, null);
+        block.append(jump);
+        return true;
+    }
+
+    /** Hodnota operace, nebo {@code null}, pokud operandy nejsou konstanty nebo by operace spadla. */
+    static Object fold(Instr instr) {
+        Object[] args = new Object[instr.operands.size()];
+        for (int i = 0; i < args.length; i++) {
+            Instr operand = instr.operands.get(i);
+            if (operand.kind != Instr.Kind.CONST) return null;
+            args[i] = operand.value;
+        }
+        String type = instr.type;
+        Object a = args[0];
+        Object b = args.length > 1 ? args[1] : null;
+
+        return switch (instr.op) {
+            case "add", "sub", "mul", "div" -> {
+                if (!isNumber(a) || !isNumber(b)) yield null;
+                double x = "I".equals(type) ? toInt(a) : toDouble(a);
+                double y = "I".equals(type) ? toInt(b) : toDouble(b);
+                yield switch (instr.op) {
+                    case "add" -> x + y;
+                    case "sub" -> x - y;
+                    case "mul" -> x * y;
+                    default -> x / y;
+                };
+            }
+            case "lt", "gt" -> {
+                if (!isNumber(a) || !isNumber(b)) yield null;
+                double x = "I".equals(type) ? toInt(a) : toDouble(a);
+                double y = "I".equals(type) ? toInt(b) : toDouble(b);
+                yield instr.op.equals("lt") ? x < y : x > y;
+            }
+            case "mod" -> (a instanceof Integer x && b instanceof Integer y && y != 0) ? x % y : null;
+            case "uminus" -> a instanceof Integer x ? (Object) (-x) : a instanceof Double x ? (Object) (-x) : null;
+            case "concat" -> (a instanceof String x && b instanceof String y) ? x + y : null;
+            case "and" -> (a instanceof Boolean x && b instanceof Boolean y) ? x && y : null;
+            case "or" -> (a instanceof Boolean x && b instanceof Boolean y) ? x || y : null;
+            case "not" -> a instanceof Boolean x ? !x : null;
+            case "eq" -> Objects.equals(a, b);
+            case "itof" -> a instanceof Integer x ? (double) x : null;
+            default -> null;
+        };
+    }
+
+    static String typeTag(Object value) {
+        if (value instanceof Integer) return "I";
+        if (value instanceof Double) return "F";
+        if (value instanceof Boolean) return "B";
+        return "S";
+    }
+
+    private static boolean isNumber(Object value) {
+        return value instanceof Integer || value instanceof Double;
+    }
+
+    private static int toInt(Object value) {
+        return (value instanceof Integer) ? (Integer) value : ((Double) value).intValue();
+    }
+
+    private static double toDouble(Object value) {
+        return (value instanceof Integer) ? ((Integer) value).doubleValue() : (Double) value;
+    }
+}
@@ -0,0 +1,52 @@
+package org.project.ir;
+
+import java.util.*;
+
+/**
+ * Odstraní hodnoty, které nic nepoužívá. Živé jsou instrukce s vedlejšími efekty, operace, které mohou
+ * spadnout, a vše, na čem tyto instrukce (i přes phi uzly) závisí.
+ */
+public final class DeadCodeElimination implements IrPass {
+
+    @Override
+    public String name() {
+        return "dead-code-elimination";
+    }
+
+    @Override
+    public boolean run(IrFunction function) {
+        boolean changed = function.removeUnreachableBlocks();
+
+        Set<Instr> live = new HashSet<>();
+        Deque<Instr> worklist = new ArrayDeque<>();
+        for (BasicBlock block : function.blocks) {
+            for (Instr instr : block.instrs) {
+                if (instr.hasSideEffects() || instr.mayTrap()) worklist.push(instr);
+            }
+            worklist.push(block.terminator);
+        }
+        while (!worklist.isEmpty()) {
+            Instr instr = worklist.pop();
+            if (!live.add(instr)) continue;
+            for (Instr operand : instr.operands) worklist.push(operand);
+        }
+
+        for (BasicBlock block : function.blocks) {
+            changed |= removeDead(block.phis, live);
+            changed |= removeDead(block.instrs, live);
+        }
+        return changed;
+    }
+
+    private static boolean removeDead(List<Instr> instrs, Set<Instr> live) {
+        boolean changed = false;
+        for (Iterator<Instr> it = instrs.iterator(); it.hasNext(); ) {
+            Instr instr = it.next();
+            if (live.contains(instr)) continue;
+            instr.clearOperands();
+            it.remove();
+            changed = true;
+        }
+        return changed;
+    }
+}
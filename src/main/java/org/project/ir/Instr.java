@@ -0,0 +1,145 @@
+package org.project.ir;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Instrukce (a zároveň SSA hodnota) mezikódu. Operandy jsou přímo instrukce, které hodnotu vytvořily.
+ */
+public final class Instr {
+
+    public enum Kind {
+        /** Konstanta, {@link #value} je Java hodnota (Integer, Double, Boolean, String). */
+        CONST,
+        /** Proměnná čtená před prvním zápisem, {@link #value} je její jméno. */
+        UNDEF,
+        PHI,
+        /** Výpočet bez vedlejších efektů ({@code add}, {@code lt}, {@code concat}, ...). */
+        OP,
+        READ,
+        PRINT,
+        JUMP,
+        /** Podmíněný skok: operand je podmínka, následníci bloku jsou [při true, při false]. */
+        BRANCH,
+        HALT
+    }
+
+    final int id;
+    final Kind kind;
+    /** U {@link Kind#OP} název operace zásobníkového stroje. */
+    final String op;
+    /** Typový příznak operace nebo čtení (I, F, B, S), případně {@code null}. */
+    final String type;
+    final Object value;
+    final List<Instr> operands = new ArrayList<>();
+    final List<Instr> users = new ArrayList<>();
+    BasicBlock block;
+
+    Instr(int id, Kind kind, String op, String type, Object value) {
+        this.id = id;
+        this.kind = kind;
+        this.op = op;
+        this.type = type;
+        this.value = value;
+    }
+
+    public Kind kind() {
+        return kind;
+    }
+
+    public String op() {
+        return op;
+    }
+
+    public String type() {
+        return type;
+    }
+
+    public Object value() {
+        return value;
+    }
+
+    public List<Instr> operands() {
+        return operands;
+    }
+
+    public List<Instr> users() {
+        return users;
+    }
+
+    public BasicBlock block() {
+        return block;
+    }
+
+    public boolean isTerminator() {
+        return kind == Kind.JUMP || kind == Kind.BRANCH || kind == Kind.HALT;
+    }
+
+    /** Instrukce, kterou nelze odstranit ani přesunout přes jiné vedlejší efekty. */
+    public boolean hasSideEffects() {
+        return kind == Kind.READ || kind == Kind.PRINT || isTerminator();
+    }
+
+    /**
+     * Operace, která může za běhu vyhodit výjimku i u typově správného programu
+     * ({@code mod} a {@code itof} přetypovávají operand na int).
+     */
+    public boolean mayTrap() {
+        return kind == Kind.OP && (op.equals("mod") || op.equals("itof"));
+    }
+
+    void addOperand(Instr value) {
+        operands.add(value);
+        value.users.add(this);
+    }
+
+    void setOperand(int index, Instr value) {
+        operands.get(index).users.remove(this);
+        operands.set(index, value);
+        value.users.add(this);
+    }
+
+    void removeOperand(int index) {
+        operands.remove(index).users.remove(this);
+    }
+
+    void clearOperands() {
+        for (Instr operand : operands) operand.users.remove(this);
+        operands.clear();
+    }
+
+    /** Nahradí všechna použití této hodnoty hodnotou {@code replacement}. */
+    void replaceAllUsesWith(Instr replacement) {
+        for (Instr user : new ArrayList<>(users)) {
+            for (int i = 0; i < user.operands.size(); i++) {
+                if (user.operands.get(i) == this) user.setOperand(i, replacement);
+            }
+        }
+    }
+
+    public String name() {
+        return "%" + id;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        if (!isTerminator() && kind != Kind.PRINT) sb.append(name()).append(" = ");
+        sb.append(switch (kind) {
+            case CONST -> "const " + type + " " + (value instanceof String s ? "\"" + s + "\"" : value);
+            case UNDEF -> "undef " + value;
+            case OP -> op + (type != null ? " " + type : "");
+            default -> kind.name().toLowerCase() + (type != null ? " " + type : "");
+        });
+        for (int i = 0; i < operands.size(); i++) {
+            sb.append(i == 0 ? " " : ", ").append(operands.get(i).name());
+            if (kind == Kind.PHI && block != null && i < block.preds.size()) {
+                sb.append(" [B").append(block.preds.get(i).id).append("]");
+            }
+        }
+        if (isTerminator() && block != null) {
+            for (BasicBlock succ : block.succs) sb.append(" -> B").append(succ.id);
+        }
+        return sb.toString();
+    }
+}
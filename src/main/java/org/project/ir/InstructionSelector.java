@@ -0,0 +1,247 @@
+package org.project.ir;
+
+import java.util.*;
+
+/**
+ * Převádí mezikód zpět na instrukce zásobníkového stroje.
+ * <ul>
+ *   <li>Konstanty se vkládají přímo do místa použití.</li>
+ *   <li>Hodnota s jediným použitím ve stejném bloku se spočítá až v místě použití, pokud by se tím
+ *   nepřesunula přes {@code read}/{@code print}. Ostatní hodnoty se uloží do slotu {@code $vN}.</li>
+ *   <li>Phi uzly mají vlastní slot; na konci předchůdce se do něj zkopíruje argument. Všechny kopie
+ *   jedné hrany se nejdřív naskládají na zásobník a pak se uloží, takže se chovají jako paralelní kopie.
+ *   Kopie na hranách z podmíněného skoku se vkládají do samostatných přechodových bloků.</li>
+ * </ul>
+ */
+public final class InstructionSelector {
+
+    private static final String END_LABEL = "Lend";
+
+    private final IrFunction function;
+    private final List<String> out = new ArrayList<>();
+    private final List<Runnable> trampolines = new ArrayList<>();
+    private final Set<Instr> inline = new HashSet<>();
+    private int trampolineCounter = 0;
+    private boolean endUsed = false;
+
+    private InstructionSelector(IrFunction function) {
+        this.function = function;
+    }
+
+    public static List<String> select(IrFunction function) {
+        return new InstructionSelector(function).select();
+    }
+
+    private List<String> select() {
+        for (BasicBlock block : function.blocks) {
+            chooseInlineValues(block);
+        }
+
+        List<BasicBlock> layout = function.blocks;
+        for (int i = 0; i < layout.size(); i++) {
+            BasicBlock block = layout.get(i);
+            BasicBlock next = i + 1 < layout.size() ? layout.get(i + 1) : null;
+            out.add("label " + label(block));
+            for (Instr instr : block.instrs) {
+                emitDefinition(instr);
+            }
+            emitTerminator(block, next);
+        }
+        for (Runnable trampoline : trampolines) trampoline.run();
+        if (endUsed) out.add("label " + END_LABEL);
+        return removeUnusedLabels(out);
+    }
+
+    // ======================
+    // VÝBĚR HODNOT K VLOŽENÍ
+    // ======================
+
+    private void chooseInlineValues(BasicBlock block) {
+        List<Instr> instrs = block.instrs;
+        int end = instrs.size(); // pozice kopií pro phi a ukončující instrukce
+
+        // počet instrukcí s vedlejším efektem před danou pozicí
+        int[] effectsBefore = new int[end + 1];
+        for (int i = 0; i < end; i++) {
+            effectsBefore[i + 1] = effectsBefore[i] + (instrs.get(i).hasSideEffects() ? 1 : 0);
+        }
+
+        Map<Instr, Integer> position = new HashMap<>();
+        for (int i = 0; i < end; i++) position.put(instrs.get(i), i);
+
+        // odzadu, aby u každé hodnoty už bylo známo, kde se vygeneruje její uživatel
+        Map<Instr, Integer> site = new HashMap<>();
+        for (int i = end - 1; i >= 0; i--) {
+            Instr instr = instrs.get(i);
+            if (instr.kind != Instr.Kind.OP || instr.users.size() != 1) continue;
+
+            Instr user = instr.users.get(0);
+            Integer userSite;
+            if (user.block != block) {
+                continue;
+            } else if (user.kind == Instr.Kind.PHI) {
+                continue;
+            } else if (user.isTerminator()) {
+                userSite = end;
+            } else {
+                userSite = site.getOrDefault(user, position.get(user));
+            }
+            if (userSite == null || userSite <= i) continue;
+
+            // mezi definicí a místem použití nesmí být read/print
+            if (effectsBefore[userSite] - effectsBefore[i + 1] > 0) continue;
+
+            inline.add(instr);
+            site.put(instr, userSite);
+        }
+
+        // argumenty phi uzlů, které se kopírují na konci tohoto bloku (jen u nepodmíněného skoku)
+        if (block.terminator.kind == Instr.Kind.JUMP) {
+            BasicBlock succ = block.succs.get(0);
+            int index = succ.preds.indexOf(block);
+            for (Instr phi : succ.phis) {
+                Instr arg = phi.operands.get(index);
+                if (arg.kind == Instr.Kind.OP && arg.block == block && arg.users.size() == 1 && !inline.contains(arg)) {
+                    int i = position.get(arg);
+                    if (effectsBefore[end] - effectsBefore[i + 1] == 0) inline.add(arg);
+                }
+            }
+        }
+    }
+
+    // ======================
+    // GENEROVÁNÍ
+    // ======================
+
+    private void emitDefinition(Instr instr) {
+        switch (instr.kind) {
+            case CONST, UNDEF -> {} // generují se v místě použití
+            case OP -> {
+                if (inline.contains(instr)) return;
+                emitOperation(instr);
+                storeOrDrop(instr);
+            }
+            case READ -> {
+                out.add("read " + instr.type);
+                storeOrDrop(instr);
+            }
+            case PRINT -> {
+                for (Instr arg : instr.operands) emitValue(arg);
+                out.add("print " + instr.operands.size());
+            }
+            default -> throw new IllegalStateException("Unexpected instruction in block body: " + instr);
+        }
+    }
+
+    private void storeOrDrop(Instr instr) {
+        out.add(instr.users.isEmpty() ? "pop" : "save " + slot(instr));
+    }
+
+    private void emitValue(Instr value) {
+        switch (value.kind) {
+            case CONST -> out.add("push " + value.type + " " + literal(value.value));
+            case UNDEF -> out.add("load " + value.value);
+            case OP -> {
+                if (inline.contains(value)) emitOperation(value);
+                else out.add("load " + slot(value));
+            }
+            default -> out.add("load " + slot(value));
+        }
+    }
+
+    private void emitOperation(Instr instr) {
+        for (Instr operand : instr.operands) emitValue(operand);
+        out.add(instr.type != null ? instr.op + " " + instr.type : instr.op);
+    }
+
+    private void emitTerminator(BasicBlock block, BasicBlock next) {
+        Instr terminator = block.terminator;
+        switch (terminator.kind) {
+            case HALT -> {
+                if (next != null || !trampolines.isEmpty()) {
+                    out.add("jmp " + END_LABEL);
+                    endUsed = true;
+                }
+            }
+            case JUMP -> {
+                BasicBlock succ = block.succs.get(0);
+                emitCopies(block, succ);
+                if (succ != next) out.add("jmp " + label(succ));
+            }
+            case BRANCH -> {
+                BasicBlock onTrue = block.succs.get(0);
+                BasicBlock onFalse = block.succs.get(1);
+                emitValue(terminator.operands.get(0));
+
+                if (onFalse == next && !needsCopies(block, onFalse)) {
+                    out.add("tjmp " + edgeLabel(block, onTrue));
+                } else {
+                    out.add("fjmp " + edgeLabel(block, onFalse));
+                    emitCopies(block, onTrue);
+                    if (onTrue != next) out.add("jmp " + label(onTrue));
+                }
+            }
+            default -> throw new IllegalStateException("Unexpected terminator: " + terminator);
+        }
+    }
+
+    /** Návěští cíle skoku; vyžaduje-li hrana kopie pro phi, vytvoří pro ni přechodový blok. */
+    private String edgeLabel(BasicBlock from, BasicBlock to) {
+        if (!needsCopies(from, to)) return label(to);
+        String label = "Le" + (trampolineCounter++);
+        trampolines.add(() -> {
+            out.add("label " + label);
+            emitCopies(from, to);
+            out.add("jmp " + label(to));
+        });
+        return label;
+    }
+
+    private boolean needsCopies(BasicBlock from, BasicBlock to) {
+        int index = to.preds.indexOf(from);
+        for (Instr phi : to.phis) {
+            if (phi.operands.get(index) != phi) return true;
+        }
+        return false;
+    }
+
+    private void emitCopies(BasicBlock from, BasicBlock to) {
+        int index = to.preds.indexOf(from);
+        List<Instr> targets = new ArrayList<>();
+        for (Instr phi : to.phis) {
+            Instr arg = phi.operands.get(index);
+            if (arg == phi) continue;
+            emitValue(arg);
+            targets.add(phi);
+        }
+        for (int i = targets.size() - 1; i >= 0; i--) {
+            out.add("save " + slot(targets.get(i)));
+        }
+    }
+
+    private static String label(BasicBlock block) {
+        return "L" + block.id;
+    }
+
+    private static String slot(Instr value) {
+        return "$v" + value.id;
+    }
+
+    private static String literal(Object value) {
+        return value instanceof String s ? "\"" + s + "\"" : value.toString();
+    }
+
+    private static List<String> removeUnusedLabels(List<String> code) {
+        Set<String> used = new HashSet<>();
+        for (String line : code) {
+            String[] parts = line.split("\\s+");
+            if (parts[0].equals("jmp") || parts[0].equals("fjmp") || parts[0].equals("tjmp")) used.add(parts[1]);
+        }
+        List<String> result = new ArrayList<>();
+        for (String line : code) {
+            if (line.startsWith("label ") && !used.contains(line.substring(6))) continue;
+            result.add(line);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,304 @@
+package org.project.ir;
+
+import org.project.StackHeightAnalysis;
+
+import java.util.*;
+
+/**
+ * Staví {@link IrFunction} z kódu zásobníkového stroje.
+ * <p>
+ * Bloky začínají na návěštích a za skoky, takže CFG odpovídá {@code if}, {@code while} i ternárnímu
+ * operátoru tak, jak je přeložil {@link org.project.CodeGenerator}. Zásobník se uvnitř bloku simuluje
+ * symbolicky; hodnoty, které na něm zůstanou přes hranici bloku (větve ternárního operátoru), se
+ * chovají jako pseudo-proměnné {@code #k}. SSA tvar se staví přímo při průchodu podle Braun et al.,
+ * "Simple and Efficient Construction of Static Single Assignment Form" (2013).
+ */
+public final class IrBuilder {
+
+    private final String[][] code;
+    private final Map<String, Integer> labels;
+    private final int[] heights;
+    private final IrFunction function = new IrFunction();
+
+    /** Blok začínající na dané instrukci. */
+    private final Map<Integer, BasicBlock> blockAt = new HashMap<>();
+    private final Map<BasicBlock, Integer> blockStart = new HashMap<>();
+    private BasicBlock exit;
+
+    private final Map<BasicBlock, Map<String, Instr>> currentDef = new HashMap<>();
+    private final Map<BasicBlock, Map<String, Instr>> incompletePhis = new HashMap<>();
+    private final Set<BasicBlock> sealed = new HashSet<>();
+    private final Set<BasicBlock> filled = new HashSet<>();
+    /** Odstraněné triviální phi uzly a hodnoty, které je nahradily. */
+    private final Map<Instr, Instr> replaced = new HashMap<>();
+
+    private IrBuilder(List<String> stackCode) {
+        this.code = StackHeightAnalysis.decode(stackCode);
+        this.labels = StackHeightAnalysis.labels(code);
+        this.heights = StackHeightAnalysis.compute(code, labels);
+    }
+
+    public static IrFunction build(List<String> stackCode) {
+        return new IrBuilder(stackCode).build();
+    }
+
+    private IrFunction build() {
+        createBlocks();
+        List<BasicBlock> order = new ArrayList<>(function.blocks);
+        for (BasicBlock block : order) {
+            trySeal(block);
+            if (block != exit) fill(block);
+            filled.add(block);
+            for (BasicBlock succ : block.succs) trySeal(succ);
+        }
+        function.removeUnreachableBlocks();
+        return function;
+    }
+
+    // ======================
+    // BLOKY A HRANY
+    // ======================
+
+    private void createBlocks() {
+        SortedSet<Integer> leaders = new TreeSet<>();
+        leaders.add(0);
+        for (int i = 0; i < code.length; i++) {
+            if (code[i] == null) continue;
+            switch (code[i][0]) {
+                case "label" -> leaders.add(i);
+                case "jmp", "fjmp", "tjmp" -> leaders.add(i + 1);
+            }
+        }
+        for (int leader : leaders) {
+            if (leader < code.length) {
+                BasicBlock block = function.newBlock();
+                blockAt.put(leader, block);
+                blockStart.put(block, leader);
+            }
+        }
+        exit = function.newBlock();
+        blockAt.put(code.length, exit);
+        Instr halt = function.newInstr(Instr.Kind.HALT, null, null, null);
+        exit.append(halt);
+
+        for (var entry : blockStart.entrySet()) {
+            BasicBlock block = entry.getKey();
+            int end = blockEnd(entry.getValue());
+            String[] last = end > entry.getValue() ? code[end - 1] : null;
+            String op = last != null ? last[0] : "";
+            switch (op) {
+                case "jmp" -> link(block, blockAt.get(labels.get(last[1])));
+                case "fjmp" -> {
+                    link(block, blockAt.get(end));
+                    link(block, blockAt.get(labels.get(last[1])));
+                }
+                case "tjmp" -> {
+                    link(block, blockAt.get(labels.get(last[1])));
+                    link(block, blockAt.get(end));
+                }
+                default -> link(block, blockAt.get(end));
+            }
+        }
+    }
+
+    /** Index první instrukce za blokem začínajícím na {@code start}. */
+    private int blockEnd(int start) {
+        int i = start + 1;
+        while (i < code.length && !blockAt.containsKey(i)) i++;
+        return i;
+    }
+
+    private static void link(BasicBlock from, BasicBlock to) {
+        from.succs.add(to);
+        to.preds.add(from);
+    }
+
+    // ======================
+    // PŘEKLAD INSTRUKCÍ
+    // ======================
+
+    private void fill(BasicBlock block) {
+        int start = blockStart.get(block);
+        int end = blockEnd(start);
+        if (heights[start] < 0) {
+            // nedosažitelný kód – blok jen propojíme, hodnoty nepotřebujeme
+            block.append(function.newInstr(Instr.Kind.JUMP, null, null, null));
+            return;
+        }
+
+        Deque<Instr> stack = new ArrayDeque<>();
+        for (int k = 0; k < heights[start]; k++) {
+            stack.addLast(readVariable("#" + k, block));
+        }
+
+        Instr terminator = null;
+        for (int i = start; i < end; i++) {
+            String[] parts = code[i];
+            if (parts == null) continue;
+            switch (parts[0]) {
+                case "label" -> {}
+                case "push" -> stack.addLast(constant(block, parts[1], parts[2]));
+                case "load" -> stack.addLast(readVariable(parts[1], block));
+                case "save" -> writeVariable(parts[1], block, stack.removeLast());
+                case "dup" -> stack.addLast(stack.peekLast());
+                case "pop" -> stack.removeLast();
+                case "add", "sub", "mul", "div", "lt", "gt", "eq" -> binary(block, stack, parts[0], parts[1]);
+                case "mod", "concat", "and", "or" -> binary(block, stack, parts[0], null);
+                case "uminus" -> unary(block, stack, parts[0], parts[1]);
+                case "not", "itof" -> unary(block, stack, parts[0], null);
+                case "print" -> {
+                    int n = Integer.parseInt(parts[1]);
+                    Instr print = function.newInstr(Instr.Kind.PRINT, null, null, null);
+                    Instr[] args = new Instr[n];
+                    for (int k = n - 1; k >= 0; k--) args[k] = stack.removeLast();
+                    for (Instr arg : args) print.addOperand(arg);
+                    block.append(print);
+                }
+                case "read" -> {
+                    Instr read = function.newInstr(Instr.Kind.READ, null, parts[1], null);
+                    block.append(read);
+                    stack.addLast(read);
+                }
+                case "jmp" -> terminator = function.newInstr(Instr.Kind.JUMP, null, null, null);
+                case "fjmp", "tjmp" -> {
+                    Instr cond = stack.removeLast();
+                    // následníci jsou už z createBlocks v pořadí [při true, při false]
+                    terminator = function.newInstr(Instr.Kind.BRANCH, null, null, null);
+                    terminator.addOperand(cond);
+                }
+                default -> throw new IllegalStateException("Unknown instruction: " + parts[0]);
+            }
+        }
+
+        // hodnoty, které zůstaly na zásobníku, předáme následníkům jako pseudo-proměnné
+        int k = 0;
+        for (Instr value : stack) {
+            writeVariable("#" + k++, block, value);
+        }
+        block.append(terminator != null ? terminator : function.newInstr(Instr.Kind.JUMP, null, null, null));
+    }
+
+    private void binary(BasicBlock block, Deque<Instr> stack, String op, String type) {
+        Instr right = stack.removeLast();
+        Instr left = stack.removeLast();
+        Instr instr = function.newInstr(Instr.Kind.OP, op, type, null);
+        instr.addOperand(left);
+        instr.addOperand(right);
+        block.append(instr);
+        stack.addLast(instr);
+    }
+
+    private void unary(BasicBlock block, Deque<Instr> stack, String op, String type) {
+        Instr instr = function.newInstr(Instr.Kind.OP, op, type, null);
+        instr.addOperand(stack.removeLast());
+        block.append(instr);
+        stack.addLast(instr);
+    }
+
+    private Instr constant(BasicBlock block, String type, String text) {
+        Object value = switch (type) {
+            case "I" -> Integer.parseInt(text);
+            case "F" -> Double.parseDouble(text);
+            case "B" -> Boolean.parseBoolean(text);
+            case "S" -> text.substring(1, text.length() - 1); // strip quotes
+            default -> throw new IllegalStateException("Unknown push type: " + type);
+        };
+        Instr instr = function.newInstr(Instr.Kind.CONST, null, type, value);
+        block.append(instr);
+        return instr;
+    }
+
+    // ======================
+    // SSA (Braun et al.)
+    // ======================
+
+    private void writeVariable(String name, BasicBlock block, Instr value) {
+        currentDef.computeIfAbsent(block, b -> new HashMap<>()).put(name, value);
+    }
+
+    private Instr readVariable(String name, BasicBlock block) {
+        Instr value = currentDef.getOrDefault(block, Map.of()).get(name);
+        if (value == null) return readVariableRecursive(name, block);
+        while (replaced.containsKey(value)) value = replaced.get(value);
+        return value;
+    }
+
+    private Instr readVariableRecursive(String name, BasicBlock block) {
+        Instr value;
+        if (!sealed.contains(block)) {
+            value = newPhi(block);
+            incompletePhis.computeIfAbsent(block, b -> new LinkedHashMap<>()).put(name, value);
+        } else if (block.preds.isEmpty()) {
+            value = undef(name, block);
+        } else if (block.preds.size() == 1) {
+            value = readVariable(name, block.preds.get(0));
+        } else {
+            value = newPhi(block);
+            writeVariable(name, block, value);
+            value = addPhiOperands(name, value);
+        }
+        // rekurzivní odstranění triviálních phi mohlo nahradit i právě vrácenou hodnotu
+        while (replaced.containsKey(value)) value = replaced.get(value);
+        writeVariable(name, block, value);
+        return value;
+    }
+
+    private Instr undef(String name, BasicBlock block) {
+        Instr value = function.newInstr(Instr.Kind.UNDEF, null, null, name);
+        block.instrs.add(0, value);
+        value.block = block;
+        return value;
+    }
+
+    private Instr newPhi(BasicBlock block) {
+        Instr phi = function.newInstr(Instr.Kind.PHI, null, null, null);
+        block.append(phi);
+        return phi;
+    }
+
+    private Instr addPhiOperands(String name, Instr phi) {
+        for (BasicBlock pred : phi.block.preds) {
+            phi.addOperand(readVariable(name, pred));
+        }
+        return tryRemoveTrivialPhi(name, phi);
+    }
+
+    private Instr tryRemoveTrivialPhi(String name, Instr phi) {
+        Instr same = null;
+        for (Instr operand : phi.operands) {
+            if (operand == same || operand == phi) continue;
+            if (same != null) return phi; // phi slučuje aspoň dvě různé hodnoty
+            same = operand;
+        }
+        if (same == null) {
+            // phi odkazuje jen sám na sebe – proměnná nemá na vstupu do smyčky hodnotu
+            same = undef(name, function.entry());
+        }
+
+        List<Instr> users = new ArrayList<>(phi.users);
+        users.remove(phi);
+        phi.replaceAllUsesWith(same);
+        phi.clearOperands();
+        phi.block.phis.remove(phi);
+        replaced.put(phi, same);
+
+        for (Instr user : users) {
+            if (user.kind == Instr.Kind.PHI && user.block.phis.contains(user)) {
+                tryRemoveTrivialPhi(name, user);
+            }
+        }
+        while (replaced.containsKey(same)) same = replaced.get(same);
+        return same;
+    }
+
+    private void trySeal(BasicBlock block) {
+        if (sealed.contains(block)) return;
+        for (BasicBlock pred : block.preds) {
+            if (!filled.contains(pred)) return;
+        }
+        for (var entry : incompletePhis.getOrDefault(block, Map.of()).entrySet()) {
+            addPhiOperands(entry.getKey(), entry.getValue());
+        }
+        sealed.add(block);
+    }
+}
@@ -0,0 +1,85 @@
+package org.project.ir;
+
+import java.util.*;
+
+/**
+ * Celý program v podobě grafu toku řízení v SSA tvaru. Bloky jsou v pořadí rozložení,
+ * první blok je vstupní.
+ */
+public final class IrFunction {
+
+    final List<BasicBlock> blocks = new ArrayList<>();
+    private int nextInstrId = 0;
+    private int nextBlockId = 0;
+
+    public List<BasicBlock> blocks() {
+        return blocks;
+    }
+
+    public BasicBlock entry() {
+        return blocks.get(0);
+    }
+
+    BasicBlock newBlock() {
+        BasicBlock block = new BasicBlock(nextBlockId++);
+        blocks.add(block);
+        return block;
+    }
+
+    Instr newInstr(Instr.Kind kind, String op, String type, Object value) {
+        return new Instr(nextInstrId++, kind, op, type, value);
+    }
+
+    int instrCount() {
+        return nextInstrId;
+    }
+
+    /** Odstraní z funkce bloky, které nejsou dosažitelné ze vstupního bloku. */
+    boolean removeUnreachableBlocks() {
+        List<BasicBlock> reachable = new ArrayList<>();
+        Set<BasicBlock> seen = new HashSet<>();
+        Deque<BasicBlock> worklist = new ArrayDeque<>();
+        worklist.push(entry());
+        seen.add(entry());
+        while (!worklist.isEmpty()) {
+            BasicBlock block = worklist.pop();
+            for (BasicBlock succ : block.succs) {
+                if (seen.add(succ)) worklist.push(succ);
+            }
+        }
+        boolean changed = false;
+        for (BasicBlock block : blocks) {
+            if (seen.contains(block)) {
+                reachable.add(block);
+                continue;
+            }
+            changed = true;
+            for (BasicBlock succ : new ArrayList<>(block.succs)) {
+                if (seen.contains(succ)) block.removeSuccessor(succ);
+            }
+        }
+        if (changed) {
+            for (BasicBlock block : blocks) {
+                if (seen.contains(block)) continue;
+                for (Instr phi : block.phis) phi.clearOperands();
+                for (Instr instr : block.instrs) instr.clearOperands();
+                if (block.terminator != null) block.terminator.clearOperands();
+            }
+            blocks.clear();
+            blocks.addAll(reachable);
+        }
+        return changed;
+    }
+
+    /** Textový výpis mezikódu (pro ladění a testy). */
+    public List<String> dump() {
+        List<String> lines = new ArrayList<>();
+        for (BasicBlock block : blocks) {
+            lines.add(block + ":" + (block.preds.isEmpty() ? "" : " ; preds " + block.preds));
+            for (Instr phi : block.phis) lines.add("    " + phi);
+            for (Instr instr : block.instrs) lines.add("    " + instr);
+            lines.add("    " + block.terminator);
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,12 @@
+package org.project.ir;
+
+/**
+ * Optimalizační průchod nad mezikódem.
+ */
+public interface IrPass {
+
+    String name();
+
+    /** @return true, pokud průchod funkci změnil. */
+    boolean run(IrFunction function);
+}
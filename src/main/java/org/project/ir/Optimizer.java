@@ -0,0 +1,26 @@
+package org.project.ir;
+
+import org.project.LivenessOptimizer;
+
+import java.util.List;
+
+/**
+ * Optimalizace kódu zásobníkového stroje přes mezikód: stack kód → CFG/SSA → průchody → stack kód.
+ * Na výsledek se nakonec pustí {@link LivenessOptimizer}, který sloučí sloty {@code $vN} s nepřekrývající
+ * se dobou života.
+ */
+public final class Optimizer {
+
+    private Optimizer() {
+    }
+
+    public static List<String> optimize(List<String> stackCode) {
+        return optimize(stackCode, PassManager.defaultPipeline());
+    }
+
+    public static List<String> optimize(List<String> stackCode, PassManager passes) {
+        IrFunction function = IrBuilder.build(stackCode);
+        passes.run(function);
+        return LivenessOptimizer.optimize(InstructionSelector.select(function));
+    }
+}
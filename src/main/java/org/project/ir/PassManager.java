@@ -0,0 +1,47 @@
+package org.project.ir;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Spouští posloupnost průchodů opakovaně, dokud některý z nich něco mění (nejvýše {@link #MAX_ROUNDS} kol).
+ */
+public final class PassManager {
+
+    private static final int MAX_ROUNDS = 10;
+
+    private final List<IrPass> passes = new ArrayList<>();
+    private boolean debug = false;
+
+    /** Výchozí sada průchodů používaná {@link Optimizer}. */
+    public static PassManager defaultPipeline() {
+        return new PassManager()
+                .add(new ConstantFolding())
+                .add(new ValueNumbering())
+                .add(new PhiSimplification())
+                .add(new DeadCodeElimination());
+    }
+
+    public PassManager add(IrPass pass) {
+        passes.add(pass);
+        return this;
+    }
+
+    public void enableDebug() {
+        this.debug = true;
+    }
+
+    public void run(IrFunction function) {
+        for (int round = 0; round < MAX_ROUNDS; round++) {
+            boolean changed = false;
+            for (IrPass pass : passes) {
+                boolean passChanged = pass.run(function);
+                if (debug && passChanged) {
+                    System.out.println("[DEBUG] " + pass.name() + " changed the function (round " + round + ")");
+                }
+                changed |= passChanged;
+            }
+            if (!changed) return;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package org.project.ir;
+
+import java.util.ArrayList;
+
+/**
+ * Odstraní phi uzly, které slučují jen jednu hodnotu (např. po zjednodušení podmíněného skoku).
+ */
+public final class PhiSimplification implements IrPass {
+
+    @Override
+    public String name() {
+        return "phi-simplification";
+    }
+
+    @Override
+    public boolean run(IrFunction function) {
+        boolean changed = false;
+        boolean progress = true;
+        while (progress) {
+            progress = false;
+            for (BasicBlock block : function.blocks) {
+                for (Instr phi : new ArrayList<>(block.phis)) {
+                    Instr same = null;
+                    boolean trivial = true;
+                    for (Instr operand : phi.operands) {
+                        if (operand == phi || operand == same) continue;
+                        if (same != null) {
+                            trivial = false;
+                            break;
+                        }
+                        same = operand;
+                    }
+                    if (!trivial || same == null) continue;
+
+                    phi.replaceAllUsesWith(same);
+                    phi.clearOperands();
+                    block.phis.remove(phi);
+                    progress = true;
+                    changed = true;
+                }
+            }
+        }
+        return changed;
+    }
+}
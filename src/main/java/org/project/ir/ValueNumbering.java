@@ -0,0 +1,201 @@
+package org.project.ir;
+
+import java.util.*;
+
+/**
+ * Eliminace společných podvýrazů číslováním hodnot nad stromem dominátorů. Operace se stejným
+ * operátorem, typem a (očíslovanými) operandy počítají stejnou hodnotu; opakovaný výpočet, kterému
+ * dominuje první, se nahradí jeho výsledkem. Ten pak {@link InstructionSelector} uloží do slotu.
+ * <p>
+ * {@code read} i přiřazení vytvářejí v SSA novou hodnotu, takže výraz nad přečtenou nebo přepsanou
+ * proměnnou má jiné operandy a se starým výpočtem se nesloučí. Hodnotu s vedlejším efektem
+ * nečíslujeme vůbec. Opakování s {@code mod}/{@code itof} sloučit jde – pokud by první výpočet spadl,
+ * na druhý se nedojde.
+ * <p>
+ * Nahrazuje se jen tam, kde to ušetří instrukce: malý výraz, který by se jinak spočítal přímo
+ * v místě použití, je levnější spočítat znovu než ukládat a načítat.
+ */
+public final class ValueNumbering implements IrPass {
+
+    private static final Set<String> COMMUTATIVE = Set.of("add", "mul", "eq", "and", "or");
+
+    /** Reprezentant hodnoty (první výpočet), i když se duplikát nenahradil. */
+    private final Map<Instr, Instr> leader = new HashMap<>();
+    /** Výpočty z bloků, které dominují právě zpracovávanému. */
+    private final Map<String, Instr> available = new HashMap<>();
+    private boolean changed;
+
+    @Override
+    public String name() {
+        return "value-numbering";
+    }
+
+    @Override
+    public boolean run(IrFunction function) {
+        leader.clear();
+        available.clear();
+        changed = false;
+
+        Map<BasicBlock, List<BasicBlock>> children = dominatorTree(function);
+        // průchod stromem dominátorů do hloubky; po opuštění bloku se jeho výpočty zapomenou
+        Deque<Object> worklist = new ArrayDeque<>();
+        worklist.push(function.entry());
+        while (!worklist.isEmpty()) {
+            Object item = worklist.pop();
+            if (item instanceof List<?> keys) {
+                for (Object key : keys) available.remove(key);
+                continue;
+            }
+            BasicBlock block = (BasicBlock) item;
+            worklist.push(visit(block));
+            for (BasicBlock child : children.getOrDefault(block, List.of())) worklist.push(child);
+        }
+        return changed;
+    }
+
+    /** Očísluje hodnoty bloku a vrátí klíče, které blok přidal do {@link #available}. */
+    private List<String> visit(BasicBlock block) {
+        List<String> added = new ArrayList<>();
+        for (Instr phi : new ArrayList<>(block.phis)) {
+            // phi se stejnými argumenty ve stejném bloku: kopie na hranách se ušetří vždy
+            String key = "phi B" + block.id + operandKey(phi, false);
+            Instr first = available.get(key);
+            if (first == null) {
+                available.put(key, phi);
+                added.add(key);
+            } else {
+                phi.replaceAllUsesWith(first);
+                phi.clearOperands();
+                block.phis.remove(phi);
+                changed = true;
+            }
+        }
+        for (Instr instr : new ArrayList<>(block.instrs)) {
+            if (instr.kind != Instr.Kind.OP) continue;
+            String key = instr.op + (instr.type != null ? " " + instr.type : "")
+                    + operandKey(instr, COMMUTATIVE.contains(instr.op));
+            Instr first = available.get(key);
+            if (first == null) {
+                available.put(key, instr);
+                added.add(key);
+            } else if (cost(instr) > reuseCost(first)) {
+                instr.replaceAllUsesWith(first);
+                instr.clearOperands();
+                block.instrs.remove(instr);
+                changed = true;
+            } else {
+                leader.put(instr, first);
+            }
+        }
+        return added;
+    }
+
+    private String operandKey(Instr instr, boolean commutative) {
+        List<String> keys = new ArrayList<>(instr.operands.size());
+        for (Instr operand : instr.operands) {
+            Instr value = leader.getOrDefault(operand, operand);
+            keys.add(value.kind == Instr.Kind.CONST
+                    ? value.type + ":" + value.value
+                    : value.name());
+        }
+        if (commutative) Collections.sort(keys);
+        return " " + String.join(", ", keys);
+    }
+
+    /** Počet instrukcí, které se ušetří, když se výpočet odstraní (i s podvýrazy, které počítá jen on). */
+    private static int cost(Instr instr) {
+        int cost = 1;
+        for (Instr operand : instr.operands) {
+            boolean inlined = operand.kind == Instr.Kind.OP && !operand.mayTrap()
+                    && operand.users.size() == 1 && operand.block == instr.block;
+            cost += inlined ? cost(operand) : 1;
+        }
+        return cost;
+    }
+
+    /**
+     * Cena znovupoužití hodnoty: {@code load} navíc, a pokud se hodnota dosud počítala přímo v místě
+     * použití, ještě {@code save} a {@code load} pro původní použití.
+     */
+    private static int reuseCost(Instr first) {
+        boolean inlined = first.users.size() == 1 && first.users.get(0).block == first.block
+                && first.users.get(0).kind != Instr.Kind.PHI;
+        return inlined ? 3 : 1;
+    }
+
+    // ======================
+    // DOMINÁTORY
+    // ======================
+
+    /**
+     * Strom dominátorů (Cooper, Harvey, Kennedy: "A Simple, Fast Dominance Algorithm").
+     * Vrací děti každého bloku.
+     */
+    static Map<BasicBlock, List<BasicBlock>> dominatorTree(IrFunction function) {
+        List<BasicBlock> postorder = postorder(function.entry());
+        Map<BasicBlock, Integer> index = new HashMap<>();
+        for (int i = 0; i < postorder.size(); i++) index.put(postorder.get(i), i);
+
+        Map<BasicBlock, BasicBlock> idom = new HashMap<>();
+        idom.put(function.entry(), function.entry());
+        boolean progress = true;
+        while (progress) {
+            progress = false;
+            for (int i = postorder.size() - 1; i >= 0; i--) {
+                BasicBlock block = postorder.get(i);
+                if (block == function.entry()) continue;
+                BasicBlock dom = null;
+                for (BasicBlock pred : block.preds) {
+                    if (!idom.containsKey(pred)) continue;
+                    dom = dom == null ? pred : intersect(pred, dom, idom, index);
+                }
+                if (dom != idom.get(block)) {
+                    idom.put(block, dom);
+                    progress = true;
+                }
+            }
+        }
+
+        Map<BasicBlock, List<BasicBlock>> children = new HashMap<>();
+        for (int i = postorder.size() - 1; i >= 0; i--) {
+            BasicBlock block = postorder.get(i);
+            if (block != function.entry()) {
+                children.computeIfAbsent(idom.get(block), b -> new ArrayList<>()).add(block);
+            }
+        }
+        return children;
+    }
+
+    private static BasicBlock intersect(BasicBlock a, BasicBlock b, Map<BasicBlock, BasicBlock> idom,
+                                        Map<BasicBlock, Integer> index) {
+        while (a != b) {
+            while (index.get(a) < index.get(b)) a = idom.get(a);
+            while (index.get(b) < index.get(a)) b = idom.get(b);
+        }
+        return a;
+    }
+
+    private static List<BasicBlock> postorder(BasicBlock entry) {
+        List<BasicBlock> result = new ArrayList<>();
+        Set<BasicBlock> seen = new HashSet<>();
+        Deque<Iterator<BasicBlock>> stack = new ArrayDeque<>();
+        Deque<BasicBlock> path = new ArrayDeque<>();
+        seen.add(entry);
+        stack.push(entry.succs.iterator());
+        path.push(entry);
+        while (!stack.isEmpty()) {
+            Iterator<BasicBlock> it = stack.peek();
+            if (it.hasNext()) {
+                BasicBlock succ = it.next();
+                if (seen.add(succ)) {
+                    stack.push(succ.succs.iterator());
+                    path.push(succ);
+                }
+            } else {
+                stack.pop();
+                result.add(path.pop());
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,76 @@
+package org.project;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchRunnerTest {
+
+    private static final String SCRIPT = """
+            int qty; float price; string name; bool vip;
+            float total;
+            read qty, price, name, vip;
+            total = qty * price;
+            if (vip) total = total * 0.9;
+            write name, ": ", total;
+            """;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void sameOutputAsOneInterpreterPerRecordInInputOrder() throws IOException {
+        Path input = tempDir.resolve("records.tsv");
+        try (BufferedWriter writer = Files.newBufferedWriter(input)) {
+            for (int i = 0; i < 10_000; i++) {
+                writer.write(i % 17 + "\t" + (i % 100) / 4.0 + "\titem" + i + "\t" + (i % 3 == 0) + "\n");
+            }
+        }
+        Interpreter.Program program = Interpreter.Program.decode(EngineBenchmark.compile(SCRIPT));
+
+        StringWriter batch = new StringWriter();
+        try (BatchRunner runner = new BatchRunner(program, 4, 256)) {
+            assertEquals(10_000, runner.run(input, batch));
+        }
+
+        StringWriter expected = new StringWriter();
+        for (String line : Files.readAllLines(input)) {
+            Interpreter vm = new Interpreter(Arrays.asList(line.split("\t")));
+            vm.setOutput(expected);
+            vm.load(program);
+            vm.run(Long.MAX_VALUE);
+        }
+        assertEquals(expected.toString(), batch.toString());
+    }
+
+    @Test
+    void failingRecordIsReported() {
+        Interpreter.Program program = Interpreter.Program.decode(EngineBenchmark.compile(SCRIPT));
+        BufferedReader input = new BufferedReader(new StringReader("1\t2.0\ta\ttrue\nx\t2.0\tb\tfalse\n"));
+        try (BatchRunner runner = new BatchRunner(program, 2, 1)) {
+            RuntimeException e = assertThrows(RuntimeException.class, () -> runner.run(input, Writer.nullWriter()));
+            assertTrue(e.getMessage().startsWith("Record 2 failed"), e.getMessage());
+        }
+    }
+
+    @Test
+    void resetClearsStateBetweenRecords() {
+        Interpreter vm = new Interpreter(List.of());
+        vm.load(List.of("read I", "save x", "load x", "print 1"));
+        StringWriter out = new StringWriter();
+        vm.setOutput(out);
+        vm.reset(List.of("1"));
+        vm.run(Long.MAX_VALUE);
+        vm.reset(List.of("2"));
+        vm.run(Long.MAX_VALUE);
+        assertEquals("1" + System.lineSeparator() + "2" + System.lineSeparator(), out.toString());
+        assertEquals(4, vm.getExecutedInstructions());
+    }
+}
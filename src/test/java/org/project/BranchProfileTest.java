@@ -0,0 +1,158 @@
+package org.project;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BranchProfileTest {
+
+    // then-větve prvního if a ternárního operátoru běží zřídka, druhý if jen jednou
+    private static final String SOURCE = """
+            int i, k, odd, big, n; string s;
+            read n;
+            i = 0; k = 0; odd = 0; big = 0; s = "";
+            while (i < n) {
+                k = k + 1;
+                if (k > 9) { k = 0; odd = odd + 1; } else big = big + 2;
+                big = (k < 1) ? big + 100 : big - 1;
+                if (i > 998) s = "last";
+                i = i + 1;
+            }
+            write odd, " ", big, " ", s;
+            """;
+    private static final List<String> INPUT = List.of("1000");
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void profiledLayoutFallsThroughOnHotPath() throws IOException {
+        BranchProfile profile = new BranchProfile();
+        Run plain = run(Interpreter.Program.decode(compile(null)), profile);
+
+        Path file = dir.resolve("app.profile");
+        profile.save(file);
+        BranchProfile loaded = BranchProfile.load(file);
+        assertEquals(profile.totalTaken(), loaded.totalTaken());
+
+        List<String> code = compile(loaded);
+        assertTrue(code.contains("label L2t"), String.join("\n", code)); // obrácená podmínka if
+        BranchProfile after = new BranchProfile();
+        Run tuned = run(Interpreter.Program.decode(code), after);
+
+        assertEquals(plain.output(), tuned.output());
+        assertEquals(plain.variables(), tuned.variables());
+        assertTrue(after.totalTaken() < profile.totalTaken() * 3 / 4,
+                "taken jumps " + after.totalTaken() + " vs " + profile.totalTaken());
+
+        // profil z nového rozložení vede ke stejnému rozložení
+        assertEquals(code, compile(after));
+    }
+
+    @Test
+    void superinstructionsKeepCountsAndProfile() {
+        Interpreter.Program program = Interpreter.Program.decode(compile(null));
+        BranchProfile profile = new BranchProfile();
+        Run plain = run(program, profile);
+
+        Interpreter.Program tuned = program.withProfile(profile);
+        assertTrue(tuned.verified().getFusedCount() > 0);
+        BranchProfile again = new BranchProfile();
+        Run fused = run(tuned, again);
+        assertEquals(plain, fused);
+
+        // po malých dávkách (superinstrukce se nesmí rozdělit přes hranici rozpočtu) je výsledek stejný
+        Interpreter vm = vm(tuned);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        vm.setOutput(new PrintStream(out));
+        while (vm.run(7) == Interpreter.Status.YIELDED) {
+            assertTrue(vm.getExecutedInstructions() % 7 == 0);
+        }
+        assertEquals(plain.output(), out.toString());
+        assertEquals(plain.executed(), vm.getExecutedInstructions());
+    }
+
+    @Test
+    void checkedPathRecordsSameProfile() {
+        Interpreter.Program program = Interpreter.Program.decode(compile(null));
+        BranchProfile fast = new BranchProfile();
+        run(program, fast);
+
+        // stejný kód bez verifikace běží po kontrolované cestě
+        BranchProfile checked = new BranchProfile();
+        run(new Interpreter.Program(program.code(), program.labels(), null), checked);
+        for (String label : List.of("L0", "L1", "L2", "L2t", "L3", "L4", "L5", "L6", "L7")) {
+            assertEquals(fast.taken(label), checked.taken(label), label);
+            assertEquals(fast.notTaken(label), checked.notTaken(label), label);
+            assertEquals(fast.arrivals(label), checked.arrivals(label), label);
+        }
+        assertEquals(fast.totalTaken(), checked.totalTaken());
+    }
+
+    @Test
+    void profileOfProfiledBuildMatchesPlainBuild() {
+        // if bez else: then-větev se podle prvního profilu přesune za konec programu
+        String source = """
+                int i, n, x; read n;
+                i = 0; x = 0;
+                while (i < 10) {
+                    if (i < n) x = x + 1;
+                    i = i + 1;
+                }
+                write x;
+                """;
+        BranchProfile cold = new BranchProfile();
+        run(Interpreter.Program.decode(compile(source, null)), List.of("0"), cold);
+        List<String> profiled = compile(source, cold);
+        assertNotEquals(compile(source, null), profiled);
+
+        // smíšená zátěž (6× then, 4× bez) změřená na obou rozloženích musí vést ke stejnému rozhodnutí
+        BranchProfile fromPlain = new BranchProfile();
+        run(Interpreter.Program.decode(compile(source, null)), List.of("6"), fromPlain);
+        BranchProfile fromProfiled = new BranchProfile();
+        run(Interpreter.Program.decode(profiled), List.of("6"), fromProfiled);
+        assertEquals(compile(source, fromPlain), compile(source, fromProfiled));
+        assertEquals(compile(source, null), compile(source, fromProfiled));
+    }
+
+    private record Run(String output, Object variables, long executed) {
+    }
+
+    private static Run run(Interpreter.Program program, BranchProfile profile) {
+        return run(program, INPUT, profile);
+    }
+
+    private static Run run(Interpreter.Program program, List<String> input, BranchProfile profile) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Interpreter vm = new Interpreter(input);
+        vm.load(program);
+        vm.setOutput(new PrintStream(out));
+        vm.setProfile(profile);
+        assertEquals(Interpreter.Status.HALTED, vm.run(Long.MAX_VALUE));
+        return new Run(out.toString(), vm.getVariables(), vm.getExecutedInstructions());
+    }
+
+    private static Interpreter vm(Interpreter.Program program) {
+        Interpreter vm = new Interpreter(INPUT);
+        vm.load(program);
+        return vm;
+    }
+
+    private static List<String> compile(BranchProfile profile) {
+        return compile(SOURCE, profile);
+    }
+
+    private static List<String> compile(String source, BranchProfile profile) {
+        CodeGenerator generator = new CodeGenerator();
+        generator.setProfile(profile);
+        generator.visit(EngineBenchmark.parse(source));
+        return generator.getInstructions();
+    }
+}
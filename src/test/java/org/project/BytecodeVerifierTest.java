@@ -0,0 +1,101 @@
+package org.project;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BytecodeVerifierTest {
+
+    private static final List<String> INPUT = List.of("42", "3.14", "hello", "true");
+
+    @ParameterizedTest
+    @ValueSource(strings = {"pass/ok_1", "pass/ok_2", "pass/ok_3", "pass/ok_4", "pass/ok_5", "pass/ok_6", "pass/ok_7",
+            "bench/loops"})
+    void generatedCodeTakesFastPathWithSameResult(String name) throws IOException {
+        List<String> code = EngineBenchmark.compile(Files.readString(Path.of("src/test/resources/tests/" + name + ".pjp")));
+        Interpreter.Program program = Interpreter.Program.decode(code);
+        assertNotNull(program.verified(), "Generated code rejected: " + name);
+
+        Interpreter slow = new Interpreter(INPUT);
+        String expected = run(slow, new Interpreter.Program(program.code(), program.labels(), null), Long.MAX_VALUE);
+        Interpreter fast = new Interpreter(INPUT);
+        assertEquals(expected, run(fast, program, Long.MAX_VALUE));
+        assertEquals(slow.getExecutedInstructions(), fast.getExecutedInstructions());
+        assertEquals(slow.getVariables(), fast.getVariables());
+
+        // po malých přídělech (jako v plánovači) musí vyjít totéž
+        assertEquals(expected, run(new Interpreter(INPUT), program, 3));
+    }
+
+    @Test
+    void rejectsMalformedCode() {
+        assertRejected("pop");                                            // podtečení
+        assertRejected("push I 1", "jmp L9");                             // neznámé návěští
+        assertRejected("push I 1", "not");                                // špatný typ
+        assertRejected("push S \"a\"", "push I 1", "add I");
+        assertRejected("push B true", "fjmp L1", "push I 1", "label L1"); // různé výšky na soutoku
+        assertRejected("push X 1");
+        assertRejected("push I one");
+        assertRejected("add Q");
+        assertRejected("label L1", "label L1");
+        assertRejected("halt");
+    }
+
+    @Test
+    void uncertainLoadsStayChecked() {
+        List<String> code = List.of(
+                "push B false", "fjmp L1", "push I 1", "save x", "label L1",
+                "load x", "print 1");
+        Interpreter.Program program = Interpreter.Program.decode(code);
+        assertEquals(1, program.verified().getMaxStack());
+
+        Interpreter interpreter = new Interpreter();
+        interpreter.load(program);
+        assertTrue(interpreter.isVerified());
+        RuntimeException e = assertThrows(RuntimeException.class, () -> interpreter.run(Long.MAX_VALUE));
+        assertEquals("Variable not initialized: x", e.getMessage());
+    }
+
+    @Test
+    void invalidInputFailsLikeCheckedPath() {
+        Interpreter interpreter = new Interpreter(List.of("abc"));
+        interpreter.load(EngineBenchmark.compile("int n; read n;"));
+        assertTrue(interpreter.isVerified());
+        // chyba převodu, ne NullPointerException z prázdného slotu při vracení zásobníku
+        assertThrows(NumberFormatException.class, () -> interpreter.run(Long.MAX_VALUE));
+    }
+
+    @Test
+    void malformedCodeFallsBackToCheckedPath() {
+        Interpreter interpreter = new Interpreter();
+        interpreter.setOutput(new PrintStream(new ByteArrayOutputStream()));
+        interpreter.load(List.of("push I 1", "print 1", "bogus"));
+        assertFalse(interpreter.isVerified());
+        RuntimeException e = assertThrows(RuntimeException.class, () -> interpreter.run(Long.MAX_VALUE));
+        assertEquals("Unknown instruction: bogus", e.getMessage());
+    }
+
+    private static void assertRejected(String... code) {
+        String[][] decoded = StackHeightAnalysis.decode(List.of(code));
+        Interpreter.Program program = new Interpreter.Program(decoded, StackHeightAnalysis.labels(decoded), null);
+        assertThrows(VerificationException.class, () -> BytecodeVerifier.verify(program), String.join("; ", code));
+    }
+
+    private static String run(Interpreter interpreter, Interpreter.Program program, long slice) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        interpreter.setOutput(new PrintStream(out));
+        interpreter.load(program);
+        while (interpreter.run(slice) != Interpreter.Status.HALTED) {
+        }
+        return out.toString();
+    }
+}
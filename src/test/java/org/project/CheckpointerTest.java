@@ -0,0 +1,145 @@
+package org.project;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CheckpointerTest {
+
+    private static final List<String> CODE = EngineBenchmark.compile("""
+            int i, sum; string s; float f;
+            read s;
+            i = 0; sum = 0; f = 0.5;
+            while (i < 500) { sum = sum + i; i = i + 1; f = f * 1.0; }
+            write s, " ", sum, " ", f;
+            read s;
+            write s;
+            """);
+    private static final List<String> INPUT = List.of("first", "second");
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void resumedRunFinishesLikeUninterruptedRun() throws IOException {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        Interpreter reference = vm(expected);
+        reference.run(Long.MAX_VALUE);
+
+        Path file = dir.resolve("job.snap");
+        Interpreter original = vm(new ByteArrayOutputStream());
+        try (Checkpointer checkpointer = new Checkpointer(original, file, 3)) {
+            for (int i = 0; i < 10; i++) {
+                assertEquals(Interpreter.Status.YIELDED, original.run(100));
+                checkpointer.checkpoint();
+            }
+        }
+        // "pád" uprostřed smyčky, pokračuje nová VM
+        Snapshot snapshot = Checkpointer.readLatest(file).orElseThrow();
+        assertEquals(original.snapshot(), snapshot);
+
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        Interpreter resumed = vm(actual);
+        resumed.restore(snapshot);
+        assertEquals(Interpreter.Status.HALTED, resumed.run(Long.MAX_VALUE));
+        assertEquals(expected.toString(), actual.toString());
+        assertEquals(reference.getExecutedInstructions(), resumed.getExecutedInstructions());
+    }
+
+    @Test
+    void restoreSkipsConsumedStdinLines() {
+        InputStream originalIn = System.in;
+        try {
+            Interpreter original = new Interpreter();
+            original.setOutput(new PrintStream(new ByteArrayOutputStream()));
+            original.load(CODE);
+            System.setIn(new ByteArrayInputStream("first\nsecond\n".getBytes(StandardCharsets.UTF_8)));
+            assertEquals(Interpreter.Status.YIELDED, original.run(100));
+            Snapshot snapshot = original.snapshot();
+            assertEquals(1, snapshot.inputPosition());
+
+            // pokračování dostane znovu celý vstup od začátku
+            System.setIn(new ByteArrayInputStream("first\nsecond\n".getBytes(StandardCharsets.UTF_8)));
+            ByteArrayOutputStream actual = new ByteArrayOutputStream();
+            Interpreter resumed = new Interpreter();
+            resumed.setOutput(new PrintStream(actual));
+            resumed.load(CODE);
+            resumed.restore(snapshot);
+            assertEquals(Interpreter.Status.HALTED, resumed.run(Long.MAX_VALUE));
+            assertEquals(List.of("first 124750.0 0.5", "second"), actual.toString().lines().toList());
+        } finally {
+            System.setIn(originalIn);
+        }
+    }
+
+    @Test
+    void ignoresTornRecordAtEnd() throws IOException {
+        Path file = dir.resolve("torn.snap");
+        Interpreter vm = vm(new ByteArrayOutputStream());
+        Snapshot complete;
+        try (Checkpointer checkpointer = new Checkpointer(vm, file)) {
+            vm.run(200);
+            checkpointer.checkpoint();
+            vm.run(200);
+            checkpointer.checkpoint();
+            complete = vm.snapshot();
+        }
+        long size = Files.size(file);
+        vm.run(200);
+        try (Checkpointer checkpointer = new Checkpointer(vm, dir.resolve("next.snap"))) {
+            checkpointer.checkpoint();
+        }
+        // půlka dalšího záznamu
+        byte[] next = Files.readAllBytes(dir.resolve("next.snap"));
+        Files.write(file, Arrays.copyOfRange(next, 8, 8 + (next.length - 8) / 2), StandardOpenOption.APPEND);
+        assertTrue(Files.size(file) > size);
+
+        assertEquals(complete, Checkpointer.readLatest(file).orElseThrow());
+    }
+
+    @Test
+    void compactsAndRunsWithPeriodicCheckpoints() throws IOException {
+        Path file = dir.resolve("periodic.snap");
+        Interpreter vm = vm(new ByteArrayOutputStream());
+        try (Checkpointer checkpointer = new Checkpointer(vm, file, 2)) {
+            assertEquals(Interpreter.Status.HALTED, checkpointer.run(50, Duration.ZERO));
+        }
+        // po kompakci zůstane nejvýš úplný záznam a dva přírůstky
+        Snapshot last = Checkpointer.readLatest(file).orElseThrow();
+        assertTrue(last.executed() > 0);
+        assertTrue(Files.size(file) < 400, "size " + Files.size(file));
+        assertTrue(Checkpointer.readLatest(dir.resolve("missing.snap")).isEmpty());
+    }
+
+    @Test
+    void rejectsSnapshotOfDifferentProgram() {
+        Interpreter vm = vm(new ByteArrayOutputStream());
+        vm.run(100);
+        Snapshot snapshot = vm.snapshot();
+
+        Interpreter other = new Interpreter(INPUT);
+        other.load(EngineBenchmark.compile("int a; a = 1;"));
+        assertThrows(IllegalStateException.class, () -> other.restore(snapshot));
+    }
+
+    private static Interpreter vm(ByteArrayOutputStream out) {
+        Interpreter vm = new Interpreter(INPUT);
+        vm.setOutput(new PrintStream(out));
+        vm.load(CODE);
+        return vm;
+    }
+}
@@ -0,0 +1,86 @@
+package org.project;
+
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClosureEngineTest {
+
+    private static final List<String> INPUT = List.of("42", "3.14", "hello", "true");
+
+    @ParameterizedTest
+    @ValueSource(strings = {"pass/ok_1", "pass/ok_2", "pass/ok_3", "pass/ok_4", "pass/ok_5", "pass/ok_6", "pass/ok_7",
+            "bench/loops"})
+    void sameOutputAsStackMachine(String name) throws IOException {
+        String source = Files.readString(Path.of("src/test/resources/tests/" + name + ".pjp"));
+        assertSameBehaviour(source);
+    }
+
+    @Test
+    void keepsInterpreterQuirks() {
+        // int aritmetika dává Double, eq porovnává objekty, read čte prázdný řetězec po konci vstupu
+        assertSameBehaviour("""
+                int a, b; float f; bool e; string s;
+                a = 1 + 2; b = 3;
+                e = a == b;
+                write a, " ", b, " ", e, " ", 7 / 2, " ", -a, " ", -b;
+                f = b; write f, " ", f + b, " ", b < 2.5, " ", (e ? 1 : 2.0);
+                s = "x" . "y"; write s, " ", 7 % 3, " ", !(a > b) && true || false;
+                read b, f, s, e; write b, f, s, e;
+                """);
+    }
+
+    @Test
+    void failsLikeStackMachine() {
+        // itof nad Double
+        assertSameFailure("int a; float f; a = 1 + 1; f = a;");
+        // modulo nad Double a dělení nulou
+        assertSameFailure("int a; a = 1 + 1; write a % 2;");
+        assertSameFailure("int a; a = 0; write 1 % a;");
+        // prázdný vstup pro read int
+        assertSameFailure("int a; read a; read a;");
+    }
+
+    private static void assertSameBehaviour(String source) {
+        ParseTree tree = EngineBenchmark.parse(source);
+        List<String> code = EngineBenchmark.compile(tree);
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        Interpreter interpreter = new Interpreter(INPUT);
+        interpreter.setOutput(new PrintStream(expected));
+        interpreter.load(code);
+        interpreter.run(Long.MAX_VALUE);
+
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        ClosureEngine engine = new ClosureEngine(INPUT);
+        engine.setOutput(new PrintStream(actual));
+        engine.execute(tree);
+
+        assertEquals(expected.toString(), actual.toString());
+    }
+
+    private static void assertSameFailure(String source) {
+        ParseTree tree = EngineBenchmark.parse(source);
+        List<String> code = EngineBenchmark.compile(tree);
+
+        Interpreter interpreter = new Interpreter(List.of("1"));
+        interpreter.setOutput(new PrintStream(new ByteArrayOutputStream()));
+        interpreter.load(code);
+        RuntimeException expected = assertThrows(RuntimeException.class, () -> interpreter.run(Long.MAX_VALUE));
+
+        ClosureEngine engine = new ClosureEngine(List.of("1"));
+        engine.setOutput(new PrintStream(new ByteArrayOutputStream()));
+        RuntimeException actual = assertThrows(RuntimeException.class, () -> engine.execute(tree));
+        assertEquals(expected.getClass(), actual.getClass());
+    }
+}
@@ -10,6 +10,7 @@ import org.junit.jupiter.params.provider.MethodSource;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
@@ -21,7 +22,7 @@ import static org.junit.jupiter.api.Assertions.*;
 public class CodeGenTest {
 
     private static final String TEST_DIR = "src/test/resources/tests/";
-    private static final String PASS_DIR = TEST_DIR + "pass/";
+    static final String PASS_DIR = TEST_DIR + "pass/";
     private static final String EXPECTED_DIR = TEST_DIR + "expected/";
     private static final String GENERATED_DIR = TEST_DIR + "generated/";
 
@@ -70,6 +71,8 @@ public class CodeGenTest {
 
         String baseName = file.getName().replace(".pjp", "");
         String generatedPath = GENERATED_DIR + "generated_" + baseName + ".code";
+        // adresář s výstupy není v repozitáři, v čistém checkoutu chybí
+        Files.createDirectories(Path.of(GENERATED_DIR));
         Files.writeString(new File(generatedPath).toPath(), actual);
 
         if (checkAgainstExpected) {
@@ -88,7 +91,7 @@ public class CodeGenTest {
         Map<String, String> labelMap = new HashMap<>();
         AtomicInteger counter = new AtomicInteger();
 
-        Pattern labelPattern = Pattern.compile("^(label|jmp|fjmp)\\s+(L\\d+)$");
+        Pattern labelPattern = Pattern.compile("^(label|jmp|fjmp|tjmp)\\s+(L\\d+)$");
         List<String> normalized = new ArrayList<>();
 
         for (String line : lines) {
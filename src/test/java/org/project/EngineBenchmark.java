@@ -0,0 +1,115 @@
+package org.project;
+
+import grammar.pjplangLexer;
+import grammar.pjplangParser;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.tree.ParseTree;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Jednoduchý benchmark výpočetních strojů (spouští se ručně přes main, není součástí testů).
+ * Pro každý skript vypíše počet provedených instrukcí a nejlepší čas z několika běhů.
+ */
+public class EngineBenchmark {
+
+    private static final String BENCH_DIR = "src/test/resources/tests/bench/";
+    private static final int RUNS = 10;
+    private static final PrintStream NULL_OUT = new PrintStream(OutputStream.nullOutputStream());
+
+    public static void main(String[] args) throws IOException {
+        List<Path> scripts;
+        try (var files = Files.list(Path.of(BENCH_DIR))) {
+            scripts = files.filter(p -> p.toString().endsWith(".pjp")).sorted().toList();
+        }
+
+        for (Path script : scripts) {
+            String source = Files.readString(script);
+            ParseTree tree = parse(source);
+            List<String> code = compile(tree);
+            System.out.println("== " + script.getFileName());
+            // front end: zdroj -> FlatAst
+            benchmark("antlr", "nodes", () -> FlatAstLowering.parse(source).size());
+            benchmark("pjpparser", "nodes", () -> PjpParser.parse(source).size());
+            benchmark("stack", () -> {
+                Interpreter interpreter = new Interpreter(List.of());
+                interpreter.setOutput(NULL_OUT);
+                interpreter.load(code);
+                interpreter.run(Long.MAX_VALUE);
+                return interpreter.getExecutedInstructions();
+            });
+            CodeGenerator unrolling = new CodeGenerator();
+            unrolling.setUnrollFactor(4);
+            unrolling.visit(tree);
+            List<String> unrolled = unrolling.getInstructions();
+            benchmark("unroll4", () -> {
+                Interpreter interpreter = new Interpreter(List.of());
+                interpreter.setOutput(NULL_OUT);
+                interpreter.load(unrolled);
+                interpreter.run(Long.MAX_VALUE);
+                return interpreter.getExecutedInstructions();
+            });
+            RegisterProgram program = RegisterTranslator.translate(code);
+            benchmark("register", () -> {
+                RegisterInterpreter vm = new RegisterInterpreter(List.of());
+                vm.setOutput(NULL_OUT);
+                vm.execute(program);
+                return vm.getExecutedInstructions();
+            });
+            ClosureEngine.Program closures = ClosureEngine.compile(tree);
+            benchmark("closure", () -> {
+                ClosureEngine engine = new ClosureEngine(List.of());
+                engine.setOutput(NULL_OUT);
+                engine.execute(closures);
+                return 0;
+            });
+        }
+    }
+
+    static List<String> compile(String source) {
+        return compile(parse(source));
+    }
+
+    static ParseTree parse(String source) {
+        pjplangParser parser = new pjplangParser(new CommonTokenStream(new pjplangLexer(CharStreams.fromString(source))));
+        return parser.program();
+    }
+
+    static List<String> compile(ParseTree tree) {
+        TypeChecker checker = new TypeChecker();
+        checker.visit(tree);
+        if (checker.hasErrors()) {
+            checker.printErrors();
+            throw new IllegalStateException("Benchmark script has type errors");
+        }
+        CodeGenerator generator = new CodeGenerator();
+        generator.visit(tree);
+        return generator.getInstructions();
+    }
+
+    private static void benchmark(String engine, Run run) {
+        benchmark(engine, "instructions", run);
+    }
+
+    private static void benchmark(String engine, String unit, Run run) {
+        long best = Long.MAX_VALUE;
+        long instructions = 0;
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            instructions = run.execute();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%-10s %12d %-12s %10.2f ms%n", engine, instructions, unit, best / 1e6);
+    }
+
+    @FunctionalInterface
+    interface Run {
+        long execute();
+    }
+}
@@ -0,0 +1,99 @@
+package org.project;
+
+import grammar.pjplangLexer;
+import grammar.pjplangParser;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlatAstTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"pass/ok_1", "pass/ok_2", "pass/ok_3", "pass/ok_4", "pass/ok_5", "pass/ok_6", "pass/ok_7",
+            "bench/loops"})
+    void generatesSameCodeAsTreeGenerator(String name) throws IOException {
+        String source = Files.readString(Path.of("src/test/resources/tests/" + name + ".pjp"));
+
+        FlatAst ast = FlatAstLowering.parse(source);
+        FlatTypeChecker checker = new FlatTypeChecker();
+        checker.check(ast);
+        assertFalse(checker.hasErrors(), checker.getErrors().toString());
+
+        FlatCodeGenerator generator = new FlatCodeGenerator();
+        generator.generate(ast);
+        assertEquals(treeCode(source), generator.getInstructions());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"err_1", "err_2", "err_3", "err_4", "err_5"})
+    void reportsSameErrorsAsTreeChecker(String name) throws IOException {
+        String source = Files.readString(Path.of("src/test/resources/tests/errors/" + name + ".pjp"));
+        assertEquals(treeErrors(source), flatErrors(source));
+    }
+
+    @Test
+    void rejectsSyntaxErrors() throws IOException {
+        String source = Files.readString(Path.of("src/test/resources/tests/errors/err_6.pjp"));
+        assertThrows(IllegalArgumentException.class, () -> FlatAstLowering.parse(source));
+        assertThrows(IllegalArgumentException.class, () -> FlatAstLowering.lower(parse(source)));
+    }
+
+    @Test
+    void reportsSameErrorsForEveryRule() {
+        String source = """
+                int a; float f; string s; bool b; int a;
+                x = 1; a = "s"; f = 1; a = 1.5;
+                if (a) write 1; while (s) ;
+                write -s, !a, s + 1, s . 1, 1 % 2.0, s * 1, s < 1, s == 1, a && b, b || s;
+                write (a ? 1 : 2), (b ? 1 : "x"), (b ? 1 : 2.0), y, -y, (y + 1) . "z";
+                """;
+        assertEquals(treeErrors(source), flatErrors(source));
+    }
+
+    @Test
+    void dropsParenthesesAndInternsStrings() {
+        FlatAst ast = FlatAstLowering.parse("int a; a = ((a)) + a;");
+        int assign = ast.child(ast.root(), 1);
+        assertEquals(FlatAst.ASSIGN, ast.kind(assign));
+
+        int plus = ast.child(assign, 0);
+        assertEquals(FlatAst.BINARY, ast.kind(plus));
+        assertEquals("+", ast.text(plus));
+        assertEquals(FlatAst.VAR, ast.kind(ast.child(plus, 0)));
+        assertSame(ast.text(ast.child(plus, 0)), ast.text(ast.child(plus, 1)));
+        // program, deklarace, a, přiřazení, +, a, a
+        assertEquals(7, ast.size());
+    }
+
+    private static List<String> treeCode(String source) {
+        CodeGenerator generator = new CodeGenerator();
+        generator.visit(parse(source));
+        return generator.getInstructions();
+    }
+
+    private static List<String> treeErrors(String source) {
+        TypeChecker checker = new TypeChecker();
+        checker.visit(parse(source));
+        return checker.getErrors();
+    }
+
+    private static List<String> flatErrors(String source) {
+        FlatTypeChecker checker = new FlatTypeChecker();
+        checker.check(FlatAstLowering.parse(source));
+        return checker.getErrors();
+    }
+
+    private static pjplangParser.ProgramContext parse(String source) {
+        pjplangParser parser = new pjplangParser(new CommonTokenStream(new pjplangLexer(CharStreams.fromString(source))));
+        return parser.program();
+    }
+}
@@ -0,0 +1,98 @@
+package org.project;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalAnalyzerTest {
+
+    private static final String SOURCE = """
+            int a, b; float f;
+            string s;
+            a = 1; b = a + 2;
+            f = a * 1.5;
+            if (a < b) { s = "x"; } else s = "y";
+            while (a < 10) a = a + 1;
+            write a, b, f, s;
+            """;
+
+    @Test
+    void editsGiveSameDiagnosticsAsFullRun() {
+        IncrementalAnalyzer analyzer = new IncrementalAnalyzer(SOURCE);
+        assertEquals(List.of(), analyzer.diagnostics());
+
+        // redeklarace, nedeklarovaná proměnná, změna typu deklarace, návrat
+        assertEdit(analyzer, SOURCE.indexOf("string s;"), 0, "int a;\n");
+        assertEdit(analyzer, analyzer.text().indexOf("int a;\n"), 7, "");
+        assertEdit(analyzer, analyzer.text().indexOf("float f"), 5, "string");
+        assertEdit(analyzer, analyzer.text().indexOf("string f"), 6, "float");
+        assertEdit(analyzer, analyzer.text().indexOf("b = a + 2"), 1, "c");
+        assertEquals(SOURCE.replace("b = a + 2", "c = a + 2"), analyzer.text());
+    }
+
+    @Test
+    void fallsBackWhenEditEscapesItsLines() {
+        IncrementalAnalyzer analyzer = new IncrementalAnalyzer(SOURCE);
+        // komentář schová i další příkaz na stejném řádku
+        assertEdit(analyzer, SOURCE.indexOf("a = 1;"), 0, "// ");
+        assertEdit(analyzer, SOURCE.indexOf("a = 1;"), 3, "");
+        // neuzavřený řetězec = syntaktická chyba celého textu, pak oprava
+        int quote = analyzer.text().indexOf("\"x\"");
+        assertEdit(analyzer, quote + 2, 1, "");
+        assertFalse(analyzer.diagnostics().isEmpty());
+        assertEdit(analyzer, quote + 2, 0, "\"");
+        assertEquals(List.of(), analyzer.diagnostics());
+    }
+
+    @Test
+    void randomEditsMatchFullRun() {
+        Random random = new Random(42);
+        String[] snippets = {"int ", "x", "a", ";", " = ", "1", "+", "\n", "{", "}", "write a;", "float a;",
+                "\"s\"", "if (a < 1) ", "b", "."};
+        IncrementalAnalyzer analyzer = new IncrementalAnalyzer(SOURCE);
+        for (int i = 0; i < 500; i++) {
+            String text = analyzer.text();
+            int offset = random.nextInt(text.length() + 1);
+            int removed = random.nextInt(Math.min(4, text.length() - offset) + 1);
+            String inserted = random.nextBoolean() ? snippets[random.nextInt(snippets.length)] : "";
+            assertEdit(analyzer, offset, removed, inserted);
+        }
+    }
+
+    @Test
+    void largeFileEditTouchesOnlyDependentStatements() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            sb.append("int v").append(i).append(";\n");
+            sb.append("v").append(i).append(" = ").append(i).append(" + 1;\n");
+        }
+        sb.append("write v0, v4999;\n");
+        String source = sb.toString();
+        IncrementalAnalyzer analyzer = new IncrementalAnalyzer(source);
+
+        // změna výrazu: jeden příkaz znovu naparsovaný i zkontrolovaný
+        long start = System.nanoTime();
+        analyzer.edit(source.indexOf("v2500 = 2500") + 8, 4, "7");
+        long nanos = System.nanoTime() - start;
+        assertEquals(1, analyzer.reparsedStatements());
+        assertEquals(1, analyzer.recheckedStatements());
+        assertTrue(nanos < 200_000_000, "edit took " + nanos / 1e6 + " ms");
+
+        // změna deklarace: znovu se kontroluje jen ona a příkazy, které v2500 používají
+        int decl = analyzer.text().indexOf("int v2500;");
+        analyzer.edit(decl, 3, "string");
+        assertEquals(2, analyzer.recheckedStatements());
+        assertEquals(IncrementalAnalyzer.analyze(analyzer.text()), analyzer.diagnostics());
+        assertEquals(List.of("Cannot assign int to variable v2500 of type string"), analyzer.diagnostics());
+    }
+
+    private static void assertEdit(IncrementalAnalyzer analyzer, int offset, int removed, String inserted) {
+        String expectedText = analyzer.text().substring(0, offset) + inserted + analyzer.text().substring(offset + removed);
+        List<String> actual = analyzer.edit(offset, removed, inserted);
+        assertEquals(expectedText, analyzer.text());
+        assertEquals(IncrementalAnalyzer.analyze(expectedText), actual, expectedText);
+    }
+}
@@ -0,0 +1,95 @@
+package org.project;
+
+import grammar.pjplangLexer;
+import grammar.pjplangParser;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InstructionSinkTest {
+
+    private static final List<String> INPUT = List.of("42", "3.14", "hello", "true");
+
+    @TempDir
+    Path tempDir;
+
+    @ParameterizedTest
+    @ValueSource(strings = {"ok_1", "ok_2", "ok_3", "ok_4", "ok_5", "ok_6", "ok_7"})
+    void bytecodeRoundTripRunsLikeText(String name) throws IOException {
+        ParseTree tree = parse(name);
+
+        CodeGenerator text = new CodeGenerator();
+        text.visit(tree);
+
+        BytecodeSink sink = new BytecodeSink();
+        new CodeGenerator(sink).visit(tree);
+        List<String> decoded = BytecodeReader.decode(sink.toByteBuffer());
+
+        assertEquals(run(text.getInstructions()), run(decoded), "Output differs for: " + name);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"ok_3", "ok_6", "ok_7"})
+    void channelSinkPatchesFlushedJumps(String name) throws IOException {
+        ParseTree tree = parse(name);
+
+        BytecodeSink inMemory = new BytecodeSink();
+        new CodeGenerator(inMemory).visit(tree);
+
+        // malá vyrovnávací paměť – skoky vpřed se opravují až v souboru
+        Path file = tempDir.resolve(name + ".pjb");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            new CodeGenerator(new BytecodeSink(channel, 32)).visit(tree);
+        }
+
+        assertEquals(inMemory.toByteBuffer(), ByteBuffer.wrap(Files.readAllBytes(file)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"ok_1", "ok_2", "ok_3", "ok_4", "ok_5", "ok_6", "ok_7"})
+    void interpreterSinkSkipsText(String name) throws IOException {
+        ParseTree tree = parse(name);
+
+        CodeGenerator text = new CodeGenerator();
+        text.visit(tree);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Interpreter interpreter = new Interpreter(INPUT);
+        interpreter.setOutput(new PrintStream(out));
+        CodeGenerator direct = new CodeGenerator(interpreter.programSink());
+        direct.visit(tree);
+        interpreter.run(Long.MAX_VALUE);
+
+        assertTrue(direct.getInstructions().isEmpty());
+        assertEquals(run(text.getInstructions()), out.toString());
+    }
+
+    private static ParseTree parse(String name) throws IOException {
+        String source = Files.readString(Path.of(CodeGenTest.PASS_DIR + name + ".pjp"));
+        return new pjplangParser(new CommonTokenStream(new pjplangLexer(CharStreams.fromString(source)))).program();
+    }
+
+    private static String run(List<String> code) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Interpreter interpreter = new Interpreter(INPUT);
+        interpreter.setOutput(new PrintStream(out));
+        interpreter.load(code);
+        interpreter.run(Long.MAX_VALUE);
+        return out.toString();
+    }
+}
@@ -9,6 +9,7 @@ import java.io.PrintStream;
 import java.nio.file.Path;
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class InterpreterTest {
@@ -67,6 +68,17 @@ class InterpreterTest {
         assertTrue(output.contains("true"), "Output should contain the read bool value");
     }
 
+    @Test
+    void testOk6ShortCircuit() throws IOException {
+        ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+        Interpreter interpreter = new Interpreter();
+        interpreter.setOutput(new PrintStream(outContent));
+        interpreter.execute(Path.of(GENERATED_DIR + "generated_ok_6.code"));
+
+        String output = outContent.toString().replace("\r\n", "\n");
+        assertEquals("b(true): true\nb(false): false\nthen\ny: 3.0\n", output);
+    }
+
     private void runAndLogOutput(String fileName, boolean assertNotEmpty) throws IOException {
         Path codePath = Path.of(GENERATED_DIR + fileName);
 
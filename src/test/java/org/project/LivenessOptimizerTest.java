@@ -0,0 +1,79 @@
+package org.project;
+
+import grammar.pjplangLexer;
+import grammar.pjplangParser;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LivenessOptimizerTest {
+
+    private static final List<String> INPUT = List.of("42", "3.14", "hello", "true");
+
+    public static Stream<File> providePassingFiles() {
+        return CodeGenTest.providePassingFiles();
+    }
+
+    @ParameterizedTest
+    @MethodSource("providePassingFiles")
+    void testSameOutputAfterDeadStoreElimination(File file) throws IOException {
+        List<String> code = compile(Files.readString(file.toPath()));
+        List<String> optimized = LivenessOptimizer.optimize(code);
+
+        Interpreter expected = new Interpreter(INPUT);
+        Interpreter actual = new Interpreter(INPUT);
+        assertEquals(run(expected, code), run(actual, optimized), "Output differs for: " + file.getName());
+        assertTrue(actual.getExecutedInstructions() <= expected.getExecutedInstructions());
+    }
+
+    @Test
+    void testDefaultInitializationAndAssignmentEchoAreRemoved() {
+        List<String> optimized = LivenessOptimizer.optimize(compile("int x; x = 5; write x;"));
+
+        assertEquals(List.of("push I 5", "save $s0", "load $s0", "print 1"), optimized);
+    }
+
+    @Test
+    void testVariablesWithDisjointLifetimesShareSlot() {
+        List<String> optimized = LivenessOptimizer.optimize(compile(
+                "int a, b; read a; write a + 1; read b; write b * 2;"));
+
+        long slots = optimized.stream().filter(i -> i.startsWith("save ")).map(i -> i.substring(5)).distinct().count();
+        assertEquals(1, slots, String.join("\n", optimized));
+    }
+
+    @Test
+    void testVariableReadBeforeWriteKeepsItsName() {
+        List<String> code = List.of("load x", "print 1", "push I 1", "save x");
+        List<String> optimized = LivenessOptimizer.optimize(code);
+
+        assertEquals(List.of("load x", "print 1"), optimized);
+    }
+
+    private static List<String> compile(String source) {
+        pjplangParser parser = new pjplangParser(new CommonTokenStream(new pjplangLexer(CharStreams.fromString(source))));
+        CodeGenerator generator = new CodeGenerator();
+        generator.visit(parser.program());
+        return generator.getInstructions();
+    }
+
+    private static String run(Interpreter interpreter, List<String> code) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        interpreter.setOutput(new PrintStream(out));
+        interpreter.load(code);
+        interpreter.run(Long.MAX_VALUE);
+        return out.toString();
+    }
+}
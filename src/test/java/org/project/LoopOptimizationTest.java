@@ -0,0 +1,148 @@
+package org.project;
+
+import grammar.pjplangLexer;
+import grammar.pjplangParser;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoopOptimizationTest {
+
+    private static final List<String> INPUT = List.of("42", "3.14", "hello", "true");
+
+    public static Stream<File> providePassingFiles() {
+        return CodeGenTest.providePassingFiles();
+    }
+
+    @ParameterizedTest
+    @MethodSource("providePassingFiles")
+    void testSameOutputWithLoopOptimizations(File file) throws IOException {
+        String source = Files.readString(file.toPath());
+        List<String> plain = compile(source, false);
+        List<String> optimized = compile(source, true);
+
+        Interpreter expected = new Interpreter(INPUT);
+        Interpreter actual = new Interpreter(INPUT);
+        assertEquals(run(expected, plain), run(actual, optimized), "Output differs for: " + file.getName());
+        assertTrue(actual.getExecutedInstructions() <= expected.getExecutedInstructions(),
+                "Optimized code is slower for: " + file.getName());
+    }
+
+    @Test
+    void testInvariantsAndInductionVariables() throws IOException {
+        String source = Files.readString(new File(CodeGenTest.PASS_DIR + "ok_7.pjp").toPath());
+        List<String> plain = compile(source, false);
+        List<String> optimized = compile(source, true);
+
+        // n * m, (n + m) * 2 a !(n == m) před smyčkou, i * 4 jako indukční proměnná
+        long temps = optimized.stream().filter(i -> i.startsWith("save $t")).distinct().count();
+        assertEquals(4, temps);
+
+        Interpreter expected = new Interpreter(INPUT);
+        Interpreter actual = new Interpreter(INPUT);
+        assertEquals(run(expected, plain), run(actual, optimized));
+        assertTrue(actual.getExecutedInstructions() < expected.getExecutedInstructions());
+    }
+
+    @Test
+    void testUnrolledCounterLoopRunsRemainderToo() {
+        String source = """
+                int i, n, sum; string s;
+                read n;
+                i = 0; sum = 0; s = "";
+                while (i < n) { sum = sum + i * 3; s = s . "x"; i = i + 1; }
+                while (i > 0 - n) i = i - 2;
+                write sum, " ", s, " ", i;
+                """;
+        List<String> plain = compile(source, false);
+        CodeGenerator generator = new CodeGenerator();
+        generator.setUnrollFactor(4);
+        generator.visit(new pjplangParser(new CommonTokenStream(new pjplangLexer(CharStreams.fromString(source)))).program());
+        List<String> unrolled = generator.getInstructions();
+        assertEquals(4 + 1, unrolled.stream().filter(line -> line.equals("mul I")).count(), String.join("\n", unrolled));
+
+        for (int n = 0; n <= 9; n++) {
+            Interpreter expected = new Interpreter(List.of(String.valueOf(n)));
+            Interpreter actual = new Interpreter(List.of(String.valueOf(n)));
+            assertEquals(run(expected, plain), run(actual, unrolled), "n = " + n);
+            assertEquals(expected.getVariables(), actual.getVariables(), "n = " + n);
+            if (n >= 8) assertTrue(actual.getExecutedInstructions() < expected.getExecutedInstructions());
+        }
+    }
+
+    @Test
+    void testLoopWithoutPlainCounterIsNotUnrolled() {
+        for (String loop : List.of(
+                "while (i < n) { if (i > 2) i = i + 1; else i = i + 2; }",  // přiřazení jen ve větvi
+                "while (i < n) { i = i + 1; n = n - 1; }",                   // mez se mění
+                "while (i < n) { i = i - 1; }")) {                           // krok od meze
+            String source = "int i, n; i = 0; n = 10; " + loop;
+            CodeGenerator generator = new CodeGenerator();
+            generator.setUnrollFactor(4);
+            generator.visit(new pjplangParser(new CommonTokenStream(new pjplangLexer(CharStreams.fromString(source)))).program());
+            assertEquals(compile(source, false), generator.getInstructions(), loop);
+        }
+    }
+
+    @Test
+    void testUnknownSubexpressionTypeIsNullNotException() {
+        // LoopOptimizer.isSafe se podle null rozhodne výraz nepřesouvat
+        ExpressionTypeResolver resolver = new ExpressionTypeResolver(java.util.Map.of("i", "int"));
+        assertNull(resolver.visit(expression("write y + 1;")));
+        assertNull(resolver.visit(expression("write (true ? 1 : \"s\") * i;")));
+        assertNull(resolver.visit(expression("write -(y) - 2;")));
+        assertEquals("float", resolver.visit(expression("write i * 1.5;")));
+    }
+
+    @Test
+    void testInductionProductOutsideIntRangeIsNotReduced() {
+        // add I ořízne pomocnou proměnnou na int, přímé i * k ne – výsledky se nesmí rozejít
+        for (String source : List.of(
+                "int i, n; read i; n = 10; while (i < n) { write i * 3, i * 3 + 1, i * 3 - 1; i = i + 500000000; }",
+                "int i; i = 0; while (i < 1000000000) { write i * 5, i * 5 + 1, i * 5 - 1; i = i + 250000000; }")) {
+            List<String> plain = compile(source, false);
+            List<String> optimized = compile(source, true);
+            List<String> input = List.of("-2000000000");
+            assertEquals(run(new Interpreter(input), plain), run(new Interpreter(input), optimized), source);
+        }
+
+        // se známým počátkem i mezí se násobení dál nahrazuje
+        List<String> optimized = compile("int i, n; n = 100; i = 0 - 100; while (i < n) { write i * 7, i * 7 + 1, i * 7 - 1; i = i + 3; }", true);
+        assertEquals(1, optimized.stream().filter(line -> line.equals("mul I")).count(), String.join("\n", optimized));
+    }
+
+    private static pjplangParser.ExpressionContext expression(String statement) {
+        pjplangParser parser = new pjplangParser(new CommonTokenStream(new pjplangLexer(CharStreams.fromString(statement))));
+        return parser.program().statement(0).exprList().expression(0);
+    }
+
+    private static List<String> compile(String source, boolean optimize) {
+        pjplangParser parser = new pjplangParser(new CommonTokenStream(new pjplangLexer(CharStreams.fromString(source))));
+        ParseTree tree = parser.program();
+        CodeGenerator generator = new CodeGenerator();
+        if (optimize) generator.enableLoopOptimizations();
+        generator.visit(tree);
+        return generator.getInstructions();
+    }
+
+    private static String run(Interpreter interpreter, List<String> code) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        interpreter.setOutput(new PrintStream(out));
+        interpreter.load(code);
+        interpreter.run(Long.MAX_VALUE);
+        return out.toString();
+    }
+}
@@ -0,0 +1,129 @@
+package org.project;
+
+import grammar.pjplangLexer;
+import grammar.pjplangParser;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNode;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelParserTest {
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    @AfterAll
+    static void shutdown() {
+        POOL.shutdown();
+    }
+
+    /** Velký program se středníky a závorkami v řetězcích a komentářích a s if/else přes řádky. */
+    private static String program(int blocks) {
+        StringBuilder sb = new StringBuilder("int i; string s; float f;\n");
+        for (int k = 0; k < blocks; k++) {
+            sb.append("s = \"a; b } { c\"; // komentář; s } {\n");
+            sb.append("i = ").append(k).append("; f = i * 1.5;\n");
+            sb.append("if (i > 10) { write \"big;\"; }\n");
+            sb.append("// else na dalším řádku nesmí být oddělené\n");
+            sb.append("else { s = s . \"}\"; }\n");
+            sb.append("if (i < 3) i = i + 1;\n    else\n i = 0;");
+            sb.append("while (i > 0) { i = i - 1; { write i, \"č\"; } }\n");
+            if (k % 50 == 7) sb.append("x = 1; s = 2;\n"); // typové chyby
+        }
+        return sb.toString();
+    }
+
+    @Test
+    void stitchedTreeEqualsSequentialTree() {
+        String source = program(300);
+        List<Integer> splits = ParallelParser.splitPoints(source, 500);
+        assertTrue(splits.size() > 50, "splits: " + splits.size());
+
+        pjplangParser sequentialParser = parser(source);
+        pjplangParser.ProgramContext expected = sequentialParser.program();
+        ParallelParser parallel = new ParallelParser(POOL);
+        pjplangParser.ProgramContext actual = parallel.parse(source, 500);
+
+        assertFalse(parallel.hasErrors(), parallel.getErrors().toString());
+        List<String> rules = Arrays.asList(pjplangParser.ruleNames);
+        assertEquals(expected.toStringTree(rules), actual.toStringTree(rules));
+        assertEquals(tokens(expected), tokens(actual));
+
+        // typová kontrola (i paralelní, řazená podle indexů tokenů) hlásí původní řádky
+        TypeChecker checker = new TypeChecker();
+        checker.visit(expected);
+        assertFalse(checker.getErrors().isEmpty());
+        TypeChecker stitched = new TypeChecker();
+        stitched.visit(actual);
+        assertEquals(checker.getErrors(), stitched.getErrors());
+        assertEquals(checker.getErrors(), new ParallelTypeChecker(POOL).check(actual));
+    }
+
+    @Test
+    void syntaxErrorReportsOriginalLine() {
+        String source = program(100);
+        int line = (int) source.substring(0, source.length() / 2).lines().count();
+        int cut = source.indexOf('\n', source.length() / 2) + 1;
+        String broken = source.substring(0, cut) + "i = (1 + ;\n" + source.substring(cut);
+
+        pjplangParser sequentialParser = parser(broken);
+        List<String> expected = new ArrayList<>();
+        sequentialParser.addErrorListener(new org.antlr.v4.runtime.BaseErrorListener() {
+            @Override
+            public void syntaxError(org.antlr.v4.runtime.Recognizer<?, ?> recognizer, Object offendingSymbol, int l,
+                                    int charPositionInLine, String msg, org.antlr.v4.runtime.RecognitionException e) {
+                expected.add("line " + l + ":" + charPositionInLine + " " + msg);
+            }
+        });
+        sequentialParser.program();
+
+        ParallelParser parallel = new ParallelParser(POOL);
+        parallel.parse(broken, 300);
+        assertEquals(expected, parallel.getErrors());
+        assertTrue(parallel.getErrors().get(0).startsWith("line " + (line + 1) + ":"), parallel.getErrors().toString());
+    }
+
+    @Test
+    void smallInputsStayInOneChunk() {
+        assertEquals(List.of(), ParallelParser.splitPoints("int a; a = 1; write a;", ParallelParser.MIN_CHUNK_CHARS));
+        // neuzavřený řetězec a nevyvážená závorka: dál se nedělí
+        assertEquals(List.of(2, 5), ParallelParser.splitPoints("a; b; \"c; d; e;", 1));
+        assertEquals(List.of(2), ParallelParser.splitPoints("a; } b; c;", 1));
+
+        ParallelParser parallel = new ParallelParser(POOL);
+        pjplangParser.ProgramContext empty = parallel.parse("");
+        assertEquals(0, empty.statement().size());
+        assertEquals(Token.EOF, empty.getStop().getType());
+    }
+
+    private static pjplangParser parser(String source) {
+        pjplangParser parser = new pjplangParser(new CommonTokenStream(new pjplangLexer(CharStreams.fromString(source))));
+        parser.removeErrorListeners();
+        return parser;
+    }
+
+    private static List<String> tokens(ParseTree tree) {
+        List<String> result = new ArrayList<>();
+        collect(tree, result);
+        return result;
+    }
+
+    private static void collect(ParseTree tree, List<String> result) {
+        if (tree instanceof TerminalNode terminal) {
+            Token t = terminal.getSymbol();
+            result.add(t.getText() + "@" + t.getLine() + ":" + t.getCharPositionInLine()
+                    + " [" + t.getStartIndex() + "," + t.getStopIndex() + "] #" + t.getTokenIndex());
+            return;
+        }
+        for (int i = 0; i < tree.getChildCount(); i++) collect(tree.getChild(i), result);
+    }
+}
@@ -0,0 +1,62 @@
+package org.project;
+
+import grammar.pjplangLexer;
+import grammar.pjplangParser;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelTypeCheckerTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"pass/ok_1", "pass/ok_2", "pass/ok_3", "pass/ok_4", "pass/ok_5", "pass/ok_6", "pass/ok_7",
+            "errors/err_1", "errors/err_2", "errors/err_3", "errors/err_4", "errors/err_5"})
+    void sameErrorsAsSequentialChecker(String name) throws IOException {
+        String source = Files.readString(Path.of("src/test/resources/tests/" + name + ".pjp"));
+        assertSameErrors(source);
+    }
+
+    @Test
+    void largeProgramWithErrorsInManyChunks() {
+        StringBuilder source = new StringBuilder();
+        for (int i = 0; i < 5_000; i++) {
+            source.append("int a").append(i).append(";\n");
+            source.append("a").append(i).append(" = ").append(i).append(";\n");
+            if (i % 97 == 0) source.append("a").append(i).append(" = \"oops\";\n");      // špatný typ
+            if (i % 131 == 0) source.append("b").append(i).append(" = 1;\n");           // nedeklarovaná
+            if (i % 173 == 0) source.append("write a").append(i + 1).append(";\n");     // deklarace až později
+            if (i % 211 == 0) source.append("{ float a").append(i).append("; }\n");     // redeklarace
+            source.append("while (a").append(i).append(" > 0) { a").append(i).append(" = a").append(i).append(" - 1; }\n");
+        }
+        List<String> errors = assertSameErrors(source.toString());
+        assertFalse(errors.isEmpty());
+    }
+
+    private static List<String> assertSameErrors(String source) {
+        pjplangParser parser = new pjplangParser(new CommonTokenStream(new pjplangLexer(CharStreams.fromString(source))));
+        parser.removeErrorListeners();
+        pjplangParser.ProgramContext program = parser.program();
+
+        TypeChecker sequential = new TypeChecker();
+        sequential.visit(program);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            List<String> parallel = new ParallelTypeChecker(pool).check(program);
+            assertEquals(sequential.getErrors(), parallel);
+            return parallel;
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package org.project;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PartialEvaluatorTest {
+
+    private static final List<String> INPUT = List.of("42", "3.14", "hello", "true");
+
+    @ParameterizedTest
+    @ValueSource(strings = {"pass/ok_1", "pass/ok_2", "pass/ok_3", "pass/ok_4", "pass/ok_5", "pass/ok_6", "pass/ok_7",
+            "bench/loops"})
+    void residualProgramBehavesLikeOriginal(String name) throws IOException {
+        String source = Files.readString(Path.of("src/test/resources/tests/" + name + ".pjp"));
+        Interpreter.Program original = Interpreter.Program.decode(EngineBenchmark.compile(source));
+        assertSameRun(original, PartialEvaluator.evaluate(original));
+    }
+
+    @Test
+    void readFreeScriptBecomesItsOutput() {
+        Interpreter.Program original = program("""
+                int i, sum; string s;
+                i = 0; sum = 0; s = "";
+                while (i < 100) { sum = sum + i; i = i + 1; }
+                s = "done";
+                write "sum=", sum; write s;
+                """);
+        Interpreter.Program residual = PartialEvaluator.evaluate(original);
+
+        // dva výpisy a tři proměnné, žádný zbytek původního kódu
+        assertEquals(2 * 2 + 3 * 2, residual.code().length);
+        assertTrue(residual.verified() != null);
+        Run run = assertSameRun(original, residual);
+        assertEquals(10, run.executed());
+    }
+
+    @Test
+    void evaluatesPrefixUpToFirstRead() {
+        Interpreter.Program original = program("""
+                int i, n; float f;
+                i = 0; while (i < 50) i = i + 1;
+                write "ready ", i;
+                read n;
+                while (i < n) { i = i + 1; write i; }
+                f = i;
+                """);
+        Interpreter.Program residual = PartialEvaluator.evaluate(original);
+        assertNotSame(original, residual);
+        assertTrue(residual.verified() != null);
+        // f = i dělá itof nad Double (aritmetika VM) – i po vyhodnocení musí selhat stejně
+        assertSameRun(original, residual);
+    }
+
+    @Test
+    void keepsOriginalWhenFuelRunsOutOrRunFails() {
+        Interpreter.Program endless = program("int i; i = 0; while (true) i = i + 1;");
+        assertSame(endless, PartialEvaluator.evaluate(endless, 10_000));
+
+        Interpreter.Program failing = program("int a; write 1; a = 0; write 1 % a;");
+        assertSame(failing, PartialEvaluator.evaluate(failing));
+
+        Interpreter.Program readFirst = program("int a; read a; write a;");
+        Interpreter.Program residual = PartialEvaluator.evaluate(readFirst);
+        assertSameRun(readFirst, residual);
+    }
+
+    private static Interpreter.Program program(String source) {
+        return Interpreter.Program.decode(EngineBenchmark.compile(source));
+    }
+
+    private record Run(String output, Object variables, Class<?> failure, long executed) {
+    }
+
+    private static Run run(Interpreter.Program program) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Interpreter vm = new Interpreter(INPUT);
+        vm.setOutput(new PrintStream(out));
+        vm.load(program);
+        Class<?> failure = null;
+        try {
+            vm.run(Long.MAX_VALUE);
+        } catch (RuntimeException e) {
+            failure = e.getClass();
+        }
+        return new Run(out.toString(), vm.getVariables(), failure, vm.getExecutedInstructions());
+    }
+
+    private static Run assertSameRun(Interpreter.Program original, Interpreter.Program residual) {
+        Run expected = run(original);
+        Run actual = run(residual);
+        assertEquals(expected.output(), actual.output());
+        assertEquals(expected.variables(), actual.variables());
+        assertEquals(expected.failure(), actual.failure());
+        assertTrue(actual.executed() <= expected.executed());
+        return actual;
+    }
+}
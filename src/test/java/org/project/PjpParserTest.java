@@ -0,0 +1,157 @@
+package org.project;
+
+import grammar.pjplangLexer;
+import grammar.pjplangParser;
+import org.antlr.v4.runtime.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PjpParserTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"pass/ok_1", "pass/ok_2", "pass/ok_3", "pass/ok_4", "pass/ok_5", "pass/ok_6", "pass/ok_7",
+            "errors/err_1", "errors/err_2", "errors/err_3", "errors/err_4", "errors/err_5", "bench/loops"})
+    void buildsSameTreeAsAntlr(String name) throws IOException {
+        String source = Files.readString(Path.of("src/test/resources/tests/" + name + ".pjp"));
+        FlatAst expected = FlatAstLowering.parse(source);
+        FlatAst actual = PjpParser.parse(source);
+        assertEquals(expected.toString(), actual.toString());
+
+        FlatTypeChecker checker = new FlatTypeChecker();
+        checker.check(actual);
+        FlatTypeChecker reference = new FlatTypeChecker();
+        reference.check(expected);
+        assertEquals(reference.getErrors(), checker.getErrors());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "write !a && b, -a * b, -a < b, !a || b == c;",
+            "write a ? b : c ? d : e, a ? b ? c : d : e, a < 5 ? x : y, c ? 1 : 2 + 3;",
+            "write 1 - 2 - 3, 8 / 4 / 2, a . b . c, a || b && c, a == b != c, a < b > c;",
+            "write (1 + 2) * 3, -(-x), !!b, 1.5 + 2. + 3, \"a//b\" . \"x\";",
+            "a = b; a + 1; (a); -a; if (a) if (b) x = 1; else x = 2; while (c) { ; { } }",
+            "int a, b; float f; bool iffy, elsewhere; string s_1; read a, s_1; iffy = true; truex = false; // konec",
+            "write \"víceřádkový\nřetězec\", x;"})
+    void parsesExpressionsLikeAntlr(String source) {
+        assertEquals(FlatAstLowering.parse(source).toString(), PjpParser.parse(source).toString());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "int x = 5;",
+            "x = ;",
+            "write 1 2;",
+            "if x) write 1;",
+            "while (a { }",
+            "{ write 1;",
+            "int;",
+            "read 1;",
+            "write (1 + 2;",
+            "write a ? b;",
+            "else x = 1;",
+            "x = 1;\n  )",
+            "x = 1; ) )",
+            "{ } }",
+            "write 1",
+            "x",
+            "a b;",
+            "x = (1) }",
+            "if (a)",
+            "if (a) ) x = 1;",
+            "if (a) write 1 else write 2;",
+            "write \"a\nb\" \"c\td\";",
+            "if (a) if (b) x = 1; else y = ;",
+            "if (a) if (b) if (c) x = 1; else y = 2; . z;",
+            "while (a) if (b) if (c) x; else if (d) y; < z;"})
+    void reportsFirstSyntaxErrorLikeAntlr(String source) {
+        List<String> expected = antlrErrors(source);
+        PjpParser parser = new PjpParser(source);
+        assertNull(parser.program());
+        assertFalse(expected.isEmpty());
+        assertEquals(expected.get(0), parser.getErrors().get(0));
+    }
+
+    @Test
+    void reportsFirstSyntaxErrorLikeAntlrAfterAnyTokenEdit() throws IOException {
+        // každý token vzorového programu smazat, zdvojit nebo nahradit jiným tokenem
+        String source = Files.readString(Path.of("src/test/resources/tests/pass/ok_3.pjp"))
+                + "\nif (a) if (b) x = 1; else y = 2; while (c) if (d) { } else if (e) z; w;";
+        List<String> tokens = new pjplangLexer(CharStreams.fromString(source)).getAllTokens().stream()
+                .map(Token::getText).toList();
+        List<String> others = List.of(";", ")", "else", "}", ",", "=", "?", "+", "1", "x");
+        int checked = 0;
+        for (int i = 0; i < tokens.size(); i++) {
+            List<List<String>> edits = new ArrayList<>();
+            edits.add(new ArrayList<>(tokens));
+            edits.get(0).remove(i);
+            edits.add(new ArrayList<>(tokens));
+            edits.get(1).add(i, tokens.get(i));
+            for (String other : others) {
+                List<String> replaced = new ArrayList<>(tokens);
+                replaced.set(i, other);
+                edits.add(replaced);
+            }
+            for (List<String> edit : edits) {
+                String broken = String.join(" ", edit);
+                List<String> expected = antlrErrors(broken);
+                if (expected.isEmpty()) continue;
+                PjpParser parser = new PjpParser(broken);
+                parser.program();
+                assertEquals(expected.get(0), parser.getErrors().get(0), broken);
+                checked++;
+            }
+        }
+        assertTrue(checked > 500, "checked " + checked);
+    }
+
+    @Test
+    void reportsLexerErrorsLikeAntlr() {
+        // neznámý znak, osamocené & (ANTLR zahodí i znak za ním) a neukončený řetězec
+        String source = "int a; a = 1 #;\nwrite a |\n, a &, \"open\nend";
+        List<String> expected = antlrErrors(source).stream().filter(e -> e.contains("token recognition")).toList();
+        assertEquals(4, expected.size());
+        assertEquals(expected, lexerErrors(source));
+    }
+
+    @Test
+    void parsesUtf8Bytes() {
+        String source = "string s; s = \"žluťoučký\"; write s;";
+        assertEquals(PjpParser.parse(source).toString(), new PjpParser(source.getBytes(StandardCharsets.UTF_8)).program().toString());
+    }
+
+    private static List<String> lexerErrors(String source) {
+        PjpParser parser = new PjpParser(source);
+        parser.program();
+        return parser.getErrors().stream().filter(e -> e.contains("token recognition")).toList();
+    }
+
+    private static List<String> antlrErrors(String source) {
+        List<String> errors = new ArrayList<>();
+        BaseErrorListener listener = new BaseErrorListener() {
+            @Override
+            public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line, int charPositionInLine,
+                                    String msg, RecognitionException e) {
+                errors.add("line " + line + ":" + charPositionInLine + " " + msg);
+            }
+        };
+        pjplangLexer lexer = new pjplangLexer(CharStreams.fromString(source));
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(listener);
+        pjplangParser parser = new pjplangParser(new CommonTokenStream(lexer));
+        parser.removeErrorListeners();
+        parser.addErrorListener(listener);
+        parser.program();
+        return errors;
+    }
+}
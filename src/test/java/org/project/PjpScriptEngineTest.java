@@ -0,0 +1,101 @@
+package org.project;
+
+import org.junit.jupiter.api.Test;
+
+import javax.script.*;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PjpScriptEngineTest {
+
+    private static final String ECHO = """
+            int a;
+            string s;
+            read a, s;
+            a = a * 2;
+            write s, ": ", a;
+            """;
+
+    @Test
+    void discoveredThroughScriptEngineManager() {
+        ScriptEngine engine = new ScriptEngineManager().getEngineByName("pjp");
+        assertNotNull(engine);
+        assertInstanceOf(Compilable.class, engine);
+    }
+
+    @Test
+    void factoryBuildsRunnableStatements() throws ScriptException {
+        PjpScriptEngineFactory factory = new PjpScriptEngineFactory();
+        ScriptEngine engine = factory.getScriptEngine();
+        StringWriter out = new StringWriter();
+        engine.getContext().setWriter(out);
+        engine.eval(factory.getProgram(factory.getOutputStatement("hello world")));
+        assertEquals("hello world" + System.lineSeparator(), out.toString());
+
+        assertThrows(IllegalArgumentException.class, () -> factory.getOutputStatement("say \"hi\""));
+        assertEquals("obj.m(a, b)", factory.getMethodCallSyntax("obj", "m", "a", "b"));
+    }
+
+    @Test
+    void inputFromBindingsAndOutputToWriter() throws ScriptException {
+        ScriptEngine engine = new PjpScriptEngineFactory().getScriptEngine();
+        StringWriter out = new StringWriter();
+        engine.getContext().setWriter(out);
+        engine.put(PjpScriptEngine.INPUT, List.of(21, "answer"));
+
+        engine.eval(ECHO);
+
+        assertEquals("answer: 42.0" + System.lineSeparator(), out.toString());
+        assertEquals(42.0, engine.get("a")); // celočíselná aritmetika VM dává Double
+        assertEquals("answer", engine.get("s"));
+    }
+
+    @Test
+    void inputFromContextReader() throws ScriptException {
+        ScriptEngine engine = new PjpScriptEngineFactory().getScriptEngine();
+        StringWriter out = new StringWriter();
+        engine.getContext().setWriter(out);
+        engine.getContext().setReader(new StringReader("5\nfive\n"));
+
+        engine.eval(ECHO);
+
+        assertEquals("five: 10.0" + System.lineSeparator(), out.toString());
+    }
+
+    @Test
+    void compiledScriptIsCachedAndReusable() throws ScriptException {
+        PjpScriptEngineFactory factory = new PjpScriptEngineFactory(2);
+        Compilable engine = (Compilable) factory.getScriptEngine();
+        CompiledScript script = engine.compile(ECHO);
+        assertNotNull(factory.cached(ECHO));
+
+        for (int i = 1; i <= 3; i++) {
+            Bindings bindings = new SimpleBindings();
+            bindings.put(PjpScriptEngine.INPUT, i + "\nrun");
+            StringWriter out = new StringWriter();
+            ScriptContext context = new SimpleScriptContext();
+            context.setBindings(bindings, ScriptContext.ENGINE_SCOPE);
+            context.setWriter(out);
+            script.eval(context);
+            assertEquals("run: " + (i * 2.0) + System.lineSeparator(), out.toString());
+        }
+
+        // LRU: po dvou dalších skriptech je první vyhozený
+        engine.compile("int x;");
+        engine.compile("int y;");
+        assertNull(factory.cached(ECHO));
+        assertNull(new PjpScriptEngineFactory(0).cached(ECHO));
+    }
+
+    @Test
+    void errorsAreScriptExceptions() {
+        ScriptEngine engine = new PjpScriptEngineFactory().getScriptEngine();
+        ScriptException type = assertThrows(ScriptException.class, () -> engine.eval("int x; x = \"s\";"));
+        assertTrue(type.getMessage().contains("Cannot assign string"));
+        assertThrows(ScriptException.class, () -> engine.eval("int x x = 1;"));
+        assertThrows(ScriptException.class, () -> engine.eval("int x; x = 1 % 0;"));
+    }
+}
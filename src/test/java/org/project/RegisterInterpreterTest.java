@@ -0,0 +1,73 @@
+package org.project;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RegisterInterpreterTest {
+
+    private static final String GENERATED_DIR = "src/test/resources/tests/generated/";
+
+    // vstupní hodnoty pro read: int, float, string, bool
+    private static final List<String> INPUT = List.of("42", "3.14", "hello", "true");
+
+    @BeforeAll
+    static void generateAll() throws IOException {
+        new CodeGenTest().generateAll();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"generated_ok_1.code", "generated_ok_2.code", "generated_ok_3.code",
+            "generated_ok_4.code", "generated_ok_5.code", "generated_ok_6.code", "generated_ok_7.code"})
+    void testSameOutputAsStackMachine(String fileName) throws IOException {
+        List<String> code = Files.readAllLines(Path.of(GENERATED_DIR + fileName));
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        Interpreter interpreter = new Interpreter(INPUT);
+        interpreter.setOutput(new PrintStream(expected));
+        interpreter.load(code);
+        interpreter.run(Long.MAX_VALUE);
+
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        RegisterProgram program = RegisterTranslator.translate(code);
+        RegisterInterpreter registerVm = new RegisterInterpreter(INPUT);
+        registerVm.setOutput(new PrintStream(actual));
+        registerVm.execute(program);
+
+        assertEquals(expected.toString(), actual.toString(), "Output differs for: " + fileName);
+        assertTrue(registerVm.getExecutedInstructions() <= interpreter.getExecutedInstructions(),
+                "Register VM executed more instructions for: " + fileName);
+    }
+
+    @Test
+    void readsConsecutiveStdinLines() {
+        InputStream originalIn = System.in;
+        try {
+            // všechna čtení sdílí jeden buffer, druhý read nesmí přijít o řádek
+            System.setIn(new ByteArrayInputStream("7\nseven\n".getBytes(StandardCharsets.UTF_8)));
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            RegisterInterpreter registerVm = new RegisterInterpreter();
+            registerVm.setOutput(new PrintStream(out));
+            List<String> code = EngineBenchmark.compile("int a; string s; read a, s; write a * 2, s;");
+            registerVm.execute(code);
+            assertEquals(List.of("14.0seven"), out.toString().lines().toList());
+            assertThrows(NoSuchElementException.class, () -> registerVm.execute(code));
+        } finally {
+            System.setIn(originalIn);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package org.project;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplayRunnerTest {
+
+    private static final String SOURCE = """
+            int n, i, sum; string name; float scale;
+            read n, name, scale;
+            i = 0; sum = 0;
+            while (i < n) {
+                sum = sum + i;
+                i = i + 1;
+            }
+            write name, ": ", sum, " ", scale * 2.0;
+            """;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void recordsInputsAndMetadataAcrossRuns() throws IOException {
+        RunRecording recording = new RunRecording();
+        Interpreter vm = Interpreter.withOpenInput();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        vm.setOutput(new PrintStream(out));
+        vm.setRecording(recording);
+        vm.load(EngineBenchmark.compile(SOURCE));
+
+        // vstup přichází postupně, čekání mezi během se do času nepočítá
+        assertEquals(Interpreter.Status.WAITING_FOR_INPUT, vm.run(Long.MAX_VALUE));
+        vm.provideInput("500");
+        vm.provideInput("a\\b\nc");
+        vm.provideInput("1.5");
+        assertEquals(Interpreter.Status.HALTED, vm.run(Long.MAX_VALUE));
+
+        assertEquals(List.of("500", "a\\b\nc", "1.5"), recording.inputs());
+        assertEquals(vm.getExecutedInstructions(), recording.instructions());
+        assertEquals("verified", recording.engine());
+        assertEquals("HALTED", recording.status());
+        assertEquals(RunRecording.outputHash(out.toString()), recording.outputHash());
+
+        Path file = dir.resolve("run.rec");
+        recording.save(file);
+        RunRecording loaded = RunRecording.load(file);
+        assertEquals(recording.inputs(), loaded.inputs());
+        assertEquals(recording.programHash(), loaded.programHash());
+        assertEquals(recording.instructions(), loaded.instructions());
+        assertEquals(recording.computeNanos(), loaded.computeNanos());
+        assertEquals(recording.outputHash(), loaded.outputHash());
+        assertEquals(recording.recordedAt(), loaded.recordedAt());
+    }
+
+    @Test
+    void replayRunsEveryEngineWithRecordedInputs() {
+        RunRecording recording = record(SOURCE, List.of("2000", "total", "0.25"));
+
+        ReplayRunner.Report report = ReplayRunner.replay(SOURCE, recording, 2);
+        assertTrue(report.sameProgram());
+        assertEquals(List.of("stack", "checked", "unroll4", "profiled", "ir", "liveness", "register", "closure"),
+                report.results().stream().map(ReplayRunner.Result::engine).toList());
+        for (ReplayRunner.Result result : report.results()) {
+            assertTrue(result.outputMatches(), result.engine());
+            assertTrue(result.nanos() > 0, result.engine());
+        }
+        assertEquals(recording.instructions(), report.results().get(0).instructions());
+        assertEquals(recording.instructions(), report.results().get(1).instructions());
+        assertTrue(report.results().get(2).instructions() < recording.instructions());
+        assertEquals(-1, report.results().get(7).instructions());
+
+        String table = report.format();
+        assertTrue(table.contains("recorded "), table);
+        assertTrue(table.lines().anyMatch(l -> l.startsWith("register") && l.endsWith("same")), table);
+        assertFalse(table.contains("warning"), table);
+    }
+
+    @Test
+    void replayDetectsChangedSourceAndOutput() {
+        RunRecording recording = record(SOURCE, List.of("10", "x", "1.0"));
+        String changed = SOURCE.replace("sum = sum + i;", "sum = sum + i + 1;");
+
+        ReplayRunner.Report report = ReplayRunner.replay(changed, recording, 1);
+        assertFalse(report.sameProgram());
+        assertTrue(report.results().stream().noneMatch(ReplayRunner.Result::outputMatches));
+        assertTrue(report.format().contains("warning"));
+        assertThrows(IllegalArgumentException.class, () -> ReplayRunner.replay("int a; a = true;", recording));
+    }
+
+    @Test
+    void replaysFailedAndPartiallyEvaluatedRuns() {
+        // běh spadne na neplatném vstupu; záznam i replay to musí přežít
+        String source = """
+                int i, sum, n;
+                i = 0; sum = 0;
+                while (i < 100) { sum = sum + i; i = i + 1; }
+                write sum;
+                read n;
+                write n;
+                """;
+        RunRecording failed = new RunRecording();
+        Interpreter vm = new Interpreter(List.of("abc"));
+        vm.setOutput(new PrintStream(new ByteArrayOutputStream()));
+        vm.setRecording(failed);
+        vm.load(EngineBenchmark.compile(source));
+        assertThrows(NumberFormatException.class, () -> vm.run(Long.MAX_VALUE));
+        assertEquals("FAILED", failed.status());
+
+        ReplayRunner.Report report = ReplayRunner.replay(source, failed, 1);
+        assertTrue(report.sameProgram());
+        for (ReplayRunner.Result result : report.results()) {
+            assertNotNull(result.error(), result.engine());
+            assertTrue(result.outputMatches(), result.engine()); // výstup do chyby je stejný
+        }
+        assertTrue(report.format().contains("failed: "), report.format());
+
+        // skripty přes PjpScriptEngine běží částečně vyhodnocený program
+        Interpreter.Program evaluated = PartialEvaluator.evaluate(Interpreter.Program.decode(EngineBenchmark.compile(source)));
+        RunRecording recording = new RunRecording();
+        Interpreter engineVm = new Interpreter(List.of("5"));
+        engineVm.setOutput(new PrintStream(new ByteArrayOutputStream()));
+        engineVm.setRecording(recording);
+        engineVm.load(evaluated);
+        engineVm.run(Long.MAX_VALUE);
+        assertTrue(recording.instructions() < 100);
+        ReplayRunner.Report fromEngine = ReplayRunner.replay(source, recording, 1);
+        assertTrue(fromEngine.sameProgram());
+        assertTrue(fromEngine.results().stream().allMatch(ReplayRunner.Result::outputMatches));
+    }
+
+    @Test
+    void replayAgreesAcrossEnginesOnShortCircuitLoops() {
+        // podmínky s && a || uvnitř smyček rozbíjely mezikód, replay musí rozdíl mezi enginy odhalit
+        String source = """
+                int n, m, k;
+                read k;
+                m = k * 2;
+                while (n < k && 2.5 < 5.5 || n < 0) { n = n + 2; }
+                while (m > 0 && (m > 10 || m == 4)) { m = m - 1; }
+                write n, " ", m, " ", k * 2;
+                """;
+        RunRecording recording = record(source, List.of("9"));
+
+        ReplayRunner.Report report = ReplayRunner.replay(source, recording, 1);
+        assertTrue(report.sameProgram());
+        for (ReplayRunner.Result result : report.results()) {
+            assertNull(result.error(), result.engine());
+            assertTrue(result.outputMatches(), result.engine());
+        }
+        assertFalse(report.format().contains("DIFFERENT"), report.format());
+    }
+
+    private static RunRecording record(String source, List<String> inputs) {
+        RunRecording recording = new RunRecording();
+        Interpreter vm = new Interpreter(inputs);
+        vm.setOutput(new PrintStream(new ByteArrayOutputStream()));
+        vm.setRecording(recording);
+        vm.load(EngineBenchmark.compile(source));
+        vm.run(Long.MAX_VALUE);
+        return recording;
+    }
+}
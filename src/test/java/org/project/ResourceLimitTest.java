@@ -0,0 +1,117 @@
+package org.project;
+
+import org.junit.jupiter.api.Test;
+
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptException;
+import javax.script.SimpleScriptContext;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResourceLimitTest {
+
+    private static final String DOUBLING = """
+            string s; s = "x";
+            while (true) s = s . s;
+            """;
+
+    @Test
+    void stopsConcatLoopAtMemoryLimit() {
+        Interpreter vm = vm(EngineBenchmark.compile(DOUBLING));
+        assertTrue(vm.isVerified());
+        vm.setMemoryLimit(1 << 20);
+
+        ResourceLimitException e = assertThrows(ResourceLimitException.class, () -> vm.run(Long.MAX_VALUE));
+        assertTrue(e.getMessage().startsWith("Memory limit exceeded"), e.getMessage());
+        assertTrue(vm.getPeakMemoryBytes() > 1 << 20);
+        assertTrue(vm.getPeakMemoryBytes() < 4 << 20, "peak " + vm.getPeakMemoryBytes());
+    }
+
+    @Test
+    void countsStringsOnCheckedPathToo() {
+        // ručně psaný kód bez verifikace: řetězce se hromadí na zásobníku
+        Interpreter vm = vm(List.of("label a", "push S \"0123456789\"", "jmp a"));
+        assertFalse(vm.isVerified());
+        vm.setMemoryLimit(100_000);
+        assertThrows(ResourceLimitException.class, () -> vm.run(Long.MAX_VALUE));
+        assertTrue(vm.getPeakMemoryBytes() > 100_000);
+    }
+
+    @Test
+    void countsStackGrowthWithoutStrings() {
+        // hodnoty se jen přidávají na zásobník a nikdy se neodeberou
+        Interpreter vm = vm(List.of("label L", "push I 1", "jmp L"));
+        assertFalse(vm.isVerified());
+        vm.setMemoryLimit(1_000_000);
+        ResourceLimitException e = assertThrows(ResourceLimitException.class, () -> vm.run(5_000_000));
+        assertTrue(e.getMessage().startsWith("Memory limit exceeded"), e.getMessage());
+        assertTrue(vm.getPeakMemoryBytes() > 1_000_000);
+        assertTrue(vm.getPeakMemoryBytes() < 2_000_000, "peak " + vm.getPeakMemoryBytes());
+
+        // rychlá cesta účtuje celou statickou hloubku zásobníku předem, i bez řetězců
+        Interpreter verified = vm(EngineBenchmark.compile("write 1, 2, 3;"));
+        assertTrue(verified.isVerified());
+        assertEquals(Interpreter.Status.HALTED, verified.run(Long.MAX_VALUE));
+        assertTrue(verified.getPeakMemoryBytes() >= 3 * 24, "peak " + verified.getPeakMemoryBytes());
+        Interpreter tight = vm(EngineBenchmark.compile("write 1, 2, 3;"));
+        tight.setMemoryLimit(50);
+        assertThrows(ResourceLimitException.class, () -> tight.run(Long.MAX_VALUE));
+    }
+
+    @Test
+    void enforcesStackLimit() {
+        Interpreter unbounded = vm(List.of("label a", "push I 1", "jmp a"));
+        unbounded.setStackLimit(1000);
+        ResourceLimitException e = assertThrows(ResourceLimitException.class, () -> unbounded.run(Long.MAX_VALUE));
+        assertEquals("Stack depth limit exceeded: 1001 > 1000", e.getMessage());
+
+        // ověřený program s vyšší statickou hloubkou jde kontrolovanou cestou
+        Interpreter verified = vm(EngineBenchmark.compile("write 1, 2, 3;"));
+        verified.setStackLimit(2);
+        assertThrows(ResourceLimitException.class, () -> verified.run(Long.MAX_VALUE));
+
+        Interpreter fits = vm(EngineBenchmark.compile("write 1, 2, 3;"));
+        fits.setStackLimit(3);
+        assertEquals(Interpreter.Status.HALTED, fits.run(Long.MAX_VALUE));
+    }
+
+    @Test
+    void reportsPeakMemoryOfFinishedRun() {
+        Interpreter vm = vm(EngineBenchmark.compile("""
+                string s; int i; s = ""; i = 0;
+                while (i < 100) { s = s . "0123456789"; i = i + 1; }
+                s = "";
+                """));
+        vm.setMemoryLimit(1 << 20);
+        assertEquals(Interpreter.Status.HALTED, vm.run(Long.MAX_VALUE));
+        // řetězec o 1000 znacích se držel, i když na konci už není
+        assertTrue(vm.getPeakMemoryBytes() >= 2000, "peak " + vm.getPeakMemoryBytes());
+
+        vm.reset(List.of());
+        assertEquals(0, vm.getPeakMemoryBytes());
+    }
+
+    @Test
+    void scriptEngineAppliesLimitsFromContext() throws ScriptException {
+        ScriptEngine engine = new PjpScriptEngineFactory().getScriptEngine();
+        ScriptContext context = new SimpleScriptContext();
+        context.setWriter(new StringWriter());
+        context.setAttribute(PjpScriptEngine.MEMORY_LIMIT, 64 * 1024, ScriptContext.ENGINE_SCOPE);
+
+        ScriptException e = assertThrows(ScriptException.class, () -> engine.eval(DOUBLING, context));
+        assertInstanceOf(ResourceLimitException.class, e.getCause());
+        assertTrue(PjpMetrics.get().getPeakScriptMemoryBytes() > 64 * 1024);
+    }
+
+    private static Interpreter vm(List<String> code) {
+        Interpreter vm = new Interpreter(List.of());
+        vm.setOutput(new PrintStream(new ByteArrayOutputStream()));
+        vm.load(code);
+        return vm;
+    }
+}
@@ -0,0 +1,49 @@
+package org.project;
+
+import javax.script.Bindings;
+import javax.script.ScriptEngine;
+import javax.script.ScriptException;
+import javax.script.SimpleBindings;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Porovná opakované {@code eval} přes {@link PjpScriptEngine} s cache přeložených skriptů a bez ní
+ * (spouští se ručně přes main, není součástí testů).
+ */
+public class ScriptEngineBenchmark {
+
+    private static final int EVALS = 2_000;
+    private static final int RUNS = 5;
+
+    public static void main(String[] args) throws IOException, ScriptException {
+        List<String> scripts = new ArrayList<>();
+        try (var files = Files.list(Path.of(CodeGenTest.PASS_DIR))) {
+            for (Path file : files.filter(p -> p.toString().endsWith(".pjp")).sorted().toList()) {
+                scripts.add(Files.readString(file));
+            }
+        }
+
+        benchmark("no cache", new PjpScriptEngineFactory(0).getScriptEngine(), scripts);
+        benchmark("cached", new PjpScriptEngineFactory().getScriptEngine(), scripts);
+    }
+
+    private static void benchmark(String name, ScriptEngine engine, List<String> scripts) throws ScriptException {
+        engine.getContext().setWriter(Writer.nullWriter());
+        long best = Long.MAX_VALUE;
+        for (int run = 0; run < RUNS; run++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < EVALS; i++) {
+                Bindings bindings = new SimpleBindings();
+                bindings.put(PjpScriptEngine.INPUT, List.of("42", "3.14", "hello", "true"));
+                engine.eval(scripts.get(i % scripts.size()), bindings);
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%-10s %6d evals %10.2f ms (%.1f us/eval)%n", name, EVALS, best / 1e6, best / 1e3 / EVALS);
+    }
+}
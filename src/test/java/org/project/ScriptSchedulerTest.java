@@ -0,0 +1,115 @@
+package org.project;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScriptSchedulerTest {
+
+    // while (true) { }
+    private static final List<String> INFINITE_LOOP = List.of(
+            "label L0",
+            "push B true",
+            "fjmp L1",
+            "jmp L0",
+            "label L1"
+    );
+
+    // int a; read a; write a;
+    private static final List<String> READ_AND_WRITE = List.of(
+            "push I 0",
+            "save a",
+            "read I",
+            "save a",
+            "load a",
+            "print 1"
+    );
+
+    @Test
+    void testStepApiSuspendsOnMissingInput() {
+        Interpreter vm = Interpreter.withOpenInput();
+        ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+        vm.setOutput(new PrintStream(outContent));
+        vm.load(READ_AND_WRITE);
+
+        assertEquals(Interpreter.Status.YIELDED, vm.run(1));
+        assertEquals(Interpreter.Status.WAITING_FOR_INPUT, vm.run(100));
+        assertEquals(2, vm.getExecutedInstructions());
+
+        vm.provideInput("7");
+        assertEquals(Interpreter.Status.HALTED, vm.run(100));
+        assertEquals("7", outContent.toString().trim());
+    }
+
+    @Test
+    void testRunawayScriptExceedsBudget() {
+        try (ScriptScheduler scheduler = new ScriptScheduler(2, 100)) {
+            Interpreter vm = new Interpreter(List.of());
+            vm.load(INFINITE_LOOP);
+            ScriptScheduler.Task task = scheduler.submit(vm, 10_000, Duration.ofSeconds(10));
+
+            ExecutionException e = assertThrows(ExecutionException.class, () -> task.result().get(10, TimeUnit.SECONDS));
+            assertInstanceOf(ResourceLimitException.class, e.getCause());
+        }
+    }
+
+    @Test
+    void testParkedScriptTimesOut() {
+        try (ScriptScheduler scheduler = new ScriptScheduler(1, 100)) {
+            Interpreter vm = Interpreter.withOpenInput();
+            vm.load(READ_AND_WRITE);
+            ScriptScheduler.Task task = scheduler.submit(vm, Long.MAX_VALUE, Duration.ofMillis(100));
+
+            ExecutionException e = assertThrows(ExecutionException.class, () -> task.result().get(10, TimeUnit.SECONDS));
+            assertInstanceOf(ResourceLimitException.class, e.getCause());
+        }
+    }
+
+    @Test
+    void testCloseFailsParkedAndRunningScripts() throws Exception {
+        ScriptScheduler scheduler = new ScriptScheduler(1, 10);
+        Interpreter runaway = new Interpreter(List.of());
+        runaway.load(INFINITE_LOOP);
+        ScriptScheduler.Task loop = scheduler.submit(runaway, Long.MAX_VALUE, Duration.ofSeconds(10));
+        Interpreter reader = Interpreter.withOpenInput();
+        reader.load(READ_AND_WRITE);
+        ScriptScheduler.Task parked = scheduler.submit(reader, Long.MAX_VALUE, Duration.ofSeconds(10));
+        while (reader.getExecutedInstructions() < 2) Thread.sleep(1);
+
+        scheduler.close();
+        parked.offerInput("1"); // probuzení po zavření nesmí skript vrátit do fronty
+        for (ScriptScheduler.Task task : List.of(loop, parked)) {
+            // CompletableFuture hlásí CancellationException přímo, ne zabalenou
+            assertThrows(CancellationException.class, () -> task.result().get(10, TimeUnit.SECONDS));
+        }
+        assertThrows(IllegalStateException.class, () -> scheduler.submit(runaway, 1, Duration.ofSeconds(1)));
+    }
+
+    @Test
+    void testScriptsShareCarrierAndResumeOnInput() throws Exception {
+        try (ScriptScheduler scheduler = new ScriptScheduler(1, 10)) {
+            Interpreter runaway = new Interpreter(List.of());
+            runaway.load(INFINITE_LOOP);
+            ScriptScheduler.Task loop = scheduler.submit(runaway, 1_000_000, Duration.ofSeconds(10));
+
+            Interpreter reader = Interpreter.withOpenInput();
+            ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+            reader.setOutput(new PrintStream(outContent));
+            reader.load(READ_AND_WRITE);
+            ScriptScheduler.Task task = scheduler.submit(reader, 1_000, Duration.ofSeconds(10));
+
+            task.offerInput("42");
+            assertEquals(6L, task.result().get(10, TimeUnit.SECONDS));
+            assertEquals("42", outContent.toString().trim());
+            assertFalse(loop.result().isDone());
+        }
+    }
+}
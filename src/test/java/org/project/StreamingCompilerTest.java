@@ -0,0 +1,87 @@
+package org.project;
+
+import grammar.pjplangLexer;
+import grammar.pjplangParser;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StreamingCompilerTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"ok_1", "ok_2", "ok_3", "ok_4", "ok_5", "ok_6", "ok_7"})
+    void matchesWholeProgramCompilation(String name) throws IOException {
+        String source = Files.readString(Path.of(CodeGenTest.PASS_DIR + name + ".pjp"));
+
+        StringWriter streamed = new StringWriter();
+        StreamingCompiler.Result result = new StreamingCompiler().compile(new StringReader(source), streamed);
+        assertFalse(result.hasErrors(), () -> String.join("\n", result.errors()));
+
+        assertEquals(batch(source), streamed.toString());
+    }
+
+    @Test
+    void reportsTypeErrorsAndStopsEmitting() throws IOException {
+        String source = "int a; a = 1; string s; s = a; write a;";
+        StringWriter out = new StringWriter();
+        StreamingCompiler.Result result = new StreamingCompiler().compile(new StringReader(source), out);
+
+        assertTrue(result.hasErrors());
+        assertEquals(5, result.statements());
+        assertFalse(out.toString().contains("print"));
+    }
+
+    @Test
+    void compilesLargeGeneratedSource() throws IOException {
+        int blocks = 20_000;
+        // zdroj se generuje líně, celý text nikdy není v paměti
+        Reader source = new Reader() {
+            private int block = 0;
+            private String chunk = "int x; x = 0;\n";
+            private int pos = 0;
+
+            @Override
+            public int read(char[] buf, int off, int len) {
+                if (pos == chunk.length()) {
+                    if (block == blocks) return -1;
+                    chunk = "{ x = x + " + block + "; if (x > 10) x = x - 10; }\n";
+                    block++;
+                    pos = 0;
+                }
+                int n = Math.min(len, chunk.length() - pos);
+                chunk.getChars(pos, pos + n, buf, off);
+                pos += n;
+                return n;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        StreamingCompiler.Result result = new StreamingCompiler().compile(source, Writer.nullWriter());
+        assertFalse(result.hasErrors());
+        assertEquals(blocks + 2, result.statements());
+        assertTrue(result.instructions() > blocks * 10L);
+    }
+
+    private static String batch(String source) {
+        pjplangParser parser = new pjplangParser(new CommonTokenStream(new pjplangLexer(CharStreams.fromString(source))));
+        ParseTree tree = parser.program();
+        new TypeChecker().visit(tree);
+        CodeGenerator generator = new CodeGenerator();
+        generator.visit(tree);
+        List<String> code = generator.getInstructions();
+        return code.isEmpty() ? "" : String.join("\n", code) + "\n";
+    }
+}
@@ -0,0 +1,86 @@
+package org.project;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.script.ScriptEngine;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TelemetryTest {
+
+    // mez smyčky se čte ze vstupu, aby se skript nevyhodnotil už při překladu (PartialEvaluator)
+    private static final String SCRIPT = """
+            int i, n, sum;
+            read n;
+            i = 0;
+            while (i < n) { sum = sum + i * (i + 1); i = i + 1; }
+            write sum;
+            """;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void compilerPhasesAndExecutionAreRecorded() throws Exception {
+        Path file = tempDir.resolve("pjp.jfr");
+        try (Recording recording = new Recording()) {
+            for (String name : List.of("Parse", "TypeCheck", "CodeGen", "Load", "Execute")) {
+                recording.enable("org.project." + name).withoutThreshold();
+            }
+            recording.start();
+            ScriptEngine engine = new PjpScriptEngineFactory(0).getScriptEngine();
+            engine.getContext().setWriter(Writer.nullWriter());
+            engine.put(PjpScriptEngine.INPUT, "10");
+            engine.eval(SCRIPT);
+            recording.stop();
+            recording.dump(file);
+        }
+
+        Map<String, RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                .collect(Collectors.toMap(e -> e.getEventType().getName(), e -> e, (a, b) -> b));
+
+        assertEquals(SCRIPT.length(), events.get("org.project.Parse").getLong("sourceSize"));
+        assertEquals(0, events.get("org.project.TypeCheck").getInt("errorCount"));
+        long instructions = events.get("org.project.CodeGen").getLong("instructionCount");
+        assertTrue(instructions > 0);
+        assertEquals(instructions, events.get("org.project.Load").getLong("instructionCount"));
+
+        RecordedEvent execute = events.get("org.project.Execute");
+        assertTrue(execute.getLong("instructionsExecuted") > instructions);
+        assertTrue(execute.getInt("maxStackDepth") >= 3); // sum + i * (i + 1)
+        assertEquals("HALTED", execute.getString("status"));
+    }
+
+    @Test
+    void metricsAreExposedThroughJmx() throws Exception {
+        PjpMetrics metrics = PjpMetrics.get();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(PjpMetrics.OBJECT_NAME);
+        long runsBefore = (Long) server.getAttribute(name, "ScriptsRun");
+        long hitsBefore = metrics.getCacheHits();
+
+        ScriptEngine engine = new PjpScriptEngineFactory().getScriptEngine();
+        engine.getContext().setWriter(Writer.nullWriter());
+        engine.put(PjpScriptEngine.INPUT, "10");
+        engine.eval(SCRIPT);
+        engine.eval(SCRIPT);
+        assertThrows(Exception.class, () -> engine.eval("int x; x = 1 % 0;"));
+
+        assertTrue((Long) server.getAttribute(name, "ScriptsRun") >= runsBefore + 3);
+        assertTrue(metrics.getScriptsFailed() >= 1);
+        assertTrue(metrics.getCacheHits() >= hitsBefore + 1);
+        assertTrue((Double) server.getAttribute(name, "InstructionsPerSecond") > 0);
+    }
+}
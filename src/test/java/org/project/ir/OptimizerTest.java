@@ -0,0 +1,149 @@
+package org.project.ir;
+
+import grammar.pjplangLexer;
+import grammar.pjplangParser;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.project.CodeGenerator;
+import org.project.Interpreter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OptimizerTest {
+
+    private static final String PASS_DIR = "src/test/resources/tests/pass/";
+    private static final List<String> INPUT = List.of("42", "3.14", "hello", "true");
+
+    public static Stream<File> providePassingFiles() {
+        File[] files = new File(PASS_DIR).listFiles((d, name) -> name.endsWith(".pjp"));
+        assertNotNull(files, "Missing directory: " + PASS_DIR);
+        return Arrays.stream(files);
+    }
+
+    @ParameterizedTest
+    @MethodSource("providePassingFiles")
+    void testOptimizedCodeProducesSameOutput(File file) throws IOException {
+        List<String> code = compile(Files.readString(file.toPath()));
+        List<String> optimized = Optimizer.optimize(code);
+
+        Interpreter expected = new Interpreter(INPUT);
+        Interpreter actual = new Interpreter(INPUT);
+        assertEquals(run(expected, code), run(actual, optimized), "Output differs for: " + file.getName());
+        assertTrue(actual.getExecutedInstructions() <= expected.getExecutedInstructions(),
+                "Optimized code is slower for: " + file.getName());
+    }
+
+    @Test
+    void testTernaryBecomesPhi() {
+        List<String> code = compile("int x; bool c; read c; x = c ? 1 : 10; write x;");
+        IrFunction function = IrBuilder.build(code);
+
+        long phis = function.blocks().stream().mapToLong(b -> b.phis().size()).sum();
+        assertEquals(1, phis, String.join("\n", function.dump()));
+        // vstup, dvě větve, spojení a koncový blok
+        assertEquals(5, function.blocks().size(), String.join("\n", function.dump()));
+    }
+
+    @Test
+    void testLoopVariableGetsPhiInHeader() {
+        List<String> code = compile("int x; x = 0; while (x < 5) { x = x + 1; } write x;");
+        IrFunction function = IrBuilder.build(code);
+
+        BasicBlock header = function.blocks().stream().filter(b -> b.preds().size() == 2).findFirst().orElseThrow();
+        assertEquals(1, header.phis().size(), String.join("\n", function.dump()));
+    }
+
+    @Test
+    void testConstantConditionRemovesBranch() {
+        List<String> code = compile("int x; x = 5; if (x > 3) { write \"big\"; } else { write \"small\"; }");
+        List<String> optimized = Optimizer.optimize(code);
+
+        assertEquals(List.of("push S \"big\"", "print 1"), optimized);
+    }
+
+    @Test
+    void testRepeatedExpressionIsComputedOnce() {
+        List<String> code = compile("int a, b, c, x; read a, b, c; x = ((a * b + c) > 0) ? (a * b + c) : 0; write x;");
+        List<String> optimized = Optimizer.optimize(code);
+
+        assertEquals(1, optimized.stream().filter(line -> line.startsWith("mul")).count(), String.join("\n", optimized));
+        for (String input : List.of("2", "-5")) {
+            List<String> values = List.of(input, "3", "4");
+            assertEquals(run(new Interpreter(values), code), run(new Interpreter(values), optimized));
+        }
+    }
+
+    @Test
+    void testReadAndAssignmentInvalidateExpression() {
+        List<String> code = compile("""
+                int a, b, x, y, z;
+                read a, b; x = a * b - 1;
+                read a; y = a * b - 1;
+                b = b + 1; z = a * b - 1;
+                write x, y, z;
+                """);
+        List<String> optimized = Optimizer.optimize(code);
+
+        assertEquals(3, optimized.stream().filter(line -> line.startsWith("mul")).count(), String.join("\n", optimized));
+        List<String> values = List.of("2", "3", "5");
+        assertEquals(run(new Interpreter(values), code), run(new Interpreter(values), optimized));
+    }
+
+    @Test
+    void testShortCircuitLoopConditionKeepsVariables() {
+        // odstranění triviálního phi uvnitř && a || nesmí nechat odkaz na mrtvé phi
+        List<String> code = compile("int n, m; while (n < 7 && 2.5 < 5.5 || n < 0) { n = n + 2; } write m;");
+        List<String> optimized = Optimizer.optimize(code);
+
+        assertEquals(run(new Interpreter(INPUT), code), run(new Interpreter(INPUT), optimized), String.join("\n", optimized));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "int a, n; read a; while (n < a && n * 2 < 20 || n < 3) { n = n + 1; } write n, n * 2;",
+            "int a, n, m; read a; m = a * 2; while (n < a && 2.5 < 5.5 || n < 0) { n = n + 2; } write m, a * 2;",
+            "int a, n, s; read a; while (!(n > a) && (n * a < 50 || n * a > 100)) { s = s + n * a; n = n + 1; } write s;",
+            "int a, i, j, s; read a; while (i < a || i < 2) { j = 0; while (j < i && (j * j < a || j < 1)) { s = s + j * j; j = j + 1; } i = i + 1; } write s, j * j;",
+            "int a, n; bool p; read a; p = a > 3; while (p && n < a || (!p) && n < 5) { if (n * 2 > a && p) { n = n + 2; } else { n = n + 1; } } write n * 2, p;",
+    })
+    void testShortCircuitLoopsMatchStackMachine(String source) {
+        List<String> code = compile(source);
+        List<String> optimized = Optimizer.optimize(code, PassManager.defaultPipeline());
+
+        for (String input : List.of("0", "4", "9")) {
+            List<String> values = List.of(input);
+            assertEquals(run(new Interpreter(values), code), run(new Interpreter(values), optimized),
+                    source + " / " + input + "\n" + String.join("\n", optimized));
+        }
+    }
+
+    private static List<String> compile(String source) {
+        pjplangParser parser = new pjplangParser(new CommonTokenStream(new pjplangLexer(CharStreams.fromString(source))));
+        ParseTree tree = parser.program();
+        CodeGenerator generator = new CodeGenerator();
+        generator.visit(tree);
+        return generator.getInstructions();
+    }
+
+    private static String run(Interpreter interpreter, List<String> code) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        interpreter.setOutput(new PrintStream(out));
+        interpreter.load(code);
+        interpreter.run(Long.MAX_VALUE);
+        return out.toString();
+    }
+}